@@ -25,6 +25,7 @@ dependencies {
     implementation("org.jetbrains:annotations:24.1.0")
 
     // Test dependencies
+    testImplementation(files("libs/HytaleServer.jar"))
     testImplementation("org.junit.jupiter:junit-jupiter:5.10.0")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
@@ -69,9 +70,25 @@ tasks {
         minimize()
     }
 
-    // Configure tests
+    // Configure tests (benchmark-tagged tests are slow and only run with ./gradlew benchmark)
     test {
-        useJUnitPlatform()
+        useJUnitPlatform {
+            excludeTags("benchmark")
+        }
+    }
+
+    register<Test>("benchmark") {
+        description = "Runs the benchmark-tagged tests and prints their results."
+        group = "verification"
+        testClassesDirs = sourceSets["test"].output.classesDirs
+        classpath = sourceSets["test"].runtimeClasspath
+        maxHeapSize = "1g"
+        useJUnitPlatform {
+            includeTags("benchmark")
+        }
+        testLogging {
+            showStandardStreams = true
+        }
     }
 
     // Make build depend on shadowJar
@@ -5,6 +5,7 @@ import com.hypixel.hytale.server.core.universe.world.events.AllWorldsLoadedEvent
 import com.nhulston.essentials.commands.alert.AlertCommand;
 import com.nhulston.essentials.commands.antispam.AntiSpamCommand;
 import com.nhulston.essentials.commands.back.BackCommand;
+import com.nhulston.essentials.commands.back.BackListCommand;
 import com.nhulston.essentials.commands.discord.DiscordCommand;
 import com.nhulston.essentials.commands.essentials.EssentialsCommand;
 import com.nhulston.essentials.commands.freecam.FreecamCommand;
@@ -18,6 +19,7 @@ import com.nhulston.essentials.commands.list.ListCommand;
 import com.nhulston.essentials.commands.msg.MsgCommand;
 import com.nhulston.essentials.commands.msg.ReplyCommand;
 import com.nhulston.essentials.commands.personal.PersonalProtectCommand;
+import com.nhulston.essentials.commands.region.RegionCommand;
 import com.nhulston.essentials.commands.repair.RepairCommand;
 import com.nhulston.essentials.commands.rtp.RtpCommand;
 import com.nhulston.essentials.commands.shout.ShoutCommand;
@@ -26,19 +28,26 @@ import com.nhulston.essentials.commands.tphere.TphereCommand;
 import com.nhulston.essentials.commands.spawn.SetSpawnCommand;
 import com.nhulston.essentials.commands.spawn.SpawnCommand;
 import com.nhulston.essentials.commands.tpa.TpaCommand;
+import com.nhulston.essentials.commands.tpa.TpaHereCommand;
 import com.nhulston.essentials.commands.tpa.TpacceptCommand;
+import com.nhulston.essentials.commands.tpa.TpcancelCommand;
+import com.nhulston.essentials.commands.tpa.TpdenyCommand;
 import com.nhulston.essentials.commands.warp.DelWarpCommand;
 import com.nhulston.essentials.commands.warp.SetWarpCommand;
 import com.nhulston.essentials.commands.warp.WarpCommand;
 import com.nhulston.essentials.commands.votechest.VoteChestCommand;
-import com.nhulston.essentials.events.BuildProtectionEvent;
+import com.nhulston.essentials.events.BlockProtectionEvent;
 import com.nhulston.essentials.events.ChatEvent;
+import com.nhulston.essentials.events.ColumnCacheEvent;
 import com.nhulston.essentials.events.DeathLocationEvent;
 import com.nhulston.essentials.events.ItemClearEvent;
 import com.nhulston.essentials.events.JoinLeaveEvent;
 import com.nhulston.essentials.events.MotdEvent;
+import com.nhulston.essentials.events.PermissionCacheEvent;
 import com.nhulston.essentials.events.PersonalBenchProtectionEvent;
 import com.nhulston.essentials.events.PlayerQuitEvent;
+import com.nhulston.essentials.events.RegionProtectionEvent;
+import com.nhulston.essentials.events.RegionTransitionEvent;
 import com.nhulston.essentials.events.SpawnProtectionEvent;
 import com.nhulston.essentials.events.SpawnRegionTitleEvent;
 import com.nhulston.essentials.events.SpawnTeleportEvent;
@@ -47,15 +56,30 @@ import com.nhulston.essentials.events.SleepPercentageEvent;
 import com.nhulston.essentials.events.UpdateNotifyEvent;
 import com.nhulston.essentials.systems.VoteChestPlaceSystem;
 import com.nhulston.essentials.managers.*;
+import com.nhulston.essentials.storage.AtomicFileWriter;
+import com.nhulston.essentials.util.ColumnCache;
 import com.nhulston.essentials.util.ConfigManager;
+import com.nhulston.essentials.util.DestinationLoader;
 import com.nhulston.essentials.util.StorageManager;
 import com.nhulston.essentials.util.Log;
+import com.nhulston.essentials.util.PermissionCache;
+import com.nhulston.essentials.util.TeleportMetrics;
+import com.nhulston.essentials.util.TeleportUtil;
+import com.nhulston.essentials.util.TimingWheel;
 import com.nhulston.essentials.util.VersionChecker;
 import javax.annotation.Nonnull;
 public class Essentials extends JavaPlugin {
     public static final String VERSION = "1.6.0";
+    private static final int COLUMN_CACHE_COLUMNS = 32768;
+    private static final long COLUMN_CACHE_TTL_SECONDS = 120L;
     private static Essentials instance;
     private ConfigManager configManager;
+    private TimingWheel timingWheel;
+    private ColumnCache columnCache;
+    private PermissionCache permissionCache;
+    private DestinationLoader destinationLoader;
+    private TeleportMetrics teleportMetrics;
+    private AtomicFileWriter fileWriter;
     private StorageManager storageManager;
     private HomeManager homeManager;
     private WarpManager warpManager;
@@ -67,8 +91,12 @@ public class Essentials extends JavaPlugin {
     private KitManager kitManager;
     private BackManager backManager;
     private PersonalBenchManager personalBenchManager;
+    private RegionManager regionManager;
+    private ProtectionManager protectionManager;
+    private RegionTransitionManager regionTransitionManager;
     private AntiSpamManager antiSpamManager;
     private ItemClearManager itemClearManager;
+    private RtpPoolManager rtpPoolManager;
     private VoteChestManager voteChestManager;
     private VersionChecker versionChecker;
 
@@ -81,19 +109,32 @@ public class Essentials extends JavaPlugin {
         Log.init(getLogger());
         Log.info("Essentials is starting...");
         configManager = new ConfigManager(getDataDirectory());
-        storageManager = new StorageManager(getDataDirectory());
-        homeManager = new HomeManager(storageManager, configManager);
+        timingWheel = new TimingWheel("Essentials-Scheduler", 50L);
+        columnCache = new ColumnCache(COLUMN_CACHE_COLUMNS, COLUMN_CACHE_TTL_SECONDS);
+        TeleportUtil.setColumnCache(columnCache);
+        permissionCache = new PermissionCache(configManager.getPermissionCacheTtl(), timingWheel);
+        teleportMetrics = new TeleportMetrics();
+        TeleportUtil.setMetrics(teleportMetrics);
+        destinationLoader = new DestinationLoader(timingWheel);
+        fileWriter = new AtomicFileWriter(AtomicFileWriter.FsyncPolicy.fromConfig(configManager.getStorageFsync()));
+        storageManager = new StorageManager(getDataDirectory(), configManager, fileWriter);
+        homeManager = new HomeManager(storageManager, configManager, permissionCache);
         warpManager = new WarpManager(storageManager);
         spawnManager = new SpawnManager(storageManager);
-        chatManager = new ChatManager(configManager);
-        spawnProtectionManager = new SpawnProtectionManager(configManager, storageManager);
-        tpaManager = new TpaManager();
-        teleportManager = new TeleportManager(configManager);
+        chatManager = new ChatManager(configManager, permissionCache);
+        spawnProtectionManager = new SpawnProtectionManager(configManager, storageManager, permissionCache);
+        tpaManager = new TpaManager(configManager, timingWheel);
+        teleportManager = new TeleportManager(configManager, timingWheel, destinationLoader, teleportMetrics);
         kitManager = new KitManager(getDataDirectory(), storageManager);
-        backManager = new BackManager();
-        personalBenchManager = new PersonalBenchManager(getDataDirectory());
+        backManager = new BackManager(storageManager, configManager);
+        personalBenchManager = new PersonalBenchManager(storageManager);
+        regionManager = new RegionManager(storageManager, permissionCache);
+        protectionManager = new ProtectionManager(spawnProtectionManager, personalBenchManager, regionManager);
+        regionTransitionManager = new RegionTransitionManager(spawnProtectionManager, regionManager, protectionManager);
         antiSpamManager = new AntiSpamManager(configManager);
-        itemClearManager = new ItemClearManager(configManager);
+        itemClearManager = new ItemClearManager(configManager, timingWheel);
+        rtpPoolManager = new RtpPoolManager(configManager, timingWheel, spawnProtectionManager, personalBenchManager,
+                regionManager);
         voteChestManager = new VoteChestManager(getDataDirectory());
         versionChecker = new VersionChecker(VERSION);
     }
@@ -102,6 +143,7 @@ public class Essentials extends JavaPlugin {
         registerCommands();
         registerEvents();
         itemClearManager.start();
+        rtpPoolManager.start();
         versionChecker.checkForUpdatesAsync();
         Log.info("Essentials v" + VERSION + " started successfully!");
     }
@@ -111,15 +153,24 @@ public class Essentials extends JavaPlugin {
         if (itemClearManager != null) {
             itemClearManager.shutdown();
         }
+        if (rtpPoolManager != null) {
+            rtpPoolManager.shutdown();
+        }
         if (storageManager != null) {
             storageManager.shutdown();
         }
+        if (fileWriter != null) {
+            fileWriter.close();
+        }
         if (tpaManager != null) {
             tpaManager.shutdown();
         }
         if (teleportManager != null) {
             teleportManager.shutdown();
         }
+        if (timingWheel != null) {
+            timingWheel.shutdown();
+        }
         Log.info("Essentials shut down.");
     }
     private void registerCommands() {
@@ -135,11 +186,15 @@ public class Essentials extends JavaPlugin {
         getCommandRegistry().registerCommand(new SpawnCommand(spawnManager, teleportManager, backManager));
 
         getCommandRegistry().registerCommand(new TpaCommand(tpaManager));
+        getCommandRegistry().registerCommand(new TpaHereCommand(tpaManager));
         getCommandRegistry().registerCommand(new TpacceptCommand(tpaManager, teleportManager, backManager));
+        getCommandRegistry().registerCommand(new TpdenyCommand(tpaManager));
+        getCommandRegistry().registerCommand(new TpcancelCommand(tpaManager));
 
         getCommandRegistry().registerCommand(new KitCommand(kitManager));
         getCommandRegistry().registerCommand(new BackCommand(backManager, teleportManager));
-        getCommandRegistry().registerCommand(new RtpCommand(configManager, storageManager, teleportManager, backManager));
+        getCommandRegistry().registerCommand(new BackListCommand(backManager));
+        getCommandRegistry().registerCommand(new RtpCommand(configManager, storageManager, teleportManager, backManager, rtpPoolManager));
 
         getCommandRegistry().registerCommand(new ListCommand());
         getCommandRegistry().registerCommand(new HealCommand());
@@ -153,6 +208,7 @@ public class Essentials extends JavaPlugin {
         getCommandRegistry().registerCommand(new ShoutCommand(configManager));
         getCommandRegistry().registerCommand(new RepairCommand(configManager, storageManager));
         getCommandRegistry().registerCommand(new PersonalProtectCommand(personalBenchManager));
+        getCommandRegistry().registerCommand(new RegionCommand(regionManager));
         getCommandRegistry().registerCommand(new AlertCommand());
         getCommandRegistry().registerCommand(new AntiSpamCommand(configManager));
         getCommandRegistry().registerCommand(new DiscordCommand(configManager));
@@ -162,10 +218,14 @@ public class Essentials extends JavaPlugin {
     private void registerEvents() {
         new JoinLeaveEvent(configManager, storageManager).register(getEventRegistry());
         new ChatEvent(chatManager, antiSpamManager).register(getEventRegistry());
-        new BuildProtectionEvent(configManager).register(getEntityStoreRegistry());
-        new SpawnProtectionEvent(spawnProtectionManager).register(getEntityStoreRegistry());
-        new SpawnRegionTitleEvent(spawnProtectionManager, configManager).register(getEntityStoreRegistry());
+        new BlockProtectionEvent(configManager, protectionManager, spawnProtectionManager, regionManager,
+                personalBenchManager, permissionCache).register(getEntityStoreRegistry());
+        new SpawnProtectionEvent(spawnProtectionManager, regionManager).register(getEntityStoreRegistry());
+        new RegionProtectionEvent(regionManager).register(getEntityStoreRegistry());
+        new RegionTransitionEvent(regionTransitionManager).register(getEntityStoreRegistry());
+        new SpawnRegionTitleEvent(spawnProtectionManager, configManager).register(regionTransitionManager);
         new TeleportMovementEvent(teleportManager).register(getEntityStoreRegistry());
+        new ColumnCacheEvent(columnCache).register(getEntityStoreRegistry());
         SpawnTeleportEvent spawnTeleportEvent = new SpawnTeleportEvent(spawnManager, configManager, storageManager);
         spawnTeleportEvent.registerEvents(getEventRegistry());
         spawnTeleportEvent.registerSystems(getEntityStoreRegistry());
@@ -176,7 +236,9 @@ public class Essentials extends JavaPlugin {
         new PersonalBenchProtectionEvent(personalBenchManager).register(getEntityStoreRegistry());
         new ItemClearEvent(itemClearManager).register(getEventRegistry());
         getEntityStoreRegistry().registerSystem(new VoteChestPlaceSystem(voteChestManager));
-        new PlayerQuitEvent(storageManager, tpaManager, teleportManager, backManager, antiSpamManager).register(getEventRegistry());
+        new PlayerQuitEvent(storageManager, tpaManager, teleportManager, antiSpamManager, regionManager,
+                regionTransitionManager, permissionCache).register(getEventRegistry());
+        new PermissionCacheEvent(permissionCache).register(getEventRegistry());
 
         getEventRegistry().registerGlobal(AllWorldsLoadedEvent.class, event -> {
             spawnManager.syncWorldSpawnProvider();
@@ -195,10 +257,56 @@ public class Essentials extends JavaPlugin {
         return storageManager;
     }
 
+    /**
+     * Gets the shared scheduler for delayed actions.
+     */
+    @Nonnull
+    public TimingWheel getTimingWheel() {
+        return timingWheel;
+    }
+
+    /**
+     * Gets the pool of pre-validated RTP destinations.
+     */
+    @Nonnull
+    public RtpPoolManager getRtpPoolManager() {
+        return rtpPoolManager;
+    }
+
+    /**
+     * Gets the teleport latency histograms and failure counters.
+     */
+    @Nonnull
+    public TeleportMetrics getTeleportMetrics() {
+        return teleportMetrics;
+    }
+
+    /**
+     * Gets the region enter/exit tracker, for features that react to players crossing areas.
+     */
+    @Nonnull
+    public RegionTransitionManager getRegionTransitionManager() {
+        return regionTransitionManager;
+    }
+
+    /**
+     * Gets the per-player permission decision cache.
+     */
+    @Nonnull
+    public PermissionCache getPermissionCache() {
+        return permissionCache;
+    }
+
     public void reloadConfigs() {
         configManager.reload();
+        fileWriter.setFsyncPolicy(AtomicFileWriter.FsyncPolicy.fromConfig(configManager.getStorageFsync()));
+        storageManager.reload(configManager);
+        rtpPoolManager.reload();
         kitManager.reload();
         voteChestManager.reload();
+        protectionManager.invalidate();
+        permissionCache.setTtlSeconds(configManager.getPermissionCacheTtl());
+        permissionCache.invalidateAll();
         Log.info("All configurations reloaded.");
     }
 }
@@ -4,18 +4,24 @@ import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.math.vector.Vector3d;
 import com.hypixel.hytale.math.vector.Vector3f;
 import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
 import com.hypixel.hytale.server.core.command.system.basecommands.AbstractPlayerCommand;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import com.nhulston.essentials.managers.BackManager;
 import com.nhulston.essentials.managers.TeleportManager;
+import com.nhulston.essentials.models.BackHistory;
 import com.nhulston.essentials.util.Msg;
+import com.nhulston.essentials.util.TeleportMetrics;
 import javax.annotation.Nonnull;
+import java.util.UUID;
 
 /**
  * Command to teleport back to the player's last location (death or pre-teleport).
  * Usage: /back
+ * Usage: /back <n> (n-th most recent location, see /backs)
  */
 public class BackCommand extends AbstractPlayerCommand {
     private final BackManager backManager;
@@ -27,16 +33,28 @@ public class BackCommand extends AbstractPlayerCommand {
         this.teleportManager = teleportManager;
 
         requirePermission("essentials.back");
+        addUsageVariant(new BackIndexCommand(backManager, teleportManager));
     }
 
     @Override
     protected void execute(@Nonnull CommandContext context, @Nonnull Store<EntityStore> store,
                            @Nonnull Ref<EntityStore> ref, @Nonnull PlayerRef playerRef, @Nonnull World world) {
-        java.util.UUID playerUuid = playerRef.getUuid();
-        BackManager.BackLocation backLocation = backManager.getBackLocation(playerUuid);
+        doBack(context, store, ref, playerRef, world, 1, backManager, teleportManager);
+    }
+
+    private static void doBack(@Nonnull CommandContext context, @Nonnull Store<EntityStore> store,
+                               @Nonnull Ref<EntityStore> ref, @Nonnull PlayerRef playerRef, @Nonnull World world,
+                               int index, @Nonnull BackManager backManager, @Nonnull TeleportManager teleportManager) {
+        UUID playerUuid = playerRef.getUuid();
+        // Read before the current location is pushed, which shifts every entry by one
+        BackHistory.Entry backLocation = backManager.getBackLocation(playerUuid, index - 1);
 
         if (backLocation == null) {
-            Msg.fail(context, "You have no previous location to return to.");
+            if (index == 1) {
+                Msg.fail(context, "You have no previous location to return to.");
+            } else {
+                Msg.fail(context, "You don't have " + index + " previous locations. Use /backs to list them.");
+            }
             return;
         }
 
@@ -50,15 +68,42 @@ public class BackCommand extends AbstractPlayerCommand {
         Vector3d startPosition = playerRef.getTransform().getPosition();
 
         teleportManager.queueTeleport(
-            playerRef, ref, store, startPosition,
-            backLocation.getWorldName(),
-            backLocation.getX(),
-            backLocation.getY(),
-            backLocation.getZ(),
-            backLocation.getYaw(),
-            backLocation.getPitch(),
+            TeleportMetrics.Kind.BACK, playerRef, ref, store, startPosition,
+            backLocation.worldName(),
+            backLocation.x(),
+            backLocation.y(),
+            backLocation.z(),
+            backLocation.yaw(),
+            backLocation.pitch(),
             "Teleported to your previous location.",
-            () -> backManager.clearBackLocation(playerUuid)
+            () -> backManager.removeBackLocation(playerUuid, backLocation)
         );
     }
+
+    /**
+     * Handles /back <n>.
+     */
+    private static class BackIndexCommand extends AbstractPlayerCommand {
+        private final BackManager backManager;
+        private final TeleportManager teleportManager;
+        private final RequiredArg<Integer> indexArg;
+
+        BackIndexCommand(@Nonnull BackManager backManager, @Nonnull TeleportManager teleportManager) {
+            super("Teleport to one of your previous locations");
+            this.backManager = backManager;
+            this.teleportManager = teleportManager;
+            this.indexArg = withRequiredArg("n", "1 = most recent, see /backs", ArgTypes.INTEGER);
+        }
+
+        @Override
+        protected void execute(@Nonnull CommandContext context, @Nonnull Store<EntityStore> store,
+                               @Nonnull Ref<EntityStore> ref, @Nonnull PlayerRef playerRef, @Nonnull World world) {
+            int index = context.get(indexArg);
+            if (index < 1 || index > backManager.getHistorySize()) {
+                Msg.fail(context, "Location must be between 1 and " + backManager.getHistorySize() + ".");
+                return;
+            }
+            doBack(context, store, ref, playerRef, world, index, backManager, teleportManager);
+        }
+    }
 }
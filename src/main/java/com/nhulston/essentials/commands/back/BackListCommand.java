@@ -0,0 +1,50 @@
+package com.nhulston.essentials.commands.back;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractPlayerCommand;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.nhulston.essentials.managers.BackManager;
+import com.nhulston.essentials.models.BackHistory;
+import com.nhulston.essentials.util.CooldownUtil;
+import com.nhulston.essentials.util.Msg;
+import javax.annotation.Nonnull;
+import java.util.List;
+
+/**
+ * Lists the player's previous locations, most recent first, numbered for /back <n>.
+ * Usage: /backs
+ */
+public class BackListCommand extends AbstractPlayerCommand {
+    private final BackManager backManager;
+
+    public BackListCommand(@Nonnull BackManager backManager) {
+        super("backs", "List your previous locations");
+        this.backManager = backManager;
+
+        requirePermission("essentials.back");
+    }
+
+    @Override
+    protected void execute(@Nonnull CommandContext context, @Nonnull Store<EntityStore> store,
+                           @Nonnull Ref<EntityStore> ref, @Nonnull PlayerRef playerRef, @Nonnull World world) {
+        List<BackHistory.Entry> entries = backManager.getBackLocations(playerRef.getUuid());
+        if (entries.isEmpty()) {
+            Msg.fail(context, "You have no previous locations.");
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        Msg.info(context, "Previous locations (use /back <n>):");
+        for (int i = 0; i < entries.size(); i++) {
+            BackHistory.Entry entry = entries.get(i);
+            String type = BackManager.getType(entry) == BackManager.BackLocationType.DEATH ? "Death" : "Teleport";
+            String age = CooldownUtil.formatCooldown(Math.max(1L, (now - entry.time()) / 1000L));
+            Msg.prefix(context, String.valueOf(i + 1), type + " in " + entry.worldName() + " at "
+                    + (int) Math.floor(entry.x()) + ", " + (int) Math.floor(entry.y()) + ", "
+                    + (int) Math.floor(entry.z()) + " (" + age + " ago)");
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.nhulston.essentials.commands.essentials;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.nhulston.essentials.Essentials;
+import com.nhulston.essentials.storage.PlayerDataCache;
+import com.nhulston.essentials.util.Msg;
+import com.nhulston.essentials.util.PermissionCache;
+import javax.annotation.Nonnull;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Shows player data and permission cache counters.
+ * Usage: /essentials cache
+ */
+public class EssentialsCacheCommand extends AbstractCommand {
+    public EssentialsCacheCommand() {
+        super("cache", "Show EssentialsCore player data and permission cache statistics");
+        requirePermission("essentials.cache");
+    }
+    @Override
+    protected CompletableFuture<Void> execute(@Nonnull CommandContext context) {
+        PlayerDataCache.Stats stats = Essentials.getInstance().getStorageManager().getCacheStats();
+        Msg.prefix(context, "Online (pinned)", stats.pinnedEntries() + " players");
+        Msg.prefix(context, "Offline", stats.offlineEntries() + "/" + stats.offlineCapacity() + " players");
+        Msg.prefix(context, "Hits", stats.pinnedHits() + " online, " + stats.offlineHits() + " offline");
+        Msg.prefix(context, "Misses", stats.misses() + String.format(" (hit rate %.1f%%)", stats.hitRate() * 100.0));
+        Msg.prefix(context, "Removed", stats.evictions() + " evicted, " + stats.expirations() + " expired");
+        PermissionCache.Stats permissions = Essentials.getInstance().getPermissionCache().getStats();
+        Msg.prefix(context, "Permissions", permissions.players() + " players cached");
+        Msg.prefix(context, "Permission hits", permissions.hits() + ", misses " + permissions.misses()
+                + String.format(" (hit rate %.1f%%)", permissions.hitRate() * 100.0));
+        Msg.prefix(context, "Permission invalidations", String.valueOf(permissions.invalidations()));
+        return CompletableFuture.completedFuture(null);
+    }
+}
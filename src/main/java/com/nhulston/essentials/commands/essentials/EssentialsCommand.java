@@ -18,6 +18,13 @@ public class EssentialsCommand extends AbstractPlayerCommand {
         super("essentials", "Show EssentialsCore version information");
         addAliases("ess");
         addSubCommand(new EssentialsReloadCommand());
+        addSubCommand(new EssentialsStorageCommand());
+        addSubCommand(new EssentialsMigrateCommand());
+        addSubCommand(new EssentialsCacheCommand());
+        addSubCommand(new EssentialsScanCommand());
+        addSubCommand(new EssentialsTimersCommand());
+        addSubCommand(new EssentialsRtpPoolCommand());
+        addSubCommand(new EssentialsTeleportsCommand());
     }
     @Override
     protected boolean canGeneratePermission() {
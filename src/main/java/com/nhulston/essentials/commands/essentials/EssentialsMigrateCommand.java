@@ -0,0 +1,48 @@
+package com.nhulston.essentials.commands.essentials;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.nhulston.essentials.Essentials;
+import com.nhulston.essentials.storage.StorageMigrator;
+import com.nhulston.essentials.util.Log;
+import com.nhulston.essentials.util.Msg;
+import com.nhulston.essentials.util.StorageManager;
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Copies all stored data from the active storage backend into another one.
+ * Usage: /essentials migrate <json|kv>
+ */
+public class EssentialsMigrateCommand extends AbstractCommand {
+    private final RequiredArg<String> backendArg;
+    public EssentialsMigrateCommand() {
+        super("migrate", "Copy all EssentialsCore data to another storage backend");
+        this.backendArg = withRequiredArg("backend", "Target backend (json or kv)", ArgTypes.STRING);
+        requirePermission("essentials.migrate");
+    }
+    @Override
+    protected CompletableFuture<Void> execute(@Nonnull CommandContext context) {
+        String target = context.get(backendArg).toLowerCase();
+        StorageManager storageManager = Essentials.getInstance().getStorageManager();
+        Msg.info(context, "Migrating data from " + storageManager.getBackendName() + " to " + target + "...");
+        return CompletableFuture.runAsync(() -> {
+            try {
+                StorageMigrator.Result result = storageManager.migrateTo(target);
+                Msg.success(context, "Migrated " + result.players() + " players, " + result.warps() + " warps, "
+                        + result.uuidMappings() + " UUID mappings, " + result.benches() + " benches and "
+                        + result.regions() + " regions in "
+                        + result.elapsedMillis() + "ms.");
+                if (result.failedPlayers() > 0) {
+                    Msg.fail(context, result.failedPlayers() + " player files could not be read; see the console.");
+                }
+                Msg.info(context, "Set backend = \"" + target + "\" in the [storage] section of config.toml and restart to use it.");
+            } catch (IOException e) {
+                Log.error("Storage migration to " + target + " failed: " + e.getMessage());
+                Msg.fail(context, "Migration failed: " + e.getMessage());
+            }
+        });
+    }
+}
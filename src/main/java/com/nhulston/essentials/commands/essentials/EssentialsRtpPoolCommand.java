@@ -0,0 +1,43 @@
+package com.nhulston.essentials.commands.essentials;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.nhulston.essentials.Essentials;
+import com.nhulston.essentials.managers.RtpPoolManager;
+import com.nhulston.essentials.util.Msg;
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Shows the pre-validated RTP destination pool of each RTP world.
+ * Usage: /essentials rtppool
+ */
+public class EssentialsRtpPoolCommand extends AbstractCommand {
+    public EssentialsRtpPoolCommand() {
+        super("rtppool", "Show EssentialsCore RTP destination pools");
+        requirePermission("essentials.rtppool");
+    }
+    @Override
+    protected CompletableFuture<Void> execute(@Nonnull CommandContext context) {
+        RtpPoolManager rtpPoolManager = Essentials.getInstance().getRtpPoolManager();
+        List<RtpPoolManager.Stats> pools = rtpPoolManager.getStats();
+        if (pools.isEmpty()) {
+            Msg.info(context, "No RTP worlds are configured.");
+            return CompletableFuture.completedFuture(null);
+        }
+        Msg.info(context, "Refill rate: " + rtpPoolManager.getRefillRate() + " checks/s per world, chunk loads: "
+                + rtpPoolManager.getInFlight() + "/" + rtpPoolManager.getMaxInFlight());
+        for (RtpPoolManager.Stats pool : pools) {
+            long requests = pool.hits() + pool.misses();
+            long hitRate = requests > 0 ? pool.hits() * 100 / requests : 0;
+            long successRate = pool.probes() > 0 ? pool.safe() * 100 / pool.probes() : 0;
+            Msg.prefix(context, pool.worldName(), pool.ready() + "/" + pool.target() + " ready, "
+                    + pool.inFlight() + " loading, "
+                    + pool.hits() + " hits, " + pool.misses() + " misses (" + hitRate + "% hit), "
+                    + pool.refilledLastMinute() + " refilled in the last minute, "
+                    + successRate + "% of " + pool.probes() + " checks safe, "
+                    + pool.excluded() + " candidates excluded");
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+}
@@ -0,0 +1,63 @@
+package com.nhulston.essentials.commands.essentials;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.nhulston.essentials.Essentials;
+import com.nhulston.essentials.storage.PlayerDataScanner;
+import com.nhulston.essentials.util.Log;
+import com.nhulston.essentials.util.Msg;
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reads every stored player file to find unreadable ones and summarize home usage.
+ * Usage: /essentials scan
+ */
+public class EssentialsScanCommand extends AbstractCommand {
+    private static final int MAX_LISTED_FAILURES = 5;
+    public EssentialsScanCommand() {
+        super("scan", "Check all EssentialsCore player data for unreadable files");
+        requirePermission("essentials.scan");
+    }
+    @Override
+    protected CompletableFuture<Void> execute(@Nonnull CommandContext context) {
+        Msg.info(context, "Scanning player data...");
+        return CompletableFuture.runAsync(() -> {
+            LongAdder totalHomes = new LongAdder();
+            AtomicReference<TopHomes> top = new AtomicReference<>(new TopHomes(null, 0));
+            PlayerDataScanner.Result result;
+            try {
+                result = Essentials.getInstance().getStorageManager().scanPlayers((playerUuid, data) -> {
+                    int homes = data.getHomeCount();
+                    totalHomes.add(homes);
+                    top.accumulateAndGet(new TopHomes(playerUuid, homes), (a, b) -> b.homes() > a.homes() ? b : a);
+                });
+            } catch (IOException e) {
+                Log.error("Player data scan failed: " + e.getMessage());
+                Msg.fail(context, "Scan failed: " + e.getMessage());
+                return;
+            }
+            Msg.success(context, "Read " + result.loaded() + "/" + result.scanned() + " players in "
+                    + result.elapsedMillis() + "ms.");
+            TopHomes most = top.get();
+            Msg.prefix(context, "Homes", totalHomes.sum() + " total"
+                    + (most.playerUuid() != null ? ", most: " + most.homes() + " (" + most.playerUuid() + ")" : ""));
+            if (result.failures().isEmpty()) {
+                return;
+            }
+            Msg.fail(context, result.failures().size() + " player files could not be read:");
+            for (PlayerDataScanner.Failure failure : result.failures()) {
+                Log.warning("Unreadable player data for " + failure.playerUuid() + ": " + failure.reason());
+            }
+            result.failures().stream().limit(MAX_LISTED_FAILURES)
+                    .forEach(failure -> Msg.prefix(context, failure.playerUuid().toString(), failure.reason()));
+            if (result.failures().size() > MAX_LISTED_FAILURES) {
+                Msg.info(context, "See the console for the full list.");
+            }
+        });
+    }
+    private record TopHomes(UUID playerUuid, int homes) {}
+}
@@ -0,0 +1,41 @@
+package com.nhulston.essentials.commands.essentials;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.nhulston.essentials.Essentials;
+import com.nhulston.essentials.storage.PlayerDataWriter;
+import com.nhulston.essentials.util.Msg;
+import com.nhulston.essentials.util.StorageManager;
+import javax.annotation.Nonnull;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Shows player data write-behind counters.
+ * Usage: /essentials storage
+ */
+public class EssentialsStorageCommand extends AbstractCommand {
+    public EssentialsStorageCommand() {
+        super("storage", "Show EssentialsCore storage statistics");
+        requirePermission("essentials.storage");
+    }
+    @Override
+    protected CompletableFuture<Void> execute(@Nonnull CommandContext context) {
+        StorageManager storageManager = Essentials.getInstance().getStorageManager();
+        PlayerDataWriter.Stats stats = storageManager.getWriterStats();
+        Msg.prefix(context, "Backend", storageManager.getBackendName());
+        Msg.prefix(context, "Saves requested", String.valueOf(stats.savesRequested()));
+        Msg.prefix(context, "Writes performed", stats.writesPerformed()
+                + " (" + stats.coalescedSaves() + " coalesced, " + stats.inlineWrites() + " inline, "
+                + stats.failedWrites() + " failed)");
+        Msg.prefix(context, "Queue depth", String.valueOf(stats.queueDepth()));
+        Msg.prefix(context, "Flush latency", String.format("avg %.2fms, max %.2fms",
+                stats.averageFlushMillis(), stats.maxFlushMillis()));
+        Msg.prefix(context, "Loads", storageManager.getAsyncLoads() + " preloaded, "
+                + storageManager.getBlockingLoads() + " blocking");
+        StorageManager.AutosaveStats autosave = storageManager.getAutosaveStats();
+        long interval = storageManager.getAutosaveInterval();
+        Msg.prefix(context, "Autosave", interval <= 0 ? "disabled" : "every " + interval + "s, last cycle "
+                + autosave.lastWritten() + " written, " + autosave.lastDeferred() + " deferred in "
+                + autosave.lastMillis() + "ms (" + autosave.cycles() + " cycles)");
+        return CompletableFuture.completedFuture(null);
+    }
+}
@@ -0,0 +1,108 @@
+package com.nhulston.essentials.commands.essentials;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.nhulston.essentials.Essentials;
+import com.nhulston.essentials.util.LatencyHistogram;
+import com.nhulston.essentials.util.Msg;
+import com.nhulston.essentials.util.TeleportMetrics;
+import javax.annotation.Nonnull;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Shows teleport latency percentiles per teleport kind and pipeline stage, and failures by reason.
+ * Usage: /essentials teleports
+ * Usage: /essentials teleports reset
+ */
+public class EssentialsTeleportsCommand extends AbstractCommand {
+    public EssentialsTeleportsCommand() {
+        super("teleports", "Show EssentialsCore teleport latency statistics");
+        requirePermission("essentials.teleports");
+        addSubCommand(new ResetCommand());
+    }
+    @Override
+    protected CompletableFuture<Void> execute(@Nonnull CommandContext context) {
+        TeleportMetrics metrics = Essentials.getInstance().getTeleportMetrics();
+        boolean any = false;
+        for (TeleportMetrics.Kind kind : TeleportMetrics.Kind.values()) {
+            StringBuilder failures = new StringBuilder();
+            for (TeleportMetrics.Failure failure : TeleportMetrics.Failure.values()) {
+                long count = metrics.getFailures(kind, failure);
+                if (count > 0) {
+                    failures.append(failures.isEmpty() ? "" : ", ")
+                            .append(failure.name().toLowerCase(Locale.ROOT).replace('_', ' ')).append(' ').append(count);
+                }
+            }
+            boolean header = false;
+            for (TeleportMetrics.Stage stage : TeleportMetrics.Stage.values()) {
+                LatencyHistogram.Snapshot snapshot = metrics.histogram(kind, stage).snapshot();
+                if (snapshot.count() == 0) {
+                    continue;
+                }
+                if (!header) {
+                    Msg.info(context, kind.name().toLowerCase(Locale.ROOT) + ":");
+                    header = true;
+                }
+                Msg.prefix(context, "  " + stage.name().toLowerCase(Locale.ROOT), format(snapshot));
+            }
+            if (!failures.isEmpty()) {
+                if (!header) {
+                    Msg.info(context, kind.name().toLowerCase(Locale.ROOT) + ":");
+                    header = true;
+                }
+                Msg.prefix(context, "  failures", failures.toString());
+            }
+            any |= header;
+        }
+        LatencyHistogram.Snapshot chunkLookup = metrics.getChunkLookup().snapshot();
+        LatencyHistogram.Snapshot safeYScan = metrics.getSafeYScan().snapshot();
+        if (chunkLookup.count() > 0) {
+            Msg.prefix(context, "Chunk lookups", format(chunkLookup));
+            any = true;
+        }
+        if (safeYScan.count() > 0) {
+            Msg.prefix(context, "Safe Y scans", format(safeYScan));
+            any = true;
+        }
+        if (!any) {
+            Msg.info(context, "No teleports recorded yet.");
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Nonnull
+    private static String format(@Nonnull LatencyHistogram.Snapshot snapshot) {
+        return snapshot.count() + "x, p50 " + duration(snapshot.p50Micros())
+                + ", p90 " + duration(snapshot.p90Micros())
+                + ", p99 " + duration(snapshot.p99Micros())
+                + ", max " + duration(snapshot.maxMicros());
+    }
+
+    @Nonnull
+    private static String duration(long micros) {
+        if (micros < 1000L) {
+            return micros + "\u00b5s";
+        }
+        if (micros < 1_000_000L) {
+            return String.format(Locale.ROOT, "%.1fms", micros / 1000.0);
+        }
+        return String.format(Locale.ROOT, "%.2fs", micros / 1_000_000.0);
+    }
+
+    /**
+     * Clears all teleport statistics.
+     * Usage: /essentials teleports reset
+     */
+    private static class ResetCommand extends AbstractCommand {
+        ResetCommand() {
+            super("reset", "Clear EssentialsCore teleport statistics");
+            requirePermission("essentials.teleports");
+        }
+        @Override
+        protected CompletableFuture<Void> execute(@Nonnull CommandContext context) {
+            Essentials.getInstance().getTeleportMetrics().reset();
+            Msg.success(context, "Teleport statistics cleared.");
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+}
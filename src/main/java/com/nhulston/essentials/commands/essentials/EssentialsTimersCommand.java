@@ -0,0 +1,29 @@
+package com.nhulston.essentials.commands.essentials;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.nhulston.essentials.Essentials;
+import com.nhulston.essentials.util.Msg;
+import com.nhulston.essentials.util.TimingWheel;
+import javax.annotation.Nonnull;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Shows counters of the shared scheduler (TPA expiry, teleport delays, item clear).
+ * Usage: /essentials timers
+ */
+public class EssentialsTimersCommand extends AbstractCommand {
+    public EssentialsTimersCommand() {
+        super("timers", "Show EssentialsCore scheduler statistics");
+        requirePermission("essentials.timers");
+    }
+    @Override
+    protected CompletableFuture<Void> execute(@Nonnull CommandContext context) {
+        TimingWheel.Stats stats = Essentials.getInstance().getTimingWheel().getStats();
+        Msg.prefix(context, "Pending", String.valueOf(stats.pending()));
+        Msg.prefix(context, "Scheduled", String.valueOf(stats.scheduled()));
+        Msg.prefix(context, "Fired", String.valueOf(stats.fired()));
+        Msg.prefix(context, "Cancelled", String.valueOf(stats.cancelled()));
+        Msg.prefix(context, "Resolution", stats.tickMillis() + "ms");
+        return CompletableFuture.completedFuture(null);
+    }
+}
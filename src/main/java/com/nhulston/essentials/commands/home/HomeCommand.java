@@ -18,7 +18,9 @@ import com.nhulston.essentials.managers.TeleportManager;
 import com.nhulston.essentials.models.Home;
 import com.nhulston.essentials.util.Msg;
 import com.nhulston.essentials.util.StorageManager;
+import com.nhulston.essentials.util.TeleportMetrics;
 import javax.annotation.Nonnull;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -79,7 +81,7 @@ public class HomeCommand extends AbstractPlayerCommand {
         Vector3d startPosition = playerRef.getTransform().getPosition();
 
         teleportManager.queueTeleport(
-            playerRef, ref, store, startPosition,
+            TeleportMetrics.Kind.HOME, playerRef, ref, store, startPosition,
             home.getWorld(), home.getX(), home.getY(), home.getZ(), home.getYaw(), home.getPitch(),
             "Teleported to home '" + homeName + "'."
         );
@@ -156,6 +158,10 @@ public class HomeCommand extends AbstractPlayerCommand {
             UUID targetUuid = storageManager.getUuidByUsername(targetName);
             if (targetUuid == null) {
                 Msg.fail(context, "Player '" + targetName + "' not found or has never joined.");
+                List<String> suggestions = storageManager.findUsernamesByPrefix(targetName, 5);
+                if (!suggestions.isEmpty()) {
+                    Msg.info(context, "Did you mean: " + String.join(", ", suggestions) + "?");
+                }
                 return;
             }
 
@@ -181,7 +187,7 @@ public class HomeCommand extends AbstractPlayerCommand {
             Vector3d startPosition = playerRef.getTransform().getPosition();
 
             teleportManager.queueTeleport(
-                playerRef, ref, store, startPosition,
+                TeleportMetrics.Kind.HOME, playerRef, ref, store, startPosition,
                 home.getWorld(), home.getX(), home.getY(), home.getZ(), home.getYaw(), home.getPitch(),
                 "Teleported to " + targetName + "'s home '" + homeName + "'."
             );
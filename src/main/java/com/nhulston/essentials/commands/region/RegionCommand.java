@@ -0,0 +1,362 @@
+package com.nhulston.essentials.commands.region;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractPlayerCommand;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.nhulston.essentials.managers.RegionManager;
+import com.nhulston.essentials.models.Region;
+import com.nhulston.essentials.util.Msg;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Admin commands for protected regions.
+ * Usage: /region pos1|pos2
+ * Usage: /region create <name> [priority]
+ * Usage: /region delete <name>
+ * Usage: /region flag <name> <flag> <allow|deny|clear>
+ * Usage: /region priority <name> <priority>
+ * Usage: /region list
+ * Usage: /region info [name]
+ */
+public class RegionCommand extends AbstractPlayerCommand {
+    private static final String PERMISSION = "essentials.region";
+
+    public RegionCommand(@Nonnull RegionManager regionManager) {
+        super("region", "Manage protected regions");
+        addAliases("rg");
+
+        addSubCommand(new PosCommand(regionManager, 1));
+        addSubCommand(new PosCommand(regionManager, 2));
+        addSubCommand(new CreateCommand(regionManager));
+        addSubCommand(new DeleteCommand(regionManager));
+        addSubCommand(new FlagCommand(regionManager));
+        addSubCommand(new PriorityCommand(regionManager));
+        addSubCommand(new ListCommand(regionManager));
+        addSubCommand(new InfoCommand(regionManager));
+        requirePermission(PERMISSION);
+    }
+
+    @Override
+    protected void execute(@Nonnull CommandContext context, @Nonnull Store<EntityStore> store,
+                           @Nonnull Ref<EntityStore> ref, @Nonnull PlayerRef playerRef, @Nonnull World world) {
+        Msg.info(context, "Usage: /region <pos1|pos2|create|delete|flag|priority|list|info>");
+        Msg.info(context, "Select two corners with /region pos1 and /region pos2, then /region create <name>.");
+        Msg.info(context, "Flags: " + flagNames() + "; each can be allow, deny or clear.");
+    }
+
+    @Nonnull
+    private static String flagNames() {
+        StringBuilder names = new StringBuilder();
+        for (Region.Flag flag : Region.Flag.values()) {
+            names.append(names.isEmpty() ? "" : ", ").append(flagName(flag));
+        }
+        return names.toString();
+    }
+
+    @Nonnull
+    private static String flagName(@Nonnull Region.Flag flag) {
+        return flag.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    @Nonnull
+    private static String describe(@Nonnull Region region) {
+        return region.getWorld() + " " + region.getMinX() + ", " + region.getMinY() + ", " + region.getMinZ()
+                + " to " + region.getMaxX() + ", " + region.getMaxY() + ", " + region.getMaxZ()
+                + " (priority " + region.getPriority() + ")";
+    }
+
+    @Nonnull
+    private static String describeFlags(@Nonnull Region region) {
+        Map<Region.Flag, Boolean> flags = region.getFlags();
+        if (flags.isEmpty()) {
+            return "none";
+        }
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<Region.Flag, Boolean> entry : flags.entrySet()) {
+            text.append(text.isEmpty() ? "" : ", ").append(flagName(entry.getKey())).append(' ')
+                    .append(entry.getValue() ? "allow" : "deny");
+        }
+        return text.toString();
+    }
+
+    /**
+     * Subcommand: /region pos1 and /region pos2
+     */
+    private static class PosCommand extends AbstractPlayerCommand {
+        private final RegionManager regionManager;
+        private final int corner;
+
+        PosCommand(@Nonnull RegionManager regionManager, int corner) {
+            super("pos" + corner, "Set corner " + corner + " of your region selection to your position");
+            this.regionManager = regionManager;
+            this.corner = corner;
+
+            requirePermission(PERMISSION);
+        }
+
+        @Override
+        protected void execute(@Nonnull CommandContext context, @Nonnull Store<EntityStore> store,
+                               @Nonnull Ref<EntityStore> ref, @Nonnull PlayerRef playerRef, @Nonnull World world) {
+            Vector3d position = playerRef.getTransform().getPosition();
+            int x = (int) Math.floor(position.getX());
+            int y = (int) Math.floor(position.getY());
+            int z = (int) Math.floor(position.getZ());
+            RegionManager.Selection selection = regionManager.select(playerRef.getUuid(), corner, world.getName(), x, y, z);
+            Msg.success(context, "Corner " + corner + " set to " + x + ", " + y + ", " + z + ".");
+            if (selection.isComplete()) {
+                int[] a = selection.pos1();
+                int[] b = selection.pos2();
+                long blocks = (Math.abs((long) a[0] - b[0]) + 1) * (Math.abs((long) a[2] - b[2]) + 1);
+                Msg.info(context, "Selection covers " + blocks + " columns. Use /region create <name> to save it.");
+            }
+        }
+    }
+
+    /**
+     * Subcommand: /region create <name> [priority]
+     */
+    private static class CreateCommand extends AbstractPlayerCommand {
+        private final RegionManager regionManager;
+        private final RequiredArg<String> nameArg;
+        private final OptionalArg<Integer> priorityArg;
+
+        CreateCommand(@Nonnull RegionManager regionManager) {
+            super("create", "Create a region from your selection");
+            this.regionManager = regionManager;
+            this.nameArg = withRequiredArg("name", "Region name", ArgTypes.STRING);
+            this.priorityArg = withOptionalArg("priority", "Priority over overlapping regions (default: 0)", ArgTypes.INTEGER);
+
+            requirePermission(PERMISSION);
+        }
+
+        @Override
+        protected void execute(@Nonnull CommandContext context, @Nonnull Store<EntityStore> store,
+                               @Nonnull Ref<EntityStore> ref, @Nonnull PlayerRef playerRef, @Nonnull World world) {
+            String name = context.get(nameArg);
+            Integer priority = context.get(priorityArg);
+            if (!name.matches("^[a-zA-Z0-9_-]+$")) {
+                Msg.fail(context, "Region name can only contain letters, numbers, underscores, and hyphens.");
+                return;
+            }
+            RegionManager.Selection selection = regionManager.getSelection(playerRef.getUuid());
+            if (selection == null || !selection.isComplete()) {
+                Msg.fail(context, "Select two corners with /region pos1 and /region pos2 first.");
+                return;
+            }
+            if (!selection.worldName().equals(world.getName())) {
+                Msg.fail(context, "Your selection is in " + selection.worldName() + ".");
+                return;
+            }
+            int[] a = selection.pos1();
+            int[] b = selection.pos2();
+            Region region = new Region(name, selection.worldName(), a[0], a[1], a[2], b[0], b[1], b[2],
+                    priority != null ? priority : 0, Map.of());
+            if (!regionManager.createRegion(region)) {
+                Msg.fail(context, "A region named '" + name + "' already exists.");
+                return;
+            }
+            Msg.success(context, "Region '" + name + "' created: " + describe(region) + ".");
+            Msg.info(context, "It has no flags yet; set them with /region flag " + name + " <flag> <allow|deny>.");
+        }
+    }
+
+    /**
+     * Subcommand: /region delete <name>
+     * Can be used from console
+     */
+    private static class DeleteCommand extends AbstractCommand {
+        private final RegionManager regionManager;
+        private final RequiredArg<String> nameArg;
+
+        DeleteCommand(@Nonnull RegionManager regionManager) {
+            super("delete", "Delete a region");
+            this.regionManager = regionManager;
+            this.nameArg = withRequiredArg("name", "Region name", ArgTypes.STRING);
+
+            requirePermission(PERMISSION);
+        }
+
+        @Override
+        protected CompletableFuture<Void> execute(@Nonnull CommandContext context) {
+            String name = context.get(nameArg);
+            Region removed = regionManager.deleteRegion(name);
+            if (removed == null) {
+                Msg.fail(context, "No region named '" + name + "'.");
+            } else {
+                Msg.success(context, "Region '" + removed.getName() + "' deleted.");
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Subcommand: /region flag <name> <flag> <allow|deny|clear>
+     * Can be used from console
+     */
+    private static class FlagCommand extends AbstractCommand {
+        private final RegionManager regionManager;
+        private final RequiredArg<String> nameArg;
+        private final RequiredArg<String> flagArg;
+        private final RequiredArg<String> valueArg;
+
+        FlagCommand(@Nonnull RegionManager regionManager) {
+            super("flag", "Allow, deny or clear a flag in a region");
+            this.regionManager = regionManager;
+            this.nameArg = withRequiredArg("name", "Region name", ArgTypes.STRING);
+            this.flagArg = withRequiredArg("flag", "build, break, pvp, use or item-pickup", ArgTypes.STRING);
+            this.valueArg = withRequiredArg("value", "allow, deny or clear", ArgTypes.STRING);
+
+            requirePermission(PERMISSION);
+        }
+
+        @Override
+        protected CompletableFuture<Void> execute(@Nonnull CommandContext context) {
+            String name = context.get(nameArg);
+            Region.Flag flag;
+            try {
+                flag = Region.Flag.valueOf(context.get(flagArg).toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                Msg.fail(context, "Unknown flag. Flags: " + flagNames() + ".");
+                return CompletableFuture.completedFuture(null);
+            }
+            Boolean value;
+            switch (context.get(valueArg).toLowerCase(Locale.ROOT)) {
+                case "allow" -> value = Boolean.TRUE;
+                case "deny" -> value = Boolean.FALSE;
+                case "clear" -> value = null;
+                default -> {
+                    Msg.fail(context, "Value must be allow, deny or clear.");
+                    return CompletableFuture.completedFuture(null);
+                }
+            }
+            Region region = regionManager.modify(name, current -> current.withFlag(flag, value));
+            if (region == null) {
+                Msg.fail(context, "No region named '" + name + "'.");
+                return CompletableFuture.completedFuture(null);
+            }
+            Msg.success(context, "Region '" + region.getName() + "': " + flagName(flag) + " "
+                    + (value == null ? "cleared" : value ? "allowed" : "denied") + ".");
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Subcommand: /region priority <name> <priority>
+     * Can be used from console
+     */
+    private static class PriorityCommand extends AbstractCommand {
+        private final RegionManager regionManager;
+        private final RequiredArg<String> nameArg;
+        private final RequiredArg<Integer> priorityArg;
+
+        PriorityCommand(@Nonnull RegionManager regionManager) {
+            super("priority", "Set which overlapping region decides first");
+            this.regionManager = regionManager;
+            this.nameArg = withRequiredArg("name", "Region name", ArgTypes.STRING);
+            this.priorityArg = withRequiredArg("priority", "Higher wins over overlapping regions", ArgTypes.INTEGER);
+
+            requirePermission(PERMISSION);
+        }
+
+        @Override
+        protected CompletableFuture<Void> execute(@Nonnull CommandContext context) {
+            String name = context.get(nameArg);
+            int priority = context.get(priorityArg);
+            Region region = regionManager.modify(name, current -> current.withPriority(priority));
+            if (region == null) {
+                Msg.fail(context, "No region named '" + name + "'.");
+                return CompletableFuture.completedFuture(null);
+            }
+            Msg.success(context, "Region '" + region.getName() + "' priority set to " + priority + ".");
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Subcommand: /region list
+     * Can be used from console
+     */
+    private static class ListCommand extends AbstractCommand {
+        private final RegionManager regionManager;
+
+        ListCommand(@Nonnull RegionManager regionManager) {
+            super("list", "List all regions");
+            this.regionManager = regionManager;
+
+            requirePermission(PERMISSION);
+        }
+
+        @Override
+        protected CompletableFuture<Void> execute(@Nonnull CommandContext context) {
+            List<Region> regions = regionManager.getRegions();
+            if (regions.isEmpty()) {
+                Msg.info(context, "No regions defined.");
+                return CompletableFuture.completedFuture(null);
+            }
+            Msg.info(context, "Regions (" + regions.size() + "):");
+            for (Region region : regions) {
+                Msg.prefix(context, region.getName(), describe(region));
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Subcommand: /region info [name]
+     * Without a name, shows the regions at your position.
+     */
+    private static class InfoCommand extends AbstractPlayerCommand {
+        private final RegionManager regionManager;
+        private final OptionalArg<String> nameArg;
+
+        InfoCommand(@Nonnull RegionManager regionManager) {
+            super("info", "Show a region, or the regions where you stand");
+            this.regionManager = regionManager;
+            this.nameArg = withOptionalArg("name", "Region name (defaults to the regions at your position)", ArgTypes.STRING);
+
+            requirePermission(PERMISSION);
+        }
+
+        @Override
+        protected void execute(@Nonnull CommandContext context, @Nonnull Store<EntityStore> store,
+                               @Nonnull Ref<EntityStore> ref, @Nonnull PlayerRef playerRef, @Nonnull World world) {
+            String name = context.get(nameArg);
+            if (name != null) {
+                Region region = regionManager.getRegion(name);
+                if (region == null) {
+                    Msg.fail(context, "No region named '" + name + "'.");
+                    return;
+                }
+                Msg.prefix(context, region.getName(), describe(region));
+                Msg.prefix(context, "  flags", describeFlags(region));
+                return;
+            }
+            Vector3d position = playerRef.getTransform().getPosition();
+            List<Region> regions = regionManager.getRegionsAt(world.getName(), (int) Math.floor(position.getX()),
+                    (int) Math.floor(position.getY()), (int) Math.floor(position.getZ()));
+            if (regions.isEmpty()) {
+                Msg.info(context, "You are not in any region.");
+                return;
+            }
+            Msg.info(context, "Regions here, highest priority first:");
+            for (Region region : regions) {
+                Msg.prefix(context, region.getName(), describe(region));
+                Msg.prefix(context, "  flags", describeFlags(region));
+            }
+        }
+    }
+}
@@ -14,17 +14,19 @@ import com.hypixel.hytale.server.core.universe.Universe;
 import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import com.nhulston.essentials.managers.BackManager;
+import com.nhulston.essentials.managers.RtpPoolManager;
 import com.nhulston.essentials.managers.TeleportManager;
 import com.nhulston.essentials.models.PlayerData;
 import com.nhulston.essentials.util.ConfigManager;
 import com.nhulston.essentials.util.CooldownUtil;
 import com.nhulston.essentials.util.Msg;
+import com.nhulston.essentials.util.RtpSampler;
 import com.nhulston.essentials.util.StorageManager;
+import com.nhulston.essentials.util.TeleportMetrics;
 import com.nhulston.essentials.util.TeleportUtil;
 import javax.annotation.Nonnull;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * RTP Command - Randomly teleport players
@@ -40,19 +42,22 @@ public class RtpCommand extends AbstractPlayerCommand {
     private final StorageManager storageManager;
     private final TeleportManager teleportManager;
     private final BackManager backManager;
+    private final RtpPoolManager rtpPoolManager;
 
     public RtpCommand(@Nonnull ConfigManager configManager, @Nonnull StorageManager storageManager,
-                      @Nonnull TeleportManager teleportManager, @Nonnull BackManager backManager) {
+                      @Nonnull TeleportManager teleportManager, @Nonnull BackManager backManager,
+                      @Nonnull RtpPoolManager rtpPoolManager) {
         super("rtp", "Randomly teleport to a location");
         this.configManager = configManager;
         this.storageManager = storageManager;
         this.teleportManager = teleportManager;
         this.backManager = backManager;
+        this.rtpPoolManager = rtpPoolManager;
 
         requirePermission("essentials.rtp");
 
         // Add variant for teleporting others (works from console too)
-        addUsageVariant(new RtpOthersCommand(configManager, storageManager, teleportManager, backManager));
+        addUsageVariant(new RtpOthersCommand(configManager, storageManager, teleportManager, backManager, rtpPoolManager));
     }
 
     @Override
@@ -108,18 +113,40 @@ public class RtpCommand extends AbstractPlayerCommand {
 
         int rtpDelay = configManager.getRtpTeleportDelay();
 
+        // A pre-validated destination needs no chunk load or search
+        TeleportMetrics metrics = teleportManager.getMetrics();
+        long searchStart = System.nanoTime();
+        RtpPoolManager.Destination pooled = rtpPoolManager.poll(rtpWorldName);
+        if (pooled != null) {
+            metrics.record(TeleportMetrics.Kind.RTP, TeleportMetrics.Stage.SEARCH, System.nanoTime() - searchStart);
+            teleportManager.queueTeleport(
+                TeleportMetrics.Kind.RTP, playerRef, ref, store, currentPos.clone(),
+                rtpWorldName, pooled.x(), pooled.y(), pooled.z(),
+                0.0f, 0.0f,
+                rtpDelay,
+                "Randomly teleported!",
+                () -> {
+                    data.setLastRtpTime(System.currentTimeMillis());
+                    storageManager.savePlayerData(playerUuid);
+                }
+            );
+            return;
+        }
+
         if (isCrossWorld) {
             Vector3d startPosition = playerRef.getTransform().getPosition().clone();
-            findSafeLocationAsync(rtpWorld, radius, 0)
+            rtpPoolManager.search(rtpWorld, MAX_ATTEMPTS)
                 .thenAccept(result -> {
                     if (result == null) {
+                        metrics.fail(TeleportMetrics.Kind.RTP, TeleportMetrics.Failure.NO_SAFE_LOCATION);
                         Msg.fail(playerRef, "Could not find a safe location after " + MAX_ATTEMPTS + " attempts. Try again.");
                         return;
                     }
+                    metrics.record(TeleportMetrics.Kind.RTP, TeleportMetrics.Stage.SEARCH, System.nanoTime() - searchStart);
                     world.execute(() -> {
                         teleportManager.queueTeleport(
-                            playerRef, ref, store, startPosition,
-                                rtpWorldName, result.x, result.y, result.z,
+                            TeleportMetrics.Kind.RTP, playerRef, ref, store, startPosition,
+                                rtpWorldName, result.x(), result.y(), result.z(),
                             0.0f, 0.0f,
                             rtpDelay,
                             "Randomly teleported!",
@@ -131,28 +158,34 @@ public class RtpCommand extends AbstractPlayerCommand {
                     });
                 })
                 .exceptionally(ex -> {
+                    metrics.fail(TeleportMetrics.Kind.RTP, TeleportMetrics.Failure.ERROR);
                     Msg.fail(playerRef, "RTP failed. Please try again.");
                     return null;
                 });
         } else {
-            findSafeLocationSync(rtpWorld, radius, playerRef, ref, store, rtpWorldName, data, playerUuid, rtpDelay);
+            findSafeLocationSync(rtpWorld, playerRef, ref, store, rtpWorldName, data, playerUuid, rtpDelay, searchStart);
         }
     }
 
-    private void findSafeLocationSync(World rtpWorld, int radius, PlayerRef playerRef,
+    private void findSafeLocationSync(World rtpWorld, PlayerRef playerRef,
                                        Ref<EntityStore> ref, Store<EntityStore> store,
-                                       String rtpWorldName, PlayerData data, UUID playerUuid, int rtpDelay) {
-        ThreadLocalRandom random = ThreadLocalRandom.current();
-
+                                       String rtpWorldName, PlayerData data, UUID playerUuid, int rtpDelay,
+                                       long searchStart) {
+        TeleportMetrics metrics = teleportManager.getMetrics();
         for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
-            double x = random.nextDouble(-radius, radius);
-            double z = random.nextDouble(-radius, radius);
+            RtpSampler.Point candidate = rtpPoolManager.nextCandidate(rtpWorldName);
+            if (candidate == null) {
+                break;
+            }
+            double x = candidate.x();
+            double z = candidate.z();
 
             Double safeY = TeleportUtil.findSafeRtpY(rtpWorld, x, z);
             if (safeY != null) {
+                metrics.record(TeleportMetrics.Kind.RTP, TeleportMetrics.Stage.SEARCH, System.nanoTime() - searchStart);
                 Vector3d startPosition = playerRef.getTransform().getPosition();
                 teleportManager.queueTeleport(
-                    playerRef, ref, store, startPosition,
+                    TeleportMetrics.Kind.RTP, playerRef, ref, store, startPosition,
                     rtpWorldName, x, safeY, z,
                     0.0f, 0.0f,
                     rtpDelay,
@@ -166,37 +199,10 @@ public class RtpCommand extends AbstractPlayerCommand {
             }
         }
 
+        metrics.fail(TeleportMetrics.Kind.RTP, TeleportMetrics.Failure.NO_SAFE_LOCATION);
         Msg.fail(playerRef, "Could not find a safe location after " + MAX_ATTEMPTS + " attempts. Try again.");
     }
 
-    private CompletableFuture<RtpLocation> findSafeLocationAsync(World rtpWorld, int radius, int attempt) {
-        if (attempt >= MAX_ATTEMPTS) {
-            return CompletableFuture.completedFuture(null);
-        }
-
-        ThreadLocalRandom random = ThreadLocalRandom.current();
-        double x = random.nextDouble(-radius, radius);
-        double z = random.nextDouble(-radius, radius);
-
-        return TeleportUtil.findSafeRtpYAsync(rtpWorld, x, z)
-            .thenCompose(safeY -> {
-                if (safeY != null) {
-                    return CompletableFuture.completedFuture(new RtpLocation(x, safeY, z));
-                }
-                return findSafeLocationAsync(rtpWorld, radius, attempt + 1);
-            });
-    }
-
-    private static class RtpLocation {
-        final double x, y, z;
-
-        RtpLocation(double x, double y, double z) {
-            this.x = x;
-            this.y = y;
-            this.z = z;
-        }
-    }
-
     /**
      * Nested command for /rtp <player> - Can be used from console
      * Teleports another player without cooldown
@@ -206,15 +212,18 @@ public class RtpCommand extends AbstractPlayerCommand {
         private final StorageManager storageManager;
         private final TeleportManager teleportManager;
         private final BackManager backManager;
+        private final RtpPoolManager rtpPoolManager;
         private final RequiredArg<String> playerArg;
 
         RtpOthersCommand(@Nonnull ConfigManager configManager, @Nonnull StorageManager storageManager,
-                        @Nonnull TeleportManager teleportManager, @Nonnull BackManager backManager) {
+                        @Nonnull TeleportManager teleportManager, @Nonnull BackManager backManager,
+                        @Nonnull RtpPoolManager rtpPoolManager) {
             super("Teleport another player to a random location");
             this.configManager = configManager;
             this.storageManager = storageManager;
             this.teleportManager = teleportManager;
             this.backManager = backManager;
+            this.rtpPoolManager = rtpPoolManager;
             this.playerArg = withRequiredArg("player", "Player to teleport", ArgTypes.STRING);
 
             requirePermission(RTP_OTHERS_PERMISSION);
@@ -282,18 +291,42 @@ public class RtpCommand extends AbstractPlayerCommand {
             // Perform RTP (no cooldown for admin command)
             Msg.success(context, "Teleporting " + targetPlayerName + " to a random location...");
 
+            TeleportMetrics metrics = teleportManager.getMetrics();
+            long searchStart = System.nanoTime();
+            RtpPoolManager.Destination pooled = rtpPoolManager.poll(rtpWorldName);
+            if (pooled != null) {
+                metrics.record(TeleportMetrics.Kind.RTP, TeleportMetrics.Stage.SEARCH, System.nanoTime() - searchStart);
+                Vector3d startPosition = currentPos.clone();
+                currentWorld.execute(() -> {
+                    teleportManager.queueTeleport(
+                        TeleportMetrics.Kind.RTP, targetPlayer, targetRef, targetStore, startPosition,
+                        rtpWorldName, pooled.x(), pooled.y(), pooled.z(),
+                        0.0f, 0.0f,
+                        "Randomly teleported by admin!",
+                        () -> {
+                            data.setLastRtpTime(System.currentTimeMillis());
+                            storageManager.savePlayerData(targetUuid);
+                        }
+                    );
+                    Msg.success(context, "Successfully teleported " + targetPlayerName + "!");
+                });
+                return CompletableFuture.completedFuture(null);
+            }
+
             if (isCrossWorld) {
                 Vector3d startPosition = targetPlayer.getTransform().getPosition().clone();
-                findSafeLocationAsync(rtpWorld, radius, 0)
+                rtpPoolManager.search(rtpWorld, MAX_ATTEMPTS)
                     .thenAccept(result -> {
                         if (result == null) {
+                            metrics.fail(TeleportMetrics.Kind.RTP, TeleportMetrics.Failure.NO_SAFE_LOCATION);
                             Msg.fail(context, "Could not find a safe location for " + targetPlayerName + " after " + MAX_ATTEMPTS + " attempts.");
                             return;
                         }
+                        metrics.record(TeleportMetrics.Kind.RTP, TeleportMetrics.Stage.SEARCH, System.nanoTime() - searchStart);
                         currentWorld.execute(() -> {
                             teleportManager.queueTeleport(
-                                targetPlayer, targetRef, targetStore, startPosition,
-                                rtpWorldName, result.x, result.y, result.z,
+                                TeleportMetrics.Kind.RTP, targetPlayer, targetRef, targetStore, startPosition,
+                                rtpWorldName, result.x(), result.y(), result.z(),
                                 0.0f, 0.0f,
                                 "Randomly teleported by admin!",
                                 () -> {
@@ -305,31 +338,37 @@ public class RtpCommand extends AbstractPlayerCommand {
                         });
                     })
                     .exceptionally(ex -> {
+                        metrics.fail(TeleportMetrics.Kind.RTP, TeleportMetrics.Failure.ERROR);
                         Msg.fail(context, "RTP failed for " + targetPlayerName + ". Please try again.");
                         return null;
                     });
             } else {
-                performSyncRtp(rtpWorld, radius, targetPlayer, targetRef, targetStore, rtpWorldName, data, targetUuid, context, targetPlayerName);
+                performSyncRtp(rtpWorld, targetPlayer, targetRef, targetStore, rtpWorldName, data, targetUuid, context,
+                        targetPlayerName, searchStart);
             }
 
             return CompletableFuture.completedFuture(null);
         }
 
-        private void performSyncRtp(World rtpWorld, int radius, PlayerRef targetPlayer,
+        private void performSyncRtp(World rtpWorld, PlayerRef targetPlayer,
                                     Ref<EntityStore> targetRef, Store<EntityStore> targetStore,
                                     String rtpWorldName, PlayerData data, UUID targetUuid,
-                                    CommandContext context, String targetPlayerName) {
-            ThreadLocalRandom random = ThreadLocalRandom.current();
-
+                                    CommandContext context, String targetPlayerName, long searchStart) {
+            TeleportMetrics metrics = teleportManager.getMetrics();
             for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
-                double x = random.nextDouble(-radius, radius);
-                double z = random.nextDouble(-radius, radius);
+                RtpSampler.Point candidate = rtpPoolManager.nextCandidate(rtpWorldName);
+                if (candidate == null) {
+                    break;
+                }
+                double x = candidate.x();
+                double z = candidate.z();
 
                 Double safeY = TeleportUtil.findSafeRtpY(rtpWorld, x, z);
                 if (safeY != null) {
+                    metrics.record(TeleportMetrics.Kind.RTP, TeleportMetrics.Stage.SEARCH, System.nanoTime() - searchStart);
                     Vector3d startPosition = targetPlayer.getTransform().getPosition();
                     teleportManager.queueTeleport(
-                        targetPlayer, targetRef, targetStore, startPosition,
+                        TeleportMetrics.Kind.RTP, targetPlayer, targetRef, targetStore, startPosition,
                         rtpWorldName, x, safeY, z,
                         0.0f, 0.0f,
                         "Randomly teleported by admin!",
@@ -343,6 +382,7 @@ public class RtpCommand extends AbstractPlayerCommand {
                 }
             }
 
+            metrics.fail(TeleportMetrics.Kind.RTP, TeleportMetrics.Failure.NO_SAFE_LOCATION);
             Msg.fail(context, "Could not find a safe location for " + targetPlayerName + " after " + MAX_ATTEMPTS + " attempts.");
         }
 
@@ -354,23 +394,5 @@ public class RtpCommand extends AbstractPlayerCommand {
             }
             return null;
         }
-
-        private CompletableFuture<RtpLocation> findSafeLocationAsync(World rtpWorld, int radius, int attempt) {
-            if (attempt >= MAX_ATTEMPTS) {
-                return CompletableFuture.completedFuture(null);
-            }
-
-            ThreadLocalRandom random = ThreadLocalRandom.current();
-            double x = random.nextDouble(-radius, radius);
-            double z = random.nextDouble(-radius, radius);
-
-            return TeleportUtil.findSafeRtpYAsync(rtpWorld, x, z)
-                .thenCompose(safeY -> {
-                    if (safeY != null) {
-                        return CompletableFuture.completedFuture(new RtpLocation(x, safeY, z));
-                    }
-                    return findSafeLocationAsync(rtpWorld, radius, attempt + 1);
-                });
-        }
     }
 }
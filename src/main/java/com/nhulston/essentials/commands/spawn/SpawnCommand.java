@@ -13,6 +13,7 @@ import com.nhulston.essentials.managers.SpawnManager;
 import com.nhulston.essentials.managers.TeleportManager;
 import com.nhulston.essentials.models.Spawn;
 import com.nhulston.essentials.util.Msg;
+import com.nhulston.essentials.util.TeleportMetrics;
 import javax.annotation.Nonnull;
 
 public class SpawnCommand extends AbstractPlayerCommand {
@@ -49,7 +50,7 @@ public class SpawnCommand extends AbstractPlayerCommand {
 
         Vector3d startPosition = playerRef.getTransform().getPosition();
         teleportManager.queueTeleport(
-            playerRef, ref, store, startPosition,
+            TeleportMetrics.Kind.SPAWN, playerRef, ref, store, startPosition,
             spawn.getWorld(), spawn.getX(), spawn.getY(), spawn.getZ(), spawn.getYaw(), spawn.getPitch(),
             "Teleported to spawn."
         );
@@ -4,8 +4,6 @@ import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.math.util.ChunkUtil;
 import com.hypixel.hytale.math.vector.Vector3d;
 import com.hypixel.hytale.math.vector.Vector3f;
-import com.hypixel.hytale.protocol.BlockMaterial;
-import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
 import com.hypixel.hytale.server.core.command.system.CommandContext;
 import com.hypixel.hytale.server.core.command.system.basecommands.AbstractPlayerCommand;
 import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
@@ -40,7 +38,7 @@ public class TopCommand extends AbstractPlayerCommand {
             Msg.fail(context, "Chunk not loaded.");
             return;
         }
-        Integer topY = findHighestSolidBlock(chunk, blockX, blockZ);
+        Integer topY = TeleportUtil.findHighestSolidY(world, chunk, blockX, blockZ, MAX_HEIGHT);
         if (topY == null) {
             Msg.fail(context, "No solid ground found above.");
             return;
@@ -56,13 +54,4 @@ public class TopCommand extends AbstractPlayerCommand {
         store.putComponent(ref, Teleport.getComponentType(), teleport);
         Msg.success(context, "Poof!");
     }
-    private Integer findHighestSolidBlock(WorldChunk chunk, int x, int z) {
-        for (int y = MAX_HEIGHT; y >= 0; y--) {
-            BlockType blockType = chunk.getBlockType(x, y, z);
-            if (blockType != null && blockType.getMaterial() == BlockMaterial.Solid) {
-                return y;
-            }
-        }
-        return null;
-    }
 }
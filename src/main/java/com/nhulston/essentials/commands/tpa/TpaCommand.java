@@ -33,14 +33,33 @@ public class TpaCommand extends AbstractPlayerCommand {
             Msg.fail(context, "You cannot send a teleport request to yourself.");
             return;
         }
-        boolean created = tpaManager.createRequest(playerRef, target);
-        if (!created) {
-            Msg.fail(context, "You already have a pending teleport request to " + target.getUsername() + ".");
-            return;
+        sendRequest(context, tpaManager, playerRef, target, false);
+    }
+    static void sendRequest(@Nonnull CommandContext context, @Nonnull TpaManager tpaManager,
+                            @Nonnull PlayerRef playerRef, @Nonnull PlayerRef target, boolean here) {
+        switch (tpaManager.createRequest(playerRef, target, here)) {
+            case DUPLICATE -> {
+                Msg.fail(context, "You already have a pending teleport request to " + target.getUsername() + ".");
+                return;
+            }
+            case TARGET_FULL -> {
+                Msg.fail(context, target.getUsername() + " has too many pending teleport requests. Try again later.");
+                return;
+            }
+            case REQUESTER_FULL -> {
+                Msg.fail(context, "You have too many pending teleport requests. Use /tpcancel to cancel them.");
+                return;
+            }
+            case CREATED -> {}
         }
         Msg.success(context, "Teleport request sent to " + target.getUsername() + ".");
         SoundUtil.playSound(target, "SFX_Alchemy_Bench_Close");
-        Msg.info(target, playerRef.getUsername() + " has requested to teleport to you.");
-        Msg.info(target, "Type '/tpaccept " + playerRef.getUsername() + "' to accept.");
+        if (here) {
+            Msg.info(target, playerRef.getUsername() + " has requested that you teleport to them.");
+        } else {
+            Msg.info(target, playerRef.getUsername() + " has requested to teleport to you.");
+        }
+        Msg.info(target, "Type '/tpaccept " + playerRef.getUsername() + "' to accept or '/tpdeny "
+                + playerRef.getUsername() + "' to deny.");
     }
 }
@@ -0,0 +1,42 @@
+package com.nhulston.essentials.commands.tpa;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractPlayerCommand;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.nhulston.essentials.managers.TpaManager;
+import com.nhulston.essentials.util.Msg;
+import javax.annotation.Nonnull;
+
+/**
+ * Command to ask another player to teleport to you.
+ * Usage: /tpahere <player>
+ */
+public class TpaHereCommand extends AbstractPlayerCommand {
+    private final TpaManager tpaManager;
+    private final RequiredArg<PlayerRef> targetArg;
+    public TpaHereCommand(@Nonnull TpaManager tpaManager) {
+        super("tpahere", "Request a player to teleport to you");
+        this.tpaManager = tpaManager;
+        this.targetArg = withRequiredArg("player", "Player to ask", ArgTypes.PLAYER_REF);
+        requirePermission("essentials.tpahere");
+    }
+    @Override
+    protected void execute(@Nonnull CommandContext context, @Nonnull Store<EntityStore> store,
+                           @Nonnull Ref<EntityStore> ref, @Nonnull PlayerRef playerRef, @Nonnull World world) {
+        PlayerRef target = context.get(targetArg);
+        if (target == null) {
+            Msg.fail(context, "Player not found.");
+            return;
+        }
+        if (target.getUuid().equals(playerRef.getUuid())) {
+            Msg.fail(context, "You cannot send a teleport request to yourself.");
+            return;
+        }
+        TpaCommand.sendRequest(context, tpaManager, playerRef, target, true);
+    }
+}
@@ -15,12 +15,14 @@ import com.nhulston.essentials.managers.BackManager;
 import com.nhulston.essentials.managers.TeleportManager;
 import com.nhulston.essentials.managers.TpaManager;
 import com.nhulston.essentials.util.Msg;
+import com.nhulston.essentials.util.TeleportMetrics;
 import javax.annotation.Nonnull;
 
 /**
  * Command to accept a teleport request from another player.
  * Usage: /tpaccept [player]
  * If no player is specified, accepts the most recent request.
+ * For a /tpahere request the accepting player is the one teleported.
  */
 public class TpacceptCommand extends AbstractPlayerCommand {
     private final TpaManager tpaManager;
@@ -71,6 +73,24 @@ public class TpacceptCommand extends AbstractPlayerCommand {
             return;
         }
 
+        // /tpahere: the accepting player teleports to the requester
+        if (request.isHere()) {
+            Vector3d currentPos = playerRef.getTransform().getPosition();
+            Vector3f currentRot = playerRef.getTransform().getRotation();
+            backManager.setTeleportLocation(playerRef.getUuid(), world.getName(),
+                currentPos.getX(), currentPos.getY(), currentPos.getZ(),
+                currentRot.getY(), currentRot.getX());
+
+            Msg.success(context, "Teleport request from " + requesterName + " accepted.");
+            Msg.info(requester, playerRef.getUsername() + " accepted your teleport request.");
+            teleportManager.queueTeleportToPlayer(
+                TeleportMetrics.Kind.TPA, playerRef, ref, store, playerRef.getTransform().getPosition(),
+                requester,
+                "Teleported to " + requester.getUsername() + "."
+            );
+            return;
+        }
+
         Ref<EntityStore> requesterRef = requester.getReference();
         if (requesterRef == null || !requesterRef.isValid()) {
             Msg.fail(context, requesterName + " is no longer available.");
@@ -91,7 +111,7 @@ public class TpacceptCommand extends AbstractPlayerCommand {
         Msg.success(context, "Teleport request from " + requesterName + " accepted.");
         Vector3d startPosition = requester.getTransform().getPosition();
         teleportManager.queueTeleportToPlayer(
-            requester, requesterRef, requesterStore, startPosition,
+            TeleportMetrics.Kind.TPA, requester, requesterRef, requesterStore, startPosition,
             playerRef,   
             "Teleported to " + playerRef.getUsername() + "."
         );
@@ -0,0 +1,61 @@
+package com.nhulston.essentials.commands.tpa;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractPlayerCommand;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.nhulston.essentials.managers.TpaManager;
+import com.nhulston.essentials.util.Msg;
+import javax.annotation.Nonnull;
+import java.util.List;
+
+/**
+ * Command to cancel teleport requests you have sent.
+ * Usage: /tpcancel [player]
+ * If no player is specified, cancels all of your pending requests.
+ */
+public class TpcancelCommand extends AbstractPlayerCommand {
+    private final TpaManager tpaManager;
+    private final OptionalArg<String> playerArg;
+
+    public TpcancelCommand(@Nonnull TpaManager tpaManager) {
+        super("tpcancel", "Cancel your teleport requests");
+        this.tpaManager = tpaManager;
+        this.playerArg = withOptionalArg("player", "Player whose request to cancel (defaults to all)", ArgTypes.STRING);
+
+        addAliases("tpacancel");
+        requirePermission("essentials.tpcancel");
+    }
+
+    @Override
+    protected void execute(@Nonnull CommandContext context, @Nonnull Store<EntityStore> store,
+                           @Nonnull Ref<EntityStore> ref, @Nonnull PlayerRef playerRef, @Nonnull World world) {
+        String targetName = context.get(playerArg);
+        List<TpaManager.TpaRequest> cancelled = tpaManager.cancelRequests(playerRef, targetName);
+        if (cancelled.isEmpty()) {
+            if (targetName == null) {
+                Msg.fail(context, "You have no pending teleport requests.");
+            } else {
+                Msg.fail(context, "You have no pending teleport request to " + targetName + ".");
+            }
+            return;
+        }
+
+        for (TpaManager.TpaRequest request : cancelled) {
+            PlayerRef target = Universe.get().getPlayer(request.getTargetUuid());
+            if (target != null) {
+                Msg.info(target, playerRef.getUsername() + " cancelled their teleport request.");
+            }
+        }
+        if (cancelled.size() == 1) {
+            Msg.success(context, "Teleport request to " + cancelled.getFirst().getTargetName() + " cancelled.");
+        } else {
+            Msg.success(context, "Cancelled " + cancelled.size() + " teleport requests.");
+        }
+    }
+}
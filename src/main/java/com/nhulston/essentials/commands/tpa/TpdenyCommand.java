@@ -0,0 +1,54 @@
+package com.nhulston.essentials.commands.tpa;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractPlayerCommand;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.nhulston.essentials.managers.TpaManager;
+import com.nhulston.essentials.util.Msg;
+import javax.annotation.Nonnull;
+
+/**
+ * Command to deny a teleport request from another player.
+ * Usage: /tpdeny [player]
+ * If no player is specified, denies the most recent request.
+ */
+public class TpdenyCommand extends AbstractPlayerCommand {
+    private final TpaManager tpaManager;
+    private final OptionalArg<String> playerArg;
+
+    public TpdenyCommand(@Nonnull TpaManager tpaManager) {
+        super("tpdeny", "Deny a teleport request");
+        this.tpaManager = tpaManager;
+        this.playerArg = withOptionalArg("player", "Player whose request to deny (defaults to most recent)", ArgTypes.STRING);
+
+        addAliases("tpno");
+        requirePermission("essentials.tpdeny");
+    }
+
+    @Override
+    protected void execute(@Nonnull CommandContext context, @Nonnull Store<EntityStore> store,
+                           @Nonnull Ref<EntityStore> ref, @Nonnull PlayerRef playerRef, @Nonnull World world) {
+        String requesterName = context.get(playerArg);
+        TpaManager.TpaRequest request = tpaManager.denyRequest(playerRef, requesterName);
+        if (request == null) {
+            if (requesterName == null) {
+                Msg.fail(context, "No pending teleport requests.");
+            } else {
+                Msg.fail(context, "No pending teleport request from " + requesterName + ".");
+            }
+            return;
+        }
+
+        Msg.success(context, "Teleport request from " + request.getRequesterName() + " denied.");
+        PlayerRef requester = Universe.get().getPlayer(request.getRequesterUuid());
+        if (requester != null) {
+            Msg.fail(requester, playerRef.getUsername() + " denied your teleport request.");
+        }
+    }
+}
@@ -15,6 +15,7 @@ import com.nhulston.essentials.managers.TeleportManager;
 import com.nhulston.essentials.managers.WarpManager;
 import com.nhulston.essentials.models.Warp;
 import com.nhulston.essentials.util.Msg;
+import com.nhulston.essentials.util.TeleportMetrics;
 import javax.annotation.Nonnull;
 import java.util.Map;
 
@@ -79,7 +80,7 @@ public class WarpCommand extends AbstractPlayerCommand {
 
             Vector3d startPosition = playerRef.getTransform().getPosition();
             teleportManager.queueTeleport(
-                playerRef, ref, store, startPosition,
+                TeleportMetrics.Kind.WARP, playerRef, ref, store, startPosition,
                 warp.getWorld(), warp.getX(), warp.getY(), warp.getZ(), warp.getYaw(), warp.getPitch(),
                 "Teleported to warp '" + warpName + "'"
             );
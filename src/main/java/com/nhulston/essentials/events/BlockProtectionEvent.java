@@ -0,0 +1,245 @@
+package com.nhulston.essentials.events;
+import com.hypixel.hytale.component.ArchetypeChunk;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.ComponentRegistryProxy;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.dependency.Dependency;
+import com.hypixel.hytale.component.dependency.RootDependency;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.component.system.EntityEventSystem;
+import com.hypixel.hytale.math.vector.Vector3i;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.event.events.ecs.BreakBlockEvent;
+import com.hypixel.hytale.server.core.event.events.ecs.DamageBlockEvent;
+import com.hypixel.hytale.server.core.event.events.ecs.PlaceBlockEvent;
+import com.hypixel.hytale.server.core.event.events.ecs.UseBlockEvent;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.nhulston.essentials.managers.PersonalBenchManager;
+import com.nhulston.essentials.managers.ProtectionManager;
+import com.nhulston.essentials.managers.RegionManager;
+import com.nhulston.essentials.managers.SpawnProtectionManager;
+import com.nhulston.essentials.models.PersonalBenchProtection;
+import com.nhulston.essentials.models.Region;
+import com.nhulston.essentials.util.ConfigManager;
+import com.nhulston.essentials.util.PermissionCache;
+import org.jetbrains.annotations.NotNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Block protection for breaking, placing, mining and using blocks, in one place.
+ * Each event runs the checks in order: building disabled globally, then the chunk filter of
+ * {@link ProtectionManager} (most events stop here), then regions, then spawn protection, then
+ * personal benches. A region that allows the action overrides spawn protection.
+ */
+public class BlockProtectionEvent {
+    private static final String BUILD_BYPASS_PERMISSION = "essentials.build.bypass";
+    private static final String BUILD_DISABLED_MESSAGE = "Building is disabled.";
+    private static final String PROTECTED_MESSAGE = "This area is protected.";
+    private static final String PROTECTED_COLOR = "#FF5555";
+
+    private enum Action {
+        BREAK, PLACE, DAMAGE
+    }
+
+    private final ConfigManager configManager;
+    private final ProtectionManager protectionManager;
+    private final SpawnProtectionManager spawnProtectionManager;
+    private final RegionManager regionManager;
+    private final PersonalBenchManager benchManager;
+    private final PermissionCache permissionCache;
+
+    public BlockProtectionEvent(@Nonnull ConfigManager configManager, @Nonnull ProtectionManager protectionManager,
+                                @Nonnull SpawnProtectionManager spawnProtectionManager,
+                                @Nonnull RegionManager regionManager, @Nonnull PersonalBenchManager benchManager,
+                                @Nonnull PermissionCache permissionCache) {
+        this.configManager = configManager;
+        this.protectionManager = protectionManager;
+        this.spawnProtectionManager = spawnProtectionManager;
+        this.regionManager = regionManager;
+        this.benchManager = benchManager;
+        this.permissionCache = permissionCache;
+    }
+
+    public void register(@Nonnull ComponentRegistryProxy<EntityStore> registry) {
+        registry.registerSystem(new BreakBlockProtectionSystem());
+        registry.registerSystem(new PlaceBlockProtectionSystem());
+        registry.registerSystem(new DamageBlockProtectionSystem());
+        registry.registerSystem(new UseBlockProtectionSystem());
+    }
+
+    /**
+     * Runs the protection checks for one block event.
+     * @return true if the event has to be cancelled
+     */
+    private boolean isDenied(@Nonnull Action action, int index, @Nonnull ArchetypeChunk<EntityStore> chunk,
+                             @Nonnull Store<EntityStore> store, @Nonnull Vector3i pos) {
+        if (configManager.isBuildingDisabled()) {
+            PlayerRef playerRef = chunk.getComponent(index, PlayerRef.getComponentType());
+            if (playerRef == null || !permissionCache.hasPermission(playerRef.getUuid(), BUILD_BYPASS_PERMISSION)) {
+                if (action != Action.DAMAGE) {
+                    sendMessage(playerRef, BUILD_DISABLED_MESSAGE);
+                }
+                return true;
+            }
+        }
+
+        String worldName = store.getExternalData().getWorld().getName();
+        if (!protectionManager.mightBeProtected(worldName, pos.getX(), pos.getZ())) {
+            return false;
+        }
+
+        PlayerRef playerRef = chunk.getComponent(index, PlayerRef.getComponentType());
+        Region.Flag flag = action == Action.PLACE ? Region.Flag.BUILD : Region.Flag.BREAK;
+        Boolean regionAllows = regionManager.getFlag(worldName, pos.getX(), pos.getY(), pos.getZ(), flag);
+        if (regionAllows == Boolean.FALSE && (playerRef == null || !regionManager.canBypass(playerRef.getUuid()))) {
+            if (action != Action.DAMAGE) {
+                sendMessage(playerRef, PROTECTED_MESSAGE);
+            }
+            return true;
+        }
+        if (regionAllows == null && spawnProtectionManager.isEnabled()
+                && spawnProtectionManager.isInProtectedArea(worldName, pos)
+                && (playerRef == null || !spawnProtectionManager.canBypass(playerRef.getUuid()))) {
+            if (action != Action.DAMAGE) {
+                sendMessage(playerRef, PROTECTED_MESSAGE);
+            }
+            return true;
+        }
+
+        // Benches are protected from mining; the owner mining their own bench drops the protection
+        if (action == Action.DAMAGE && playerRef != null) {
+            PersonalBenchProtection protection = benchManager.getProtection(
+                    worldName, pos.getX(), pos.getY(), pos.getZ()
+            );
+            if (protection != null && !benchManager.canDestroy(playerRef.getUuid(),
+                    worldName, pos.getX(), pos.getY(), pos.getZ())) {
+                sendBenchMessage(playerRef, protection);
+                return true;
+            } else if (protection != null && protection.getOwnerUuid().equals(playerRef.getUuid())) {
+                benchManager.removeProtection(worldName, pos.getX(), pos.getY(), pos.getZ());
+            }
+        }
+        return false;
+    }
+
+    private static void sendMessage(@Nullable PlayerRef playerRef, @Nonnull String message) {
+        if (playerRef != null) {
+            playerRef.sendMessage(Message.raw(message).color(PROTECTED_COLOR));
+        }
+    }
+
+    private static void sendBenchMessage(@Nonnull PlayerRef playerRef, @Nonnull PersonalBenchProtection protection) {
+        playerRef.sendMessage(Message.join(
+                Message.raw("This bench is protected by ").color(PROTECTED_COLOR),
+                Message.raw(protection.getOwnerName()).color("#FFAA00")
+        ));
+    }
+
+    private class BreakBlockProtectionSystem extends EntityEventSystem<EntityStore, BreakBlockEvent> {
+        BreakBlockProtectionSystem() {
+            super(BreakBlockEvent.class);
+        }
+        @Override
+        public Query<EntityStore> getQuery() {
+            return Query.any();
+        }
+        @Override
+        public void handle(int index, @NotNull ArchetypeChunk<EntityStore> chunk,
+                           @NotNull Store<EntityStore> store,
+                           @NotNull CommandBuffer<EntityStore> buffer,
+                           @NotNull BreakBlockEvent event) {
+            if (!event.isCancelled() && isDenied(Action.BREAK, index, chunk, store, event.getTargetBlock())) {
+                event.setCancelled(true);
+            }
+        }
+    }
+
+    private class PlaceBlockProtectionSystem extends EntityEventSystem<EntityStore, PlaceBlockEvent> {
+        PlaceBlockProtectionSystem() {
+            super(PlaceBlockEvent.class);
+        }
+        @Override
+        public Query<EntityStore> getQuery() {
+            return Query.any();
+        }
+        @Override
+        public void handle(int index, @NotNull ArchetypeChunk<EntityStore> chunk,
+                           @NotNull Store<EntityStore> store,
+                           @NotNull CommandBuffer<EntityStore> buffer,
+                           @NotNull PlaceBlockEvent event) {
+            if (!event.isCancelled() && isDenied(Action.PLACE, index, chunk, store, event.getTargetBlock())) {
+                event.setCancelled(true);
+            }
+        }
+    }
+
+    private class DamageBlockProtectionSystem extends EntityEventSystem<EntityStore, DamageBlockEvent> {
+        DamageBlockProtectionSystem() {
+            super(DamageBlockEvent.class);
+        }
+        @Override
+        public Query<EntityStore> getQuery() {
+            return Query.any();
+        }
+        @Override
+        public void handle(int index, @NotNull ArchetypeChunk<EntityStore> chunk,
+                           @NotNull Store<EntityStore> store,
+                           @NotNull CommandBuffer<EntityStore> buffer,
+                           @NotNull DamageBlockEvent event) {
+            if (!event.isCancelled() && isDenied(Action.DAMAGE, index, chunk, store, event.getTargetBlock())) {
+                event.setCancelled(true);
+            }
+        }
+    }
+
+    private class UseBlockProtectionSystem extends EntityEventSystem<EntityStore, UseBlockEvent.Pre> {
+        UseBlockProtectionSystem() {
+            super(UseBlockEvent.Pre.class);
+        }
+        @Override
+        public void handle(int index, @Nonnull ArchetypeChunk<EntityStore> chunk,
+                           @Nonnull Store<EntityStore> store, @Nonnull CommandBuffer<EntityStore> buffer,
+                           @Nonnull UseBlockEvent.Pre event) {
+            Vector3i pos = event.getTargetBlock();
+            String worldName = store.getExternalData().getWorld().getName();
+            if (!protectionManager.mightBeProtected(worldName, pos.getX(), pos.getZ())) {
+                return;
+            }
+            PlayerRef playerRef = chunk.getComponent(index, PlayerRef.getComponentType());
+            if (playerRef == null) {
+                return;
+            }
+            if (regionManager.getFlag(worldName, pos.getX(), pos.getY(), pos.getZ(), Region.Flag.USE) == Boolean.FALSE
+                    && !regionManager.canBypass(playerRef.getUuid())) {
+                event.setCancelled(true);
+                sendMessage(playerRef, PROTECTED_MESSAGE);
+                return;
+            }
+            if (!PersonalBenchManager.isBench(event.getBlockType().getId())) {
+                return;
+            }
+            PersonalBenchProtection protection = benchManager.getProtection(
+                    worldName, pos.getX(), pos.getY(), pos.getZ()
+            );
+            if (protection != null && !benchManager.canUse(playerRef.getUuid(),
+                    worldName, pos.getX(), pos.getY(), pos.getZ())) {
+                event.setCancelled(true);
+                sendBenchMessage(playerRef, protection);
+            }
+        }
+        @Nullable
+        @Override
+        public Query<EntityStore> getQuery() {
+            return PlayerRef.getComponentType();
+        }
+        @Nonnull
+        @Override
+        public Set<Dependency<EntityStore>> getDependencies() {
+            return Collections.singleton(RootDependency.first());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.nhulston.essentials.events;
+import com.hypixel.hytale.component.ArchetypeChunk;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.ComponentRegistryProxy;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.component.system.EntityEventSystem;
+import com.hypixel.hytale.math.vector.Vector3i;
+import com.hypixel.hytale.server.core.event.events.ecs.BreakBlockEvent;
+import com.hypixel.hytale.server.core.event.events.ecs.PlaceBlockEvent;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.nhulston.essentials.util.ColumnCache;
+import org.jetbrains.annotations.NotNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Drops cached column profiles for a chunk when a block in it is placed or broken.
+ */
+public class ColumnCacheEvent {
+    private final ColumnCache columnCache;
+    public ColumnCacheEvent(@Nonnull ColumnCache columnCache) {
+        this.columnCache = columnCache;
+    }
+    public void register(@Nonnull ComponentRegistryProxy<EntityStore> registry) {
+        registry.registerSystem(new BreakBlockInvalidationSystem(columnCache));
+        registry.registerSystem(new PlaceBlockInvalidationSystem(columnCache));
+    }
+    private static void invalidate(@Nonnull ColumnCache columnCache, @Nonnull Store<EntityStore> store,
+                                   @Nonnull Vector3i target) {
+        String worldName = store.getExternalData().getWorld().getName();
+        columnCache.invalidate(worldName, target.getX(), target.getZ());
+    }
+    private static class BreakBlockInvalidationSystem extends EntityEventSystem<EntityStore, BreakBlockEvent> {
+        private final ColumnCache columnCache;
+        BreakBlockInvalidationSystem(@Nonnull ColumnCache columnCache) {
+            super(BreakBlockEvent.class);
+            this.columnCache = columnCache;
+        }
+        @Override
+        public Query<EntityStore> getQuery() {
+            return Query.any();
+        }
+        @Override
+        public void handle(int index, @NotNull ArchetypeChunk<EntityStore> chunk,
+                           @NotNull Store<EntityStore> store,
+                           @NotNull CommandBuffer<EntityStore> buffer,
+                           @NotNull BreakBlockEvent event) {
+            // Protection systems may still cancel it; dropping the cache for nothing is harmless
+            invalidate(columnCache, store, event.getTargetBlock());
+        }
+    }
+    private static class PlaceBlockInvalidationSystem extends EntityEventSystem<EntityStore, PlaceBlockEvent> {
+        private final ColumnCache columnCache;
+        PlaceBlockInvalidationSystem(@Nonnull ColumnCache columnCache) {
+            super(PlaceBlockEvent.class);
+            this.columnCache = columnCache;
+        }
+        @Override
+        public Query<EntityStore> getQuery() {
+            return Query.any();
+        }
+        @Override
+        public void handle(int index, @NotNull ArchetypeChunk<EntityStore> chunk,
+                           @NotNull Store<EntityStore> store,
+                           @NotNull CommandBuffer<EntityStore> buffer,
+                           @NotNull PlaceBlockEvent event) {
+            invalidate(columnCache, store, event.getTargetBlock());
+        }
+    }
+}
@@ -38,6 +38,9 @@ public class JoinLeaveEvent {
             PlayerRef playerRef = event.getPlayerRef();
             String playerName = playerRef.getUsername();
 
+            // Load player data off-thread so world ticks never wait on disk for it
+            storageManager.preloadPlayerData(playerRef.getUuid());
+
             // Register username -> UUID mapping for offline player lookups
             storageManager.registerPlayer(playerName, playerRef.getUuid());
 
@@ -0,0 +1,26 @@
+package com.nhulston.essentials.events;
+import com.hypixel.hytale.event.EventRegistry;
+import com.hypixel.hytale.server.core.event.events.permissions.GroupPermissionChangeEvent;
+import com.hypixel.hytale.server.core.event.events.permissions.PlayerGroupEvent;
+import com.hypixel.hytale.server.core.event.events.permissions.PlayerPermissionChangeEvent;
+import com.nhulston.essentials.util.PermissionCache;
+import javax.annotation.Nonnull;
+
+/**
+ * Drops cached permission decisions when permissions change: a player's own entry when their
+ * permissions or groups change, every entry when a group's permissions change.
+ */
+public class PermissionCacheEvent {
+    private final PermissionCache permissionCache;
+    public PermissionCacheEvent(@Nonnull PermissionCache permissionCache) {
+        this.permissionCache = permissionCache;
+    }
+    public void register(@Nonnull EventRegistry eventRegistry) {
+        eventRegistry.registerGlobal(PlayerPermissionChangeEvent.class,
+                event -> permissionCache.invalidate(event.getPlayerUuid()));
+        eventRegistry.registerGlobal(PlayerGroupEvent.class,
+                event -> permissionCache.invalidate(event.getPlayerUuid()));
+        eventRegistry.registerGlobal(GroupPermissionChangeEvent.class,
+                _ -> permissionCache.invalidateAll());
+    }
+}
@@ -11,15 +11,12 @@ import com.hypixel.hytale.component.system.EntityEventSystem;
 import com.hypixel.hytale.math.vector.Vector3i;
 import com.hypixel.hytale.server.core.Message;
 import com.hypixel.hytale.server.core.entity.entities.Player;
-import com.hypixel.hytale.server.core.event.events.ecs.DamageBlockEvent;
 import com.hypixel.hytale.server.core.event.events.ecs.PlaceBlockEvent;
-import com.hypixel.hytale.server.core.event.events.ecs.UseBlockEvent;
 import com.hypixel.hytale.server.core.inventory.ItemStack;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import com.nhulston.essentials.managers.PersonalBenchManager;
-import com.nhulston.essentials.models.PersonalBenchProtection;
 import com.nhulston.essentials.util.Log;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -32,8 +29,6 @@ public class PersonalBenchProtectionEvent {
     }
     public void register(@Nonnull ComponentRegistryProxy<EntityStore> registry) {
         registry.registerSystem(new BenchPlacementSystem(benchManager));
-        registry.registerSystem(new BenchBreakSystem(benchManager));
-        registry.registerSystem(new BenchUseSystem(benchManager));
         Log.info("Personal bench protection registered.");
     }
     private static class BenchPlacementSystem extends EntityEventSystem<EntityStore, PlaceBlockEvent> {
@@ -91,98 +86,4 @@ public class PersonalBenchProtectionEvent {
             return Collections.singleton(RootDependency.first());
         }
     }
-    private static class BenchBreakSystem extends EntityEventSystem<EntityStore, DamageBlockEvent> {
-        private final PersonalBenchManager benchManager;
-        public BenchBreakSystem(@Nonnull PersonalBenchManager benchManager) {
-            super(DamageBlockEvent.class);
-            this.benchManager = benchManager;
-        }
-        @Override
-        public void handle(int index, @Nonnull ArchetypeChunk<EntityStore> archetypeChunk,
-                          @Nonnull Store<EntityStore> store, @Nonnull CommandBuffer<EntityStore> commandBuffer,
-                          @Nonnull DamageBlockEvent event) {
-            Ref<EntityStore> ref = archetypeChunk.getReferenceTo(index);
-            PlayerRef playerRef = store.getComponent(ref, PlayerRef.getComponentType());
-            Player player = store.getComponent(ref, Player.getComponentType());
-            if (playerRef == null || player == null) {
-                return;
-            }
-            Vector3i pos = event.getTargetBlock();
-            World world = player.getWorld();
-            if (world == null) {
-                return;
-            }
-            PersonalBenchProtection protection = benchManager.getProtection(
-                    world.getName(), pos.getX(), pos.getY(), pos.getZ()
-            );
-            if (protection != null && !benchManager.canDestroy(playerRef.getUuid(),
-                    world.getName(), pos.getX(), pos.getY(), pos.getZ())) {
-                event.setCancelled(true);
-                playerRef.sendMessage(Message.join(
-                        Message.raw("This bench is protected by ").color("#FF5555"),
-                        Message.raw(protection.getOwnerName()).color("#FFAA00")
-                ));
-            } else if (protection != null && protection.getOwnerUuid().equals(playerRef.getUuid())) {
-                benchManager.removeProtection(world.getName(), pos.getX(), pos.getY(), pos.getZ());
-            }
-        }
-        @Nullable
-        @Override
-        public Query<EntityStore> getQuery() {
-            return PlayerRef.getComponentType();
-        }
-        @Nonnull
-        @Override
-        public Set<Dependency<EntityStore>> getDependencies() {
-            return Collections.singleton(RootDependency.first());
-        }
-    }
-    private static class BenchUseSystem extends EntityEventSystem<EntityStore, UseBlockEvent.Pre> {
-        private final PersonalBenchManager benchManager;
-        public BenchUseSystem(@Nonnull PersonalBenchManager benchManager) {
-            super(UseBlockEvent.Pre.class);
-            this.benchManager = benchManager;
-        }
-        @Override
-        public void handle(int index, @Nonnull ArchetypeChunk<EntityStore> archetypeChunk,
-                          @Nonnull Store<EntityStore> store, @Nonnull CommandBuffer<EntityStore> commandBuffer,
-                          @Nonnull UseBlockEvent.Pre event) {
-            Ref<EntityStore> ref = archetypeChunk.getReferenceTo(index);
-            PlayerRef playerRef = store.getComponent(ref, PlayerRef.getComponentType());
-            Player player = store.getComponent(ref, Player.getComponentType());
-            if (playerRef == null || player == null) {
-                return;
-            }
-            String blockId = event.getBlockType().getId();
-            if (!PersonalBenchManager.isBench(blockId)) {
-                return;
-            }
-            Vector3i pos = event.getTargetBlock();
-            World world = player.getWorld();
-            if (world == null) {
-                return;
-            }
-            PersonalBenchProtection protection = benchManager.getProtection(
-                    world.getName(), pos.getX(), pos.getY(), pos.getZ()
-            );
-            if (protection != null && !benchManager.canUse(playerRef.getUuid(),
-                    world.getName(), pos.getX(), pos.getY(), pos.getZ())) {
-                event.setCancelled(true);
-                playerRef.sendMessage(Message.join(
-                        Message.raw("This bench is protected by ").color("#FF5555"),
-                        Message.raw(protection.getOwnerName()).color("#FFAA00")
-                ));
-            }
-        }
-        @Nullable
-        @Override
-        public Query<EntityStore> getQuery() {
-            return PlayerRef.getComponentType();
-        }
-        @Nonnull
-        @Override
-        public Set<Dependency<EntityStore>> getDependencies() {
-            return Collections.singleton(RootDependency.first());
-        }
-    }
 }
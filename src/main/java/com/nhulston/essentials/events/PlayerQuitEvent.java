@@ -4,10 +4,12 @@ import com.hypixel.hytale.server.core.event.events.player.PlayerDisconnectEvent;
 import com.nhulston.essentials.commands.freecam.FreecamCommand;
 import com.nhulston.essentials.commands.msg.MsgCommand;
 import com.nhulston.essentials.managers.AntiSpamManager;
-import com.nhulston.essentials.managers.BackManager;
+import com.nhulston.essentials.managers.RegionManager;
+import com.nhulston.essentials.managers.RegionTransitionManager;
 import com.nhulston.essentials.managers.TeleportManager;
 import com.nhulston.essentials.managers.TpaManager;
 import com.nhulston.essentials.util.Log;
+import com.nhulston.essentials.util.PermissionCache;
 import com.nhulston.essentials.util.StorageManager;
 import javax.annotation.Nonnull;
 import java.util.UUID;
@@ -15,18 +17,24 @@ public class PlayerQuitEvent {
     private final StorageManager storageManager;
     private final TpaManager tpaManager;
     private final TeleportManager teleportManager;
-    private final BackManager backManager;
     private final AntiSpamManager antiSpamManager;
+    private final RegionManager regionManager;
+    private final RegionTransitionManager regionTransitionManager;
+    private final PermissionCache permissionCache;
     public PlayerQuitEvent(@Nonnull StorageManager storageManager,
                            @Nonnull TpaManager tpaManager,
                            @Nonnull TeleportManager teleportManager,
-                           @Nonnull BackManager backManager,
-                           @Nonnull AntiSpamManager antiSpamManager) {
+                           @Nonnull AntiSpamManager antiSpamManager,
+                           @Nonnull RegionManager regionManager,
+                           @Nonnull RegionTransitionManager regionTransitionManager,
+                           @Nonnull PermissionCache permissionCache) {
         this.storageManager = storageManager;
         this.tpaManager = tpaManager;
         this.teleportManager = teleportManager;
-        this.backManager = backManager;
         this.antiSpamManager = antiSpamManager;
+        this.regionManager = regionManager;
+        this.regionTransitionManager = regionTransitionManager;
+        this.permissionCache = permissionCache;
     }
     public void register(@Nonnull EventRegistry eventRegistry) {
         eventRegistry.registerGlobal(PlayerDisconnectEvent.class, event -> {
@@ -35,11 +43,12 @@ public class PlayerQuitEvent {
             storageManager.unloadPlayer(playerUuid);
             tpaManager.onPlayerQuit(playerUuid);
             teleportManager.onPlayerQuit(playerUuid);
-            backManager.onPlayerQuit(playerUuid);
             antiSpamManager.clearPlayerData(playerUuid);
+            regionManager.onPlayerQuit(playerUuid);
+            regionTransitionManager.onPlayerQuit(playerUuid);
+            permissionCache.invalidate(playerUuid);
             MsgCommand.onPlayerQuit(playerUuid);
             FreecamCommand.onPlayerQuit(playerUuid);
-            SpawnRegionTitleEvent.onPlayerQuit(playerUuid);
         });
         Log.info("Player disconnect cleanup registered.");
     }
@@ -0,0 +1,114 @@
+package com.nhulston.essentials.events;
+import com.hypixel.hytale.component.ArchetypeChunk;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.ComponentRegistryProxy;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.SystemGroup;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.component.system.EntityEventSystem;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.event.events.ecs.InteractivelyPickupItemEvent;
+import com.hypixel.hytale.server.core.modules.entity.damage.Damage;
+import com.hypixel.hytale.server.core.modules.entity.damage.DamageEventSystem;
+import com.hypixel.hytale.server.core.modules.entity.damage.DamageModule;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.nhulston.essentials.managers.RegionManager;
+import com.nhulston.essentials.models.Region;
+import org.jetbrains.annotations.NotNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Region flags that are not about blocks: PvP and item pickup.
+ * Block flags are checked in {@link BlockProtectionEvent}.
+ */
+public class RegionProtectionEvent {
+    private static final String PROTECTED_COLOR = "#FF5555";
+    private static final String PVP_MESSAGE = "PvP is disabled here.";
+    private final RegionManager regionManager;
+    public RegionProtectionEvent(@Nonnull RegionManager regionManager) {
+        this.regionManager = regionManager;
+    }
+    public void register(@Nonnull ComponentRegistryProxy<EntityStore> registry) {
+        registry.registerSystem(new RegionDamageFilterSystem(regionManager));
+        registry.registerSystem(new ItemPickupProtectionSystem(regionManager));
+    }
+    private static Boolean getFlag(@Nonnull RegionManager manager, @Nonnull String worldName,
+                                   @Nonnull Vector3d position, @Nonnull Region.Flag flag) {
+        return manager.getFlag(worldName, (int) Math.floor(position.getX()), (int) Math.floor(position.getY()),
+                (int) Math.floor(position.getZ()), flag);
+    }
+    private static class RegionDamageFilterSystem extends DamageEventSystem {
+        private final RegionManager manager;
+        RegionDamageFilterSystem(RegionManager manager) {
+            super();
+            this.manager = manager;
+        }
+        @Override
+        public SystemGroup<EntityStore> getGroup() {
+            return DamageModule.get().getFilterDamageGroup();
+        }
+        @Override
+        public Query<EntityStore> getQuery() {
+            return PlayerRef.getComponentType();
+        }
+        @Override
+        public void handle(int index, @NotNull ArchetypeChunk<EntityStore> chunk,
+                           @NotNull Store<EntityStore> store,
+                           @NotNull CommandBuffer<EntityStore> buffer,
+                           Damage event) {
+            if (event.isCancelled() || !(event.getSource() instanceof Damage.EntitySource entitySource)) {
+                return;
+            }
+            PlayerRef victimRef = chunk.getComponent(index, PlayerRef.getComponentType());
+            Ref<EntityStore> attackerRef = entitySource.getRef();
+            if (victimRef == null || !attackerRef.isValid()) {
+                return;
+            }
+            PlayerRef attackerPlayerRef = store.getComponent(attackerRef, PlayerRef.getComponentType());
+            if (attackerPlayerRef == null) {
+                return;
+            }
+            String worldName = store.getExternalData().getWorld().getName();
+            if (getFlag(manager, worldName, victimRef.getTransform().getPosition(), Region.Flag.PVP) != Boolean.FALSE
+                    || manager.canBypass(attackerPlayerRef.getUuid())) {
+                return;
+            }
+            event.setCancelled(true);
+            event.setAmount(0);
+            attackerPlayerRef.sendMessage(Message.raw(PVP_MESSAGE).color(PROTECTED_COLOR));
+        }
+    }
+    private static class ItemPickupProtectionSystem
+            extends EntityEventSystem<EntityStore, InteractivelyPickupItemEvent> {
+        private final RegionManager manager;
+        ItemPickupProtectionSystem(RegionManager manager) {
+            super(InteractivelyPickupItemEvent.class);
+            this.manager = manager;
+        }
+        @Override
+        public Query<EntityStore> getQuery() {
+            return PlayerRef.getComponentType();
+        }
+        @Override
+        public void handle(int index, @NotNull ArchetypeChunk<EntityStore> chunk,
+                           @NotNull Store<EntityStore> store,
+                           @NotNull CommandBuffer<EntityStore> buffer,
+                           @NotNull InteractivelyPickupItemEvent event) {
+            if (event.isCancelled()) {
+                return;
+            }
+            PlayerRef playerRef = chunk.getComponent(index, PlayerRef.getComponentType());
+            if (playerRef == null) {
+                return;
+            }
+            String worldName = store.getExternalData().getWorld().getName();
+            if (getFlag(manager, worldName, playerRef.getTransform().getPosition(), Region.Flag.ITEM_PICKUP) == Boolean.FALSE
+                    && !manager.canBypass(playerRef.getUuid())) {
+                event.setCancelled(true);
+            }
+        }
+    }
+}
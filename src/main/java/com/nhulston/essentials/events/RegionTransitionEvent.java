@@ -0,0 +1,67 @@
+package com.nhulston.essentials.events;
+import com.hypixel.hytale.component.ArchetypeChunk;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.ComponentRegistryProxy;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.component.system.tick.EntityTickingSystem;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.nhulston.essentials.managers.RegionTransitionManager;
+import com.nhulston.essentials.systems.RegionTrackerComponent;
+import org.jetbrains.annotations.NotNull;
+import javax.annotation.Nonnull;
+public class RegionTransitionEvent {
+    private final RegionTransitionManager regionTransitionManager;
+    public RegionTransitionEvent(@Nonnull RegionTransitionManager regionTransitionManager) {
+        this.regionTransitionManager = regionTransitionManager;
+    }
+    public void register(@Nonnull ComponentRegistryProxy<EntityStore> registry) {
+        // The component must exist before the system's query is built
+        RegionTrackerComponent.setComponentType(
+                registry.registerComponent(RegionTrackerComponent.class, RegionTrackerComponent::new));
+        registry.registerSystem(new RegionTrackerSystem(regionTransitionManager));
+    }
+    /**
+     * Ticks players only. Each tick compares the player's block position with the one in their
+     * tracker component; the areas are looked up again only when it differs.
+     */
+    private static class RegionTrackerSystem extends EntityTickingSystem<EntityStore> {
+        private final RegionTransitionManager manager;
+        RegionTrackerSystem(@Nonnull RegionTransitionManager manager) {
+            this.manager = manager;
+        }
+        @Override
+        public Query<EntityStore> getQuery() {
+            return Query.and(PlayerRef.getComponentType(), TransformComponent.getComponentType());
+        }
+        @Override
+        public void tick(float deltaTime, int index, ArchetypeChunk<EntityStore> chunk,
+                         @NotNull Store<EntityStore> store, @NotNull CommandBuffer<EntityStore> buffer) {
+            if (!manager.hasListeners()) {
+                return;
+            }
+            PlayerRef playerRef = chunk.getComponent(index, PlayerRef.getComponentType());
+            if (playerRef == null) {
+                return;
+            }
+            RegionTrackerComponent state = chunk.getComponent(index, RegionTrackerComponent.getComponentType());
+            if (state == null) {
+                // First tick in this world; tracking starts once the component is in place
+                buffer.putComponent(chunk.getReferenceTo(index), RegionTrackerComponent.getComponentType(),
+                        manager.createTracker(playerRef.getUuid()));
+                return;
+            }
+            TransformComponent transform = chunk.getComponent(index, TransformComponent.getComponentType());
+            if (transform == null) {
+                return;
+            }
+            Vector3d position = transform.getPosition();
+            manager.update(playerRef, state, store.getExternalData().getWorld().getName(),
+                    (int) Math.floor(position.getX()), (int) Math.floor(position.getY()),
+                    (int) Math.floor(position.getZ()));
+        }
+    }
+}
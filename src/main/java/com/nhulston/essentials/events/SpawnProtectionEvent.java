@@ -6,31 +6,27 @@ import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.component.SystemGroup;
 import com.hypixel.hytale.component.query.Query;
-import com.hypixel.hytale.component.system.EntityEventSystem;
+import com.hypixel.hytale.math.vector.Vector3d;
 import com.hypixel.hytale.server.core.Message;
-import com.hypixel.hytale.server.core.event.events.ecs.BreakBlockEvent;
-import com.hypixel.hytale.server.core.event.events.ecs.DamageBlockEvent;
-import com.hypixel.hytale.server.core.event.events.ecs.PlaceBlockEvent;
 import com.hypixel.hytale.server.core.modules.entity.damage.Damage;
 import com.hypixel.hytale.server.core.modules.entity.damage.DamageEventSystem;
 import com.hypixel.hytale.server.core.modules.entity.damage.DamageModule;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.nhulston.essentials.managers.RegionManager;
 import com.nhulston.essentials.managers.SpawnProtectionManager;
+import com.nhulston.essentials.models.Region;
 import org.jetbrains.annotations.NotNull;
 import javax.annotation.Nonnull;
 public class SpawnProtectionEvent {
-    private static final String PROTECTED_MESSAGE = "This area is protected.";
     private static final String PROTECTED_COLOR = "#FF5555";
     private static final String PVP_MESSAGE = "PvP is disabled in spawn.";
     private final SpawnProtectionManager spawnProtectionManager;
-    public SpawnProtectionEvent(@Nonnull SpawnProtectionManager spawnProtectionManager) {
+    private final RegionManager regionManager;
+    public SpawnProtectionEvent(@Nonnull SpawnProtectionManager spawnProtectionManager,
+                                @Nonnull RegionManager regionManager) {
         this.spawnProtectionManager = spawnProtectionManager;
-    }
-    private static void sendProtectedMessage(PlayerRef playerRef) {
-        if (playerRef != null) {
-            playerRef.sendMessage(Message.raw(PROTECTED_MESSAGE).color(PROTECTED_COLOR));
-        }
+        this.regionManager = regionManager;
     }
     private static void sendPvpMessage(PlayerRef playerRef) {
         if (playerRef != null) {
@@ -38,117 +34,15 @@ public class SpawnProtectionEvent {
         }
     }
     public void register(@Nonnull ComponentRegistryProxy<EntityStore> registry) {
-        registry.registerSystem(new BreakBlockProtectionSystem(spawnProtectionManager));
-        registry.registerSystem(new PlaceBlockProtectionSystem(spawnProtectionManager));
-        registry.registerSystem(new DamageBlockProtectionSystem(spawnProtectionManager));
-        registry.registerSystem(new SpawnDamageFilterSystem(spawnProtectionManager));
-    }
-    private static class BreakBlockProtectionSystem 
-            extends EntityEventSystem<EntityStore, BreakBlockEvent> {
-        private final SpawnProtectionManager manager;
-        BreakBlockProtectionSystem(SpawnProtectionManager manager) {
-            super(BreakBlockEvent.class);
-            this.manager = manager;
-        }
-        @Override
-        public Query<EntityStore> getQuery() {
-            return Query.any();
-        }
-        @Override
-        public void handle(int index, @NotNull ArchetypeChunk<EntityStore> chunk,
-                           @NotNull Store<EntityStore> store,
-                           @NotNull CommandBuffer<EntityStore> buffer,
-                           BreakBlockEvent event) {
-            if (!manager.isEnabled() || event.isCancelled()) {
-                return;
-            }
-
-            // Get current world name
-            String worldName = store.getExternalData().getWorld().getName();
-
-            if (!manager.isInProtectedArea(worldName, event.getTargetBlock())) {
-                return;
-            }
-            PlayerRef playerRef = chunk.getComponent(index, PlayerRef.getComponentType());
-            if (playerRef != null && manager.canBypass(playerRef.getUuid())) {
-                return;
-            }
-            event.setCancelled(true);
-            sendProtectedMessage(playerRef);
-        }
-    }
-    private static class PlaceBlockProtectionSystem 
-            extends EntityEventSystem<EntityStore, PlaceBlockEvent> {
-        private final SpawnProtectionManager manager;
-        PlaceBlockProtectionSystem(SpawnProtectionManager manager) {
-            super(PlaceBlockEvent.class);
-            this.manager = manager;
-        }
-        @Override
-        public Query<EntityStore> getQuery() {
-            return Query.any();
-        }
-        @Override
-        public void handle(int index, @NotNull ArchetypeChunk<EntityStore> chunk,
-                           @NotNull Store<EntityStore> store,
-                           @NotNull CommandBuffer<EntityStore> buffer,
-                           PlaceBlockEvent event) {
-            if (!manager.isEnabled() || event.isCancelled()) {
-                return;
-            }
-
-            // Get current world name
-            String worldName = store.getExternalData().getWorld().getName();
-
-            if (!manager.isInProtectedArea(worldName, event.getTargetBlock())) {
-                return;
-            }
-            PlayerRef playerRef = chunk.getComponent(index, PlayerRef.getComponentType());
-            if (playerRef != null && manager.canBypass(playerRef.getUuid())) {
-                return;
-            }
-            event.setCancelled(true);
-            sendProtectedMessage(playerRef);
-        }
-    }
-    private static class DamageBlockProtectionSystem 
-            extends EntityEventSystem<EntityStore, DamageBlockEvent> {
-        private final SpawnProtectionManager manager;
-        DamageBlockProtectionSystem(SpawnProtectionManager manager) {
-            super(DamageBlockEvent.class);
-            this.manager = manager;
-        }
-        @Override
-        public Query<EntityStore> getQuery() {
-            return Query.any();
-        }
-        @Override
-        public void handle(int index, @NotNull ArchetypeChunk<EntityStore> chunk,
-                           @NotNull Store<EntityStore> store,
-                           @NotNull CommandBuffer<EntityStore> buffer,
-                           DamageBlockEvent event) {
-            if (!manager.isEnabled() || event.isCancelled()) {
-                return;
-            }
-
-            // Get current world name
-            String worldName = store.getExternalData().getWorld().getName();
-
-            if (!manager.isInProtectedArea(worldName, event.getTargetBlock())) {
-                return;
-            }
-            PlayerRef playerRef = chunk.getComponent(index, PlayerRef.getComponentType());
-            if (playerRef != null && manager.canBypass(playerRef.getUuid())) {
-                return;
-            }
-            event.setCancelled(true);
-        }
+        registry.registerSystem(new SpawnDamageFilterSystem(spawnProtectionManager, regionManager));
     }
     private static class SpawnDamageFilterSystem extends DamageEventSystem {
         private final SpawnProtectionManager manager;
-        SpawnDamageFilterSystem(SpawnProtectionManager manager) {
+        private final RegionManager regionManager;
+        SpawnDamageFilterSystem(SpawnProtectionManager manager, RegionManager regionManager) {
             super();
             this.manager = manager;
+            this.regionManager = regionManager;
         }
         @Override
         public SystemGroup<EntityStore> getGroup() {
@@ -174,7 +68,14 @@ public class SpawnProtectionEvent {
             // Get current world name
             String worldName = store.getExternalData().getWorld().getName();
 
-            if (!manager.isInProtectedArea(worldName, victimRef.getTransform().getPosition())) {
+            Vector3d position = victimRef.getTransform().getPosition();
+            if (!manager.isInProtectedArea(worldName, position)) {
+                return;
+            }
+
+            // A region inside spawn that allows PvP (an arena) overrides spawn protection
+            if (regionManager.getFlag(worldName, (int) Math.floor(position.getX()), (int) Math.floor(position.getY()),
+                    (int) Math.floor(position.getZ()), Region.Flag.PVP) == Boolean.TRUE) {
                 return;
             }
             Damage.Source source = event.getSource();
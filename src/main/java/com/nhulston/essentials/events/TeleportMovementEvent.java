@@ -6,20 +6,27 @@ import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.component.query.Query;
 import com.hypixel.hytale.component.system.tick.EntityTickingSystem;
-import com.hypixel.hytale.math.vector.Vector3d;
-import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import com.nhulston.essentials.managers.TeleportManager;
+import com.nhulston.essentials.systems.PendingTeleportComponent;
 import org.jetbrains.annotations.NotNull;
 import javax.annotation.Nonnull;
+import java.util.UUID;
 public class TeleportMovementEvent {
     private final TeleportManager teleportManager;
     public TeleportMovementEvent(@Nonnull TeleportManager teleportManager) {
         this.teleportManager = teleportManager;
     }
     public void register(@Nonnull ComponentRegistryProxy<EntityStore> registry) {
+        // The component must exist before the system's query is built
+        PendingTeleportComponent.setComponentType(
+                registry.registerComponent(PendingTeleportComponent.class, PendingTeleportComponent::new));
         registry.registerSystem(new TeleportMovementCheckSystem(teleportManager));
     }
+    /**
+     * Ticks only entities with a pending teleport, instead of every entity in every world.
+     */
     private static class TeleportMovementCheckSystem extends EntityTickingSystem<EntityStore> {
         private final TeleportManager teleportManager;
         TeleportMovementCheckSystem(@Nonnull TeleportManager teleportManager) {
@@ -27,21 +34,20 @@ public class TeleportMovementEvent {
         }
         @Override
         public Query<EntityStore> getQuery() {
-            return Query.any();
+            return Query.and(PendingTeleportComponent.getComponentType(), TransformComponent.getComponentType());
         }
         @Override
         public void tick(float deltaTime, int index, ArchetypeChunk<EntityStore> chunk,
                          @NotNull Store<EntityStore> store, @NotNull CommandBuffer<EntityStore> buffer) {
-            PlayerRef playerRef = chunk.getComponent(index, PlayerRef.getComponentType());
-            if (playerRef == null) {
-                return;
-            }
-            if (!teleportManager.hasPendingTeleport(playerRef.getUuid())) {
-                return;
-            }
+            PendingTeleportComponent pending = chunk.getComponent(index, PendingTeleportComponent.getComponentType());
+            TransformComponent transform = chunk.getComponent(index, TransformComponent.getComponentType());
             Ref<EntityStore> currentRef = chunk.getReferenceTo(index);
-            Vector3d currentPosition = playerRef.getTransform().getPosition();
-            teleportManager.tick(playerRef.getUuid(), currentRef, currentPosition, deltaTime, buffer);
+            UUID playerUuid = pending != null ? pending.getPlayerUuid() : null;
+            if (playerUuid == null || transform == null
+                    || !teleportManager.tick(playerUuid, currentRef, transform.getPosition(), buffer)) {
+                // Finished, canceled elsewhere or never valid; stop ticking this entity
+                buffer.removeComponent(currentRef, PendingTeleportComponent.getComponentType());
+            }
         }
     }
 }
@@ -1,16 +1,23 @@
 package com.nhulston.essentials.managers;
+import com.nhulston.essentials.models.BackHistory;
+import com.nhulston.essentials.util.ConfigManager;
+import com.nhulston.essentials.util.StorageManager;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Manages back locations for the /back command.
  * Tracks both death locations and pre-teleport locations.
- * Stores locations in memory only - not persisted across restarts.
+ * Each player keeps the most recent locations (back.history-size in the config) in their
+ * player data, so the history is saved with it and survives restarts.
  */
 public class BackManager {
-    private final ConcurrentHashMap<UUID, BackLocation> backLocations = new ConcurrentHashMap<>();
+    private static final BackLocationType[] TYPES = BackLocationType.values();
+
+    private final StorageManager storageManager;
+    private final ConfigManager configManager;
 
     /**
      * Type of back location.
@@ -20,22 +27,19 @@ public class BackManager {
         TELEPORT    // Player teleported from here
     }
 
+    public BackManager(@Nonnull StorageManager storageManager, @Nonnull ConfigManager configManager) {
+        this.storageManager = storageManager;
+        this.configManager = configManager;
+    }
+
     /**
-     * Records a player's back location with a specific type.
-     * DEATH type takes priority - won't be overwritten by TELEPORT until used.
+     * Records a player's back location with a specific type as the newest history entry.
      */
     public void setBackLocation(@Nonnull UUID playerUuid, @Nonnull String worldName,
                                 double x, double y, double z, float yaw, float pitch,
                                 @Nonnull BackLocationType type) {
-        BackLocation existing = backLocations.get(playerUuid);
-
-        // If existing location is DEATH and new is TELEPORT, don't overwrite
-        if (existing != null && existing.getType() == BackLocationType.DEATH
-            && type == BackLocationType.TELEPORT) {
-            return;
-        }
-
-        backLocations.put(playerUuid, new BackLocation(worldName, x, y, z, yaw, pitch, type));
+        storageManager.getPlayerData(playerUuid).pushBackLocation(worldName, x, y, z, yaw, pitch,
+                (byte) type.ordinal(), System.currentTimeMillis(), configManager.getBackHistorySize());
     }
 
     /**
@@ -50,7 +54,6 @@ public class BackManager {
     /**
      * Records a player's pre-teleport location.
      * Wrapper for setBackLocation with TELEPORT type.
-     * Won't overwrite death locations.
      */
     public void setTeleportLocation(@Nonnull UUID playerUuid, @Nonnull String worldName,
                                      double x, double y, double z, float yaw, float pitch) {
@@ -58,140 +61,36 @@ public class BackManager {
     }
 
     /**
-     * Gets a player's back location without clearing it.
-     * Returns null if no location is stored.
+     * Gets the n-th most recent back location (0 = newest) without removing it.
+     * Returns null if the player has fewer locations stored.
      */
     @Nullable
-    public BackLocation getBackLocation(@Nonnull UUID playerUuid) {
-        return backLocations.get(playerUuid);
+    public BackHistory.Entry getBackLocation(@Nonnull UUID playerUuid, int n) {
+        return storageManager.getPlayerData(playerUuid).getBackHistory().get(n);
     }
 
     /**
-     * Gets a player's death location without clearing it.
-     * Returns null if no death location is stored.
-     * @deprecated Use getBackLocation() instead
+     * All of a player's back locations, newest first.
      */
-    @Deprecated
-    @Nullable
-    public DeathLocation getDeathLocation(@Nonnull UUID playerUuid) {
-        BackLocation backLocation = backLocations.get(playerUuid);
-        if (backLocation == null) return null;
-        return new DeathLocation(backLocation.getWorldName(), backLocation.getX(),
-            backLocation.getY(), backLocation.getZ(), backLocation.getYaw(), backLocation.getPitch());
+    @Nonnull
+    public List<BackHistory.Entry> getBackLocations(@Nonnull UUID playerUuid) {
+        return storageManager.getPlayerData(playerUuid).getBackHistory().entries();
     }
 
     /**
-     * Clears a player's back location.
+     * Removes a back location previously read from the history, once it has been used.
      */
-    public void clearBackLocation(@Nonnull UUID playerUuid) {
-        backLocations.remove(playerUuid);
+    public void removeBackLocation(@Nonnull UUID playerUuid, @Nonnull BackHistory.Entry entry) {
+        storageManager.getPlayerData(playerUuid).removeBackLocation(entry.sequence());
     }
 
-    /**
-     * Clears a player's death location.
-     * @deprecated Use clearBackLocation() instead
-     */
-    @Deprecated
-    public void clearDeathLocation(@Nonnull UUID playerUuid) {
-        backLocations.remove(playerUuid);
+    public int getHistorySize() {
+        return configManager.getBackHistorySize();
     }
 
-    /**
-     * Cleans up back location for a player when they disconnect.
-     */
-    public void onPlayerQuit(@Nonnull UUID playerUuid) {
-        backLocations.remove(playerUuid);
-    }
-
-    /**
-     * Stores back location data.
-     */
-    public static class BackLocation {
-        private final String worldName;
-        private final double x, y, z;
-        private final float yaw, pitch;
-        private final BackLocationType type;
-
-        BackLocation(String worldName, double x, double y, double z, float yaw, float pitch, BackLocationType type) {
-            this.worldName = worldName;
-            this.x = x;
-            this.y = y;
-            this.z = z;
-            this.yaw = yaw;
-            this.pitch = pitch;
-            this.type = type;
-        }
-
-        public String getWorldName() {
-            return worldName;
-        }
-
-        public double getX() {
-            return x;
-        }
-
-        public double getY() {
-            return y;
-        }
-
-        public double getZ() {
-            return z;
-        }
-
-        public float getYaw() {
-            return yaw;
-        }
-
-        public float getPitch() {
-            return pitch;
-        }
-
-        public BackLocationType getType() {
-            return type;
-        }
-    }
-
-    /**
-     * Stores death location data.
-     * @deprecated Use BackLocation instead
-     */
-    @Deprecated
-    public static class DeathLocation {
-        private final String worldName;
-        private final double x, y, z;
-        private final float yaw, pitch;
-
-        DeathLocation(String worldName, double x, double y, double z, float yaw, float pitch) {
-            this.worldName = worldName;
-            this.x = x;
-            this.y = y;
-            this.z = z;
-            this.yaw = yaw;
-            this.pitch = pitch;
-        }
-
-        public String getWorldName() {
-            return worldName;
-        }
-
-        public double getX() {
-            return x;
-        }
-
-        public double getY() {
-            return y;
-        }
-
-        public double getZ() {
-            return z;
-        }
-
-        public float getYaw() {
-            return yaw;
-        }
-
-        public float getPitch() {
-            return pitch;
-        }
+    @Nonnull
+    public static BackLocationType getType(@Nonnull BackHistory.Entry entry) {
+        int type = entry.type();
+        return type >= 0 && type < TYPES.length ? TYPES[type] : BackLocationType.TELEPORT;
     }
 }
@@ -3,10 +3,10 @@ import com.buuz135.simpleclaims.claim.ClaimManager;
 import com.buuz135.simpleclaims.claim.party.PartyInfo;
 import com.hypixel.hytale.server.core.Message;
 import com.hypixel.hytale.server.core.event.events.player.PlayerChatEvent;
-import com.hypixel.hytale.server.core.permissions.PermissionsModule;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.nhulston.essentials.util.ColorUtil;
 import com.nhulston.essentials.util.ConfigManager;
+import com.nhulston.essentials.util.PermissionCache;
 import javax.annotation.Nonnull;
 import java.util.List;
 import java.util.Set;
@@ -17,8 +17,10 @@ public class ChatManager {
     // Matches color codes (&0-&f, &#RRGGBB) and formatting codes (&l, &r)
     private static final Pattern FORMAT_CODE_PATTERN = Pattern.compile("&[0-9a-fA-FlLrR]|&#[0-9a-fA-F]{6}");
     private final ConfigManager configManager;
-    public ChatManager(@Nonnull ConfigManager configManager) {
+    private final PermissionCache permissionCache;
+    public ChatManager(@Nonnull ConfigManager configManager, @Nonnull PermissionCache permissionCache) {
         this.configManager = configManager;
+        this.permissionCache = permissionCache;
     }
     @Nonnull
     public PlayerChatEvent.Formatter createFormatter() {
@@ -28,7 +30,7 @@ public class ChatManager {
     public Message formatMessage(@Nonnull PlayerRef sender, @Nonnull String content) {
         String format = getFormatForPlayer(sender.getUuid());
         String sanitizedContent = content;
-        if (!PermissionsModule.get().hasPermission(sender.getUuid(), COLOR_PERMISSION)) {
+        if (!permissionCache.hasPermission(sender.getUuid(), COLOR_PERMISSION)) {
             sanitizedContent = stripColorCodes(content);
         }
 
@@ -76,7 +78,7 @@ public class ChatManager {
             return configManager.getChatFallbackFormat();
         }
 
-        Set<String> playerGroups = PermissionsModule.get().getGroupsForUser(playerUuid);
+        Set<String> playerGroups = permissionCache.getGroups(playerUuid);
 
         // Check each configured format in order (List preserves insertion order)
         for (ConfigManager.ChatFormat chatFormat : formats) {
@@ -1,8 +1,8 @@
 package com.nhulston.essentials.managers;
-import com.hypixel.hytale.server.core.permissions.PermissionsModule;
 import com.nhulston.essentials.models.Home;
 import com.nhulston.essentials.models.PlayerData;
 import com.nhulston.essentials.util.ConfigManager;
+import com.nhulston.essentials.util.PermissionCache;
 import com.nhulston.essentials.util.StorageManager;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -16,9 +16,12 @@ public class HomeManager {
     private static final String HOME_LIMIT_PERMISSION_PREFIX = "essentials.homes.";
     private final StorageManager storageManager;
     private final ConfigManager configManager;
-    public HomeManager(@Nonnull StorageManager storageManager, @Nonnull ConfigManager configManager) {
+    private final PermissionCache permissionCache;
+    public HomeManager(@Nonnull StorageManager storageManager, @Nonnull ConfigManager configManager,
+                       @Nonnull PermissionCache permissionCache) {
         this.storageManager = storageManager;
         this.configManager = configManager;
+        this.permissionCache = permissionCache;
     }
     @Nonnull
     public String getDefaultHomeName() {
@@ -31,7 +34,7 @@ public class HomeManager {
             String tier = entry.getKey();
             int limit = entry.getValue();
             String permission = HOME_LIMIT_PERMISSION_PREFIX + tier;
-            if (PermissionsModule.get().hasPermission(playerUuid, permission)) {
+            if (permissionCache.hasPermission(playerUuid, permission)) {
                 maxLimit = Math.max(maxLimit, limit);
             }
         }
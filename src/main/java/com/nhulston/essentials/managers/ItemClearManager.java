@@ -14,13 +14,11 @@ import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import com.nhulston.essentials.util.ColorUtil;
 import com.nhulston.essentials.util.ConfigManager;
 import com.nhulston.essentials.util.Log;
+import com.nhulston.essentials.util.TimingWheel;
 
 import javax.annotation.Nonnull;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -32,14 +30,15 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 public class ItemClearManager {
     private final ConfigManager configManager;
+    private final TimingWheel timingWheel;
     private final Set<World> trackedWorlds = ConcurrentHashMap.newKeySet();
-    private ScheduledExecutorService scheduler;
-    private ScheduledFuture<?> scheduledFuture;
+    private TimingWheel.Timeout scheduledTick;
     private final AtomicBoolean running = new AtomicBoolean(false);
     private final AtomicLong secondsRemaining = new AtomicLong(0);
 
-    public ItemClearManager(@Nonnull ConfigManager configManager) {
+    public ItemClearManager(@Nonnull ConfigManager configManager, @Nonnull TimingWheel timingWheel) {
         this.configManager = configManager;
+        this.timingWheel = timingWheel;
     }
 
     /**
@@ -55,13 +54,7 @@ public class ItemClearManager {
             long interval = configManager.getItemClearInterval();
             secondsRemaining.set(interval);
 
-            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
-                Thread t = new Thread(r, "ItemClearScheduler");
-                t.setDaemon(true);
-                return t;
-            });
-
-            scheduledFuture = scheduler.scheduleAtFixedRate(this::tick, 1L, 1L, TimeUnit.SECONDS);
+            scheduledTick = timingWheel.scheduleAtFixedRate(this::tick, 1L, 1L, TimeUnit.SECONDS);
 
             Log.info("Item clear system started with " + formatDuration(interval) + " interval.");
         }
@@ -73,14 +66,9 @@ public class ItemClearManager {
     public void shutdown() {
         running.set(false);
 
-        if (scheduledFuture != null) {
-            scheduledFuture.cancel(false);
-            scheduledFuture = null;
-        }
-
-        if (scheduler != null) {
-            scheduler.shutdownNow();
-            scheduler = null;
+        if (scheduledTick != null) {
+            scheduledTick.cancel();
+            scheduledTick = null;
         }
     }
 
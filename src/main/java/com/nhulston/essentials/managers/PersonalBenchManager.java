@@ -1,27 +1,57 @@
 package com.nhulston.essentials.managers;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
 import com.nhulston.essentials.models.PersonalBenchProtection;
 import com.nhulston.essentials.models.PersonalBenchProtection.ProtectionFlag;
 import com.nhulston.essentials.util.Log;
+import com.nhulston.essentials.util.LongObjectMap;
+import com.nhulston.essentials.util.StorageManager;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Protected personal benches. Protections are indexed per world in 32x32 block buckets, each a
+ * map from packed block coordinates to the protection, so the use/break/place checks look a
+ * bench up without building a key object, and radius checks only visit nearby buckets.
+ * A second index lists each owner's protections.
+ */
 public class PersonalBenchManager {
-    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
-    private final Path benchesFile;
-    private final Map<String, PersonalBenchProtection> protectedBenches = new ConcurrentHashMap<>();
+    // Buckets are the chunks the protection engine flags
+    private static final int BUCKET_SHIFT = ProtectionManager.CHUNK_SHIFT;
+
+    private final StorageManager storageManager;
+    private final StampedLock lock = new StampedLock();
+    private final Map<String, LongObjectMap<LongObjectMap<PersonalBenchProtection>>> worlds = new HashMap<>();
+    private final Map<UUID, List<PersonalBenchProtection>> byOwner = new HashMap<>();
+    private int benchCount;
+    private volatile Runnable changeListener;
     private final Map<UUID, PendingProtection> pendingProtections = new ConcurrentHashMap<>();
-    public PersonalBenchManager(@Nonnull Path dataFolder) {
-        this.benchesFile = dataFolder.resolve("personal_benches.json");
+    public PersonalBenchManager(@Nonnull StorageManager storageManager) {
+        this.storageManager = storageManager;
         loadBenches();
     }
+    /**
+     * Sets what to run after protections are added or removed, so chunk flags can be rebuilt.
+     */
+    public void setChangeListener(@Nullable Runnable listener) {
+        this.changeListener = listener;
+    }
+    /**
+     * Reports every chunk that contains a protected bench.
+     */
+    public void collectProtectedChunks(@Nonnull ProtectionManager.ChunkSink sink) {
+        long stamp = lock.readLock();
+        try {
+            for (Map.Entry<String, LongObjectMap<LongObjectMap<PersonalBenchProtection>>> world : worlds.entrySet()) {
+                String worldName = world.getKey();
+                world.getValue().forEachKey(bucketKey -> sink.add(worldName, (int) (bucketKey >> 32), (int) bucketKey));
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
     public static boolean isBench(@Nonnull String blockId) {
         String lower = blockId.toLowerCase();
         if (lower.contains("bench") && !lower.contains("furniture")) {
@@ -45,20 +75,59 @@ public class PersonalBenchManager {
     @Nonnull
     public PersonalBenchProtection protectBench(@Nonnull PendingProtection pending,
                                                 @Nonnull Set<ProtectionFlag> flags) {
-        String key = getKey(pending.worldName, pending.x, pending.y, pending.z);
         PersonalBenchProtection protection = new PersonalBenchProtection(
                 pending.worldName, pending.x, pending.y, pending.z,
                 pending.playerUuid, pending.playerName, pending.benchType,
                 System.currentTimeMillis(), flags
         );
-        protectedBenches.put(key, protection);
+        long stamp = lock.writeLock();
+        try {
+            put(protection);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
         pendingProtections.remove(pending.playerUuid);
+        notifyChanged();
         saveBenches();
         return protection;
     }
     @Nullable
     public PersonalBenchProtection getProtection(@Nonnull String worldName, int x, int y, int z) {
-        return protectedBenches.get(getKey(worldName, x, y, z));
+        long stamp = lock.readLock();
+        try {
+            return find(worldName, x, y, z);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    /**
+     * True if a protected bench lies within {@code radius} blocks of the column (horizontally).
+     * Only the buckets overlapping the square are visited.
+     */
+    public boolean isNearProtectedBench(@Nonnull String worldName, double x, double z, int radius) {
+        long stamp = lock.readLock();
+        try {
+            LongObjectMap<LongObjectMap<PersonalBenchProtection>> buckets = worlds.get(worldName);
+            if (buckets == null) {
+                return false;
+            }
+            int minBucketX = (int) Math.floor(x - radius) >> BUCKET_SHIFT;
+            int maxBucketX = (int) Math.floor(x + radius) >> BUCKET_SHIFT;
+            int minBucketZ = (int) Math.floor(z - radius) >> BUCKET_SHIFT;
+            int maxBucketZ = (int) Math.floor(z + radius) >> BUCKET_SHIFT;
+            for (int bucketX = minBucketX; bucketX <= maxBucketX; bucketX++) {
+                for (int bucketZ = minBucketZ; bucketZ <= maxBucketZ; bucketZ++) {
+                    LongObjectMap<PersonalBenchProtection> bucket = buckets.get(bucketKey(bucketX, bucketZ));
+                    if (bucket != null && bucket.anyValue(bench ->
+                            Math.abs(bench.getX() - x) <= radius && Math.abs(bench.getZ() - z) <= radius)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
     public boolean canUse(@Nonnull UUID playerUuid, @Nonnull String worldName, int x, int y, int z) {
         PersonalBenchProtection protection = getProtection(worldName, x, y, z);
@@ -81,64 +150,182 @@ public class PersonalBenchManager {
         return !protection.hasFlag(ProtectionFlag.DESTROY);
     }
     public boolean removeProtection(@Nonnull String worldName, int x, int y, int z) {
-        String key = getKey(worldName, x, y, z);
-        boolean removed = protectedBenches.remove(key) != null;
+        boolean removed;
+        long stamp = lock.writeLock();
+        try {
+            removed = remove(worldName, x, y, z) != null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
         if (removed) {
+            notifyChanged();
             saveBenches();
         }
         return removed;
     }
     @Nonnull
     public List<PersonalBenchProtection> getPlayerBenches(@Nonnull UUID playerUuid) {
-        return protectedBenches.values().stream()
-                .filter(p -> p.getOwnerUuid().equals(playerUuid))
-                .collect(Collectors.toList());
+        long stamp = lock.readLock();
+        try {
+            List<PersonalBenchProtection> owned = byOwner.get(playerUuid);
+            return owned != null ? new ArrayList<>(owned) : new ArrayList<>();
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
     public boolean updateFlags(@Nonnull UUID playerUuid, @Nonnull String worldName,
                                int x, int y, int z, @Nonnull Set<ProtectionFlag> flags) {
-        PersonalBenchProtection protection = getProtection(worldName, x, y, z);
-        if (protection == null || !protection.getOwnerUuid().equals(playerUuid)) {
-            return false;
+        long stamp = lock.writeLock();
+        try {
+            PersonalBenchProtection protection = find(worldName, x, y, z);
+            if (protection == null || !protection.getOwnerUuid().equals(playerUuid)) {
+                return false;
+            }
+            PersonalBenchProtection updated = new PersonalBenchProtection(
+                    worldName, x, y, z,
+                    protection.getOwnerUuid(), protection.getOwnerName(),
+                    protection.getBenchType(), protection.getPlacedTime(),
+                    flags
+            );
+            put(updated);
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        protectedBenches.remove(getKey(worldName, x, y, z));
-        PersonalBenchProtection updated = new PersonalBenchProtection(
-                worldName, x, y, z,
-                protection.getOwnerUuid(), protection.getOwnerName(),
-                protection.getBenchType(), protection.getPlacedTime(),
-                flags
-        );
-        protectedBenches.put(getKey(worldName, x, y, z), updated);
         saveBenches();
         return true;
     }
-    private String getKey(@Nonnull String worldName, int x, int y, int z) {
-        return worldName + ":" + x + ":" + y + ":" + z;
+    private void notifyChanged() {
+        Runnable listener = changeListener;
+        if (listener != null) {
+            listener.run();
+        }
     }
-    private void loadBenches() {
-        if (!Files.exists(benchesFile)) {
+    /**
+     * Bucket key of a 32x32 block area.
+     */
+    private static long bucketKey(int bucketX, int bucketZ) {
+        return ((long) bucketX << 32) | (bucketZ & 0xFFFFFFFFL);
+    }
+    /**
+     * Packs block coordinates into one long: 26 bits each for x and z, 12 bits for y.
+     */
+    private static long blockKey(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+    @Nullable
+    private PersonalBenchProtection find(@Nonnull String worldName, int x, int y, int z) {
+        LongObjectMap<LongObjectMap<PersonalBenchProtection>> buckets = worlds.get(worldName);
+        if (buckets == null) {
+            return null;
+        }
+        LongObjectMap<PersonalBenchProtection> bucket = buckets.get(bucketKey(x >> BUCKET_SHIFT, z >> BUCKET_SHIFT));
+        return bucket != null ? bucket.get(blockKey(x, y, z)) : null;
+    }
+    /**
+     * Adds a protection to both indexes, replacing any protection at the same block. Write lock held.
+     */
+    private void put(@Nonnull PersonalBenchProtection protection) {
+        int x = protection.getX();
+        int z = protection.getZ();
+        LongObjectMap<LongObjectMap<PersonalBenchProtection>> buckets =
+                worlds.computeIfAbsent(protection.getWorldName(), _ -> new LongObjectMap<>());
+        long bucketKey = bucketKey(x >> BUCKET_SHIFT, z >> BUCKET_SHIFT);
+        LongObjectMap<PersonalBenchProtection> bucket = buckets.get(bucketKey);
+        if (bucket == null) {
+            bucket = new LongObjectMap<>();
+            buckets.put(bucketKey, bucket);
+        }
+        PersonalBenchProtection previous = bucket.put(blockKey(x, protection.getY(), z), protection);
+        if (previous != null) {
+            removeOwned(previous);
+        } else {
+            benchCount++;
+        }
+        byOwner.computeIfAbsent(protection.getOwnerUuid(), _ -> new ArrayList<>()).add(protection);
+    }
+    /**
+     * Removes the protection at a block from both indexes. Write lock held.
+     */
+    @Nullable
+    private PersonalBenchProtection remove(@Nonnull String worldName, int x, int y, int z) {
+        LongObjectMap<LongObjectMap<PersonalBenchProtection>> buckets = worlds.get(worldName);
+        if (buckets == null) {
+            return null;
+        }
+        long bucketKey = bucketKey(x >> BUCKET_SHIFT, z >> BUCKET_SHIFT);
+        LongObjectMap<PersonalBenchProtection> bucket = buckets.get(bucketKey);
+        if (bucket == null) {
+            return null;
+        }
+        PersonalBenchProtection removed = bucket.remove(blockKey(x, y, z));
+        if (removed == null) {
+            return null;
+        }
+        if (bucket.isEmpty()) {
+            buckets.remove(bucketKey);
+            if (buckets.isEmpty()) {
+                worlds.remove(worldName);
+            }
+        }
+        benchCount--;
+        removeOwned(removed);
+        return removed;
+    }
+    private void removeOwned(@Nonnull PersonalBenchProtection protection) {
+        List<PersonalBenchProtection> owned = byOwner.get(protection.getOwnerUuid());
+        if (owned == null) {
             return;
         }
+        for (int i = 0; i < owned.size(); i++) {
+            if (owned.get(i) == protection) {
+                owned.remove(i);
+                break;
+            }
+        }
+        if (owned.isEmpty()) {
+            byOwner.remove(protection.getOwnerUuid());
+        }
+    }
+    private void loadBenches() {
         try {
-            String json = Files.readString(benchesFile);
-            List<PersonalBenchProtection> benches = GSON.fromJson(json,
-                    new TypeToken<List<PersonalBenchProtection>>(){}.getType());
-            if (benches != null) {
-                protectedBenches.clear();
+            List<PersonalBenchProtection> benches = storageManager.loadBenches();
+            long stamp = lock.writeLock();
+            try {
+                worlds.clear();
+                byOwner.clear();
+                benchCount = 0;
                 for (PersonalBenchProtection bench : benches) {
-                    String key = getKey(bench.getWorldName(), bench.getX(), bench.getY(), bench.getZ());
-                    protectedBenches.put(key, bench);
+                    put(bench);
                 }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            if (!benches.isEmpty()) {
                 Log.info("Loaded " + benches.size() + " protected benches.");
             }
         } catch (IOException e) {
             Log.error("Failed to load protected benches: " + e.getMessage());
         }
     }
+    /**
+     * Copy of every protection, for saving.
+     */
+    @Nonnull
+    private List<PersonalBenchProtection> snapshot() {
+        long stamp = lock.readLock();
+        try {
+            List<PersonalBenchProtection> all = new ArrayList<>(benchCount);
+            for (List<PersonalBenchProtection> owned : byOwner.values()) {
+                all.addAll(owned);
+            }
+            return all;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
     private void saveBenches() {
         try {
-            List<PersonalBenchProtection> benches = new ArrayList<>(protectedBenches.values());
-            String json = GSON.toJson(benches);
-            Files.writeString(benchesFile, json);
+            storageManager.saveBenches(snapshot());
         } catch (IOException e) {
             Log.error("Failed to save protected benches: " + e.getMessage());
         }
@@ -0,0 +1,169 @@
+package com.nhulston.essentials.managers;
+import com.nhulston.essentials.models.Spawn;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-world chunk flags shared by all block protections.
+ * Every protection (the spawn area, personal benches, regions, and anything registered later)
+ * reports the chunks it covers, and each world keeps a 65536-bit filter of those chunks. A block
+ * event in an unflagged chunk is rejected with one bit lookup, before any permission check or map
+ * lookup. Chunks are hashed into the filter, so a flag only means the chunk might be protected and
+ * the full checks still decide; false positives cost the old slow path, never a wrong answer.
+ * <p>
+ * The filter is rebuilt lazily on the next check after {@link #invalidate()}, which sources call
+ * when their protections change. A new spawn is noticed on its own.
+ */
+public class ProtectionManager {
+    /**
+     * Reports chunks that contain protected content.
+     */
+    public interface ChunkSink {
+        void add(@Nonnull String worldName, int chunkX, int chunkZ);
+
+        /**
+         * Reports every chunk in an inclusive range. Areas larger than the filter flag the whole
+         * world instead of being walked chunk by chunk.
+         */
+        void addArea(@Nonnull String worldName, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ);
+    }
+
+    /**
+     * Something that protects blocks and can list the chunks it covers.
+     */
+    @FunctionalInterface
+    public interface ProtectedChunkSource {
+        void collectProtectedChunks(@Nonnull ChunkSink sink);
+    }
+
+    // 32-block chunks
+    public static final int CHUNK_SHIFT = 5;
+    private static final int FILTER_BITS = 1 << 16;
+
+    private final SpawnProtectionManager spawnProtectionManager;
+    private final List<ProtectedChunkSource> sources = new ArrayList<>();
+    private final AtomicInteger generation = new AtomicInteger();
+    private volatile Filters filters;
+
+    public ProtectionManager(@Nonnull SpawnProtectionManager spawnProtectionManager,
+                             @Nonnull PersonalBenchManager personalBenchManager,
+                             @Nonnull RegionManager regionManager) {
+        this.spawnProtectionManager = spawnProtectionManager;
+        sources.add(spawnProtectionManager::collectProtectedChunks);
+        sources.add(personalBenchManager::collectProtectedChunks);
+        sources.add(regionManager::collectProtectedChunks);
+        personalBenchManager.setChangeListener(this::invalidate);
+        regionManager.setChangeListener(this::invalidate);
+    }
+
+    /**
+     * Adds another source of protected chunks.
+     */
+    public synchronized void addSource(@Nonnull ProtectedChunkSource source) {
+        sources.add(source);
+        invalidate();
+    }
+
+    /**
+     * Marks the filter stale; it is rebuilt on the next check.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * False if no protection covers the chunk holding this block column, so the block can be
+     * left alone without any further checks. True means the full checks have to run.
+     */
+    public boolean mightBeProtected(@Nonnull String worldName, int x, int z) {
+        Filters current = current();
+        long[] bits = current.worlds.get(worldName);
+        if (bits == null) {
+            return false;
+        }
+        int bit = bitOf(x >> CHUNK_SHIFT, z >> CHUNK_SHIFT);
+        return (bits[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * A number that changes whenever any protection changes, including a new spawn, so callers
+     * that remember results for a position know when to look again.
+     */
+    public int getGeneration() {
+        return current().generation;
+    }
+
+    @Nonnull
+    private Filters current() {
+        Filters current = filters;
+        if (current == null || current.generation != generation.get()
+                || current.spawn != spawnProtectionManager.getSpawn()) {
+            current = rebuild();
+        }
+        return current;
+    }
+
+    @Nonnull
+    private synchronized Filters rebuild() {
+        // Read the generation and spawn first: a change during the build triggers another one
+        int builtGeneration = generation.get();
+        Spawn spawn = spawnProtectionManager.getSpawn();
+        Filters current = filters;
+        if (current != null && current.generation == builtGeneration && current.spawn == spawn) {
+            return current;
+        }
+        if (current != null && current.spawn != spawn) {
+            // A new spawn fires no invalidation of its own; count it as one for getGeneration()
+            builtGeneration = generation.incrementAndGet();
+        }
+        FilterBuilder builder = new FilterBuilder();
+        for (ProtectedChunkSource source : sources) {
+            source.collectProtectedChunks(builder);
+        }
+        Filters built = new Filters(Map.copyOf(builder.worlds), builtGeneration, spawn);
+        filters = built;
+        return built;
+    }
+
+    private static int bitOf(int chunkX, int chunkZ) {
+        long h = (((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL)) * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 48);
+    }
+
+    private static class FilterBuilder implements ChunkSink {
+        private final Map<String, long[]> worlds = new HashMap<>();
+
+        @Override
+        public void add(@Nonnull String worldName, int chunkX, int chunkZ) {
+            int bit = bitOf(chunkX, chunkZ);
+            bits(worldName)[bit >>> 6] |= 1L << bit;
+        }
+
+        @Override
+        public void addArea(@Nonnull String worldName, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+            long area = ((long) maxChunkX - minChunkX + 1) * ((long) maxChunkZ - minChunkZ + 1);
+            if (area >= FILTER_BITS) {
+                Arrays.fill(bits(worldName), -1L);
+                return;
+            }
+            for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+                for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                    add(worldName, chunkX, chunkZ);
+                }
+            }
+        }
+
+        @Nonnull
+        private long[] bits(@Nonnull String worldName) {
+            return worlds.computeIfAbsent(worldName, _ -> new long[FILTER_BITS >>> 6]);
+        }
+    }
+
+    private record Filters(@Nonnull Map<String, long[]> worlds, int generation, @Nullable Spawn spawn) {}
+}
@@ -0,0 +1,269 @@
+package com.nhulston.essentials.managers;
+import com.nhulston.essentials.models.Region;
+import com.nhulston.essentials.util.Log;
+import com.nhulston.essentials.util.PermissionCache;
+import com.nhulston.essentials.util.RegionTree;
+import com.nhulston.essentials.util.StorageManager;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Named protected regions with per-region flags and priorities, layered on top of spawn
+ * protection: where a region sets a flag it decides, elsewhere spawn protection and the other
+ * protections apply as before.
+ * <p>
+ * Each world has an immutable {@link RegionTree}. Changes are rare admin commands, so they
+ * rebuild the affected world's tree and swap it in; event checks read the current tree without
+ * locking. Regions are persisted through the storage backend.
+ */
+public class RegionManager {
+    private static final String BYPASS_PERMISSION = "essentials.region.bypass";
+
+    private final StorageManager storageManager;
+    private final PermissionCache permissionCache;
+    // Lowercase name -> region; guarded by this
+    private final Map<String, Region> regions = new HashMap<>();
+    private volatile Map<String, RegionTree> trees = Map.of();
+    private volatile Runnable changeListener;
+    private final Map<UUID, Selection> selections = new ConcurrentHashMap<>();
+
+    public RegionManager(@Nonnull StorageManager storageManager, @Nonnull PermissionCache permissionCache) {
+        this.storageManager = storageManager;
+        this.permissionCache = permissionCache;
+        loadRegions();
+    }
+
+    /**
+     * Sets what to run after regions change, so chunk flags can be rebuilt.
+     */
+    public void setChangeListener(@Nullable Runnable listener) {
+        this.changeListener = listener;
+    }
+
+    public boolean canBypass(@Nonnull UUID playerUuid) {
+        return permissionCache.hasPermission(playerUuid, BYPASS_PERMISSION);
+    }
+
+    /**
+     * The setting of the highest-priority region containing the block that sets the flag.
+     * @return TRUE if allowed, FALSE if denied, null if no region decides
+     */
+    @Nullable
+    public Boolean getFlag(@Nonnull String worldName, int x, int y, int z, @Nonnull Region.Flag flag) {
+        RegionTree tree = trees.get(worldName);
+        return tree != null ? tree.getFlag(x, y, z, flag) : null;
+    }
+
+    /**
+     * The highest-priority region containing the block, or null.
+     */
+    @Nullable
+    public Region getTopRegion(@Nonnull String worldName, int x, int y, int z) {
+        RegionTree tree = trees.get(worldName);
+        return tree != null ? tree.getTopRegion(x, y, z) : null;
+    }
+
+    /**
+     * All regions containing the block, highest priority first.
+     */
+    @Nonnull
+    public List<Region> getRegionsAt(@Nonnull String worldName, int x, int y, int z) {
+        RegionTree tree = trees.get(worldName);
+        return tree != null ? tree.getRegions(x, y, z) : List.of();
+    }
+
+    /**
+     * True if any region covers the block column, at any height.
+     */
+    public boolean isInRegionColumn(@Nonnull String worldName, double x, double z) {
+        RegionTree tree = trees.get(worldName);
+        return tree != null && tree.intersectsColumn((int) Math.floor(x), (int) Math.floor(z));
+    }
+
+    /**
+     * Reports every chunk a region with at least one flag overlaps. Regions without flags
+     * protect nothing, so they leave their chunks on the fast path.
+     */
+    public synchronized void collectProtectedChunks(@Nonnull ProtectionManager.ChunkSink sink) {
+        for (Region region : regions.values()) {
+            if (region.getFlags().isEmpty()) {
+                continue;
+            }
+            sink.addArea(region.getWorld(),
+                    region.getMinX() >> ProtectionManager.CHUNK_SHIFT, region.getMinZ() >> ProtectionManager.CHUNK_SHIFT,
+                    region.getMaxX() >> ProtectionManager.CHUNK_SHIFT, region.getMaxZ() >> ProtectionManager.CHUNK_SHIFT);
+        }
+    }
+
+    @Nullable
+    public synchronized Region getRegion(@Nonnull String name) {
+        return regions.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * All regions, sorted by world and then highest priority first.
+     */
+    @Nonnull
+    public synchronized List<Region> getRegions() {
+        List<Region> sorted = new ArrayList<>(regions.values());
+        sorted.sort((a, b) -> {
+            int byWorld = a.getWorld().compareTo(b.getWorld());
+            return byWorld != 0 ? byWorld : RegionTree.PRECEDENCE.compare(a, b);
+        });
+        return sorted;
+    }
+
+    /**
+     * Adds a region.
+     * @return false if a region with that name already exists
+     */
+    public boolean createRegion(@Nonnull Region region) {
+        synchronized (this) {
+            String key = region.getName().toLowerCase(Locale.ROOT);
+            if (regions.containsKey(key)) {
+                return false;
+            }
+            regions.put(key, region);
+            rebuild();
+        }
+        changed();
+        Log.info("Region created: " + region.getName() + " in " + region.getWorld());
+        return true;
+    }
+
+    /**
+     * Replaces a region with a changed copy of itself. The region is read and replaced under the
+     * lock, so concurrent edits of the same region are applied one after the other.
+     * @param change returns the changed copy; must keep the name and world
+     * @return the changed region, or null if no region has that name
+     */
+    @Nullable
+    public Region modify(@Nonnull String name, @Nonnull UnaryOperator<Region> change) {
+        Region modified;
+        synchronized (this) {
+            String key = name.toLowerCase(Locale.ROOT);
+            Region current = regions.get(key);
+            if (current == null) {
+                return null;
+            }
+            modified = change.apply(current);
+            regions.put(key, modified);
+            rebuild();
+        }
+        changed();
+        return modified;
+    }
+
+    /**
+     * @return the removed region, or null if no region has that name
+     */
+    @Nullable
+    public Region deleteRegion(@Nonnull String name) {
+        Region removed;
+        synchronized (this) {
+            removed = regions.remove(name.toLowerCase(Locale.ROOT));
+            if (removed == null) {
+                return null;
+            }
+            rebuild();
+        }
+        changed();
+        Log.info("Region deleted: " + removed.getName());
+        return removed;
+    }
+
+    /**
+     * Records one corner of a player's selection.
+     * @param corner 1 or 2
+     * @return the selection after the change
+     */
+    @Nonnull
+    public Selection select(@Nonnull UUID playerUuid, int corner, @Nonnull String worldName, int x, int y, int z) {
+        return selections.compute(playerUuid, (_, current) -> {
+            Selection base = current != null && current.worldName.equals(worldName)
+                    ? current : new Selection(worldName, null, null);
+            int[] pos = new int[] {x, y, z};
+            return corner == 1 ? new Selection(worldName, pos, base.pos2) : new Selection(worldName, base.pos1, pos);
+        });
+    }
+
+    @Nullable
+    public Selection getSelection(@Nonnull UUID playerUuid) {
+        return selections.get(playerUuid);
+    }
+
+    public void onPlayerQuit(@Nonnull UUID playerUuid) {
+        selections.remove(playerUuid);
+    }
+
+    /**
+     * Rebuilds every world's tree from the region map. Called with the lock held.
+     */
+    private void rebuild() {
+        Map<String, List<Region>> byWorld = new HashMap<>();
+        for (Region region : regions.values()) {
+            byWorld.computeIfAbsent(region.getWorld(), _ -> new ArrayList<>()).add(region);
+        }
+        Map<String, RegionTree> built = new HashMap<>();
+        for (Map.Entry<String, List<Region>> entry : byWorld.entrySet()) {
+            built.put(entry.getKey(), RegionTree.build(entry.getValue()));
+        }
+        trees = Map.copyOf(built);
+    }
+
+    private void changed() {
+        Runnable listener = changeListener;
+        if (listener != null) {
+            listener.run();
+        }
+        saveRegions();
+    }
+
+    private void loadRegions() {
+        try {
+            List<Region> loaded = storageManager.loadRegions();
+            synchronized (this) {
+                regions.clear();
+                for (Region region : loaded) {
+                    regions.put(region.getName().toLowerCase(Locale.ROOT), region);
+                }
+                rebuild();
+            }
+            if (!loaded.isEmpty()) {
+                Log.info("Loaded " + loaded.size() + " regions.");
+            }
+        } catch (IOException e) {
+            Log.error("Failed to load regions: " + e.getMessage());
+        }
+    }
+
+    private void saveRegions() {
+        List<Region> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(regions.values());
+        }
+        try {
+            storageManager.saveRegions(snapshot);
+        } catch (IOException e) {
+            Log.error("Failed to save regions: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The two corners a player has picked with /region pos1 and /region pos2.
+     */
+    public record Selection(@Nonnull String worldName, @Nullable int[] pos1, @Nullable int[] pos2) {
+        public boolean isComplete() {
+            return pos1 != null && pos2 != null;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.nhulston.essentials.managers;
+import com.hypixel.hytale.math.vector.Vector3i;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.nhulston.essentials.models.Region;
+import com.nhulston.essentials.systems.RegionTrackerComponent;
+import com.nhulston.essentials.util.Log;
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Tells listeners when players enter or leave the spawn area or a named region.
+ * Each player's last block position and the areas found there live in a
+ * {@link RegionTrackerComponent}; the areas are only looked up again once the player moves to
+ * another block or the protections change. The spawn check is skipped in chunks with no
+ * protection; regions are always looked up, since regions without flags are left out of the
+ * chunk filter. Listeners run on the player's world thread.
+ * <p>
+ * A player moving to another world gets a new entity, and so a new tracker. The new tracker
+ * starts from the player's last state, so leaving or arriving at spawn through a cross-world
+ * teleport is reported like walking in or out.
+ */
+public class RegionTransitionManager {
+    /**
+     * Receives area changes. Every method is optional.
+     */
+    public interface Listener {
+        default void onEnterSpawn(@Nonnull PlayerRef playerRef) {
+        }
+
+        default void onExitSpawn(@Nonnull PlayerRef playerRef) {
+        }
+
+        default void onEnterRegion(@Nonnull PlayerRef playerRef, @Nonnull Region region) {
+        }
+
+        default void onExitRegion(@Nonnull PlayerRef playerRef, @Nonnull Region region) {
+        }
+    }
+
+    private final SpawnProtectionManager spawnProtectionManager;
+    private final RegionManager regionManager;
+    private final ProtectionManager protectionManager;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    // Each online player's current tracker, to seed the next one after a world change
+    private final Map<UUID, RegionTrackerComponent> trackers = new ConcurrentHashMap<>();
+
+    public RegionTransitionManager(@Nonnull SpawnProtectionManager spawnProtectionManager,
+                                   @Nonnull RegionManager regionManager,
+                                   @Nonnull ProtectionManager protectionManager) {
+        this.spawnProtectionManager = spawnProtectionManager;
+        this.regionManager = regionManager;
+        this.protectionManager = protectionManager;
+    }
+
+    public void addListener(@Nonnull Listener listener) {
+        listeners.add(listener);
+    }
+
+    public boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    /**
+     * Creates the tracker for a player entering a world. After a world change it continues from
+     * the tracker the player had in the previous world.
+     */
+    @Nonnull
+    public RegionTrackerComponent createTracker(@Nonnull UUID playerUuid) {
+        RegionTrackerComponent previous = trackers.get(playerUuid);
+        RegionTrackerComponent tracker = previous != null ? previous.clone() : new RegionTrackerComponent();
+        trackers.put(playerUuid, tracker);
+        return tracker;
+    }
+
+    public void onPlayerQuit(@Nonnull UUID playerUuid) {
+        trackers.remove(playerUuid);
+    }
+
+    /**
+     * Checks a player's block position against their tracked state and notifies listeners of
+     * any change. The first evaluation after joining only records where they are.
+     */
+    public void update(@Nonnull PlayerRef playerRef, @Nonnull RegionTrackerComponent state,
+                       @Nonnull String worldName, int x, int y, int z) {
+        int generation = protectionManager.getGeneration();
+        if (state.isAt(worldName, x, y, z, generation)) {
+            return;
+        }
+        boolean inSpawn = spawnProtectionManager.isEnabled() && protectionManager.mightBeProtected(worldName, x, z)
+                && spawnProtectionManager.isInProtectedArea(worldName, new Vector3i(x, y, z));
+        List<Region> regions = regionManager.getRegionsAt(worldName, x, y, z);
+        boolean first = state.getWorldName() == null;
+        boolean wasInSpawn = state.isInSpawn();
+        List<Region> previous = state.getRegions();
+        state.update(worldName, x, y, z, generation, inSpawn, regions);
+        // Only while online: a tick after the player quit must not bring the entry back
+        trackers.replace(playerRef.getUuid(), state);
+        if (first || (inSpawn == wasInSpawn && previous.isEmpty() && regions.isEmpty())) {
+            return;
+        }
+        for (Listener listener : listeners) {
+            try {
+                dispatch(listener, playerRef, wasInSpawn, inSpawn, previous, regions);
+            } catch (Exception e) {
+                Log.error("Region transition listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void dispatch(@Nonnull Listener listener, @Nonnull PlayerRef playerRef,
+                                 boolean wasInSpawn, boolean inSpawn,
+                                 @Nonnull List<Region> previous, @Nonnull List<Region> current) {
+        for (Region region : previous) {
+            if (!containsName(current, region)) {
+                listener.onExitRegion(playerRef, region);
+            }
+        }
+        if (wasInSpawn && !inSpawn) {
+            listener.onExitSpawn(playerRef);
+        } else if (!wasInSpawn && inSpawn) {
+            listener.onEnterSpawn(playerRef);
+        }
+        for (Region region : current) {
+            if (!containsName(previous, region)) {
+                listener.onEnterRegion(playerRef, region);
+            }
+        }
+    }
+
+    /**
+     * Regions are replaced by edited copies, so they are matched by name rather than identity.
+     */
+    private static boolean containsName(@Nonnull List<Region> regions, @Nonnull Region region) {
+        for (Region candidate : regions) {
+            if (candidate.getName().equalsIgnoreCase(region.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
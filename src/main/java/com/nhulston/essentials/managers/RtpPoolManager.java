@@ -0,0 +1,402 @@
+package com.nhulston.essentials.managers;
+
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.nhulston.essentials.util.ConfigManager;
+import com.nhulston.essentials.util.Log;
+import com.nhulston.essentials.util.RtpSampler;
+import com.nhulston.essentials.util.TeleportUtil;
+import com.nhulston.essentials.util.TimingWheel;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Finds RTP destinations, and keeps a pool of pre-validated ones for every configured RTP world.
+ * Once a second, each pool that is below its target size checks up to the configured number of
+ * random locations in the background (loading their chunks asynchronously) and keeps the safe
+ * ones. /rtp takes a destination from the pool in O(1) and only searches itself when the pool
+ * is empty. Destinations older than {@link #MAX_AGE_MILLIS} are discarded, since the terrain
+ * may have changed since they were checked.
+ * <p>
+ * Candidates come from each world's {@link RtpSampler} and skip the spawn protection area,
+ * the surroundings of protected benches, regions and the world's configured exclusion zones
+ * before any chunk is loaded.
+ * <p>
+ * Every check loads a chunk, so pool refills and searches share a per-world and a global limit
+ * on chunk loads in flight. A search runs several checks at once and completes on the first
+ * safe one; when the limits are exhausted it waits for a free slot instead of queueing loads.
+ */
+public class RtpPoolManager {
+    /**
+     * A safe place to land.
+     */
+    public record Destination(double x, double y, double z, long foundAt) {}
+
+    /**
+     * Point-in-time view of one world's pool.
+     */
+    public record Stats(String worldName, int ready, int target, int inFlight, long hits, long misses,
+                        long probes, long safe, long excluded, long found, long refilledLastMinute) {}
+
+    private static final long MAX_AGE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final int RATE_WINDOW_SECONDS = 60;
+    private static final long SEARCH_RETRY_MILLIS = 250L;
+    private static final long SEARCH_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    // Draws per candidate before giving up on a world that is mostly excluded
+    private static final int MAX_EXCLUDED_DRAWS = 16;
+
+    private final ConfigManager configManager;
+    private final TimingWheel timingWheel;
+    private final SpawnProtectionManager spawnProtectionManager;
+    private final PersonalBenchManager personalBenchManager;
+    private final RegionManager regionManager;
+    private final ConcurrentHashMap<String, Pool> pools = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int poolSize;
+    private volatile int refillRate;
+    private volatile int fanOut;
+    private volatile int maxInFlight;
+    private volatile int maxInFlightPerWorld;
+    private volatile int benchExclusionRadius;
+    private TimingWheel.Timeout scheduledTick;
+
+    public RtpPoolManager(@Nonnull ConfigManager configManager, @Nonnull TimingWheel timingWheel,
+                          @Nonnull SpawnProtectionManager spawnProtectionManager,
+                          @Nonnull PersonalBenchManager personalBenchManager,
+                          @Nonnull RegionManager regionManager) {
+        this.configManager = configManager;
+        this.timingWheel = timingWheel;
+        this.spawnProtectionManager = spawnProtectionManager;
+        this.personalBenchManager = personalBenchManager;
+        this.regionManager = regionManager;
+        reload();
+    }
+
+    /**
+     * Starts refilling the pools.
+     */
+    public synchronized void start() {
+        if (scheduledTick == null) {
+            scheduledTick = timingWheel.scheduleAtFixedRate(this::tick, 1L, 1L, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Stops refilling. Probes already running finish but their results are dropped.
+     */
+    public synchronized void shutdown() {
+        if (scheduledTick != null) {
+            scheduledTick.cancel();
+            scheduledTick = null;
+        }
+        pools.clear();
+    }
+
+    /**
+     * Re-reads the pool and search settings and RTP worlds. Pools of removed worlds are dropped,
+     * and pools whose area changed are emptied so no destination outside the new area is
+     * handed out.
+     */
+    public void reload() {
+        poolSize = configManager.getRtpPoolSize();
+        refillRate = configManager.getRtpPoolRefillRate();
+        fanOut = configManager.getRtpSearchFanOut();
+        maxInFlight = configManager.getRtpMaxChunkLoads();
+        maxInFlightPerWorld = configManager.getRtpMaxChunkLoadsPerWorld();
+        benchExclusionRadius = configManager.getRtpBenchExclusionRadius();
+        Map<String, ConfigManager.RtpWorld> worlds = configManager.getRtpWorlds();
+        pools.keySet().retainAll(worlds.keySet());
+        for (Map.Entry<String, ConfigManager.RtpWorld> world : worlds.entrySet()) {
+            Pool pool = pools.get(world.getKey());
+            if (pool == null || !pool.sampler.getArea().equals(world.getValue())) {
+                pools.put(world.getKey(), new Pool(world.getKey(), world.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Takes a ready destination for the world, or returns null if its pool is empty or disabled.
+     */
+    @Nullable
+    public Destination poll(@Nonnull String worldName) {
+        Pool pool = pools.get(worldName);
+        if (pool == null || poolSize == 0) {
+            return null;
+        }
+        long oldest = System.currentTimeMillis() - MAX_AGE_MILLIS;
+        Destination destination;
+        while ((destination = pool.ready.poll()) != null) {
+            pool.size.decrementAndGet();
+            if (destination.foundAt() >= oldest) {
+                pool.hits.increment();
+                return destination;
+            }
+        }
+        pool.misses.increment();
+        return null;
+    }
+
+    /**
+     * Next candidate column for the world that is outside every exclusion, or null if the world
+     * is not an RTP world or no such column was drawn. The column has not been checked for safety.
+     */
+    @Nullable
+    public RtpSampler.Point nextCandidate(@Nonnull String worldName) {
+        Pool pool = pools.get(worldName);
+        return pool != null ? nextCandidate(pool) : null;
+    }
+
+    /**
+     * Checks up to {@code attempts} candidate locations, several at a time, and completes with
+     * the first safe one, or with null if none was safe. Checks still running when a safe
+     * location is found are ignored.
+     */
+    @Nonnull
+    public CompletableFuture<Destination> search(@Nonnull World world, int attempts) {
+        Pool pool = pools.get(world.getName());
+        if (pool == null) {
+            // World removed from the config by a reload while the command ran
+            return CompletableFuture.completedFuture(null);
+        }
+        Search search = new Search(world, pool, attempts, System.currentTimeMillis() + SEARCH_TIMEOUT_MILLIS);
+        search.launch();
+        return search.result;
+    }
+
+    @Nonnull
+    public List<Stats> getStats() {
+        List<Stats> stats = new ArrayList<>();
+        for (Pool pool : pools.values()) {
+            stats.add(pool.stats(poolSize));
+        }
+        return stats;
+    }
+
+    public int getRefillRate() {
+        return refillRate;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    private void tick() {
+        int target = poolSize;
+        int rate = refillRate;
+        for (Pool pool : pools.values()) {
+            pool.recordSecond();
+            if (target == 0) {
+                continue;
+            }
+            World world = Universe.get().getWorld(pool.worldName);
+            if (world == null) {
+                continue;
+            }
+            // Expired destinations would otherwise count as ready until /rtp drops them
+            pool.evictExpired(System.currentTimeMillis() - MAX_AGE_MILLIS);
+            // Refills still loading count against the rate, so slow chunk loads cannot pile up
+            int refilling = pool.refilling.get();
+            int wanted = Math.min(target - pool.size.get() - refilling, rate - refilling);
+            for (int i = 0; i < wanted && tryAcquire(pool); i++) {
+                pool.refilling.incrementAndGet();
+                probe(world, pool).whenComplete((destination, ex) -> {
+                    pool.refilling.decrementAndGet();
+                    if (destination != null && pools.get(pool.worldName) == pool && pool.size.get() < poolSize) {
+                        pool.ready.offer(destination);
+                        pool.size.incrementAndGet();
+                        pool.found.increment();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Takes a chunk load slot of the world and of the global limit, or neither.
+     */
+    private boolean tryAcquire(@Nonnull Pool pool) {
+        if (pool.inFlight.incrementAndGet() > maxInFlightPerWorld) {
+            pool.inFlight.decrementAndGet();
+            return false;
+        }
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            pool.inFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    @Nullable
+    private RtpSampler.Point nextCandidate(@Nonnull Pool pool) {
+        boolean spawnProtected = spawnProtectionManager.isEnabled();
+        int benchRadius = benchExclusionRadius;
+        for (int i = 0; i < MAX_EXCLUDED_DRAWS; i++) {
+            RtpSampler.Point point = pool.sampler.next();
+            if (pool.sampler.isExcluded(point.x(), point.z())
+                    || (spawnProtected && spawnProtectionManager.isInProtectedColumn(pool.worldName, point.x(), point.z()))
+                    || (benchRadius > 0 && personalBenchManager.isNearProtectedBench(pool.worldName, point.x(), point.z(), benchRadius))
+                    || regionManager.isInRegionColumn(pool.worldName, point.x(), point.z())) {
+                pool.excluded.increment();
+                continue;
+            }
+            return point;
+        }
+        return null;
+    }
+
+    /**
+     * Checks one candidate location. The caller must hold a slot from {@link #tryAcquire}, which
+     * is released when the check completes. Completes with null if the location is not safe.
+     */
+    @Nonnull
+    private CompletableFuture<Destination> probe(@Nonnull World world, @Nonnull Pool pool) {
+        RtpSampler.Point point = nextCandidate(pool);
+        pool.probes.increment();
+        if (point == null) {
+            pool.inFlight.decrementAndGet();
+            inFlight.decrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        }
+        double x = point.x();
+        double z = point.z();
+        return TeleportUtil.findSafeRtpYAsync(world, x, z).handle((safeY, ex) -> {
+            pool.inFlight.decrementAndGet();
+            inFlight.decrementAndGet();
+            if (ex != null) {
+                Log.warning("RTP check in " + pool.worldName + " failed: " + ex.getMessage());
+                return null;
+            }
+            if (safeY == null) {
+                return null;
+            }
+            pool.safe.increment();
+            return new Destination(x, safeY, z, System.currentTimeMillis());
+        });
+    }
+
+    /**
+     * One /rtp search: keeps up to the fan-out checks running until one is safe or all
+     * attempts are used.
+     */
+    private final class Search {
+        final CompletableFuture<Destination> result = new CompletableFuture<>();
+        private final World world;
+        private final Pool pool;
+        private final int attempts;
+        private final long deadline;
+        private int launched;
+        private int running;
+
+        Search(@Nonnull World world, @Nonnull Pool pool, int attempts, long deadline) {
+            this.world = world;
+            this.pool = pool;
+            this.attempts = attempts;
+            this.deadline = deadline;
+        }
+
+        synchronized void launch() {
+            if (result.isDone()) {
+                return;
+            }
+            int width = fanOut;
+            while (launched < attempts && running < width && tryAcquire(pool)) {
+                launched++;
+                running++;
+                probe(world, pool).thenAccept(this::onChecked);
+            }
+            if (running > 0) {
+                return;
+            }
+            if (launched >= attempts || System.currentTimeMillis() >= deadline) {
+                result.complete(null);
+            } else {
+                // Every slot is taken by other searches or refills
+                timingWheel.schedule(this::launch, SEARCH_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void onChecked(@Nullable Destination destination) {
+            synchronized (this) {
+                running--;
+            }
+            if (destination != null) {
+                result.complete(destination);
+            } else {
+                launch();
+            }
+        }
+    }
+
+    private static final class Pool {
+        final String worldName;
+        final RtpSampler sampler;
+        final ConcurrentLinkedQueue<Destination> ready = new ConcurrentLinkedQueue<>();
+        // ConcurrentLinkedQueue.size() walks the queue, so the size is tracked separately
+        final AtomicInteger size = new AtomicInteger();
+        // Chunk loads of both refills and searches in this world
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger refilling = new AtomicInteger();
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder probes = new LongAdder();
+        final LongAdder excluded = new LongAdder();
+        final LongAdder safe = new LongAdder();
+        // Destinations added to the pool
+        final LongAdder found = new LongAdder();
+        // Destinations found in each of the last RATE_WINDOW_SECONDS seconds
+        private final long[] foundPerSecond = new long[RATE_WINDOW_SECONDS];
+        private int second;
+        private long foundAtLastTick;
+
+        Pool(@Nonnull String worldName, @Nonnull ConfigManager.RtpWorld area) {
+            this.worldName = worldName;
+            this.sampler = new RtpSampler(area);
+        }
+
+        /**
+         * Drops destinations found before {@code oldest}. They are queued in the order they were
+         * found, so only the head needs checking.
+         */
+        void evictExpired(long oldest) {
+            Destination head;
+            while ((head = ready.peek()) != null && head.foundAt() < oldest) {
+                // A concurrent poll may have taken it already
+                if (ready.remove(head)) {
+                    size.decrementAndGet();
+                }
+            }
+        }
+
+        synchronized void recordSecond() {
+            long total = found.sum();
+            foundPerSecond[second] = total - foundAtLastTick;
+            foundAtLastTick = total;
+            second = (second + 1) % RATE_WINDOW_SECONDS;
+        }
+
+        @Nonnull
+        synchronized Stats stats(int target) {
+            long lastMinute = 0;
+            for (long count : foundPerSecond) {
+                lastMinute += count;
+            }
+            return new Stats(worldName, size.get(), target, inFlight.get(), hits.sum(), misses.sum(),
+                    probes.sum(), safe.sum(), excluded.sum(), found.sum(), lastMinute);
+        }
+    }
+}
@@ -1,19 +1,23 @@
 package com.nhulston.essentials.managers;
 import com.hypixel.hytale.math.vector.Vector3d;
 import com.hypixel.hytale.math.vector.Vector3i;
-import com.hypixel.hytale.server.core.permissions.PermissionsModule;
 import com.nhulston.essentials.models.Spawn;
 import com.nhulston.essentials.util.ConfigManager;
+import com.nhulston.essentials.util.PermissionCache;
 import com.nhulston.essentials.util.StorageManager;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.UUID;
 public class SpawnProtectionManager {
     private static final String BYPASS_PERMISSION = "essentials.spawn.bypass";
     private final ConfigManager configManager;
     private final StorageManager storageManager;
-    public SpawnProtectionManager(@Nonnull ConfigManager configManager, @Nonnull StorageManager storageManager) {
+    private final PermissionCache permissionCache;
+    public SpawnProtectionManager(@Nonnull ConfigManager configManager, @Nonnull StorageManager storageManager,
+                                  @Nonnull PermissionCache permissionCache) {
         this.configManager = configManager;
         this.storageManager = storageManager;
+        this.permissionCache = permissionCache;
     }
     public boolean isEnabled() {
         return configManager.isSpawnProtectionEnabled();
@@ -72,6 +76,45 @@ public class SpawnProtectionManager {
         return isInYRange((int) entityPos.getY());
     }
 
+    /**
+     * Checks if a block column is within the protected spawn area at any Y.
+     * @param worldName The world name to check against
+     * @param x The column X
+     * @param z The column Z
+     */
+    public boolean isInProtectedColumn(@Nonnull String worldName, double x, double z) {
+        Spawn spawn = storageManager.getSpawn();
+        if (spawn == null || !spawn.getWorld().equals(worldName)) {
+            return false;
+        }
+        int radius = configManager.getSpawnProtectionRadius();
+        return Math.abs(x - spawn.getX()) <= radius && Math.abs(z - spawn.getZ()) <= radius;
+    }
+
+    /**
+     * The spawn the protected area is centered on, or null if none is set.
+     */
+    @Nullable
+    public Spawn getSpawn() {
+        return storageManager.getSpawn();
+    }
+
+    /**
+     * Reports every chunk overlapping the protected spawn area, if spawn protection is enabled.
+     */
+    public void collectProtectedChunks(@Nonnull ProtectionManager.ChunkSink sink) {
+        Spawn spawn = storageManager.getSpawn();
+        if (spawn == null || !isEnabled()) {
+            return;
+        }
+        int radius = configManager.getSpawnProtectionRadius();
+        int minChunkX = (int) Math.floor(spawn.getX() - radius) >> ProtectionManager.CHUNK_SHIFT;
+        int maxChunkX = (int) Math.floor(spawn.getX() + radius) >> ProtectionManager.CHUNK_SHIFT;
+        int minChunkZ = (int) Math.floor(spawn.getZ() - radius) >> ProtectionManager.CHUNK_SHIFT;
+        int maxChunkZ = (int) Math.floor(spawn.getZ() + radius) >> ProtectionManager.CHUNK_SHIFT;
+        sink.addArea(spawn.getWorld(), minChunkX, minChunkZ, maxChunkX, maxChunkZ);
+    }
+
     private boolean isInYRange(int y) {
         int minY = configManager.getSpawnProtectionMinY();
         int maxY = configManager.getSpawnProtectionMaxY();
@@ -87,6 +130,6 @@ public class SpawnProtectionManager {
         return true;
     }
     public boolean canBypass(@Nonnull UUID playerUuid) {
-        return PermissionsModule.get().hasPermission(playerUuid, BYPASS_PERMISSION);
+        return permissionCache.hasPermission(playerUuid, BYPASS_PERMISSION);
     }
 }
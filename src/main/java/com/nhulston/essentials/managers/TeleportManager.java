@@ -6,44 +6,59 @@ import com.hypixel.hytale.math.vector.Vector3d;
 import com.hypixel.hytale.server.core.permissions.PermissionsModule;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.nhulston.essentials.systems.PendingTeleportComponent;
 import com.nhulston.essentials.util.ConfigManager;
+import com.nhulston.essentials.util.DestinationLoader;
 import com.nhulston.essentials.util.Log;
 import com.nhulston.essentials.util.Msg;
 import com.nhulston.essentials.util.SoundUtil;
+import com.nhulston.essentials.util.TeleportMetrics;
 import com.nhulston.essentials.util.TeleportUtil;
+import com.nhulston.essentials.util.TimingWheel;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 public class TeleportManager {
     private static final String BYPASS_PERMISSION = "essentials.teleport.bypass";
     private static final double CANCEL_DISTANCE = 2.0;
     private static final String TELEPORT_SOUND = "SFX_Portal_Neutral_Teleport_Local";
+    // How long a teleport whose delay is over may wait for its destination chunk before going ahead without it
+    private static final long MAX_PREPARE_WAIT_NANOS = TimeUnit.SECONDS.toNanos(5);
 
     private final ConfigManager configManager;
+    private final TimingWheel timingWheel;
+    private final DestinationLoader destinationLoader;
+    private final TeleportMetrics metrics;
     private final ConcurrentHashMap<UUID, PendingTeleport> pendingTeleports = new ConcurrentHashMap<>();
-    public TeleportManager(@Nonnull ConfigManager configManager) {
+    public TeleportManager(@Nonnull ConfigManager configManager, @Nonnull TimingWheel timingWheel,
+                           @Nonnull DestinationLoader destinationLoader, @Nonnull TeleportMetrics metrics) {
         this.configManager = configManager;
+        this.timingWheel = timingWheel;
+        this.destinationLoader = destinationLoader;
+        this.metrics = metrics;
     }
-    public void queueTeleport(@Nonnull PlayerRef playerRef, @Nonnull Ref<EntityStore> entityRef,
+    public void queueTeleport(@Nonnull TeleportMetrics.Kind kind, @Nonnull PlayerRef playerRef, @Nonnull Ref<EntityStore> entityRef,
                               @Nonnull Store<EntityStore> store, @Nonnull Vector3d startPosition,
                               @Nonnull String worldName, double x, double y, double z,
                               float yaw, float pitch, @Nullable String successMessage) {
-        queueTeleport(playerRef, entityRef, store, startPosition, worldName, x, y, z, yaw, pitch, successMessage, null);
+        queueTeleport(kind, playerRef, entityRef, store, startPosition, worldName, x, y, z, yaw, pitch, successMessage, null);
     }
-    public void queueTeleport(@Nonnull PlayerRef playerRef, @Nonnull Ref<EntityStore> entityRef,
+    public void queueTeleport(@Nonnull TeleportMetrics.Kind kind, @Nonnull PlayerRef playerRef, @Nonnull Ref<EntityStore> entityRef,
                               @Nonnull Store<EntityStore> store, @Nonnull Vector3d startPosition,
                               @Nonnull String worldName, double x, double y, double z,
                               float yaw, float pitch, @Nullable String successMessage,
                               @Nullable Runnable onSuccess) {
-        queueTeleport(playerRef, entityRef, store, startPosition, worldName, x, y, z, yaw, pitch,
+        queueTeleport(kind, playerRef, entityRef, store, startPosition, worldName, x, y, z, yaw, pitch,
                      configManager.getTeleportDelay(), successMessage, onSuccess);
     }
 
     /**
      * Queue a teleport with a custom delay
      */
-    public void queueTeleport(@Nonnull PlayerRef playerRef, @Nonnull Ref<EntityStore> entityRef,
+    public void queueTeleport(@Nonnull TeleportMetrics.Kind kind, @Nonnull PlayerRef playerRef, @Nonnull Ref<EntityStore> entityRef,
                               @Nonnull Store<EntityStore> store, @Nonnull Vector3d startPosition,
                               @Nonnull String worldName, double x, double y, double z,
                               float yaw, float pitch, int customDelay,
@@ -52,10 +67,15 @@ public class TeleportManager {
         int delay = customDelay;
 
         if (delay <= 0 || PermissionsModule.get().hasPermission(playerUuid, BYPASS_PERMISSION)) {
+            long start = System.nanoTime();
             String error = TeleportUtil.teleportSafe(store, entityRef, worldName, x, y, z, yaw, pitch);
+            long elapsed = System.nanoTime() - start;
             if (error != null) {
+                metrics.fail(kind, TeleportMetrics.Failure.WORLD_NOT_LOADED);
                 Msg.fail(playerRef, error);
             } else {
+                metrics.record(kind, TeleportMetrics.Stage.APPLY, elapsed);
+                metrics.record(kind, TeleportMetrics.Stage.TOTAL, elapsed);
                 SoundUtil.playSound(playerRef, TELEPORT_SOUND);
                 if (successMessage != null) {
                     Msg.success(playerRef, successMessage);
@@ -68,22 +88,36 @@ public class TeleportManager {
         }
 
         if (pendingTeleports.containsKey(playerUuid)) {
+            metrics.fail(kind, TeleportMetrics.Failure.ALREADY_PENDING);
             Msg.fail(playerRef, "You already have a pending teleport. Please wait.");
             return;
         }
 
         TeleportDestination destination = new TeleportDestination(worldName, x, y, z, yaw, pitch);
-        PendingTeleport pending = new PendingTeleport(playerRef, startPosition, destination, successMessage, delay, onSuccess);
-        pendingTeleports.put(playerUuid, pending);
-        Msg.info(playerRef, "Teleporting in " + delay + " seconds. Don't move!");
+        PendingTeleport pending = new PendingTeleport(kind, playerRef, startPosition, destination, successMessage, delay, onSuccess);
+        // Load the destination chunk and find the safe Y during the delay
+        long prepareStart = System.nanoTime();
+        CompletableFuture<DestinationLoader.Resolved> prepared = destinationLoader.prepare(worldName, x, y, z);
+        prepared.whenComplete((_, ex) -> {
+            metrics.record(kind, TeleportMetrics.Stage.PREPARE, System.nanoTime() - prepareStart);
+            if (ex != null) {
+                metrics.fail(kind, TeleportMetrics.Failure.CHUNK_LOAD_FAILED);
+            }
+        });
+        pending.setPrepared(prepared);
+        startWarmup(playerUuid, pending, entityRef, store);
     }
-    public void queueTeleportToPlayer(@Nonnull PlayerRef playerRef, @Nonnull Ref<EntityStore> entityRef,
+    public void queueTeleportToPlayer(@Nonnull TeleportMetrics.Kind kind, @Nonnull PlayerRef playerRef, @Nonnull Ref<EntityStore> entityRef,
                                       @Nonnull Store<EntityStore> store, @Nonnull Vector3d startPosition,
                                       @Nonnull PlayerRef targetPlayer, @Nullable String successMessage) {
         UUID playerUuid = playerRef.getUuid();
         int delay = configManager.getTeleportDelay();
         if (delay <= 0 || PermissionsModule.get().hasPermission(playerUuid, BYPASS_PERMISSION)) {
+            long start = System.nanoTime();
             TeleportUtil.teleportToPlayer(playerRef, targetPlayer);
+            long elapsed = System.nanoTime() - start;
+            metrics.record(kind, TeleportMetrics.Stage.APPLY, elapsed);
+            metrics.record(kind, TeleportMetrics.Stage.TOTAL, elapsed);
             SoundUtil.playSound(playerRef, TELEPORT_SOUND);
             if (successMessage != null) {
                 Msg.success(playerRef, successMessage);
@@ -91,31 +125,71 @@ public class TeleportManager {
             return;
         }
         if (pendingTeleports.containsKey(playerUuid)) {
+            metrics.fail(kind, TeleportMetrics.Failure.ALREADY_PENDING);
             Msg.fail(playerRef, "You already have a pending teleport. Please wait.");
             return;
         }
-        PendingTeleport pending = new PendingTeleport(playerRef, startPosition, targetPlayer.getUuid(), 
+        PendingTeleport pending = new PendingTeleport(kind, playerRef, startPosition, targetPlayer.getUuid(), 
                                                        targetPlayer.getUsername(), successMessage, delay);
-        pendingTeleports.put(playerUuid, pending);
-        Msg.info(playerRef, "Teleporting in " + delay + " seconds. Don't move!");
+        startWarmup(playerUuid, pending, entityRef, store);
     }
-    public void tick(@Nonnull UUID playerUuid, @Nonnull Ref<EntityStore> currentRef,
-                     @Nonnull Vector3d currentPosition, float deltaTime,
-                     @Nonnull CommandBuffer<EntityStore> buffer) {
+    /**
+     * Registers a pending teleport and tags the player's entity for the warmup system.
+     * The store may only be changed on its world's thread, and callers can be on another world's
+     * thread (cross-world /tpaccept) or the console (/rtp for others), so this runs as a task on
+     * the player's world. The entry is removed again if the entity cannot be tagged.
+     */
+    private void startWarmup(@Nonnull UUID playerUuid, @Nonnull PendingTeleport pending,
+                             @Nonnull Ref<EntityStore> entityRef, @Nonnull Store<EntityStore> store) {
+        PlayerRef playerRef = pending.getPlayerRef();
+        store.getExternalData().getWorld().execute(() -> {
+            if (!entityRef.isValid()) {
+                // Left or changed worlds before the task ran
+                metrics.fail(pending.getKind(), TeleportMetrics.Failure.PLAYER_INVALID);
+                return;
+            }
+            if (pendingTeleports.putIfAbsent(playerUuid, pending) != null) {
+                metrics.fail(pending.getKind(), TeleportMetrics.Failure.ALREADY_PENDING);
+                Msg.fail(playerRef, "You already have a pending teleport. Please wait.");
+                return;
+            }
+            try {
+                store.putComponent(entityRef, PendingTeleportComponent.getComponentType(),
+                        new PendingTeleportComponent(playerUuid));
+            } catch (RuntimeException e) {
+                pendingTeleports.remove(playerUuid, pending);
+                metrics.fail(pending.getKind(), TeleportMetrics.Failure.ERROR);
+                Log.error("Failed to start teleport for " + playerUuid + ": " + e.getMessage());
+                Msg.fail(playerRef, "Teleport failed.");
+                return;
+            }
+            pending.startTimer(timingWheel);
+            Msg.info(playerRef, "Teleporting in " + pending.getDelaySeconds() + " seconds. Don't move!");
+        });
+    }
+    /**
+     * Checks a player's pending teleport, canceling it if they moved and executing it once its delay timer has fired
+     * and its destination is prepared (or has taken too long to prepare).
+     * @return true if the teleport is still pending afterwards
+     */
+    public boolean tick(@Nonnull UUID playerUuid, @Nonnull Ref<EntityStore> currentRef,
+                        @Nonnull Vector3d currentPosition, @Nonnull CommandBuffer<EntityStore> buffer) {
         PendingTeleport pending = pendingTeleports.get(playerUuid);
         if (pending == null) {
-            return;
+            return false;
         }
         double distanceSquared = pending.getStartPosition().distanceSquaredTo(currentPosition);
         double maxDistanceSquared = CANCEL_DISTANCE * CANCEL_DISTANCE;
         if (distanceSquared > maxDistanceSquared) {
+            metrics.fail(pending.getKind(), TeleportMetrics.Failure.MOVED);
             cancelTeleport(playerUuid, "Teleport canceled because you moved.");
-            return;
+            return false;
         }
-        pending.addElapsedTime(deltaTime);
-        if (pending.isReady()) {
+        if (pending.isReady() && (pending.isPrepared() || System.nanoTime() - pending.getReadyAt() > MAX_PREPARE_WAIT_NANOS)) {
             executeTeleport(playerUuid, currentRef, buffer);
+            return false;
         }
+        return true;
     }
     private void executeTeleport(@Nonnull UUID playerUuid, @Nonnull Ref<EntityStore> currentRef,
                                  @Nonnull CommandBuffer<EntityStore> buffer) {
@@ -123,9 +197,15 @@ public class TeleportManager {
         if (pending == null) {
             return;
         }
+        TeleportMetrics.Kind kind = pending.getKind();
+        if (pending.isReady()) {
+            metrics.record(kind, TeleportMetrics.Stage.WAIT, System.nanoTime() - pending.getReadyAt());
+        }
         buffer.run(store -> {
+            long start = System.nanoTime();
             try {
                 if (!currentRef.isValid()) {
+                    metrics.fail(kind, TeleportMetrics.Failure.PLAYER_INVALID);
                     Msg.fail(pending.getPlayerRef(), "Teleport failed - player reference invalid.");
                     return;
                 }
@@ -134,12 +214,22 @@ public class TeleportManager {
                     error = TeleportUtil.teleportToPlayerByUuid(store, currentRef, pending.getTargetPlayerUuid());
                 } else {
                     TeleportDestination dest = pending.getDestination();
-                    error = TeleportUtil.teleportSafe(store, currentRef, dest.worldName,
-                            dest.x, dest.y, dest.z, dest.yaw, dest.pitch);
+                    DestinationLoader.Resolved resolved = pending.getResolved();
+                    if (resolved != null && resolved.world().isAlive()) {
+                        TeleportUtil.teleport(store, currentRef, resolved.world(), resolved.position(), dest.yaw);
+                    } else {
+                        error = TeleportUtil.teleportSafe(store, currentRef, dest.worldName,
+                                dest.x, dest.y, dest.z, dest.yaw, dest.pitch);
+                    }
                 }
                 if (error != null) {
+                    metrics.fail(kind, pending.isPlayerTeleport()
+                            ? TeleportMetrics.Failure.TARGET_UNAVAILABLE : TeleportMetrics.Failure.WORLD_NOT_LOADED);
                     Msg.fail(pending.getPlayerRef(), error);
                 } else {
+                    long now = System.nanoTime();
+                    metrics.record(kind, TeleportMetrics.Stage.APPLY, now - start);
+                    metrics.record(kind, TeleportMetrics.Stage.TOTAL, now - pending.getQueuedAt());
                     SoundUtil.playSound(pending.getPlayerRef(), TELEPORT_SOUND);
                     if (pending.getSuccessMessage() != null) {
                         Msg.success(pending.getPlayerRef(), pending.getSuccessMessage());
@@ -149,6 +239,7 @@ public class TeleportManager {
                     }
                 }
             } catch (Exception e) {
+                metrics.fail(kind, TeleportMetrics.Failure.ERROR);
                 Log.error("Failed to execute teleport for " + playerUuid + ": " + e.getMessage());
                 Msg.fail(pending.getPlayerRef(), "Teleport failed.");
             }
@@ -156,17 +247,25 @@ public class TeleportManager {
     }
     public void cancelTeleport(@Nonnull UUID playerUuid, @Nullable String reason) {
         PendingTeleport pending = pendingTeleports.remove(playerUuid);
-        if (pending != null && reason != null) {
-            Msg.fail(pending.getPlayerRef(), reason);
+        if (pending != null) {
+            pending.cancelTimer();
+            if (reason != null) {
+                Msg.fail(pending.getPlayerRef(), reason);
+            }
         }
     }
+    @Nonnull
+    public TeleportMetrics getMetrics() {
+        return metrics;
+    }
     public boolean hasPendingTeleport(@Nonnull UUID playerUuid) {
         return pendingTeleports.containsKey(playerUuid);
     }
     public void onPlayerQuit(@Nonnull UUID playerUuid) {
-        pendingTeleports.remove(playerUuid);
+        cancelTeleport(playerUuid, null);
     }
     public void shutdown() {
+        pendingTeleports.values().forEach(PendingTeleport::cancelTimer);
         pendingTeleports.clear();
     }
     private static class TeleportDestination {
@@ -183,6 +282,8 @@ public class TeleportManager {
         }
     }
     private static class PendingTeleport {
+        private final TeleportMetrics.Kind kind;
+        private final long queuedAt = System.nanoTime();
         private final PlayerRef playerRef;
         private final Vector3d startPosition;
         private final TeleportDestination destination;  
@@ -190,11 +291,15 @@ public class TeleportManager {
         private final String targetPlayerName;          
         private final String successMessage;
         private final Runnable onSuccess;
-        private final float delaySeconds;
-        private float elapsedTime;
-        PendingTeleport(@Nonnull PlayerRef playerRef, @Nonnull Vector3d startPosition,
+        private final int delaySeconds;
+        private TimingWheel.Timeout timer;
+        private volatile boolean ready;
+        private volatile long readyAt;
+        private volatile CompletableFuture<DestinationLoader.Resolved> prepared;
+        PendingTeleport(@Nonnull TeleportMetrics.Kind kind, @Nonnull PlayerRef playerRef, @Nonnull Vector3d startPosition,
                         @Nonnull TeleportDestination destination, @Nullable String successMessage, 
                         int delaySeconds, @Nullable Runnable onSuccess) {
+            this.kind = kind;
             this.playerRef = playerRef;
             this.startPosition = startPosition.clone();  
             this.destination = destination;
@@ -203,11 +308,11 @@ public class TeleportManager {
             this.successMessage = successMessage;
             this.onSuccess = onSuccess;
             this.delaySeconds = delaySeconds;
-            this.elapsedTime = 0f;
         }
-        PendingTeleport(@Nonnull PlayerRef playerRef, @Nonnull Vector3d startPosition,
+        PendingTeleport(@Nonnull TeleportMetrics.Kind kind, @Nonnull PlayerRef playerRef, @Nonnull Vector3d startPosition,
                         @Nonnull UUID targetPlayerUuid, @Nonnull String targetPlayerName,
                         @Nullable String successMessage, int delaySeconds) {
+            this.kind = kind;
             this.playerRef = playerRef;
             this.startPosition = startPosition.clone();  
             this.destination = null;
@@ -216,11 +321,19 @@ public class TeleportManager {
             this.successMessage = successMessage;
             this.onSuccess = null;
             this.delaySeconds = delaySeconds;
-            this.elapsedTime = 0f;
+        }
+        TeleportMetrics.Kind getKind() {
+            return kind;
+        }
+        long getQueuedAt() {
+            return queuedAt;
         }
         PlayerRef getPlayerRef() {
             return playerRef;
         }
+        int getDelaySeconds() {
+            return delaySeconds;
+        }
         Vector3d getStartPosition() {
             return startPosition;
         }
@@ -239,11 +352,47 @@ public class TeleportManager {
         Runnable getOnSuccess() {
             return onSuccess;
         }
-        void addElapsedTime(float deltaTime) {
-            this.elapsedTime += deltaTime;
+        /**
+         * The timer only flags the teleport as ready; it runs on the player's next world tick,
+         * where the movement check and command buffer are available.
+         */
+        void startTimer(@Nonnull TimingWheel timingWheel) {
+            timer = timingWheel.schedule(() -> {
+                readyAt = System.nanoTime();
+                ready = true;
+            }, delaySeconds, TimeUnit.SECONDS);
+        }
+        void cancelTimer() {
+            if (timer != null) {
+                timer.cancel();
+            }
         }
         boolean isReady() {
-            return elapsedTime >= delaySeconds;
+            return ready;
+        }
+        long getReadyAt() {
+            return readyAt;
+        }
+        void setPrepared(@Nonnull CompletableFuture<DestinationLoader.Resolved> prepared) {
+            this.prepared = prepared;
+        }
+        /**
+         * True if there is nothing to prepare (player teleports) or the preparation has finished.
+         */
+        boolean isPrepared() {
+            CompletableFuture<DestinationLoader.Resolved> future = prepared;
+            return future == null || future.isDone();
+        }
+        /**
+         * The prepared destination, or null if it is not ready or failed; the teleport then resolves it itself.
+         */
+        @Nullable
+        DestinationLoader.Resolved getResolved() {
+            CompletableFuture<DestinationLoader.Resolved> future = prepared;
+            if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+                return null;
+            }
+            return future.getNow(null);
         }
     }
 }
@@ -1,61 +1,103 @@
 package com.nhulston.essentials.managers;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.Universe;
+import com.nhulston.essentials.util.ConfigManager;
 import com.nhulston.essentials.util.Log;
 import com.nhulston.essentials.util.Msg;
+import com.nhulston.essentials.util.TimingWheel;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pending teleport requests (/tpa and /tpahere).
+ * Each target has an inbox of requests in the order they arrived, indexed by requester UUID and
+ * by lowercase requester name, and each requester has the list of targets they have requests
+ * out to. Accepting, denying or cancelling a request and cleaning up after a player leaves only
+ * touch that player's own entries. The number of pending requests per target and per requester
+ * is capped by the config so one player cannot flood another (or the server) with requests.
+ * All methods are synchronized; requests are few and the critical sections are tiny.
+ */
 public class TpaManager {
-    private final ConcurrentHashMap<UUID, ConcurrentHashMap<UUID, TpaRequest>> pendingRequests = new ConcurrentHashMap<>();
-    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    /**
+     * Outcome of {@link #createRequest}.
+     */
+    public enum CreateResult {
+        CREATED,
+        DUPLICATE,      // The requester already has a request out to this target
+        TARGET_FULL,    // The target has too many pending requests
+        REQUESTER_FULL  // The requester has too many requests out
+    }
+
     private static final long EXPIRATION_SECONDS = 20;
-    public boolean createRequest(@Nonnull PlayerRef requester, @Nonnull PlayerRef target) {
-        UUID targetUuid = target.getUuid();
-        UUID requesterUuid = requester.getUuid();
-        ConcurrentHashMap<UUID, TpaRequest> targetRequests = pendingRequests.computeIfAbsent(
-            targetUuid, _ -> new ConcurrentHashMap<>()
-        );
-        if (targetRequests.containsKey(requesterUuid)) {
-            return false;
-        }
-        TpaRequest request = new TpaRequest(requesterUuid, requester.getUsername(), target.getUsername());
-        targetRequests.put(requesterUuid, request);
-        ScheduledFuture<?> future = scheduler.schedule(() -> {
-            expireRequest(targetUuid, requesterUuid);
-        }, EXPIRATION_SECONDS, TimeUnit.SECONDS);
-        request.setExpirationFuture(future);
-        Log.info("TPA request created: " + requester.getUsername() + " -> " + target.getUsername());
-        return true;
+
+    private final Map<UUID, Inbox> inboxes = new HashMap<>();
+    private final Map<UUID, LinkedHashMap<UUID, TpaRequest>> outgoing = new HashMap<>();
+    private final ConfigManager configManager;
+    private final TimingWheel timingWheel;
+
+    public TpaManager(@Nonnull ConfigManager configManager, @Nonnull TimingWheel timingWheel) {
+        this.configManager = configManager;
+        this.timingWheel = timingWheel;
     }
-    @Nullable
-    public TpaRequest acceptRequest(@Nonnull PlayerRef target, @Nonnull String requesterName) {
+
+    /**
+     * Creates a request. With {@code here} the target is asked to teleport to the requester
+     * (/tpahere) instead of the other way around.
+     */
+    @Nonnull
+    public synchronized CreateResult createRequest(@Nonnull PlayerRef requester, @Nonnull PlayerRef target,
+                                                   boolean here) {
         UUID targetUuid = target.getUuid();
-        ConcurrentHashMap<UUID, TpaRequest> targetRequests = pendingRequests.get(targetUuid);
-        if (targetRequests == null || targetRequests.isEmpty()) {
-            return null;
+        UUID requesterUuid = requester.getUuid();
+        Inbox inbox = inboxes.get(targetUuid);
+        if (inbox != null && inbox.byRequester.containsKey(requesterUuid)) {
+            return CreateResult.DUPLICATE;
         }
-        TpaRequest foundRequest = null;
-        UUID foundRequesterUuid = null;
-        for (Map.Entry<UUID, TpaRequest> entry : targetRequests.entrySet()) {
-            if (entry.getValue().getRequesterName().equalsIgnoreCase(requesterName)) {
-                foundRequest = entry.getValue();
-                foundRequesterUuid = entry.getKey();
-                break;
-            }
+        if (inbox != null && inbox.byRequester.size() >= configManager.getTpaMaxPendingPerTarget()) {
+            return CreateResult.TARGET_FULL;
         }
-        if (foundRequest == null) {
-            return null;
+        LinkedHashMap<UUID, TpaRequest> sent = outgoing.get(requesterUuid);
+        if (sent != null && sent.size() >= configManager.getTpaMaxPendingPerRequester()) {
+            return CreateResult.REQUESTER_FULL;
         }
-        targetRequests.remove(foundRequesterUuid);
-        foundRequest.cancel();
-        if (targetRequests.isEmpty()) {
-            pendingRequests.remove(targetUuid);
+
+        TpaRequest request = new TpaRequest(requesterUuid, requester.getUsername(), targetUuid,
+            target.getUsername(), here);
+        if (inbox == null) {
+            inbox = new Inbox();
+            inboxes.put(targetUuid, inbox);
         }
-        Log.info("TPA request accepted: " + foundRequest.getRequesterName() + " -> " + target.getUsername());
-        return foundRequest;
+        inbox.add(request);
+        outgoing.computeIfAbsent(requesterUuid, _ -> new LinkedHashMap<>()).put(targetUuid, request);
+        request.setExpiration(timingWheel.schedule(() -> expireRequest(request),
+            EXPIRATION_SECONDS, TimeUnit.SECONDS));
+
+        Log.info("TPA" + (here ? "HERE" : "") + " request created: " + requester.getUsername()
+            + " -> " + target.getUsername());
+        return CreateResult.CREATED;
+    }
+
+    /**
+     * Accepts the request sent to the target by the named player.
+     * @return The accepted TpaRequest, or null if there is none
+     */
+    @Nullable
+    public synchronized TpaRequest acceptRequest(@Nonnull PlayerRef target, @Nonnull String requesterName) {
+        TpaRequest request = findByName(target.getUuid(), requesterName);
+        if (request == null) {
+            return null;
+        }
+        remove(request);
+        Log.info("TPA request accepted: " + request.getRequesterName() + " -> " + target.getUsername());
+        return request;
     }
 
     /**
@@ -64,74 +106,160 @@ public class TpaManager {
      * @return The accepted TpaRequest, or null if no requests exist
      */
     @Nullable
-    public TpaRequest acceptMostRecentRequest(@Nonnull PlayerRef target) {
-        UUID targetUuid = target.getUuid();
-        ConcurrentHashMap<UUID, TpaRequest> targetRequests = pendingRequests.get(targetUuid);
-
-        if (targetRequests == null || targetRequests.isEmpty()) {
+    public synchronized TpaRequest acceptMostRecentRequest(@Nonnull PlayerRef target) {
+        TpaRequest request = mostRecent(target.getUuid());
+        if (request == null) {
             return null;
         }
+        remove(request);
+        Log.info("TPA request accepted (most recent): " + request.getRequesterName() + " -> " + target.getUsername());
+        return request;
+    }
 
-        // Get the first (most recent) request
-        Map.Entry<UUID, TpaRequest> entry = targetRequests.entrySet().iterator().next();
-        UUID requesterUuid = entry.getKey();
-        TpaRequest request = entry.getValue();
-
-        targetRequests.remove(requesterUuid);
-        request.cancel();
-
-        if (targetRequests.isEmpty()) {
-            pendingRequests.remove(targetUuid);
+    /**
+     * Denies the request sent to the target by the named player, or the most recent one if
+     * {@code requesterName} is null.
+     * @return The denied TpaRequest, or null if there is none
+     */
+    @Nullable
+    public synchronized TpaRequest denyRequest(@Nonnull PlayerRef target, @Nullable String requesterName) {
+        TpaRequest request = requesterName != null
+            ? findByName(target.getUuid(), requesterName)
+            : mostRecent(target.getUuid());
+        if (request == null) {
+            return null;
         }
-
-        Log.info("TPA request accepted (most recent): " + request.getRequesterName() + " -> " + target.getUsername());
+        remove(request);
+        Log.info("TPA request denied: " + request.getRequesterName() + " -> " + target.getUsername());
         return request;
     }
 
-    private void expireRequest(UUID targetUuid, UUID requesterUuid) {
-        ConcurrentHashMap<UUID, TpaRequest> targetRequests = pendingRequests.get(targetUuid);
-        if (targetRequests == null) {
+    /**
+     * Cancels the requester's request to the named player, or all of their requests if
+     * {@code targetName} is null.
+     * @return The cancelled requests, empty if there were none
+     */
+    @Nonnull
+    public synchronized List<TpaRequest> cancelRequests(@Nonnull PlayerRef requester, @Nullable String targetName) {
+        LinkedHashMap<UUID, TpaRequest> sent = outgoing.get(requester.getUuid());
+        if (sent == null) {
+            return List.of();
+        }
+        List<TpaRequest> cancelled = new ArrayList<>();
+        for (TpaRequest request : sent.values()) {
+            if (targetName == null || request.getTargetName().equalsIgnoreCase(targetName)) {
+                cancelled.add(request);
+            }
+        }
+        for (TpaRequest request : cancelled) {
+            remove(request);
+        }
+        return cancelled;
+    }
+
+    private synchronized void expireRequest(@Nonnull TpaRequest request) {
+        Inbox inbox = inboxes.get(request.getTargetUuid());
+        if (inbox == null || inbox.byRequester.get(request.getRequesterUuid()) != request) {
             return;
         }
-        TpaRequest request = targetRequests.remove(requesterUuid);
-        if (request != null) {
-            if (targetRequests.isEmpty()) {
-                pendingRequests.remove(targetUuid);
+        remove(request);
+        PlayerRef requester = Universe.get().getPlayer(request.getRequesterUuid());
+        if (requester != null) {
+            Msg.fail(requester, "Your teleport request to " + request.getTargetName() + " has expired.");
+        }
+    }
+
+    public synchronized void onPlayerQuit(@Nonnull UUID playerUuid) {
+        Inbox inbox = inboxes.get(playerUuid);
+        if (inbox != null) {
+            for (TpaRequest request : new ArrayList<>(inbox.byRequester.values())) {
+                remove(request);
             }
-            PlayerRef requester = Universe.get().getPlayer(requesterUuid);
-            if (requester != null) {
-                Msg.fail(requester, "Your teleport request to " + request.getTargetName() + " has expired.");
+        }
+        LinkedHashMap<UUID, TpaRequest> sent = outgoing.get(playerUuid);
+        if (sent != null) {
+            for (TpaRequest request : new ArrayList<>(sent.values())) {
+                remove(request);
             }
         }
     }
-    public void onPlayerQuit(@Nonnull UUID playerUuid) {
-        ConcurrentHashMap<UUID, TpaRequest> targetRequests = pendingRequests.remove(playerUuid);
-        if (targetRequests != null) {
-            for (TpaRequest request : targetRequests.values()) {
-                request.cancel();
+
+    public synchronized void shutdown() {
+        for (Inbox inbox : inboxes.values()) {
+            inbox.byRequester.values().forEach(TpaRequest::cancel);
+        }
+        inboxes.clear();
+        outgoing.clear();
+    }
+
+    @Nullable
+    private TpaRequest findByName(@Nonnull UUID targetUuid, @Nonnull String requesterName) {
+        Inbox inbox = inboxes.get(targetUuid);
+        return inbox != null ? inbox.byName.get(requesterName.toLowerCase(Locale.ROOT)) : null;
+    }
+
+    @Nullable
+    private TpaRequest mostRecent(@Nonnull UUID targetUuid) {
+        Inbox inbox = inboxes.get(targetUuid);
+        if (inbox == null) {
+            return null;
+        }
+        Map.Entry<UUID, TpaRequest> last = inbox.byRequester.lastEntry();
+        return last != null ? last.getValue() : null;
+    }
+
+    /**
+     * Removes a request from both indexes and cancels its expiration.
+     */
+    private void remove(@Nonnull TpaRequest request) {
+        request.cancel();
+        Inbox inbox = inboxes.get(request.getTargetUuid());
+        if (inbox != null) {
+            inbox.remove(request);
+            if (inbox.byRequester.isEmpty()) {
+                inboxes.remove(request.getTargetUuid());
             }
         }
-        for (ConcurrentHashMap<UUID, TpaRequest> requests : pendingRequests.values()) {
-            TpaRequest request = requests.remove(playerUuid);
-            if (request != null) {
-                request.cancel();
+        LinkedHashMap<UUID, TpaRequest> sent = outgoing.get(request.getRequesterUuid());
+        if (sent != null) {
+            sent.remove(request.getTargetUuid(), request);
+            if (sent.isEmpty()) {
+                outgoing.remove(request.getRequesterUuid());
             }
         }
-        pendingRequests.entrySet().removeIf(entry -> entry.getValue().isEmpty());
     }
-    public void shutdown() {
-        scheduler.shutdownNow();
-        pendingRequests.clear();
+
+    /**
+     * Requests sent to one player, oldest first.
+     */
+    private static class Inbox {
+        private final LinkedHashMap<UUID, TpaRequest> byRequester = new LinkedHashMap<>();
+        private final HashMap<String, TpaRequest> byName = new HashMap<>();
+
+        void add(@Nonnull TpaRequest request) {
+            byRequester.put(request.getRequesterUuid(), request);
+            byName.put(request.getRequesterName().toLowerCase(Locale.ROOT), request);
+        }
+
+        void remove(@Nonnull TpaRequest request) {
+            byRequester.remove(request.getRequesterUuid(), request);
+            byName.remove(request.getRequesterName().toLowerCase(Locale.ROOT), request);
+        }
     }
+
     public static class TpaRequest {
         private final UUID requesterUuid;
         private final String requesterName;
+        private final UUID targetUuid;
         private final String targetName;
-        private ScheduledFuture<?> expirationFuture;
-        public TpaRequest(UUID requesterUuid, String requesterName, String targetName) {
+        private final boolean here;
+        private TimingWheel.Timeout expiration;
+        public TpaRequest(UUID requesterUuid, String requesterName, UUID targetUuid, String targetName, boolean here) {
             this.requesterUuid = requesterUuid;
             this.requesterName = requesterName;
+            this.targetUuid = targetUuid;
             this.targetName = targetName;
+            this.here = here;
         }
         public UUID getRequesterUuid() {
             return requesterUuid;
@@ -139,15 +267,24 @@ public class TpaManager {
         public String getRequesterName() {
             return requesterName;
         }
+        public UUID getTargetUuid() {
+            return targetUuid;
+        }
         public String getTargetName() {
             return targetName;
         }
-        void setExpirationFuture(ScheduledFuture<?> future) {
-            this.expirationFuture = future;
+        /**
+         * True for /tpahere: the target teleports to the requester.
+         */
+        public boolean isHere() {
+            return here;
+        }
+        void setExpiration(TimingWheel.Timeout expiration) {
+            this.expiration = expiration;
         }
         void cancel() {
-            if (expirationFuture != null) {
-                expirationFuture.cancel(false);
+            if (expiration != null) {
+                expiration.cancel();
             }
         }
     }
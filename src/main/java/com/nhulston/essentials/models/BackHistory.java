@@ -0,0 +1,181 @@
+package com.nhulston.essentials.models;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A player's most recent /back locations, newest first, in a fixed-size ring.
+ * Entries are packed into parallel primitive arrays, so recording a location allocates nothing
+ * once the ring exists; world names are interned so every entry in a world shares one String.
+ * Each entry gets a sequence number, which lets a caller remove the entry it read earlier even
+ * if newer ones were pushed in between.
+ */
+public class BackHistory {
+    /**
+     * A copy of one entry.
+     */
+    public record Entry(long sequence, @Nonnull String worldName, double x, double y, double z,
+                        float yaw, float pitch, byte type, long time) {}
+
+    private static final Map<String, String> WORLD_NAMES = new ConcurrentHashMap<>();
+
+    // Slot of the newest entry; older entries follow it, wrapping around
+    private int head;
+    private int size;
+    private long nextSequence = 1L;
+    private String[] worlds;
+    private double[] positions; // x, y, z per slot
+    private float[] rotations;  // yaw, pitch per slot
+    private byte[] types;
+    private long[] times;
+    private long[] sequences;
+
+    public BackHistory() {
+        this(0);
+    }
+
+    public BackHistory(int capacity) {
+        allocate(capacity);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Records a location as the newest entry, dropping the oldest when the ring is full.
+     * The ring is resized to {@code capacity} first if the configured depth changed.
+     */
+    public synchronized void push(@Nonnull String worldName, double x, double y, double z,
+                                  float yaw, float pitch, byte type, long time, int capacity) {
+        if (capacity <= 0) {
+            return;
+        }
+        if (capacity != worlds.length) {
+            resize(capacity);
+        }
+        head = (head - 1 + capacity) % capacity;
+        if (size < capacity) {
+            size++;
+        }
+        worlds[head] = intern(worldName);
+        positions[head * 3] = x;
+        positions[head * 3 + 1] = y;
+        positions[head * 3 + 2] = z;
+        rotations[head * 2] = yaw;
+        rotations[head * 2 + 1] = pitch;
+        types[head] = type;
+        times[head] = time;
+        sequences[head] = nextSequence++;
+    }
+
+    /**
+     * The n-th most recent entry (0 = newest), or null if there are not that many.
+     */
+    @Nullable
+    public synchronized Entry get(int n) {
+        if (n < 0 || n >= size) {
+            return null;
+        }
+        int slot = slot(n);
+        return new Entry(sequences[slot], worlds[slot], positions[slot * 3], positions[slot * 3 + 1],
+                positions[slot * 3 + 2], rotations[slot * 2], rotations[slot * 2 + 1], types[slot], times[slot]);
+    }
+
+    /**
+     * Copies of all entries, newest first.
+     */
+    @Nonnull
+    public synchronized List<Entry> entries() {
+        List<Entry> entries = new ArrayList<>(size);
+        for (int n = 0; n < size; n++) {
+            entries.add(get(n));
+        }
+        return entries;
+    }
+
+    /**
+     * Removes the entry with the given sequence number, closing the gap.
+     * @return true if it was still there
+     */
+    public synchronized boolean remove(long sequence) {
+        for (int n = 0; n < size; n++) {
+            if (sequences[slot(n)] != sequence) {
+                continue;
+            }
+            // Shift the older entries one step towards the newest
+            for (int i = n; i < size - 1; i++) {
+                copy(slot(i + 1), slot(i));
+            }
+            worlds[slot(size - 1)] = null;
+            size--;
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(worlds, null);
+        head = 0;
+        size = 0;
+    }
+
+    private int slot(int n) {
+        return (head + n) % worlds.length;
+    }
+
+    private void copy(int from, int to) {
+        worlds[to] = worlds[from];
+        System.arraycopy(positions, from * 3, positions, to * 3, 3);
+        System.arraycopy(rotations, from * 2, rotations, to * 2, 2);
+        types[to] = types[from];
+        times[to] = times[from];
+        sequences[to] = sequences[from];
+    }
+
+    private void allocate(int capacity) {
+        worlds = new String[capacity];
+        positions = new double[capacity * 3];
+        rotations = new float[capacity * 2];
+        types = new byte[capacity];
+        times = new long[capacity];
+        sequences = new long[capacity];
+    }
+
+    /**
+     * Moves the newest entries into rings of the new capacity, dropping the oldest if it shrank.
+     */
+    private void resize(int capacity) {
+        String[] oldWorlds = worlds;
+        double[] oldPositions = positions;
+        float[] oldRotations = rotations;
+        byte[] oldTypes = types;
+        long[] oldTimes = times;
+        long[] oldSequences = sequences;
+        int oldHead = head;
+        int kept = Math.min(size, capacity);
+        allocate(capacity);
+        for (int n = 0; n < kept; n++) {
+            int from = (oldHead + n) % oldWorlds.length;
+            worlds[n] = oldWorlds[from];
+            System.arraycopy(oldPositions, from * 3, positions, n * 3, 3);
+            System.arraycopy(oldRotations, from * 2, rotations, n * 2, 2);
+            types[n] = oldTypes[from];
+            times[n] = oldTimes[from];
+            sequences[n] = oldSequences[from];
+        }
+        head = 0;
+        size = kept;
+    }
+
+    @Nonnull
+    private static String intern(@Nonnull String worldName) {
+        String existing = WORLD_NAMES.putIfAbsent(worldName, worldName);
+        return existing != null ? existing : worldName;
+    }
+}
@@ -8,9 +8,14 @@ public class PlayerData {
     private Map<String, Long> kitCooldowns;   
     private Long lastRepairTime;
     private Long lastRtpTime;
+    private BackHistory backHistory;
+    // Change tracking for autosave; transient so it is never serialized
+    private transient volatile long version;
+    private transient volatile long savedVersion;
     public PlayerData() {
         this.homes = new HashMap<>();
         this.kitCooldowns = new HashMap<>();
+        this.backHistory = new BackHistory();
     }
     private void ensureInitialized() {
         if (homes == null) {
@@ -19,6 +24,9 @@ public class PlayerData {
         if (kitCooldowns == null) {
             kitCooldowns = new HashMap<>();
         }
+        if (backHistory == null) {
+            backHistory = new BackHistory();
+        }
     }
     public Map<String, Home> getHomes() {
         ensureInitialized();
@@ -31,15 +39,22 @@ public class PlayerData {
     public void setHome(String name, Home home) {
         ensureInitialized();
         homes.put(name.toLowerCase(), home);
+        touch();
     }
     public void deleteHome(String name) {
         ensureInitialized();
-        homes.remove(name.toLowerCase());
+        if (homes.remove(name.toLowerCase()) != null) {
+            touch();
+        }
     }
     public int getHomeCount() {
         ensureInitialized();
         return homes.size();
     }
+    public Map<String, Long> getKitCooldowns() {
+        ensureInitialized();
+        return kitCooldowns;
+    }
     @Nullable
     public Long getKitCooldown(@Nonnull String kitId) {
         ensureInitialized();
@@ -48,6 +63,7 @@ public class PlayerData {
     public void setKitCooldown(@Nonnull String kitId, long timestamp) {
         ensureInitialized();
         kitCooldowns.put(kitId.toLowerCase(), timestamp);
+        touch();
     }
     @Nullable
     public Long getLastRepairTime() {
@@ -55,6 +71,7 @@ public class PlayerData {
     }
     public void setLastRepairTime(long timestamp) {
         this.lastRepairTime = timestamp;
+        touch();
     }
     @Nullable
     public Long getLastRtpTime() {
@@ -62,5 +79,47 @@ public class PlayerData {
     }
     public void setLastRtpTime(long timestamp) {
         this.lastRtpTime = timestamp;
+        touch();
+    }
+    /**
+     * Recent /back locations, newest first. Change it only through the methods below so the change is saved.
+     */
+    @Nonnull
+    public BackHistory getBackHistory() {
+        ensureInitialized();
+        return backHistory;
+    }
+    public void pushBackLocation(@Nonnull String worldName, double x, double y, double z, float yaw, float pitch,
+                                 byte type, long time, int depth) {
+        getBackHistory().push(worldName, x, y, z, yaw, pitch, type, time, depth);
+        touch();
+    }
+    public boolean removeBackLocation(long sequence) {
+        if (getBackHistory().remove(sequence)) {
+            touch();
+            return true;
+        }
+        return false;
+    }
+    /**
+     * Change counter, bumped by every setter. Used to tell whether the data changed since it was last written.
+     */
+    public long getVersion() {
+        return version;
+    }
+    public boolean isDirty() {
+        return version != savedVersion;
+    }
+    /**
+     * Records that the state as of {@code writtenVersion} is on disk.
+     * Writes are serialized by the caller, so an older version never overwrites a newer one.
+     */
+    public void markSaved(long writtenVersion) {
+        if (writtenVersion > savedVersion) {
+            savedVersion = writtenVersion;
+        }
+    }
+    private synchronized void touch() {
+        version++;
     }
 }
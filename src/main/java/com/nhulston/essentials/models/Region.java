@@ -0,0 +1,103 @@
+package com.nhulston.essentials.models;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * A named protected box in one world, with inclusive block bounds.
+ * Each flag is either allowed, denied or unset; unset flags fall through to lower-priority
+ * regions and then to the other protections. Regions are immutable; changes make a copy.
+ */
+public class Region {
+    private final String name;
+    private final String world;
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int maxX;
+    private final int maxY;
+    private final int maxZ;
+    private final int priority;
+    private final Map<Flag, Boolean> flags;
+    public Region(@Nonnull String name, @Nonnull String world, int x1, int y1, int z1, int x2, int y2, int z2,
+                  int priority, @Nonnull Map<Flag, Boolean> flags) {
+        this.name = name;
+        this.world = world;
+        this.minX = Math.min(x1, x2);
+        this.minY = Math.min(y1, y2);
+        this.minZ = Math.min(z1, z2);
+        this.maxX = Math.max(x1, x2);
+        this.maxY = Math.max(y1, y2);
+        this.maxZ = Math.max(z1, z2);
+        this.priority = priority;
+        this.flags = flags.isEmpty() ? new EnumMap<>(Flag.class) : new EnumMap<>(flags);
+    }
+    @Nonnull
+    public String getName() {
+        return name;
+    }
+    @Nonnull
+    public String getWorld() {
+        return world;
+    }
+    public int getMinX() {
+        return minX;
+    }
+    public int getMinY() {
+        return minY;
+    }
+    public int getMinZ() {
+        return minZ;
+    }
+    public int getMaxX() {
+        return maxX;
+    }
+    public int getMaxY() {
+        return maxY;
+    }
+    public int getMaxZ() {
+        return maxZ;
+    }
+    public int getPriority() {
+        return priority;
+    }
+    /**
+     * @return TRUE if allowed, FALSE if denied, null if unset
+     */
+    @Nullable
+    public Boolean getFlag(@Nonnull Flag flag) {
+        return flags != null ? flags.get(flag) : null;
+    }
+    @Nonnull
+    public Map<Flag, Boolean> getFlags() {
+        return flags != null && !flags.isEmpty() ? new EnumMap<>(flags) : new EnumMap<>(Flag.class);
+    }
+    public boolean contains(int x, int y, int z) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+    }
+    /**
+     * Copy with the flag set, or unset if {@code value} is null.
+     */
+    @Nonnull
+    public Region withFlag(@Nonnull Flag flag, @Nullable Boolean value) {
+        Map<Flag, Boolean> copy = getFlags();
+        if (value != null) {
+            copy.put(flag, value);
+        } else {
+            copy.remove(flag);
+        }
+        return new Region(name, world, minX, minY, minZ, maxX, maxY, maxZ, priority, copy);
+    }
+    @Nonnull
+    public Region withPriority(int priority) {
+        return new Region(name, world, minX, minY, minZ, maxX, maxY, maxZ, priority, getFlags());
+    }
+    public enum Flag {
+        BUILD,       // Placing blocks
+        BREAK,       // Breaking and mining blocks
+        PVP,         // Players damaging players
+        USE,         // Using blocks such as doors, chests and benches
+        ITEM_PICKUP  // Picking up items
+    }
+}
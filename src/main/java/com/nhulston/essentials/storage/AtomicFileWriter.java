@@ -0,0 +1,229 @@
+package com.nhulston.essentials.storage;
+
+import com.nhulston.essentials.util.Log;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Crash-safe file writer shared by all JSON stores.
+ * Content is written to a temporary sibling file and moved over the live file with
+ * ATOMIC_MOVE, so readers only ever see the old or the new version.
+ * Every snapshot gets a sequence number; a write whose snapshot is older than the last one
+ * written to that file is dropped instead of overwriting newer data. A file's ordering state is
+ * dropped once everything snapshotted for it has been written, so the map only holds files
+ * with writes in flight; sequence numbers are shared by all files, so a state created later
+ * still rejects snapshots issued before it.
+ */
+public class AtomicFileWriter {
+    /**
+     * When written files are forced to the storage device.
+     */
+    public enum FsyncPolicy {
+        NONE,           // Leave flushing to the OS
+        ON_SHUTDOWN,    // Force every file written this session when the plugin shuts down
+        ALWAYS;         // Force the file and its directory on every write
+
+        @Nonnull
+        public static FsyncPolicy fromConfig(@Nonnull String value) {
+            return switch (value.trim().toLowerCase().replace('_', '-')) {
+                case "none", "off", "false" -> NONE;
+                case "always", "true" -> ALWAYS;
+                case "on-shutdown", "shutdown" -> ON_SHUTDOWN;
+                default -> {
+                    Log.warning("Unknown storage fsync policy '" + value + "', using on-shutdown.");
+                    yield ON_SHUTDOWN;
+                }
+            };
+        }
+    }
+
+    /**
+     * Serialized file content tagged with its position in the file's write order.
+     */
+    public record Snapshot(@Nonnull Path file, long sequence, @Nonnull byte[] content) {}
+
+    private final Map<Path, FileState> states = new ConcurrentHashMap<>();
+    private final AtomicLong sequences = new AtomicLong();
+    // Files written since the last sync, for the ON_SHUTDOWN policy
+    private final Set<Path> unsynced = ConcurrentHashMap.newKeySet();
+    private volatile FsyncPolicy fsyncPolicy;
+
+    public AtomicFileWriter(@Nonnull FsyncPolicy fsyncPolicy) {
+        this.fsyncPolicy = fsyncPolicy;
+    }
+
+    public void setFsyncPolicy(@Nonnull FsyncPolicy fsyncPolicy) {
+        this.fsyncPolicy = fsyncPolicy;
+    }
+
+    @Nonnull
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    /**
+     * Serializes the current state for a file. The sequence number is assigned while the
+     * serializer runs, so a later snapshot always reflects state at least as new.
+     */
+    @Nonnull
+    public Snapshot snapshot(@Nonnull Path file, @Nonnull Supplier<String> serializer) {
+        return snapshotBytes(file, () -> serializer.get().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Same as {@link #snapshot} for serializers that already produce bytes.
+     */
+    @Nonnull
+    public Snapshot snapshotBytes(@Nonnull Path file, @Nonnull Supplier<byte[]> serializer) {
+        Path key = normalize(file);
+        while (true) {
+            FileState state = states.computeIfAbsent(key, _ -> new FileState(sequences.get()));
+            synchronized (state.snapshotLock) {
+                if (state.retired) {
+                    // Dropped by a finishing write after we looked it up; take the replacement
+                    continue;
+                }
+                long sequence = sequences.incrementAndGet();
+                state.issued = sequence;
+                return new Snapshot(key, sequence, serializer.get());
+            }
+        }
+    }
+
+    /**
+     * Atomically replaces the file with the snapshot content.
+     * @return false if a newer snapshot of the same file was already written
+     */
+    public boolean write(@Nonnull Snapshot snapshot) throws IOException {
+        FileState state = states.get(snapshot.file());
+        if (state == null) {
+            // Every snapshot of the file up to the last one issued was written or dropped already
+            return false;
+        }
+        synchronized (state.writeLock) {
+            if (snapshot.sequence() <= state.written) {
+                return false;
+            }
+            FsyncPolicy policy = fsyncPolicy;
+            writeAtomically(snapshot.file(), snapshot.content(), policy == FsyncPolicy.ALWAYS);
+            state.written = snapshot.sequence();
+            if (policy == FsyncPolicy.ON_SHUTDOWN) {
+                unsynced.add(snapshot.file());
+            }
+            retireIfIdle(snapshot.file(), state);
+            return true;
+        }
+    }
+
+    /**
+     * Drops a file's state once no snapshot newer than the last write is outstanding.
+     * Called with the state's write lock held.
+     */
+    private void retireIfIdle(@Nonnull Path file, @Nonnull FileState state) {
+        synchronized (state.snapshotLock) {
+            if (state.issued <= state.written) {
+                state.retired = true;
+                states.remove(file, state);
+            }
+        }
+    }
+
+    /**
+     * Convenience for callers that serialize on a single thread.
+     */
+    public void write(@Nonnull Path file, @Nonnull String content) throws IOException {
+        write(snapshot(file, () -> content));
+    }
+
+    /**
+     * Forces every file written since the last sync to disk.
+     * Called on shutdown when the policy is ON_SHUTDOWN.
+     */
+    public void syncAll() {
+        for (Path file : unsynced) {
+            // A write after this point adds the file back
+            unsynced.remove(file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            } catch (IOException e) {
+                Log.warning("Failed to sync " + file.getFileName() + ": " + e.getMessage());
+            }
+            syncDirectory(file.getParent());
+        }
+    }
+
+    public void close() {
+        if (fsyncPolicy == FsyncPolicy.ON_SHUTDOWN) {
+            syncAll();
+        }
+    }
+
+    private static void writeAtomically(@Nonnull Path file, @Nonnull byte[] content, boolean fsync) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsync) {
+                channel.force(true);
+            }
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (fsync) {
+            syncDirectory(file.getParent());
+        }
+    }
+
+    /**
+     * Makes the rename itself durable. Not supported on every platform, so failures are ignored.
+     */
+    private static void syncDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Nonnull
+    private static Path normalize(@Nonnull Path file) {
+        return file.toAbsolutePath().normalize();
+    }
+
+    private static final class FileState {
+        final Object snapshotLock = new Object();
+        final Object writeLock = new Object();
+        long issued;
+        long written;
+        // Guarded by snapshotLock
+        boolean retired;
+
+        // Starts at the current sequence: snapshots issued before the state existed are stale
+        FileState(long floor) {
+            this.issued = floor;
+            this.written = floor;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.nhulston.essentials.storage;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.nhulston.essentials.models.PersonalBenchProtection;
+import com.nhulston.essentials.models.Region;
+import com.nhulston.essentials.models.PlayerData;
+import com.nhulston.essentials.models.Spawn;
+import com.nhulston.essentials.models.Warp;
+import com.nhulston.essentials.util.Log;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * One JSON file per player plus warps.json, spawn.json, uuids.json, personal_benches.json and regions.json.
+ * This is the original on-disk layout; every file is replaced atomically through AtomicFileWriter.
+ * With the binary format, player data, warps and spawn are written as .dat files instead and the
+ * JSON file of the same record is removed; whichever of the two exists is read.
+ * New username mappings are appended to uuids.log as tab-separated name and UUID lines and are
+ * folded into uuids.json on compaction.
+ */
+public class JsonStorageBackend implements StorageBackend {
+    public static final String NAME = "json";
+
+    private static final Type WARPS_TYPE = new TypeToken<Map<String, Warp>>(){}.getType();
+    private static final Type UUIDS_TYPE = new TypeToken<Map<String, String>>(){}.getType();
+    private static final Type BENCHES_TYPE = new TypeToken<List<PersonalBenchProtection>>(){}.getType();
+    private static final Type REGIONS_TYPE = new TypeToken<List<Region>>(){}.getType();
+
+    private final Path dataFolder;
+    private final Path playersFolder;
+    private final AtomicFileWriter fileWriter;
+    private final BinaryCodec.Format format;
+    private final Gson gson = new GsonBuilder().create();
+    private final Gson prettyGson = new GsonBuilder().setPrettyPrinting().create();
+    private final Object uuidLogLock = new Object();
+    private FileChannel uuidLog;
+    private int uuidLogSize;
+
+    public JsonStorageBackend(@Nonnull Path dataFolder, @Nonnull AtomicFileWriter fileWriter,
+                              @Nonnull BinaryCodec.Format format) {
+        this.dataFolder = dataFolder;
+        this.playersFolder = dataFolder.resolve("players");
+        this.fileWriter = fileWriter;
+        this.format = format;
+        try {
+            Files.createDirectories(playersFolder);
+        } catch (IOException e) {
+            Log.error("Failed to create players folder: " + e.getMessage());
+        }
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Nullable
+    @Override
+    public PlayerData loadPlayerData(@Nonnull UUID playerUuid) throws IOException {
+        return readRecord(playersFolder, playerUuid.toString(), PlayerData.class, BinaryCodec::decodePlayerData);
+    }
+
+    @Override
+    public void savePlayerData(@Nonnull UUID playerUuid, @Nonnull PlayerData data) throws IOException {
+        writeRecord(playersFolder, playerUuid.toString(), () -> gson.toJson(data),
+                () -> BinaryCodec.encodePlayerData(data));
+    }
+
+    @Override
+    public boolean hasPlayerData(@Nonnull UUID playerUuid) {
+        return Files.exists(playersFolder.resolve(playerUuid + ".json"))
+                || Files.exists(playersFolder.resolve(playerUuid + ".dat"));
+    }
+
+    @Nonnull
+    @Override
+    public Collection<UUID> listPlayers() throws IOException {
+        Set<UUID> players = new LinkedHashSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(playersFolder, "*.{json,dat}")) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                try {
+                    players.add(UUID.fromString(name.substring(0, name.lastIndexOf('.'))));
+                } catch (IllegalArgumentException e) {
+                    Log.warning("Skipping unexpected file in players folder: " + name);
+                }
+            }
+        }
+        return players;
+    }
+
+    @Nonnull
+    @Override
+    public Map<String, Warp> loadWarps() throws IOException {
+        Map<String, Warp> loaded = readRecord(dataFolder, "warps", WARPS_TYPE, BinaryCodec::decodeWarps);
+        return loaded != null ? loaded : new HashMap<>();
+    }
+
+    @Override
+    public void saveWarps(@Nonnull Map<String, Warp> warps) throws IOException {
+        writeRecord(dataFolder, "warps", () -> gson.toJson(warps), () -> BinaryCodec.encodeWarps(warps));
+    }
+
+    @Nullable
+    @Override
+    public Spawn loadSpawn() throws IOException {
+        return readRecord(dataFolder, "spawn", Spawn.class, BinaryCodec::decodeSpawn);
+    }
+
+    @Override
+    public void saveSpawn(@Nonnull Spawn spawn) throws IOException {
+        writeRecord(dataFolder, "spawn", () -> gson.toJson(spawn), () -> BinaryCodec.encodeSpawn(spawn));
+    }
+
+    @Nonnull
+    @Override
+    public Map<String, UUID> loadUuidIndex() throws IOException {
+        Map<String, String> loaded = read(dataFolder.resolve("uuids.json"), UUIDS_TYPE);
+        Map<String, UUID> index = new HashMap<>();
+        if (loaded != null) {
+            for (Map.Entry<String, String> entry : loaded.entrySet()) {
+                try {
+                    index.put(entry.getKey().toLowerCase(), UUID.fromString(entry.getValue()));
+                } catch (IllegalArgumentException e) {
+                    Log.warning("Invalid UUID in uuids.json for " + entry.getKey() + ": " + entry.getValue());
+                }
+            }
+        }
+
+        synchronized (uuidLogLock) {
+            uuidLogSize = 0;
+            Path logFile = dataFolder.resolve("uuids.log");
+            if (Files.exists(logFile)) {
+                try (BufferedReader reader = Files.newBufferedReader(logFile, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        int tab = line.indexOf('\t');
+                        if (tab <= 0) {
+                            continue;
+                        }
+                        try {
+                            index.put(line.substring(0, tab), UUID.fromString(line.substring(tab + 1)));
+                            uuidLogSize++;
+                        } catch (IllegalArgumentException e) {
+                            // Torn last line from a crash mid-append
+                        }
+                    }
+                }
+            }
+        }
+        return index;
+    }
+
+    @Override
+    public int appendUuidMappings(@Nonnull Map<String, UUID> mappings) throws IOException {
+        StringBuilder lines = new StringBuilder(mappings.size() * 56);
+        for (Map.Entry<String, UUID> entry : mappings.entrySet()) {
+            lines.append(entry.getKey()).append('\t').append(entry.getValue()).append('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        synchronized (uuidLogLock) {
+            FileChannel channel = openUuidLog();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fileWriter.getFsyncPolicy() == AtomicFileWriter.FsyncPolicy.ALWAYS) {
+                channel.force(false);
+            }
+            uuidLogSize += mappings.size();
+            return uuidLogSize;
+        }
+    }
+
+    @Override
+    public void compactUuidIndex(@Nonnull Map<String, UUID> index) throws IOException {
+        // Holding the log lock keeps appends out until the snapshot is written and the log cleared.
+        // Callers update the index before appending, so the snapshot covers every appended line.
+        synchronized (uuidLogLock) {
+            fileWriter.write(fileWriter.snapshot(dataFolder.resolve("uuids.json"), () -> {
+                // Convert to Map<String, String> for JSON serialization
+                Map<String, String> toSave = new LinkedHashMap<>();
+                for (Map.Entry<String, UUID> entry : index.entrySet()) {
+                    toSave.put(entry.getKey(), entry.getValue().toString());
+                }
+                return gson.toJson(toSave);
+            }));
+            openUuidLog().truncate(0);
+            uuidLogSize = 0;
+        }
+    }
+
+    @Override
+    public int getUuidLogSize() {
+        synchronized (uuidLogLock) {
+            return uuidLogSize;
+        }
+    }
+
+    @Nonnull
+    @Override
+    public List<PersonalBenchProtection> loadBenches() throws IOException {
+        List<PersonalBenchProtection> benches = read(dataFolder.resolve("personal_benches.json"), BENCHES_TYPE);
+        return benches != null ? benches : new ArrayList<>();
+    }
+
+    @Override
+    public void saveBenches(@Nonnull Collection<PersonalBenchProtection> benches) throws IOException {
+        fileWriter.write(fileWriter.snapshot(dataFolder.resolve("personal_benches.json"),
+                () -> prettyGson.toJson(new ArrayList<>(benches))));
+    }
+
+    @Nonnull
+    @Override
+    public List<Region> loadRegions() throws IOException {
+        List<Region> regions = read(dataFolder.resolve("regions.json"), REGIONS_TYPE);
+        return regions != null ? regions : new ArrayList<>();
+    }
+
+    @Override
+    public void saveRegions(@Nonnull Collection<Region> regions) throws IOException {
+        fileWriter.write(fileWriter.snapshot(dataFolder.resolve("regions.json"),
+                () -> prettyGson.toJson(new ArrayList<>(regions))));
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Other files are closed after every write; syncing is handled by AtomicFileWriter
+        synchronized (uuidLogLock) {
+            if (uuidLog != null) {
+                if (fileWriter.getFsyncPolicy() != AtomicFileWriter.FsyncPolicy.NONE) {
+                    uuidLog.force(false);
+                }
+                uuidLog.close();
+                uuidLog = null;
+            }
+        }
+    }
+
+    /**
+     * Must hold uuidLogLock.
+     */
+    @Nonnull
+    private FileChannel openUuidLog() throws IOException {
+        if (uuidLog == null) {
+            uuidLog = FileChannel.open(dataFolder.resolve("uuids.log"), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return uuidLog;
+    }
+
+    /**
+     * Reads a record stored as either baseName.json or baseName.dat, preferring the configured format.
+     */
+    @Nullable
+    private <T> T readRecord(@Nonnull Path folder, @Nonnull String baseName, @Nonnull Type type,
+                             @Nonnull BinaryCodec.Decoder<T> decoder) throws IOException {
+        Path jsonFile = folder.resolve(baseName + ".json");
+        Path binaryFile = folder.resolve(baseName + ".dat");
+        Path first = format == BinaryCodec.Format.BINARY ? binaryFile : jsonFile;
+        Path second = first == binaryFile ? jsonFile : binaryFile;
+        Path file = Files.exists(first) ? first : second;
+        if (!Files.exists(file)) {
+            return null;
+        }
+        byte[] content = Files.readAllBytes(file);
+        if (BinaryCodec.isBinary(content)) {
+            try {
+                return decoder.decode(content);
+            } catch (IOException e) {
+                throw new IOException("Corrupt " + file.getFileName() + ": " + e.getMessage(), e);
+            }
+        }
+        try {
+            return gson.fromJson(new String(content, StandardCharsets.UTF_8), type);
+        } catch (JsonParseException e) {
+            throw new IOException("Corrupt " + file.getFileName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes a record in the configured format and removes the copy in the other format,
+     * so a stale file is never read after switching formats.
+     */
+    private void writeRecord(@Nonnull Path folder, @Nonnull String baseName, @Nonnull Supplier<String> json,
+                             @Nonnull Supplier<byte[]> binary) throws IOException {
+        Path jsonFile = folder.resolve(baseName + ".json");
+        Path binaryFile = folder.resolve(baseName + ".dat");
+        if (format == BinaryCodec.Format.BINARY) {
+            fileWriter.write(fileWriter.snapshotBytes(binaryFile, binary));
+            Files.deleteIfExists(jsonFile);
+        } else {
+            fileWriter.write(fileWriter.snapshot(jsonFile, json));
+            Files.deleteIfExists(binaryFile);
+        }
+    }
+
+    @Nullable
+    private <T> T read(@Nonnull Path file, @Nonnull Type type) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return gson.fromJson(Files.readString(file), type);
+        } catch (JsonParseException e) {
+            throw new IOException("Corrupt " + file.getFileName() + ": " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.nhulston.essentials.storage;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.nhulston.essentials.models.PersonalBenchProtection;
+import com.nhulston.essentials.models.Region;
+import com.nhulston.essentials.models.PlayerData;
+import com.nhulston.essentials.models.Spawn;
+import com.nhulston.essentials.models.Warp;
+import com.nhulston.essentials.util.Log;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Stores everything in a single essentials.db file through KeyValueStore.
+ * Avoids one file per player, which keeps directory size and file handle churn flat on
+ * servers with many unique players. Values use the same JSON shapes as the JSON backend,
+ * or BinaryCodec records for player data, warps and spawn with the binary format. Reads accept
+ * either encoding. Each username mapping is its own key, so new mappings are plain appends and
+ * the store's own compaction takes care of the rest.
+ */
+public class KeyValueStorageBackend implements StorageBackend {
+    public static final String NAME = "kv";
+    public static final String FILE_NAME = "essentials.db";
+
+    private static final String PLAYER_PREFIX = "player:";
+    private static final String WARPS_KEY = "warps";
+    private static final String SPAWN_KEY = "spawn";
+    private static final String UUIDS_KEY = "uuids"; // Legacy single-value index
+    private static final String UUID_PREFIX = "uuid:";
+    private static final String BENCHES_KEY = "benches";
+    private static final String REGIONS_KEY = "regions";
+
+    private static final Type WARPS_TYPE = new TypeToken<Map<String, Warp>>(){}.getType();
+    private static final Type UUIDS_TYPE = new TypeToken<Map<String, String>>(){}.getType();
+    private static final Type BENCHES_TYPE = new TypeToken<List<PersonalBenchProtection>>(){}.getType();
+    private static final Type REGIONS_TYPE = new TypeToken<List<Region>>(){}.getType();
+
+    private final KeyValueStore store;
+    private final BinaryCodec.Format format;
+    private final Gson gson = new GsonBuilder().create();
+
+    public KeyValueStorageBackend(@Nonnull Path dataFolder, @Nonnull AtomicFileWriter fileWriter,
+                                  @Nonnull BinaryCodec.Format format) throws IOException {
+        this.store = new KeyValueStore(dataFolder.resolve(FILE_NAME), fileWriter::getFsyncPolicy);
+        this.format = format;
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Nullable
+    @Override
+    public PlayerData loadPlayerData(@Nonnull UUID playerUuid) throws IOException {
+        return readRecord(PLAYER_PREFIX + playerUuid, PlayerData.class, BinaryCodec::decodePlayerData);
+    }
+
+    @Override
+    public void savePlayerData(@Nonnull UUID playerUuid, @Nonnull PlayerData data) throws IOException {
+        writeRecord(PLAYER_PREFIX + playerUuid, data, () -> BinaryCodec.encodePlayerData(data));
+    }
+
+    @Override
+    public boolean hasPlayerData(@Nonnull UUID playerUuid) {
+        return store.contains(PLAYER_PREFIX + playerUuid);
+    }
+
+    @Nonnull
+    @Override
+    public Collection<UUID> listPlayers() {
+        List<String> keys = store.keys(PLAYER_PREFIX);
+        List<UUID> players = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            try {
+                players.add(UUID.fromString(key.substring(PLAYER_PREFIX.length())));
+            } catch (IllegalArgumentException e) {
+                Log.warning("Skipping invalid player key in " + FILE_NAME + ": " + key);
+            }
+        }
+        return players;
+    }
+
+    @Nonnull
+    @Override
+    public Map<String, Warp> loadWarps() throws IOException {
+        Map<String, Warp> loaded = readRecord(WARPS_KEY, WARPS_TYPE, BinaryCodec::decodeWarps);
+        return loaded != null ? loaded : new HashMap<>();
+    }
+
+    @Override
+    public void saveWarps(@Nonnull Map<String, Warp> warps) throws IOException {
+        writeRecord(WARPS_KEY, warps, () -> BinaryCodec.encodeWarps(warps));
+    }
+
+    @Nullable
+    @Override
+    public Spawn loadSpawn() throws IOException {
+        return readRecord(SPAWN_KEY, Spawn.class, BinaryCodec::decodeSpawn);
+    }
+
+    @Override
+    public void saveSpawn(@Nonnull Spawn spawn) throws IOException {
+        writeRecord(SPAWN_KEY, spawn, () -> BinaryCodec.encodeSpawn(spawn));
+    }
+
+    @Nonnull
+    @Override
+    public Map<String, UUID> loadUuidIndex() throws IOException {
+        Map<String, UUID> index = new HashMap<>();
+        Map<String, String> legacy = read(UUIDS_KEY, UUIDS_TYPE);
+        if (legacy != null) {
+            for (Map.Entry<String, String> entry : legacy.entrySet()) {
+                putMapping(index, entry.getKey().toLowerCase(), entry.getValue());
+            }
+        }
+        for (String key : store.keys(UUID_PREFIX)) {
+            byte[] value = store.get(key);
+            if (value != null) {
+                putMapping(index, key.substring(UUID_PREFIX.length()), new String(value, StandardCharsets.UTF_8));
+            }
+        }
+        return index;
+    }
+
+    @Override
+    public int appendUuidMappings(@Nonnull Map<String, UUID> mappings) throws IOException {
+        Map<String, byte[]> values = new LinkedHashMap<>();
+        for (Map.Entry<String, UUID> entry : mappings.entrySet()) {
+            values.put(UUID_PREFIX + entry.getKey(), entry.getValue().toString().getBytes(StandardCharsets.UTF_8));
+        }
+        store.putAll(values);
+        return 0;
+    }
+
+    @Override
+    public void compactUuidIndex(@Nonnull Map<String, UUID> index) throws IOException {
+        for (String key : store.keys(UUID_PREFIX)) {
+            if (!index.containsKey(key.substring(UUID_PREFIX.length()))) {
+                store.delete(key);
+            }
+        }
+        appendUuidMappings(index);
+        store.delete(UUIDS_KEY);
+    }
+
+    @Override
+    public int getUuidLogSize() {
+        return 0;
+    }
+
+    @Nonnull
+    @Override
+    public List<PersonalBenchProtection> loadBenches() throws IOException {
+        List<PersonalBenchProtection> benches = read(BENCHES_KEY, BENCHES_TYPE);
+        return benches != null ? benches : new ArrayList<>();
+    }
+
+    @Override
+    public void saveBenches(@Nonnull Collection<PersonalBenchProtection> benches) throws IOException {
+        store.put(BENCHES_KEY, () -> gson.toJson(new ArrayList<>(benches)).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Nonnull
+    @Override
+    public List<Region> loadRegions() throws IOException {
+        List<Region> regions = read(REGIONS_KEY, REGIONS_TYPE);
+        return regions != null ? regions : new ArrayList<>();
+    }
+
+    @Override
+    public void saveRegions(@Nonnull Collection<Region> regions) throws IOException {
+        store.put(REGIONS_KEY, () -> gson.toJson(new ArrayList<>(regions)).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void close() throws IOException {
+        store.close();
+    }
+
+    private static void putMapping(@Nonnull Map<String, UUID> index, @Nonnull String name, @Nonnull String uuid) {
+        try {
+            index.put(name, UUID.fromString(uuid));
+        } catch (IllegalArgumentException e) {
+            Log.warning("Invalid UUID in " + FILE_NAME + " for " + name + ": " + uuid);
+        }
+    }
+
+    private void writeRecord(@Nonnull String key, @Nonnull Object value, @Nonnull Supplier<byte[]> binary)
+            throws IOException {
+        if (format == BinaryCodec.Format.BINARY) {
+            store.put(key, binary);
+        } else {
+            store.put(key, () -> gson.toJson(value).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Nullable
+    private <T> T readRecord(@Nonnull String key, @Nonnull Type type, @Nonnull BinaryCodec.Decoder<T> decoder)
+            throws IOException {
+        byte[] value = store.get(key);
+        if (value == null || !BinaryCodec.isBinary(value)) {
+            return read(key, value, type);
+        }
+        try {
+            return decoder.decode(value);
+        } catch (IOException e) {
+            throw new IOException("Corrupt value for " + key + " in " + FILE_NAME + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Nullable
+    private <T> T read(@Nonnull String key, @Nonnull Type type) throws IOException {
+        return read(key, store.get(key), type);
+    }
+
+    @Nullable
+    private <T> T read(@Nonnull String key, @Nullable byte[] value, @Nonnull Type type) throws IOException {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return gson.fromJson(new String(value, StandardCharsets.UTF_8), type);
+        } catch (JsonParseException e) {
+            throw new IOException("Corrupt value for " + key + " in " + FILE_NAME + ": " + e.getMessage(), e);
+        }
+    }
+}
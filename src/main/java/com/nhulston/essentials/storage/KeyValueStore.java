@@ -0,0 +1,620 @@
+package com.nhulston.essentials.storage;
+
+import com.nhulston.essentials.util.Log;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Embedded single-file key-value store.
+ * Every put appends a checksummed record to the end of the file and an in-memory index
+ * maps each key to its latest value, so a write is one sequential append and a read is one
+ * positional read. Deletes append a tombstone. When more than half of the file is
+ * overwritten records, a background thread rewrites the live records to a new file which
+ * replaces the old one atomically; writers are only held up while the files are swapped.
+ * A record cut off at the end of the file (crash during append) is truncated on open. Any
+ * other damaged record is never truncated away: everything from it to the end of the file is
+ * copied to a .corrupt file, replay resumes at the next intact record, and the live file is
+ * compacted.
+ */
+public class KeyValueStore {
+    private static final long MAGIC = 0x45535353_4B560001L; // "ESSSKV" + format version 1
+    private static final int FILE_HEADER_SIZE = Long.BYTES;
+    private static final int RECORD_HEADER_SIZE = 3 * Integer.BYTES; // crc, key length, value length
+    private static final int TOMBSTONE = -1;
+    private static final int MAX_KEY_LENGTH = 1024;
+    private static final int MAX_VALUE_LENGTH = 64 * 1024 * 1024;
+    private static final long MIN_COMPACT_BYTES = 1024 * 1024;
+    // Passes copying new appends without the lock before the rest is copied under it
+    private static final int MAX_COMPACT_PASSES = 8;
+    private static final long MAX_LOCKED_COPY_BYTES = 256 * 1024;
+
+    private final Path file;
+    private final Supplier<AtomicFileWriter.FsyncPolicy> fsyncPolicy;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Location> index = new HashMap<>();
+    // One compaction at a time; the background one and a direct compact() call may overlap
+    private final Object compactLock = new Object();
+    private final AtomicBoolean compactionQueued = new AtomicBoolean();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Essentials-KVCompaction");
+        t.setDaemon(true);
+        return t;
+    });
+    private FileChannel channel;
+    private long end;
+    private long liveBytes;
+    private boolean needsSync;
+
+    public KeyValueStore(@Nonnull Path file, @Nonnull Supplier<AtomicFileWriter.FsyncPolicy> fsyncPolicy)
+            throws IOException {
+        this.file = file;
+        this.fsyncPolicy = fsyncPolicy;
+        open();
+    }
+
+    @Nullable
+    public byte[] get(@Nonnull String key) throws IOException {
+        lock.readLock().lock();
+        try {
+            Location location = index.get(key);
+            if (location == null) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(location.valueLength);
+            long position = location.valueOffset;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position + buffer.position());
+                if (read < 0) {
+                    throw new EOFException("Record for '" + key + "' runs past end of " + file.getFileName());
+                }
+            }
+            return buffer.array();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(@Nonnull String key) {
+        lock.readLock().lock();
+        try {
+            return index.containsKey(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns every key starting with the prefix, in no particular order.
+     */
+    @Nonnull
+    public List<String> keys(@Nonnull String prefix) {
+        lock.readLock().lock();
+        try {
+            List<String> keys = new ArrayList<>();
+            for (String key : index.keySet()) {
+                if (key.startsWith(prefix)) {
+                    keys.add(key);
+                }
+            }
+            return keys;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(@Nonnull String key, @Nonnull byte[] value) throws IOException {
+        put(key, () -> value);
+    }
+
+    /**
+     * Appends a new value for the key. The serializer runs under the store's write lock,
+     * so the record appended last always holds the newest state.
+     */
+    public void put(@Nonnull String key, @Nonnull Supplier<byte[]> serializer) throws IOException {
+        lock.writeLock().lock();
+        try {
+            append(key, serializer.get());
+            maybeScheduleCompaction();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Appends several values under one lock acquisition.
+     */
+    public void putAll(@Nonnull Map<String, byte[]> values) throws IOException {
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<String, byte[]> entry : values.entrySet()) {
+                append(entry.getKey(), entry.getValue());
+            }
+            maybeScheduleCompaction();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean delete(@Nonnull String key) throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (!index.containsKey(key)) {
+                return false;
+            }
+            append(key, null);
+            maybeScheduleCompaction();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites the file with only the live records.
+     * Copying runs without the store lock: records never change once written, and everything
+     * appended after the snapshot of the index sits past its end, so it is copied across as is.
+     * The write lock is only held for the last few appends and the swap of the files.
+     */
+    public void compact() throws IOException {
+        synchronized (compactLock) {
+            Map<String, Location> snapshot;
+            long snapshotEnd;
+            lock.readLock().lock();
+            try {
+                snapshot = new HashMap<>(index);
+                snapshotEnd = end;
+            } finally {
+                lock.readLock().unlock();
+            }
+            Path temp = file.resolveSibling(file.getFileName() + ".compact");
+            Map<String, Location> compacted = new HashMap<>();
+            long before;
+            long after;
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeFully(out, ByteBuffer.allocate(FILE_HEADER_SIZE).putLong(0, MAGIC), 0L);
+                long position = FILE_HEADER_SIZE;
+                for (Map.Entry<String, Location> entry : snapshot.entrySet()) {
+                    position = copyRecord(entry.getKey(), entry.getValue(), out, position, compacted);
+                }
+                // Records appended since the snapshot move down by this much
+                long shift = position - snapshotEnd;
+                long copied = snapshotEnd;
+                for (int pass = 0; pass < MAX_COMPACT_PASSES; pass++) {
+                    long target = currentEnd();
+                    if (target - copied <= MAX_LOCKED_COPY_BYTES) {
+                        break;
+                    }
+                    transferFully(copied, target, out, copied + shift);
+                    copied = target;
+                }
+                out.force(true);
+                lock.writeLock().lock();
+                try {
+                    transferFully(copied, end, out, copied + shift);
+                    Map<String, Location> relocated = new HashMap<>();
+                    long live = 0;
+                    for (Map.Entry<String, Location> entry : index.entrySet()) {
+                        Location location = entry.getValue();
+                        location = location.valueOffset >= snapshotEnd
+                                ? new Location(location.valueOffset + shift, location.valueLength, location.recordSize)
+                                : compacted.get(entry.getKey());
+                        relocated.put(entry.getKey(), location);
+                        live += location.recordSize;
+                    }
+                    out.force(true);
+                    replaceFile(temp);
+                    index.clear();
+                    index.putAll(relocated);
+                    before = end;
+                    end += shift;
+                    after = end;
+                    liveBytes = live;
+                    needsSync = false;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            Log.info("Compacted " + file.getFileName() + " from " + before / 1024 + "KB to " + after / 1024 + "KB.");
+        }
+    }
+
+    private long currentEnd() {
+        lock.readLock().lock();
+        try {
+            return end;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies the bytes between {@code from} and {@code to} of the live file to {@code out} at
+     * {@code position}.
+     */
+    private void transferFully(long from, long to, @Nonnull FileChannel out, long position) throws IOException {
+        out.position(position);
+        while (from < to) {
+            from += channel.transferTo(from, to - from, out);
+        }
+    }
+
+    /**
+     * Copies one record byte for byte to the end of {@code out}.
+     * @return the offset after the copied record
+     */
+    private long copyRecord(@Nonnull String key, @Nonnull Location location, @Nonnull FileChannel out,
+                            long position, @Nonnull Map<String, Location> compacted) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(location.recordSize);
+        readFully(record, location.valueOffset + location.valueLength - location.recordSize);
+        writeFully(out, record.flip(), position);
+        compacted.put(key, new Location(position + location.recordSize - location.valueLength,
+                location.valueLength, location.recordSize));
+        return position + location.recordSize;
+    }
+
+    /**
+     * Moves the compacted file over the live one. Called with the write lock held. If the move
+     * fails, the original file is reopened so the store keeps working.
+     */
+    private void replaceFile(@Nonnull Path temp) throws IOException {
+        channel.close();
+        try {
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            // Either the compacted file or, after a failed move, the untouched original
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+    }
+
+    /**
+     * Forces appended records to disk if anything was written since the last sync.
+     */
+    public void sync() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (needsSync) {
+                channel.force(false);
+                needsSync = false;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void close() throws IOException {
+        compactor.shutdown();
+        try {
+            if (!compactor.awaitTermination(30, TimeUnit.SECONDS)) {
+                Log.warning("Compaction of " + file.getFileName() + " still running at close.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.writeLock().lock();
+        try {
+            if (!channel.isOpen()) {
+                return;
+            }
+            if (fsyncPolicy.get() != AtomicFileWriter.FsyncPolicy.NONE && needsSync) {
+                channel.force(false);
+            }
+            channel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void open() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size == 0) {
+            writeFully(channel, ByteBuffer.allocate(FILE_HEADER_SIZE).putLong(0, MAGIC), 0L);
+            end = FILE_HEADER_SIZE;
+            return;
+        }
+        if (size < FILE_HEADER_SIZE || readHeader() != MAGIC) {
+            channel.close();
+            throw new IOException(file.getFileName() + " is not an Essentials data store.");
+        }
+        long position = FILE_HEADER_SIZE;
+        long skipped = 0;
+        while (true) {
+            Scan scan = replay(position, size);
+            position = scan.end;
+            if (!scan.corrupt) {
+                break;
+            }
+            if (skipped == 0) {
+                backUpTail(position, size);
+            }
+            long next = findNextRecord(position + 1, size);
+            if (next < 0) {
+                // Nothing intact after the damage; keep the bytes and append after them
+                skipped += size - position;
+                position = size;
+                break;
+            }
+            skipped += next - position;
+            position = next;
+        }
+        end = position;
+        if (end < size) {
+            Log.warning("Discarding " + (size - end) + " bytes of an incomplete record at the end of "
+                    + file.getFileName() + ".");
+            channel.truncate(end);
+        }
+        Log.info("Opened " + file.getFileName() + " with " + index.size() + " keys.");
+        if (skipped > 0) {
+            Log.error("Skipped " + skipped + " bytes of damaged records in " + file.getFileName()
+                    + "; records in them are missing. The file from the first damaged byte on was saved to "
+                    + corruptFile().getFileName() + ".");
+            // Drop the damaged bytes from the live file now that they are backed up
+            compact();
+        }
+    }
+
+    private long readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        readFully(header, 0L);
+        return header.getLong(0);
+    }
+
+    /**
+     * Rebuilds the index from the records starting at the offset, stopping at the end of the
+     * file or at the first record that is not intact.
+     */
+    @Nonnull
+    private Scan replay(long start, long size) throws IOException {
+        long position = start;
+        try (InputStream raw = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(raw, 64 * 1024))) {
+            in.skipNBytes(start);
+            CRC32 crc = new CRC32();
+            while (position < size) {
+                if (position + RECORD_HEADER_SIZE > size) {
+                    // Header cut off by a crash during append
+                    return new Scan(position, false);
+                }
+                int checksum = in.readInt();
+                int keyLength = in.readInt();
+                int valueLength = in.readInt();
+                if (!isPlausible(keyLength, valueLength)) {
+                    return new Scan(position, true);
+                }
+                int payload = keyLength + Math.max(0, valueLength);
+                if (position + RECORD_HEADER_SIZE + payload > size) {
+                    // Body cut off by a crash during append
+                    return new Scan(position, false);
+                }
+                byte[] body = new byte[payload];
+                in.readFully(body);
+                if (checksum(crc, keyLength, valueLength, body) != checksum) {
+                    return new Scan(position, true);
+                }
+                String key = new String(body, 0, keyLength, StandardCharsets.UTF_8);
+                int recordSize = RECORD_HEADER_SIZE + payload;
+                Location previous = valueLength == TOMBSTONE
+                        ? index.remove(key)
+                        : index.put(key, new Location(position + RECORD_HEADER_SIZE + keyLength, valueLength, recordSize));
+                if (previous != null) {
+                    liveBytes -= previous.recordSize;
+                }
+                if (valueLength != TOMBSTONE) {
+                    liveBytes += recordSize;
+                }
+                position += recordSize;
+            }
+        } catch (EOFException e) {
+            // The file shrank while replaying; keep what was read intact
+        }
+        return new Scan(position, false);
+    }
+
+    /**
+     * Finds the first offset at or after {@code from} where a complete record with a matching
+     * checksum starts, or -1 if there is none.
+     */
+    private long findNextRecord(long from, long size) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(64 * 1024);
+        CRC32 crc = new CRC32();
+        long windowStart = from;
+        while (windowStart + RECORD_HEADER_SIZE <= size) {
+            window.clear();
+            window.limit((int) Math.min(window.capacity(), size - windowStart));
+            readFully(window, windowStart);
+            int last = window.limit() - RECORD_HEADER_SIZE;
+            for (int i = 0; i <= last; i++) {
+                int keyLength = window.getInt(i + Integer.BYTES);
+                int valueLength = window.getInt(i + 2 * Integer.BYTES);
+                long position = windowStart + i;
+                int payload = keyLength + Math.max(0, valueLength);
+                if (!isPlausible(keyLength, valueLength) || position + RECORD_HEADER_SIZE + payload > size) {
+                    continue;
+                }
+                ByteBuffer body = ByteBuffer.allocate(payload);
+                readFully(body, position + RECORD_HEADER_SIZE);
+                if (checksum(crc, keyLength, valueLength, body.array()) == window.getInt(i)) {
+                    return position;
+                }
+            }
+            // Overlap so a header split across windows is still seen
+            windowStart += last + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Copies everything from the first damaged byte to the end of the file next to it, so
+     * records that could not be read are not lost.
+     */
+    private void backUpTail(long from, long size) throws IOException {
+        Path target = corruptFile();
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long copied = 0;
+            while (copied < size - from) {
+                copied += channel.transferTo(from + copied, size - from - copied, out);
+            }
+            out.force(true);
+        }
+        Log.error("Damaged record at offset " + from + " in " + file.getFileName() + "; saved the remaining "
+                + (size - from) + " bytes to " + target.getFileName() + ".");
+    }
+
+    @Nonnull
+    private Path corruptFile() {
+        return file.resolveSibling(file.getFileName() + ".corrupt");
+    }
+
+    private void readFully(@Nonnull ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new EOFException("Unexpected end of " + file.getFileName());
+            }
+        }
+    }
+
+    private static boolean isPlausible(int keyLength, int valueLength) {
+        return keyLength > 0 && keyLength <= MAX_KEY_LENGTH
+                && valueLength >= TOMBSTONE && valueLength <= MAX_VALUE_LENGTH;
+    }
+
+    private static int checksum(@Nonnull CRC32 crc, int keyLength, int valueLength, @Nonnull byte[] body) {
+        crc.reset();
+        crc.update(ByteBuffer.allocate(2 * Integer.BYTES).putInt(keyLength).putInt(valueLength).array());
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    private void append(@Nonnull String key, @Nullable byte[] value) throws IOException {
+        ByteBuffer record = encode(key, value);
+        int recordSize = record.remaining();
+        writeFully(channel, record, end);
+        Location previous = value == null
+                ? index.remove(key)
+                : index.put(key, new Location(end + recordSize - value.length, value.length, recordSize));
+        if (previous != null) {
+            liveBytes -= previous.recordSize;
+        }
+        if (value != null) {
+            liveBytes += recordSize;
+        }
+        end += recordSize;
+        if (fsyncPolicy.get() == AtomicFileWriter.FsyncPolicy.ALWAYS) {
+            channel.force(false);
+        } else {
+            needsSync = true;
+        }
+    }
+
+    /**
+     * Hands compaction to the background thread once more than half the file is dead records.
+     * Called with the write lock held.
+     */
+    private void maybeScheduleCompaction() {
+        long total = end - FILE_HEADER_SIZE;
+        if (total < MIN_COMPACT_BYTES || liveBytes * 2 >= total || !compactionQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            compactor.execute(() -> {
+                try {
+                    compact();
+                } catch (IOException e) {
+                    Log.error("Failed to compact " + file.getFileName() + ": " + e.getMessage());
+                } finally {
+                    compactionQueued.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Closing
+            compactionQueued.set(false);
+        }
+    }
+
+    @Nonnull
+    private static ByteBuffer encode(@Nonnull String key, @Nullable byte[] value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Key too long: " + key);
+        }
+        int valueLength = value != null ? value.length : TOMBSTONE;
+        if (valueLength > MAX_VALUE_LENGTH) {
+            throw new IllegalArgumentException("Value too large for key " + key + ": " + valueLength + " bytes");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(2 * Integer.BYTES).putInt(keyBytes.length).putInt(valueLength).array());
+        crc.update(keyBytes);
+        if (value != null) {
+            crc.update(value);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + keyBytes.length + Math.max(0, valueLength));
+        buffer.putInt((int) crc.getValue()).putInt(keyBytes.length).putInt(valueLength).put(keyBytes);
+        if (value != null) {
+            buffer.put(value);
+        }
+        return buffer.flip();
+    }
+
+    private static void writeFully(@Nonnull FileChannel target, @Nonnull ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            position += target.write(buffer, position);
+        }
+    }
+
+    private record Location(long valueOffset, int valueLength, int recordSize) {}
+
+    /**
+     * Where a replay stopped, and whether it stopped at a damaged record rather than at the end
+     * of the file or a record cut off by a crash.
+     */
+    private record Scan(long end, boolean corrupt) {}
+}
@@ -0,0 +1,250 @@
+package com.nhulston.essentials.storage;
+
+import com.nhulston.essentials.models.PlayerData;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Two-tier player data cache.
+ * Online players are pinned and never evicted. Data read for offline players (e.g. /home
+ * player:name) goes into a bounded LRU tier whose entries also expire after a period
+ * without access. Disconnecting moves a player's entry from the pinned tier into the LRU tier.
+ */
+public class PlayerDataCache {
+    /**
+     * Point-in-time view of the cache counters.
+     */
+    public record Stats(int pinnedEntries, int offlineEntries, int offlineCapacity, long pinnedHits,
+                        long offlineHits, long misses, long evictions, long expirations) {
+        public double hitRate() {
+            long hits = pinnedHits + offlineHits;
+            long total = hits + misses;
+            return total > 0 ? hits / (double) total : 0.0;
+        }
+    }
+
+    private final Map<UUID, PlayerData> pinned = new ConcurrentHashMap<>();
+    private final Set<UUID> online = ConcurrentHashMap.newKeySet();
+    private final LinkedHashMap<UUID, OfflineEntry> offline = new LinkedHashMap<>(64, 0.75f, true);
+    private int offlineCapacity;
+    private long offlineTtlNanos;
+
+    private final LongAdder pinnedHits = new LongAdder();
+    private final LongAdder offlineHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public PlayerDataCache(int offlineCapacity, long offlineTtlSeconds) {
+        setLimits(offlineCapacity, offlineTtlSeconds);
+    }
+
+    /**
+     * Updates the LRU tier bounds, evicting immediately if it is now over capacity.
+     */
+    public void setLimits(int offlineCapacity, long offlineTtlSeconds) {
+        synchronized (offline) {
+            this.offlineCapacity = Math.max(0, offlineCapacity);
+            this.offlineTtlNanos = TimeUnit.SECONDS.toNanos(Math.max(1L, offlineTtlSeconds));
+            trimOffline(System.nanoTime());
+        }
+    }
+
+    /**
+     * Looks up a player in either tier, counting a hit or miss.
+     * An offline entry for a player who is now online is promoted to the pinned tier.
+     */
+    @Nullable
+    public PlayerData get(@Nonnull UUID playerUuid) {
+        PlayerData data = pinned.get(playerUuid);
+        if (data != null) {
+            pinnedHits.increment();
+            return data;
+        }
+        data = getOffline(playerUuid);
+        if (data == null) {
+            misses.increment();
+            return null;
+        }
+        offlineHits.increment();
+        if (online.contains(playerUuid)) {
+            PlayerData promoted = promote(playerUuid);
+            return promoted != null ? promoted : data;
+        }
+        return data;
+    }
+
+    /**
+     * Looks up a player without counting a hit or miss.
+     */
+    @Nullable
+    public PlayerData peek(@Nonnull UUID playerUuid) {
+        PlayerData data = pinned.get(playerUuid);
+        return data != null ? data : getOffline(playerUuid);
+    }
+
+    /**
+     * Caches freshly loaded data unless another thread cached the player first.
+     * @return the instance now held by the cache
+     */
+    @Nonnull
+    public PlayerData put(@Nonnull UUID playerUuid, @Nonnull PlayerData data) {
+        if (online.contains(playerUuid)) {
+            PlayerData existing = pinned.putIfAbsent(playerUuid, data);
+            return existing != null ? existing : data;
+        }
+        synchronized (offline) {
+            OfflineEntry existing = offline.get(playerUuid);
+            if (existing != null) {
+                return existing.data;
+            }
+            long now = System.nanoTime();
+            offline.put(playerUuid, new OfflineEntry(data, now));
+            trimOffline(now);
+            return data;
+        }
+    }
+
+    /**
+     * Caches an offline player only if they are not cached yet and the LRU tier has room.
+     * Used for warm-up, which should never evict entries that were actually requested.
+     * @return true if the entry was added
+     */
+    public boolean offer(@Nonnull UUID playerUuid, @Nonnull PlayerData data) {
+        if (pinned.containsKey(playerUuid) || online.contains(playerUuid)) {
+            return false;
+        }
+        synchronized (offline) {
+            if (offline.size() >= offlineCapacity || offline.containsKey(playerUuid)) {
+                return false;
+            }
+            offline.put(playerUuid, new OfflineEntry(data, System.nanoTime()));
+            return true;
+        }
+    }
+
+    /**
+     * Marks a player as online so their data stays cached until {@link #unpin}.
+     */
+    public void pin(@Nonnull UUID playerUuid) {
+        online.add(playerUuid);
+        promote(playerUuid);
+    }
+
+    /**
+     * Marks a player as offline and moves their data into the LRU tier.
+     */
+    public void unpin(@Nonnull UUID playerUuid) {
+        online.remove(playerUuid);
+        PlayerData data = pinned.remove(playerUuid);
+        if (data != null) {
+            put(playerUuid, data);
+        }
+    }
+
+    /**
+     * Snapshot of every cached entry in both tiers.
+     */
+    @Nonnull
+    public List<Map.Entry<UUID, PlayerData>> entries() {
+        List<Map.Entry<UUID, PlayerData>> entries = new ArrayList<>(pinned.entrySet());
+        synchronized (offline) {
+            for (Map.Entry<UUID, OfflineEntry> entry : offline.entrySet()) {
+                entries.add(Map.entry(entry.getKey(), entry.getValue().data));
+            }
+        }
+        return entries;
+    }
+
+    public void clear() {
+        pinned.clear();
+        online.clear();
+        synchronized (offline) {
+            offline.clear();
+        }
+    }
+
+    @Nonnull
+    public Stats getStats() {
+        int offlineSize;
+        int capacity;
+        synchronized (offline) {
+            offlineSize = offline.size();
+            capacity = offlineCapacity;
+        }
+        return new Stats(pinned.size(), offlineSize, capacity, pinnedHits.sum(), offlineHits.sum(),
+                misses.sum(), evictions.sum(), expirations.sum());
+    }
+
+    @Nullable
+    private PlayerData getOffline(@Nonnull UUID playerUuid) {
+        synchronized (offline) {
+            OfflineEntry entry = offline.get(playerUuid);
+            if (entry == null) {
+                return null;
+            }
+            long now = System.nanoTime();
+            if (now - entry.lastAccess > offlineTtlNanos) {
+                offline.remove(playerUuid);
+                expirations.increment();
+                return null;
+            }
+            entry.lastAccess = now;
+            return entry.data;
+        }
+    }
+
+    @Nullable
+    private PlayerData promote(@Nonnull UUID playerUuid) {
+        OfflineEntry entry;
+        synchronized (offline) {
+            entry = offline.remove(playerUuid);
+        }
+        if (entry == null) {
+            return pinned.get(playerUuid);
+        }
+        PlayerData existing = pinned.putIfAbsent(playerUuid, entry.data);
+        return existing != null ? existing : entry.data;
+    }
+
+    /**
+     * Drops expired entries from the least recently used end, then evicts down to capacity.
+     * Must hold the offline lock.
+     */
+    private void trimOffline(long now) {
+        Iterator<OfflineEntry> iterator = offline.values().iterator();
+        while (iterator.hasNext()) {
+            OfflineEntry entry = iterator.next();
+            if (now - entry.lastAccess > offlineTtlNanos) {
+                iterator.remove();
+                expirations.increment();
+            } else if (offline.size() > offlineCapacity) {
+                iterator.remove();
+                evictions.increment();
+            } else {
+                break;
+            }
+        }
+    }
+
+    private static final class OfflineEntry {
+        final PlayerData data;
+        long lastAccess;
+
+        OfflineEntry(@Nonnull PlayerData data, long lastAccess) {
+            this.data = data;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
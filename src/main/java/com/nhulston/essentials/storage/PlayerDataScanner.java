@@ -0,0 +1,74 @@
+package com.nhulston.essentials.storage;
+
+import com.nhulston.essentials.models.PlayerData;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Reads every stored player through a backend with bounded parallelism.
+ * Each record is handed to a consumer as soon as it is read and is not kept afterwards, so memory
+ * stays proportional to the parallelism rather than the number of players. Reads run on virtual
+ * threads; a semaphore caps how many are in flight so a large players folder does not flood the disk.
+ */
+public final class PlayerDataScanner {
+    /**
+     * A player whose stored record could not be read.
+     */
+    public record Failure(@Nonnull UUID playerUuid, @Nonnull String reason) {}
+
+    /**
+     * Scan totals. Failures are listed in no particular order.
+     */
+    public record Result(int scanned, int loaded, @Nonnull List<Failure> failures, long elapsedMillis) {}
+
+    private PlayerDataScanner() {}
+
+    /**
+     * Reads every player listed by the backend.
+     * The consumer is called concurrently from up to {@code parallelism} threads and must be thread-safe.
+     * An exception thrown by the consumer is recorded as a failure for that player.
+     * @throws IOException if the players cannot be listed
+     */
+    @Nonnull
+    public static Result scan(@Nonnull StorageBackend backend, int parallelism,
+                              @Nonnull BiConsumer<UUID, PlayerData> consumer) throws IOException {
+        long start = System.currentTimeMillis();
+        Collection<UUID> players = backend.listPlayers();
+        Semaphore permits = new Semaphore(Math.max(1, parallelism));
+        AtomicInteger loaded = new AtomicInteger();
+        List<Failure> failures = Collections.synchronizedList(new ArrayList<>());
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (UUID playerUuid : players) {
+                // Acquiring before submitting keeps at most `parallelism` tasks alive at once
+                permits.acquireUninterruptibly();
+                executor.execute(() -> {
+                    try {
+                        PlayerData data = backend.loadPlayerData(playerUuid);
+                        if (data != null) {
+                            consumer.accept(playerUuid, data);
+                            loaded.incrementAndGet();
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        failures.add(new Failure(playerUuid, String.valueOf(e.getMessage())));
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+
+        return new Result(players.size(), loaded.get(), List.copyOf(failures), System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,216 @@
+package com.nhulston.essentials.storage;
+
+import com.nhulston.essentials.models.PlayerData;
+import com.nhulston.essentials.util.Log;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind queue for player data.
+ * A save marks the player dirty; repeated saves within the flush window are coalesced
+ * and a single background thread writes the latest state once the window has passed.
+ * When the queue is full the caller writes inline, which throttles runaway producers.
+ */
+public class PlayerDataWriter {
+    /**
+     * Destination for coalesced writes.
+     */
+    @FunctionalInterface
+    public interface Sink {
+        void write(@Nonnull UUID playerUuid, @Nonnull PlayerData data) throws IOException;
+    }
+
+    /**
+     * Point-in-time view of the writer counters.
+     */
+    public record Stats(long savesRequested, long writesPerformed, long inlineWrites, long failedWrites,
+                        int queueDepth, double averageFlushMillis, double maxFlushMillis) {
+        public long coalescedSaves() {
+            return Math.max(0, savesRequested - writesPerformed - failedWrites - queueDepth);
+        }
+    }
+
+    private final Sink sink;
+    private final long flushWindowNanos;
+    private final ConcurrentHashMap<UUID, PendingWrite> pending = new ConcurrentHashMap<>();
+    private final LinkedBlockingQueue<PendingWrite> queue;
+    private final Object writeLock = new Object();
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    private final Thread flusher;
+
+    private final LongAdder savesRequested = new LongAdder();
+    private final LongAdder writesPerformed = new LongAdder();
+    private final LongAdder inlineWrites = new LongAdder();
+    private final LongAdder failedWrites = new LongAdder();
+    private final LongAdder totalFlushNanos = new LongAdder();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    public PlayerDataWriter(@Nonnull Sink sink, long flushWindowMillis, int maxPendingWrites) {
+        this.sink = sink;
+        this.flushWindowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, flushWindowMillis));
+        this.queue = new LinkedBlockingQueue<>(Math.max(1, maxPendingWrites));
+        this.flusher = new Thread(this::run, "Essentials-PlayerDataWriter");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Marks a player's data as dirty. The write happens on the flusher thread
+     * after the flush window, unless the queue is full or the writer is closed.
+     */
+    public void markDirty(@Nonnull UUID playerUuid, @Nonnull PlayerData data) {
+        savesRequested.increment();
+        if (!running.get()) {
+            writeInline(playerUuid, data);
+            return;
+        }
+
+        PendingWrite created = new PendingWrite(playerUuid, data, System.nanoTime() + flushWindowNanos);
+        PendingWrite existing = pending.putIfAbsent(playerUuid, created);
+        if (existing != null) {
+            // Already queued - the flusher will pick up the latest state
+            existing.data = data;
+            return;
+        }
+
+        boolean wasEmpty = queue.isEmpty();
+        if (queue.offer(created)) {
+            if (wasEmpty) {
+                LockSupport.unpark(flusher);
+            }
+            return;
+        }
+
+        // Queue is full: apply backpressure by writing on the caller thread
+        if (pending.remove(playerUuid, created)) {
+            writeInline(playerUuid, data);
+        }
+    }
+
+    /**
+     * Returns the data waiting to be written for a player, if any.
+     * Used so a reload never reads a file that is about to be overwritten.
+     */
+    @Nullable
+    public PlayerData getPending(@Nonnull UUID playerUuid) {
+        PendingWrite write = pending.get(playerUuid);
+        return write != null ? write.data : null;
+    }
+
+    public boolean isPending(@Nonnull UUID playerUuid) {
+        return pending.containsKey(playerUuid);
+    }
+
+    /**
+     * Writes every queued entry immediately on the calling thread.
+     */
+    public void flushAll() {
+        synchronized (writeLock) {
+            PendingWrite write;
+            while ((write = queue.poll()) != null) {
+                flush(write);
+            }
+        }
+    }
+
+    /**
+     * Writes a player immediately on the calling thread, serialized with the flusher
+     * so two writes of the same player never interleave.
+     */
+    public void writeNow(@Nonnull UUID playerUuid, @Nonnull PlayerData data) {
+        savesRequested.increment();
+        synchronized (writeLock) {
+            flush(new PendingWrite(playerUuid, data, 0L));
+        }
+    }
+
+    /**
+     * Stops the flusher thread and writes anything still queued.
+     */
+    public void close() {
+        if (running.compareAndSet(true, false)) {
+            LockSupport.unpark(flusher);
+            try {
+                flusher.join(5000L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushAll();
+    }
+
+    @Nonnull
+    public Stats getStats() {
+        long writes = writesPerformed.sum();
+        long timed = writes + failedWrites.sum();
+        double average = timed > 0 ? totalFlushNanos.sum() / (double) timed / 1_000_000.0 : 0.0;
+        return new Stats(savesRequested.sum(), writes, inlineWrites.sum(), failedWrites.sum(),
+                queue.size(), average, maxFlushNanos.get() / 1_000_000.0);
+    }
+
+    private void run() {
+        while (running.get()) {
+            PendingWrite head = queue.peek();
+            if (head == null) {
+                LockSupport.parkNanos(this, Math.max(flushWindowNanos, TimeUnit.MILLISECONDS.toNanos(100L)));
+                continue;
+            }
+            long wait = head.deadline - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+            synchronized (writeLock) {
+                PendingWrite write = queue.poll();
+                if (write != null) {
+                    flush(write);
+                }
+            }
+        }
+    }
+
+    private void writeInline(@Nonnull UUID playerUuid, @Nonnull PlayerData data) {
+        inlineWrites.increment();
+        synchronized (writeLock) {
+            flush(new PendingWrite(playerUuid, data, 0L));
+        }
+    }
+
+    private void flush(@Nonnull PendingWrite write) {
+        pending.remove(write.playerUuid, write);
+        long start = System.nanoTime();
+        try {
+            sink.write(write.playerUuid, write.data);
+            writesPerformed.increment();
+        } catch (IOException | RuntimeException e) {
+            failedWrites.increment();
+            Log.error("Failed to save player data for " + write.playerUuid + ": " + e.getMessage());
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            totalFlushNanos.add(elapsed);
+            maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+
+    private static final class PendingWrite {
+        final UUID playerUuid;
+        final long deadline;
+        volatile PlayerData data;
+
+        PendingWrite(@Nonnull UUID playerUuid, @Nonnull PlayerData data, long deadline) {
+            this.playerUuid = playerUuid;
+            this.data = data;
+            this.deadline = deadline;
+        }
+    }
+}
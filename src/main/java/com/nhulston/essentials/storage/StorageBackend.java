@@ -0,0 +1,88 @@
+package com.nhulston.essentials.storage;
+
+import com.nhulston.essentials.models.PersonalBenchProtection;
+import com.nhulston.essentials.models.Region;
+import com.nhulston.essentials.models.PlayerData;
+import com.nhulston.essentials.models.Spawn;
+import com.nhulston.essentials.models.Warp;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Persistence layer behind StorageManager.
+ * Implementations must be safe to call from multiple threads. Save methods may be handed
+ * live, concurrently modified collections and are expected to serialize them under their
+ * own write ordering so a later save never loses to an earlier one.
+ * Unreadable or corrupt data is reported as an IOException.
+ */
+public interface StorageBackend {
+    /**
+     * Short identifier used in config.toml and the migrate command.
+     */
+    @Nonnull
+    String getName();
+
+    /**
+     * @return the stored data, or null if the player has never been saved
+     */
+    @Nullable
+    PlayerData loadPlayerData(@Nonnull UUID playerUuid) throws IOException;
+
+    void savePlayerData(@Nonnull UUID playerUuid, @Nonnull PlayerData data) throws IOException;
+
+    boolean hasPlayerData(@Nonnull UUID playerUuid);
+
+    @Nonnull
+    Collection<UUID> listPlayers() throws IOException;
+
+    @Nonnull
+    Map<String, Warp> loadWarps() throws IOException;
+
+    void saveWarps(@Nonnull Map<String, Warp> warps) throws IOException;
+
+    @Nullable
+    Spawn loadSpawn() throws IOException;
+
+    void saveSpawn(@Nonnull Spawn spawn) throws IOException;
+
+    /**
+     * Loads the last compacted index and replays every mapping appended after it.
+     * @return lowercase username to UUID mappings
+     */
+    @Nonnull
+    Map<String, UUID> loadUuidIndex() throws IOException;
+
+    /**
+     * Appends new or changed mappings without rewriting the whole index.
+     * @return number of appended mappings not yet folded into a compacted index
+     */
+    int appendUuidMappings(@Nonnull Map<String, UUID> mappings) throws IOException;
+
+    /**
+     * Replaces the stored index with the given full index and discards appended mappings.
+     */
+    void compactUuidIndex(@Nonnull Map<String, UUID> index) throws IOException;
+
+    /**
+     * @return number of appended mappings not yet folded into a compacted index
+     */
+    int getUuidLogSize();
+
+    @Nonnull
+    List<PersonalBenchProtection> loadBenches() throws IOException;
+
+    void saveBenches(@Nonnull Collection<PersonalBenchProtection> benches) throws IOException;
+
+    @Nonnull
+    List<Region> loadRegions() throws IOException;
+
+    void saveRegions(@Nonnull Collection<Region> regions) throws IOException;
+
+    void close() throws IOException;
+}
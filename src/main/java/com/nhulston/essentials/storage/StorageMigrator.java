@@ -0,0 +1,67 @@
+package com.nhulston.essentials.storage;
+
+import com.nhulston.essentials.models.PersonalBenchProtection;
+import com.nhulston.essentials.models.Region;
+import com.nhulston.essentials.models.PlayerData;
+import com.nhulston.essentials.models.Spawn;
+import com.nhulston.essentials.models.Warp;
+import com.nhulston.essentials.util.Log;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Copies every stored record from one backend to another.
+ * The source is only read; existing records in the target are overwritten.
+ */
+public final class StorageMigrator {
+    /**
+     * What was copied. Players that could not be read are counted as failed and skipped.
+     */
+    public record Result(int players, int failedPlayers, int warps, boolean spawn, int uuidMappings,
+                         int benches, int regions, long elapsedMillis) {}
+
+    private StorageMigrator() {}
+
+    @Nonnull
+    public static Result migrate(@Nonnull StorageBackend source, @Nonnull StorageBackend target) throws IOException {
+        long start = System.currentTimeMillis();
+        int players = 0;
+        int failedPlayers = 0;
+        for (UUID playerUuid : source.listPlayers()) {
+            try {
+                PlayerData data = source.loadPlayerData(playerUuid);
+                if (data != null) {
+                    target.savePlayerData(playerUuid, data);
+                    players++;
+                }
+            } catch (IOException e) {
+                failedPlayers++;
+                Log.warning("Skipping player " + playerUuid + " during migration: " + e.getMessage());
+            }
+        }
+
+        Map<String, Warp> warps = source.loadWarps();
+        target.saveWarps(warps);
+
+        Spawn spawn = source.loadSpawn();
+        if (spawn != null) {
+            target.saveSpawn(spawn);
+        }
+
+        Map<String, UUID> uuidIndex = source.loadUuidIndex();
+        target.compactUuidIndex(uuidIndex);
+
+        List<PersonalBenchProtection> benches = source.loadBenches();
+        target.saveBenches(benches);
+
+        List<Region> regions = source.loadRegions();
+        target.saveRegions(regions);
+
+        return new Result(players, failedPlayers, warps.size(), spawn != null, uuidIndex.size(),
+                benches.size(), regions.size(), System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,337 @@
+package com.nhulston.essentials.storage;
+
+import com.nhulston.essentials.util.Log;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Compact lowercase-username to UUID index.
+ * Instead of a String key, a boxed UUID and a map node per player, each entry is a slot in
+ * parallel primitive arrays: the two UUID longs, a cached hash and an offset into a shared
+ * byte arena holding the length-prefixed UTF-8 name. Lookups use an open-addressing table
+ * with linear probing over entry ids. Entries are never removed (the index only ever grows,
+ * like the file it mirrors), so an entry id stays valid for the life of the index.
+ */
+public class UsernameIndex {
+    private static final int MAX_NAME_BYTES = 255;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private int[] table;        // entry id + 1, 0 = empty
+    private long[] mostSigBits;
+    private long[] leastSigBits;
+    private int[] hashes;
+    private int[] nameOffsets;
+    private byte[] arena;
+    private int arenaSize;
+    private int size;
+
+    public UsernameIndex() {
+        this(1024);
+    }
+
+    public UsernameIndex(int expectedSize) {
+        int capacity = Math.max(16, expectedSize);
+        this.table = new int[tableSizeFor(capacity)];
+        this.mostSigBits = new long[capacity];
+        this.leastSigBits = new long[capacity];
+        this.hashes = new int[capacity];
+        this.nameOffsets = new int[capacity];
+        this.arena = new byte[capacity * 12];
+    }
+
+    /**
+     * True if the name is short enough to be indexed.
+     */
+    public static boolean accepts(@Nonnull String name) {
+        return encode(name) != null;
+    }
+
+    /**
+     * Adds or updates a mapping. The name must already be lowercase. Names longer than
+     * {@link #MAX_NAME_BYTES} UTF-8 bytes are skipped with a warning.
+     * @return the previous UUID for the name, or null if it was not indexed
+     */
+    @Nullable
+    public UUID put(@Nonnull String name, @Nonnull UUID uuid) {
+        byte[] nameBytes = encode(name);
+        if (nameBytes == null) {
+            Log.warning("Not indexing username longer than " + MAX_NAME_BYTES + " bytes for " + uuid + ".");
+            return null;
+        }
+        int hash = hash(nameBytes);
+        lock.writeLock().lock();
+        try {
+            int slot = findSlot(nameBytes, hash);
+            int id = table[slot] - 1;
+            if (id >= 0) {
+                UUID previous = new UUID(mostSigBits[id], leastSigBits[id]);
+                mostSigBits[id] = uuid.getMostSignificantBits();
+                leastSigBits[id] = uuid.getLeastSignificantBits();
+                return previous;
+            }
+            id = append(nameBytes, hash, uuid);
+            table[slot] = id + 1;
+            if (size > table.length * LOAD_FACTOR) {
+                rehash(table.length * 2);
+            }
+            return null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the UUID for the lowercase name, or null if it is not indexed. Names too long to
+     * index are never found.
+     */
+    @Nullable
+    public UUID get(@Nonnull String name) {
+        byte[] nameBytes = encode(name);
+        if (nameBytes == null) {
+            return null;
+        }
+        int hash = hash(nameBytes);
+        lock.readLock().lock();
+        try {
+            int id = table[findSlot(nameBytes, hash)] - 1;
+            return id >= 0 ? new UUID(mostSigBits[id], leastSigBits[id]) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(@Nonnull String name) {
+        return get(name) != null;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} indexed names starting with the lowercase prefix, shortest first.
+     * This is a linear scan over the arena, meant for command suggestions rather than hot paths.
+     */
+    @Nonnull
+    public List<String> findByPrefix(@Nonnull String prefix, int limit) {
+        byte[] prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+        List<String> matches = new ArrayList<>();
+        if (limit <= 0) {
+            return matches;
+        }
+        lock.readLock().lock();
+        try {
+            for (int id = 0; id < size; id++) {
+                int offset = nameOffsets[id];
+                int length = arena[offset] & 0xFF;
+                if (length >= prefixBytes.length
+                        && Arrays.equals(arena, offset + 1, offset + 1 + prefixBytes.length,
+                        prefixBytes, 0, prefixBytes.length)) {
+                    matches.add(new String(arena, offset + 1, length, StandardCharsets.UTF_8));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        matches.sort((a, b) -> a.length() != b.length() ? Integer.compare(a.length(), b.length()) : a.compareTo(b));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    /**
+     * Visits every mapping in insertion order. Entries added during the walk may or may not be seen.
+     */
+    public void forEach(@Nonnull BiConsumer<String, UUID> consumer) {
+        int count = size();
+        for (int id = 0; id < count; id++) {
+            Map.Entry<String, UUID> entry = entry(id);
+            consumer.accept(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Read-only live view, used to hand the index to storage backends without copying it.
+     * Iteration reads entries one at a time, so it never holds the lock for the whole walk.
+     */
+    @Nonnull
+    public Map<String, UUID> asMap() {
+        return new AbstractMap<>() {
+            @Nonnull
+            @Override
+            public Set<Entry<String, UUID>> entrySet() {
+                return new AbstractSet<>() {
+                    @Nonnull
+                    @Override
+                    public Iterator<Entry<String, UUID>> iterator() {
+                        int count = UsernameIndex.this.size();
+                        return new Iterator<>() {
+                            private int next;
+
+                            @Override
+                            public boolean hasNext() {
+                                return next < count;
+                            }
+
+                            @Override
+                            public Entry<String, UUID> next() {
+                                if (next >= count) {
+                                    throw new NoSuchElementException();
+                                }
+                                return entry(next++);
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return UsernameIndex.this.size();
+                    }
+                };
+            }
+
+            @Override
+            public UUID get(Object key) {
+                return key instanceof String name ? UsernameIndex.this.get(name) : null;
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return get(key) != null;
+            }
+
+            @Override
+            public int size() {
+                return UsernameIndex.this.size();
+            }
+        };
+    }
+
+    /**
+     * Approximate heap bytes held by the index arrays.
+     */
+    public long estimateMemoryBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) table.length * Integer.BYTES
+                    + (long) mostSigBits.length * (2L * Long.BYTES + 2L * Integer.BYTES)
+                    + arena.length;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Nonnull
+    private Map.Entry<String, UUID> entry(int id) {
+        lock.readLock().lock();
+        try {
+            int offset = nameOffsets[id];
+            int length = arena[offset] & 0xFF;
+            String name = new String(arena, offset + 1, length, StandardCharsets.UTF_8);
+            return Map.entry(name, new UUID(mostSigBits[id], leastSigBits[id]));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the slot holding the name, or the empty slot where it would be inserted.
+     */
+    private int findSlot(@Nonnull byte[] nameBytes, int hash) {
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (true) {
+            int id = table[slot] - 1;
+            if (id < 0 || (hashes[id] == hash && nameEquals(id, nameBytes))) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private boolean nameEquals(int id, @Nonnull byte[] nameBytes) {
+        int offset = nameOffsets[id];
+        int length = arena[offset] & 0xFF;
+        return length == nameBytes.length
+                && Arrays.equals(arena, offset + 1, offset + 1 + length, nameBytes, 0, length);
+    }
+
+    private int append(@Nonnull byte[] nameBytes, int hash, @Nonnull UUID uuid) {
+        if (size == mostSigBits.length) {
+            int capacity = size + (size >> 1);
+            mostSigBits = Arrays.copyOf(mostSigBits, capacity);
+            leastSigBits = Arrays.copyOf(leastSigBits, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            nameOffsets = Arrays.copyOf(nameOffsets, capacity);
+        }
+        int needed = arenaSize + 1 + nameBytes.length;
+        if (needed > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(needed, arena.length + (arena.length >> 1)));
+        }
+        int id = size++;
+        mostSigBits[id] = uuid.getMostSignificantBits();
+        leastSigBits[id] = uuid.getLeastSignificantBits();
+        hashes[id] = hash;
+        nameOffsets[id] = arenaSize;
+        arena[arenaSize] = (byte) nameBytes.length;
+        System.arraycopy(nameBytes, 0, arena, arenaSize + 1, nameBytes.length);
+        arenaSize = needed;
+        return id;
+    }
+
+    private void rehash(int newLength) {
+        int[] newTable = new int[newLength];
+        int mask = newLength - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (newTable[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            newTable[slot] = id + 1;
+        }
+        table = newTable;
+    }
+
+    /**
+     * UTF-8 bytes of the name, or null if they do not fit the one-byte length prefix.
+     */
+    @Nullable
+    private static byte[] encode(@Nonnull String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        return bytes.length <= MAX_NAME_BYTES ? bytes : null;
+    }
+
+    /**
+     * FNV-1a with a final mix so sequential names spread across the table.
+     */
+    private static int hash(@Nonnull byte[] bytes) {
+        int h = 0x811C9DC5;
+        for (byte b : bytes) {
+            h = (h ^ (b & 0xFF)) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int entries) {
+        int needed = (int) Math.ceil(entries / LOAD_FACTOR);
+        return Integer.highestOneBit(Math.max(16, needed - 1)) << 1;
+    }
+}
@@ -0,0 +1,55 @@
+package com.nhulston.essentials.systems;
+
+import com.hypixel.hytale.component.Component;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.UUID;
+
+/**
+ * Marks a player entity that is waiting out a teleport delay.
+ * The warmup system queries only this component, so its cost follows the number of pending
+ * teleports rather than the number of entities. The pending teleport itself stays in
+ * TeleportManager, which can cancel it from any thread; the component is removed on the next
+ * tick once the teleport is no longer pending. Not persisted.
+ */
+public class PendingTeleportComponent implements Component<EntityStore> {
+    private static ComponentType<EntityStore, PendingTeleportComponent> componentType;
+
+    private UUID playerUuid;
+
+    public PendingTeleportComponent() {
+    }
+
+    public PendingTeleportComponent(@Nonnull UUID playerUuid) {
+        this.playerUuid = playerUuid;
+    }
+
+    @Nonnull
+    public static ComponentType<EntityStore, PendingTeleportComponent> getComponentType() {
+        if (componentType == null) {
+            throw new IllegalStateException("PendingTeleportComponent has not been registered");
+        }
+        return componentType;
+    }
+
+    /**
+     * Called once while registering the teleport warmup system.
+     */
+    public static void setComponentType(@Nonnull ComponentType<EntityStore, PendingTeleportComponent> type) {
+        componentType = type;
+    }
+
+    @Nullable
+    public UUID getPlayerUuid() {
+        return playerUuid;
+    }
+
+    @Nonnull
+    @Override
+    public PendingTeleportComponent clone() {
+        return new PendingTeleportComponent(playerUuid);
+    }
+}
@@ -0,0 +1,99 @@
+package com.nhulston.essentials.systems;
+
+import com.hypixel.hytale.component.Component;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.nhulston.essentials.models.Region;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Remembers which protected areas a player was in at the block they were last evaluated at.
+ * The region tracker compares the player's block position against it every tick and only looks
+ * the areas up again once the block, world or protections have changed. Not persisted; a copy
+ * carries over to the player's new entity when they change world.
+ */
+public class RegionTrackerComponent implements Component<EntityStore> {
+    private static ComponentType<EntityStore, RegionTrackerComponent> componentType;
+
+    private String worldName;
+    private int blockX;
+    private int blockY;
+    private int blockZ;
+    private int generation;
+    private boolean inSpawn;
+    private List<Region> regions = List.of();
+
+    public RegionTrackerComponent() {
+    }
+
+    @Nonnull
+    public static ComponentType<EntityStore, RegionTrackerComponent> getComponentType() {
+        if (componentType == null) {
+            throw new IllegalStateException("RegionTrackerComponent has not been registered");
+        }
+        return componentType;
+    }
+
+    /**
+     * Called once while registering the region tracker system.
+     */
+    public static void setComponentType(@Nonnull ComponentType<EntityStore, RegionTrackerComponent> type) {
+        componentType = type;
+    }
+
+    /**
+     * True if the stored areas are still valid for this block and protection generation.
+     */
+    public boolean isAt(@Nonnull String worldName, int x, int y, int z, int generation) {
+        return x == blockX && z == blockZ && y == blockY && generation == this.generation
+                && worldName.equals(this.worldName);
+    }
+
+    /**
+     * Records where the areas were evaluated and what they were.
+     */
+    public void update(@Nonnull String worldName, int x, int y, int z, int generation,
+                       boolean inSpawn, @Nonnull List<Region> regions) {
+        this.worldName = worldName;
+        this.blockX = x;
+        this.blockY = y;
+        this.blockZ = z;
+        this.generation = generation;
+        this.inSpawn = inSpawn;
+        this.regions = regions;
+    }
+
+    /**
+     * Null until the first evaluation.
+     */
+    @Nullable
+    public String getWorldName() {
+        return worldName;
+    }
+
+    public boolean isInSpawn() {
+        return inSpawn;
+    }
+
+    @Nonnull
+    public List<Region> getRegions() {
+        return regions;
+    }
+
+    @Nonnull
+    @Override
+    public RegionTrackerComponent clone() {
+        RegionTrackerComponent copy = new RegionTrackerComponent();
+        copy.worldName = worldName;
+        copy.blockX = blockX;
+        copy.blockY = blockY;
+        copy.blockZ = blockZ;
+        copy.generation = generation;
+        copy.inSpawn = inSpawn;
+        copy.regions = regions;
+        return copy;
+    }
+}
@@ -0,0 +1,289 @@
+package com.nhulston.essentials.util;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.protocol.BlockMaterial;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches which cells of a block column are solid or fluid, so the safe-landing searches for
+ * /top, /home, /warp and /spawn read each column from the chunk once instead of on every
+ * teleport. Profiles are grouped per world and chunk; placing or breaking a block drops the
+ * whole chunk's profiles. Changes that fire no block event (fluids spreading, other plugins)
+ * are covered by a short time-to-live. The cache is bounded by the number of columns; when it
+ * is full, whole chunks are dropped, oldest first among a few candidates.
+ * <p>
+ * RTP does not use the cache: its candidates are random columns that are almost never checked
+ * twice, so {@link #findDryLanding} reads only the rows it needs straight from the chunk.
+ */
+public class ColumnCache {
+    /**
+     * Point-in-time view of the cache counters.
+     */
+    public record Stats(int chunks, int columns, long hits, long misses, long invalidations) {}
+
+    // Covers every Y the searches look at (TopCommand scans down from 256)
+    public static final int HEIGHT = 320;
+    private static final int WORDS = HEIGHT / Long.SIZE;
+
+    private final int maxColumns;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<String, ConcurrentHashMap<Long, ChunkColumns>> worlds = new ConcurrentHashMap<>();
+    private final AtomicInteger chunkCount = new AtomicInteger();
+    private final AtomicInteger columnCount = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public ColumnCache(int maxColumns, long ttlSeconds) {
+        this.maxColumns = Math.max(1, maxColumns);
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(1L, ttlSeconds));
+    }
+
+    /**
+     * Gets the profile of the column at block x/z, reading it from the chunk on a miss.
+     */
+    @Nonnull
+    public ColumnProfile get(@Nonnull String worldName, @Nonnull WorldChunk chunk, int x, int z) {
+        long chunkIndex = ChunkUtil.indexChunkFromBlock(x, z);
+        ConcurrentHashMap<Long, ChunkColumns> chunks = worlds.computeIfAbsent(worldName, _ -> new ConcurrentHashMap<>());
+        long now = System.nanoTime();
+        ChunkColumns columns = chunks.get(chunkIndex);
+        if (columns == null || now - columns.createdAt > ttlNanos) {
+            if (columns != null) {
+                remove(chunks, chunkIndex, columns);
+            }
+            ChunkColumns fresh = new ChunkColumns(now);
+            ChunkColumns existing = chunks.putIfAbsent(chunkIndex, fresh);
+            if (existing == null) {
+                chunkCount.incrementAndGet();
+                columns = fresh;
+            } else {
+                columns = existing;
+            }
+        }
+        long columnKey = ((long) x << 32) | (z & 0xFFFFFFFFL);
+        ColumnProfile profile = columns.profiles.get(columnKey);
+        if (profile != null) {
+            hits.increment();
+            return profile;
+        }
+        misses.increment();
+        profile = ColumnProfile.read(chunk, x, z);
+        // If the chunk was invalidated meanwhile the profile is not kept
+        if (columns.add(columnKey, profile) && columnCount.incrementAndGet() > maxColumns) {
+            while (columnCount.get() > maxColumns && evictOne(worldName, chunkIndex)) {
+                // Each eviction frees a whole chunk, so this rarely loops
+            }
+        }
+        return profile;
+    }
+
+    /**
+     * Scans down from {@code startY} for dry ground with two free blocks above it, reading the
+     * chunk directly. Returns the Y to stand at, or null if the column is in fluid or has no such
+     * spot. Only rows from the landing spot up to two above {@code startY} are read.
+     */
+    @SuppressWarnings("removal")
+    @Nullable
+    public static Integer findDryLanding(@Nonnull WorldChunk chunk, int x, int z, int startY) {
+        for (int y = startY; y >= 0; y--) {
+            if (chunk.getFluidId(x, y, z) > 0) {
+                return null;
+            }
+            if (isSolid(chunk, x, y, z)) {
+                int standY = y + 1;
+                if (chunk.getFluidId(x, standY, z) > 0 || chunk.getFluidId(x, standY + 1, z) > 0) {
+                    return null;
+                }
+                if (isSolid(chunk, x, standY + 1, z)) {
+                    continue;
+                }
+                return standY;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Drops cached columns of the chunk containing block x/z. Call when a block there changes.
+     */
+    public void invalidate(@Nonnull String worldName, int x, int z) {
+        ConcurrentHashMap<Long, ChunkColumns> chunks = worlds.get(worldName);
+        if (chunks == null) {
+            return;
+        }
+        long chunkIndex = ChunkUtil.indexChunkFromBlock(x, z);
+        ChunkColumns columns = chunks.get(chunkIndex);
+        if (columns != null && remove(chunks, chunkIndex, columns)) {
+            invalidations.increment();
+        }
+    }
+
+    /**
+     * Drops every cached column of a world, e.g. when it is unloaded.
+     */
+    public void invalidateWorld(@Nonnull String worldName) {
+        ConcurrentHashMap<Long, ChunkColumns> chunks = worlds.remove(worldName);
+        if (chunks == null) {
+            return;
+        }
+        for (Map.Entry<Long, ChunkColumns> entry : chunks.entrySet()) {
+            if (remove(chunks, entry.getKey(), entry.getValue())) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    @Nonnull
+    public Stats getStats() {
+        return new Stats(chunkCount.get(), columnCount.get(), hits.sum(), misses.sum(), invalidations.sum());
+    }
+
+    /**
+     * Removes the chunk's entry if it is still the given one, and uncounts its columns.
+     */
+    private boolean remove(@Nonnull ConcurrentHashMap<Long, ChunkColumns> chunks, long chunkIndex,
+                           @Nonnull ChunkColumns columns) {
+        if (!chunks.remove(chunkIndex, columns)) {
+            return false;
+        }
+        chunkCount.decrementAndGet();
+        columnCount.addAndGet(-columns.detach());
+        return true;
+    }
+
+    /**
+     * Over capacity: drops the oldest chunk among a few candidates, never the one just added to.
+     * @return false if there was nothing else to drop
+     */
+    private boolean evictOne(@Nonnull String worldName, long keepChunk) {
+        for (Map.Entry<String, ConcurrentHashMap<Long, ChunkColumns>> world : worlds.entrySet()) {
+            Iterator<Map.Entry<Long, ChunkColumns>> iterator = world.getValue().entrySet().iterator();
+            Map.Entry<Long, ChunkColumns> oldest = null;
+            for (int i = 0; i < 8 && iterator.hasNext(); i++) {
+                Map.Entry<Long, ChunkColumns> candidate = iterator.next();
+                if (world.getKey().equals(worldName) && candidate.getKey() == keepChunk) {
+                    continue;
+                }
+                if (oldest == null || candidate.getValue().createdAt < oldest.getValue().createdAt) {
+                    oldest = candidate;
+                }
+            }
+            if (oldest != null && remove(world.getValue(), oldest.getKey(), oldest.getValue())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSolid(@Nonnull WorldChunk chunk, int x, int y, int z) {
+        BlockType blockType = chunk.getBlockType(x, y, z);
+        return blockType != null && blockType.getMaterial() == BlockMaterial.Solid;
+    }
+
+    private static final class ChunkColumns {
+        final long createdAt;
+        final ConcurrentHashMap<Long, ColumnProfile> profiles = new ConcurrentHashMap<>();
+        private boolean detached;
+
+        ChunkColumns(long createdAt) {
+            this.createdAt = createdAt;
+        }
+
+        /**
+         * Stores a new profile unless the chunk was already dropped from the cache.
+         * @return true if the profile was stored and was not there before
+         */
+        synchronized boolean add(long columnKey, @Nonnull ColumnProfile profile) {
+            return !detached && profiles.putIfAbsent(columnKey, profile) == null;
+        }
+
+        /**
+         * Marks the chunk dropped so no more profiles are stored in it.
+         * @return the number of profiles it holds
+         */
+        synchronized int detach() {
+            detached = true;
+            return profiles.size();
+        }
+    }
+
+    /**
+     * Solid and fluid cells of one column from y=0 to {@link #HEIGHT}, as bitsets.
+     * Cells outside that range count as empty, matching what the chunk returns for them.
+     */
+    public static final class ColumnProfile {
+        private final long[] solid = new long[WORDS];
+        private final long[] fluid = new long[WORDS];
+
+        private ColumnProfile() {}
+
+        @SuppressWarnings("removal")
+        @Nonnull
+        static ColumnProfile read(@Nonnull WorldChunk chunk, int x, int z) {
+            ColumnProfile profile = new ColumnProfile();
+            for (int y = 0; y < HEIGHT; y++) {
+                if (isSolid(chunk, x, y, z)) {
+                    profile.solid[y >>> 6] |= 1L << y;
+                }
+                if (chunk.getFluidId(x, y, z) > 0) {
+                    profile.fluid[y >>> 6] |= 1L << y;
+                }
+            }
+            return profile;
+        }
+
+        public boolean isSolid(int y) {
+            return y >= 0 && y < HEIGHT && (solid[y >>> 6] & (1L << y)) != 0;
+        }
+
+        public boolean isFluid(int y) {
+            return y >= 0 && y < HEIGHT && (fluid[y >>> 6] & (1L << y)) != 0;
+        }
+
+        /**
+         * First Y at or above {@code fromY} (within {@code maxSearch} blocks) with room for a
+         * player of the given height, or null if there is none.
+         */
+        @Nullable
+        public Integer findSpaceAbove(int fromY, int maxSearch, int playerHeight) {
+            for (int offset = 0; offset < maxSearch; offset++) {
+                int y = fromY + offset;
+                boolean free = true;
+                for (int i = 0; i < playerHeight; i++) {
+                    if (isSolid(y + i)) {
+                        free = false;
+                        break;
+                    }
+                }
+                if (free) {
+                    return y;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Highest solid Y at or below {@code maxY}, or null if the column is empty.
+         */
+        @Nullable
+        public Integer highestSolid(int maxY) {
+            for (int y = Math.min(maxY, HEIGHT - 1); y >= 0; y--) {
+                if ((solid[y >>> 6] & (1L << y)) != 0) {
+                    return y;
+                }
+            }
+            return null;
+        }
+    }
+}
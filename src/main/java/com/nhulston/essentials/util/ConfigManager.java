@@ -32,6 +32,18 @@ public class ConfigManager {
      * Used to maintain ordering of chat formats for priority-based matching.
      */
     public record ChatFormat(@Nonnull String group, @Nonnull String format) {}
+    /**
+     * Where RTP may send players in a world: a ring around the center, minus the exclusion zones.
+     */
+    public record RtpWorld(int minRadius, int maxRadius, int centerX, int centerZ, @Nonnull List<RtpExclusion> exclusions) {}
+    /**
+     * Rectangle of block columns RTP never lands in.
+     */
+    public record RtpExclusion(int minX, int minZ, int maxX, int maxZ) {
+        public boolean contains(double x, double z) {
+            return x >= minX && x < maxX + 1 && z >= minZ && z < maxZ + 1;
+        }
+    }
 
     private final Path configPath;
     private final HashMap<String, Integer> homeLimits = new HashMap<>();
@@ -58,13 +70,23 @@ public class ConfigManager {
     private int rtpCooldown = DEFAULT_RTP_COOLDOWN;
     private int rtpTeleportDelay = DEFAULT_TELEPORT_DELAY; // Separate delay for RTP teleports
     private String rtpDefaultWorld = "default";
-    private final HashMap<String, Integer> rtpWorlds = new HashMap<>();
+    private final HashMap<String, RtpWorld> rtpWorlds = new HashMap<>();
+    private int rtpBenchExclusionRadius = 32;
+    private int rtpPoolSize = 16;
+    private int rtpPoolRefillRate = 2; // probes per second per world
+    private int rtpSearchFanOut = 3;
+    private int rtpMaxChunkLoads = 32;
+    private int rtpMaxChunkLoadsPerWorld = 8;
     private boolean motdEnabled = true;
     private String motdMessage = "&6Welcome to the server, &e%player%&6!";
     private boolean sleepEnabled = true;
     private int sleepPercentage = 20;
     private String shoutPrefix = "&0[&7Broadcast&0] &f";
     private int repairCooldown = 43200;
+    private int backHistorySize = 10;
+    private int tpaMaxPendingPerTarget = 10;
+    private int tpaMaxPendingPerRequester = 3;
+    private int permissionCacheTtl = 30;
 
     // Join/Leave message settings
     private boolean joinMessageEnabled = true;
@@ -95,6 +117,19 @@ public class ConfigManager {
     private String discordTitle = "&8[&5Discord&8] &7Join our Discord server!";
     private String discordMessage = "&7Link: &b%url%";
 
+    // Storage settings
+    private long storageFlushWindow = 2000L; // milliseconds
+    private int storageMaxPendingWrites = 10000;
+    private String storageFsync = "on-shutdown";
+    private String storageBackend = "json";
+    private String storageFormat = "json";
+    private int storageOfflineCacheSize = 1000;
+    private long storageOfflineCacheTtl = 600L; // seconds
+    private int storageScanParallelism = 8;
+    private boolean storageWarmUp = false;
+    private long storageAutosaveInterval = 300L; // seconds, 0 = disabled
+    private long storageAutosaveBudget = 200L; // milliseconds
+
     public ConfigManager(@Nonnull Path dataFolder) {
         this.configPath = dataFolder.resolve("config.toml");
         load();
@@ -170,20 +205,30 @@ public class ConfigManager {
             TomlTable rtpWorldsTable = config.getTable("rtp.worlds");
             if (rtpWorldsTable != null) {
                 for (String worldName : rtpWorldsTable.keySet()) {
-                    Long radius = rtpWorldsTable.getLong(worldName);
-                    if (radius != null) {
-                        rtpWorlds.put(worldName, radius.intValue());
+                    RtpWorld rtpWorld = parseRtpWorld(rtpWorldsTable, worldName);
+                    if (rtpWorld != null) {
+                        rtpWorlds.put(worldName, rtpWorld);
                     }
                 }
             }
+            rtpBenchExclusionRadius = Math.max(0, getIntSafe(config, "rtp.bench-exclusion-radius", 32));
             String defaultWorld = config.getString("rtp.default-world");
             rtpDefaultWorld = defaultWorld != null ? defaultWorld : "default";
+            rtpPoolSize = Math.max(0, getIntSafe(config, "rtp.pool-size", 16));
+            rtpPoolRefillRate = Math.max(1, getIntSafe(config, "rtp.pool-refill-rate", 2));
+            rtpSearchFanOut = Math.max(1, getIntSafe(config, "rtp.search-fan-out", 3));
+            rtpMaxChunkLoads = Math.max(1, getIntSafe(config, "rtp.max-chunk-loads", 32));
+            rtpMaxChunkLoadsPerWorld = Math.max(1, getIntSafe(config, "rtp.max-chunk-loads-per-world", 8));
             motdEnabled = config.getBoolean("motd.enabled", () -> true);
             motdMessage = config.getString("motd.message", () -> "&6Welcome to the server, &e%player%&6!");
             sleepEnabled = config.getBoolean("sleep.enabled", () -> true);
             sleepPercentage = getIntSafe(config, "sleep.percentage", 20);
             shoutPrefix = config.getString("shout.prefix", () -> "&0[&7Broadcast&0] &f");
             repairCooldown = getIntSafe(config, "repair.cooldown", 43200);
+            backHistorySize = Math.clamp(getIntSafe(config, "back.history-size", 10), 1, 100);
+            tpaMaxPendingPerTarget = Math.max(1, getIntSafe(config, "tpa.max-pending-per-target", 10));
+            tpaMaxPendingPerRequester = Math.max(1, getIntSafe(config, "tpa.max-pending-per-requester", 3));
+            permissionCacheTtl = Math.clamp(getIntSafe(config, "permissions.cache-ttl", 30), 0, 3600);
 
             // Join/Leave messages config
             joinMessageEnabled = config.getBoolean("join-leave-messages.join-enabled", () -> true);
@@ -234,6 +279,19 @@ public class ConfigManager {
             discordTitle = config.getString("discord.title", () -> "&8[&5Discord&8] &7Join our Discord server!");
             discordMessage = config.getString("discord.message", () -> "&7Link: &b%url%");
 
+            // Storage settings
+            storageFlushWindow = getIntSafe(config, "storage.flush-window", 2000);
+            storageMaxPendingWrites = getIntSafe(config, "storage.max-pending-writes", 10000);
+            storageFsync = config.getString("storage.fsync", () -> "on-shutdown");
+            storageBackend = config.getString("storage.backend", () -> "json");
+            storageFormat = config.getString("storage.format", () -> "json");
+            storageOfflineCacheSize = getIntSafe(config, "storage.offline-cache-size", 1000);
+            storageOfflineCacheTtl = getIntSafe(config, "storage.offline-cache-ttl", 600);
+            storageScanParallelism = Math.max(1, getIntSafe(config, "storage.scan-parallelism", 8));
+            storageWarmUp = config.getBoolean("storage.warm-up", () -> false);
+            storageAutosaveInterval = Math.max(0, getIntSafe(config, "storage.autosave-interval", 300));
+            storageAutosaveBudget = Math.max(1, getIntSafe(config, "storage.autosave-budget", 200));
+
             Log.info("Config loaded!");
         } catch (Exception e) {
             Log.error("Failed to load config: " + e.getClass().getSimpleName() + " - " + e.getMessage());
@@ -350,7 +408,44 @@ public class ConfigManager {
         }
         return sections;
     }
-    private int getIntSafe(@Nonnull TomlParseResult config, @Nonnull String key, int defaultValue) {
+    /**
+     * Reads an RTP world, either a plain radius ({@code world = 5000}) or a table with
+     * max-radius, min-radius, center-x, center-z and an exclude list of x1/z1/x2/z2 rectangles.
+     */
+    @Nullable
+    private RtpWorld parseRtpWorld(@Nonnull TomlTable worlds, @Nonnull String worldName) {
+        if (worlds.isLong(worldName)) {
+            int radius = getIntSafe(worlds, worldName, 0);
+            return radius > 0 ? new RtpWorld(0, radius, 0, 0, List.of()) : null;
+        }
+        TomlTable table = worlds.getTable(worldName);
+        if (table == null) {
+            return null;
+        }
+        int maxRadius = getIntSafe(table, "max-radius", 0);
+        if (maxRadius <= 0) {
+            Log.warning("RTP world '" + worldName + "' has no max-radius, skipping.");
+            return null;
+        }
+        int minRadius = Math.clamp(getIntSafe(table, "min-radius", 0), 0, maxRadius);
+        List<RtpExclusion> exclusions = new ArrayList<>();
+        TomlArray excludeArray = table.getArray("exclude");
+        if (excludeArray != null) {
+            for (int i = 0; i < excludeArray.size(); i++) {
+                Object entry = excludeArray.get(i);
+                if (entry instanceof TomlTable zone) {
+                    int x1 = getIntSafe(zone, "x1", 0);
+                    int z1 = getIntSafe(zone, "z1", 0);
+                    int x2 = getIntSafe(zone, "x2", 0);
+                    int z2 = getIntSafe(zone, "z2", 0);
+                    exclusions.add(new RtpExclusion(Math.min(x1, x2), Math.min(z1, z2), Math.max(x1, x2), Math.max(z1, z2)));
+                }
+            }
+        }
+        return new RtpWorld(minRadius, maxRadius, getIntSafe(table, "center-x", 0), getIntSafe(table, "center-z", 0),
+                List.copyOf(exclusions));
+    }
+    private int getIntSafe(@Nonnull TomlTable config, @Nonnull String key, int defaultValue) {
         try {
             Long value = config.getLong(key);
             return value != null ? Math.toIntExact(value) : defaultValue;
@@ -456,7 +551,30 @@ public class ConfigManager {
     }
     @Nullable
     public Integer getRtpRadius(@Nonnull String worldName) {
-        return rtpWorlds.get(worldName);
+        RtpWorld rtpWorld = rtpWorlds.get(worldName);
+        return rtpWorld != null ? rtpWorld.maxRadius() : null;
+    }
+    @Nonnull
+    public Map<String, RtpWorld> getRtpWorlds() {
+        return Map.copyOf(rtpWorlds);
+    }
+    public int getRtpBenchExclusionRadius() {
+        return rtpBenchExclusionRadius;
+    }
+    public int getRtpPoolSize() {
+        return rtpPoolSize;
+    }
+    public int getRtpPoolRefillRate() {
+        return rtpPoolRefillRate;
+    }
+    public int getRtpSearchFanOut() {
+        return rtpSearchFanOut;
+    }
+    public int getRtpMaxChunkLoads() {
+        return rtpMaxChunkLoads;
+    }
+    public int getRtpMaxChunkLoadsPerWorld() {
+        return rtpMaxChunkLoadsPerWorld;
     }
     public boolean isMotdEnabled() {
         return motdEnabled;
@@ -478,6 +596,18 @@ public class ConfigManager {
     public int getRepairCooldown() {
         return repairCooldown;
     }
+    public int getBackHistorySize() {
+        return backHistorySize;
+    }
+    public int getTpaMaxPendingPerTarget() {
+        return tpaMaxPendingPerTarget;
+    }
+    public int getTpaMaxPendingPerRequester() {
+        return tpaMaxPendingPerRequester;
+    }
+    public int getPermissionCacheTtl() {
+        return permissionCacheTtl;
+    }
 
     public boolean isJoinMessageEnabled() {
         return joinMessageEnabled;
@@ -566,4 +696,52 @@ public class ConfigManager {
     public String getDiscordMessage() {
         return discordMessage;
     }
+
+    // Storage getters
+    public long getStorageFlushWindow() {
+        return storageFlushWindow;
+    }
+
+    public int getStorageMaxPendingWrites() {
+        return storageMaxPendingWrites;
+    }
+
+    @Nonnull
+    public String getStorageFsync() {
+        return storageFsync;
+    }
+
+    @Nonnull
+    public String getStorageBackend() {
+        return storageBackend;
+    }
+
+    @Nonnull
+    public String getStorageFormat() {
+        return storageFormat;
+    }
+
+    public int getStorageOfflineCacheSize() {
+        return storageOfflineCacheSize;
+    }
+
+    public long getStorageOfflineCacheTtl() {
+        return storageOfflineCacheTtl;
+    }
+
+    public int getStorageScanParallelism() {
+        return storageScanParallelism;
+    }
+
+    public boolean isStorageWarmUp() {
+        return storageWarmUp;
+    }
+
+    public long getStorageAutosaveInterval() {
+        return storageAutosaveInterval;
+    }
+
+    public long getStorageAutosaveBudget() {
+        return storageAutosaveBudget;
+    }
 }
@@ -0,0 +1,105 @@
+package com.nhulston.essentials.util;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prepares teleport destinations while players wait out their teleport delay: loads the
+ * destination chunk asynchronously and finds the safe Y there, so the teleport itself only has
+ * to place the player. Everything is shared between concurrent requests. Players heading to the
+ * same destination (a warp, spawn after an event) share one preparation, and destinations in
+ * the same chunk share one chunk load. A finished preparation is kept for {@link #RESOLVED_TTL_MILLIS}
+ * so players arriving a moment later reuse it too.
+ */
+public class DestinationLoader {
+    /**
+     * A prepared destination: the world and the position to put the player at.
+     */
+    public record Resolved(@Nonnull World world, @Nonnull Vector3d position) {}
+
+    private record DestinationKey(String worldName, double x, double y, double z) {}
+
+    private record ChunkKey(String worldName, long chunkIndex) {}
+
+    private static final long RESOLVED_TTL_MILLIS = 5000L;
+
+    private final TimingWheel timingWheel;
+    private final ConcurrentHashMap<DestinationKey, CompletableFuture<Resolved>> destinations = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<ChunkKey, CompletableFuture<WorldChunk>> chunkLoads = new ConcurrentHashMap<>();
+
+    public DestinationLoader(@Nonnull TimingWheel timingWheel) {
+        this.timingWheel = timingWheel;
+    }
+
+    /**
+     * Prepares a destination, or joins a preparation of the same destination already under way.
+     * Completes with null if the world is not loaded, or exceptionally if the chunk failed to load.
+     */
+    @Nonnull
+    public CompletableFuture<Resolved> prepare(@Nonnull String worldName, double x, double y, double z) {
+        DestinationKey key = new DestinationKey(worldName, x, y, z);
+        CompletableFuture<Resolved> existing = destinations.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        CompletableFuture<Resolved> fresh = new CompletableFuture<>();
+        existing = destinations.putIfAbsent(key, fresh);
+        if (existing != null) {
+            return existing;
+        }
+        World world = Universe.get().getWorld(worldName);
+        if (world == null) {
+            destinations.remove(key, fresh);
+            fresh.complete(null);
+            return fresh;
+        }
+        loadChunk(world, x, z).whenComplete((chunk, ex) -> {
+            if (ex != null) {
+                // Not cached, so the next request tries the load again
+                destinations.remove(key, fresh);
+                fresh.completeExceptionally(ex);
+                return;
+            }
+            double safeY = chunk != null ? TeleportUtil.findSafeY(world, chunk, x, y, z) : y;
+            fresh.complete(new Resolved(world, new Vector3d(x, safeY, z)));
+            timingWheel.schedule(() -> destinations.remove(key, fresh), RESOLVED_TTL_MILLIS, TimeUnit.MILLISECONDS);
+        });
+        return fresh;
+    }
+
+    /**
+     * Loads the chunk containing block x/z, joining a load of the same chunk already in flight.
+     */
+    @Nonnull
+    public CompletableFuture<WorldChunk> loadChunk(@Nonnull World world, double x, double z) {
+        long chunkIndex = ChunkUtil.indexChunkFromBlock((int) Math.floor(x), (int) Math.floor(z));
+        ChunkKey key = new ChunkKey(world.getName(), chunkIndex);
+        CompletableFuture<WorldChunk> existing = chunkLoads.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        CompletableFuture<WorldChunk> fresh = new CompletableFuture<>();
+        existing = chunkLoads.putIfAbsent(key, fresh);
+        if (existing != null) {
+            return existing;
+        }
+        // Registered after the put: an already loaded chunk may complete this callback right away
+        world.getChunkAsync(chunkIndex).whenComplete((chunk, ex) -> {
+            chunkLoads.remove(key, fresh);
+            if (ex != null) {
+                fresh.completeExceptionally(ex);
+            } else {
+                fresh.complete(chunk);
+            }
+        });
+        return fresh;
+    }
+}
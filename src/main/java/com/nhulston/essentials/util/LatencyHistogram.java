@@ -0,0 +1,115 @@
+package com.nhulston.essentials.util;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets, in the style of HdrHistogram.
+ * Values are kept in microseconds: below 16 us every value has its own bucket, above that each
+ * power of two is split into 16 buckets, so any recorded value is reported within 1/16 (6.25%)
+ * of its true value. Recording is one array increment plus two adders, cheap enough for the
+ * world thread. Values above about 19 hours land in the last bucket.
+ */
+public final class LatencyHistogram {
+    /**
+     * Point-in-time summary of a histogram, in microseconds.
+     */
+    public record Snapshot(long count, long meanMicros, long p50Micros, long p90Micros, long p99Micros,
+                           long maxMicros) {}
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 36; // 2^36 us, about 19 hours
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void recordNanos(long nanos) {
+        recordMicros(nanos / 1000L);
+    }
+
+    public void recordMicros(long micros) {
+        long value = Math.max(0L, micros);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Summary of everything recorded so far. Concurrent recordings may or may not be included.
+     */
+    @Nonnull
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long total = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        if (total == 0L) {
+            return new Snapshot(0L, 0L, 0L, 0L, 0L, 0L);
+        }
+        long maxMicros = max.get();
+        return new Snapshot(total, sum.sum() / Math.max(1L, count.sum()),
+                Math.min(percentile(copy, total, 0.50), maxMicros),
+                Math.min(percentile(copy, total, 0.90), maxMicros),
+                Math.min(percentile(copy, total, 0.99), maxMicros),
+                maxMicros);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0L);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0L);
+    }
+
+    private static long percentile(@Nonnull long[] counts, long total, double fraction) {
+        long rank = Math.max(1L, (long) Math.ceil(total * fraction));
+        long seen = 0L;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return highestValueIn(i);
+            }
+        }
+        return highestValueIn(counts.length - 1);
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long highestValueIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (1L << exponent) + subBucket * width + width - 1;
+    }
+}
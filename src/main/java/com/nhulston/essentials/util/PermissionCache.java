@@ -0,0 +1,151 @@
+package com.nhulston.essentials.util;
+
+import com.hypixel.hytale.server.core.permissions.PermissionsModule;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches permission checks and group lookups per player, for checks that run on every block
+ * event or chat message. Each player's decisions are dropped together when their permissions or
+ * groups change, when a group's permissions change (all players), on reload and on disconnect.
+ * Changes that fire no event (another plugin editing the permission files, for example) are
+ * covered by a time-to-live on each player's entry. A TTL of 0 disables caching.
+ * <p>
+ * An expired entry is replaced when its player is checked again. Entries of players who are
+ * never checked again are removed by a periodic sweep. This also covers an entry that a check
+ * still running at disconnect recreated after the disconnect cleanup.
+ */
+public class PermissionCache {
+    /**
+     * Point-in-time view of the cache counters.
+     */
+    public record Stats(int players, long hits, long misses, long invalidations) {
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+
+    private static final long SWEEP_INTERVAL_SECONDS = 60L;
+
+    private final ConcurrentHashMap<UUID, PlayerEntry> players = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private volatile long ttlNanos;
+
+    public PermissionCache(int ttlSeconds, @Nonnull TimingWheel timingWheel) {
+        setTtlSeconds(ttlSeconds);
+        timingWheel.scheduleAtFixedRate(this::sweepExpired, SWEEP_INTERVAL_SECONDS, SWEEP_INTERVAL_SECONDS,
+                TimeUnit.SECONDS);
+    }
+
+    public void setTtlSeconds(int ttlSeconds) {
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(0, ttlSeconds));
+    }
+
+    public boolean hasPermission(@Nonnull UUID playerUuid, @Nonnull String permission) {
+        PlayerEntry entry = entry(playerUuid);
+        if (entry == null) {
+            misses.increment();
+            return PermissionsModule.get().hasPermission(playerUuid, permission);
+        }
+        Boolean cached = entry.decisions.get(permission);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        boolean allowed = PermissionsModule.get().hasPermission(playerUuid, permission);
+        entry.decisions.put(permission, allowed);
+        return allowed;
+    }
+
+    @Nonnull
+    public Set<String> getGroups(@Nonnull UUID playerUuid) {
+        PlayerEntry entry = entry(playerUuid);
+        if (entry == null) {
+            misses.increment();
+            return PermissionsModule.get().getGroupsForUser(playerUuid);
+        }
+        Set<String> cached = entry.groups;
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        Set<String> groups = Set.copyOf(PermissionsModule.get().getGroupsForUser(playerUuid));
+        entry.groups = groups;
+        return groups;
+    }
+
+    /**
+     * Drops everything cached for one player.
+     */
+    public void invalidate(@Nonnull UUID playerUuid) {
+        if (players.remove(playerUuid) != null) {
+            invalidations.increment();
+        }
+    }
+
+    /**
+     * Drops everything cached for every player.
+     */
+    public void invalidateAll() {
+        int size = players.size();
+        players.clear();
+        invalidations.add(size);
+    }
+
+    @Nonnull
+    public Stats getStats() {
+        return new Stats(players.size(), hits.sum(), misses.sum(), invalidations.sum());
+    }
+
+    /**
+     * Removes every entry whose TTL has run out, or all of them if caching has been turned off.
+     */
+    private void sweepExpired() {
+        long ttl = ttlNanos;
+        long now = System.nanoTime();
+        players.values().removeIf(entry -> ttl == 0L || now - entry.createdAt > ttl);
+    }
+
+    /**
+     * The player's live entry, replacing it once its TTL has run out, or null if caching is off.
+     */
+    @Nullable
+    private PlayerEntry entry(@Nonnull UUID playerUuid) {
+        long ttl = ttlNanos;
+        if (ttl == 0L) {
+            return null;
+        }
+        long now = System.nanoTime();
+        PlayerEntry entry = players.get(playerUuid);
+        if (entry != null && now - entry.createdAt <= ttl) {
+            return entry;
+        }
+        PlayerEntry fresh = new PlayerEntry(now);
+        if (entry == null) {
+            PlayerEntry raced = players.putIfAbsent(playerUuid, fresh);
+            return raced != null ? raced : fresh;
+        }
+        return players.replace(playerUuid, entry, fresh) ? fresh : entry(playerUuid);
+    }
+
+    private static class PlayerEntry {
+        private final long createdAt;
+        private final ConcurrentHashMap<String, Boolean> decisions = new ConcurrentHashMap<>();
+        private volatile Set<String> groups;
+
+        PlayerEntry(long createdAt) {
+            this.createdAt = createdAt;
+        }
+    }
+}
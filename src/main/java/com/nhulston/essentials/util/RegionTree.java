@@ -0,0 +1,249 @@
+package com.nhulston.essentials.util;
+import com.nhulston.essentials.models.Region;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable R-tree over the regions of one world, for point queries.
+ * Built once with Sort-Tile-Recursive packing: regions are sorted into vertical slices by X and
+ * each slice by Z, then grouped into leaves of {@value #NODE_SIZE}, and leaves into parents the
+ * same way up to a single root. Nodes bound X and Z only; Y is checked on the regions themselves.
+ * <p>
+ * Everything is kept in flat int arrays, so a query allocates nothing and touches a handful of
+ * cache lines. Regions also carry a precedence rank (higher priority first, then by name), and a
+ * flag query returns the setting of the highest-ranked region containing the point that sets it.
+ * The manager builds a new tree on every change and swaps it in.
+ */
+public final class RegionTree {
+    public static final Comparator<Region> PRECEDENCE = Comparator.comparingInt(Region::getPriority).reversed()
+            .thenComparing(Region::getName, String.CASE_INSENSITIVE_ORDER);
+
+    private static final int NODE_SIZE = 8;
+    private static final RegionTree EMPTY = new RegionTree(List.of());
+
+    // Regions in tree order
+    private final Region[] regions;
+    private final int[] regionBounds; // minX, minZ, maxX, maxZ, minY, maxY per region
+    private final int[] ranks;
+    private final int[] allowMasks;
+    private final int[] denyMasks;
+    // Nodes per level, leaves at level 0. Level 0 children are regions, higher levels' are nodes.
+    private final int[][] nodeBounds; // minX, minZ, maxX, maxZ per node
+
+    private RegionTree(@Nonnull List<Region> input) {
+        int n = input.size();
+        Region[] byRank = input.toArray(new Region[0]);
+        Arrays.sort(byRank, PRECEDENCE);
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        strSort(order, byRank);
+
+        regions = new Region[n];
+        regionBounds = new int[n * 6];
+        ranks = new int[n];
+        allowMasks = new int[n];
+        denyMasks = new int[n];
+        for (int i = 0; i < n; i++) {
+            Region region = byRank[order[i]];
+            regions[i] = region;
+            ranks[i] = order[i];
+            regionBounds[i * 6] = region.getMinX();
+            regionBounds[i * 6 + 1] = region.getMinZ();
+            regionBounds[i * 6 + 2] = region.getMaxX();
+            regionBounds[i * 6 + 3] = region.getMaxZ();
+            regionBounds[i * 6 + 4] = region.getMinY();
+            regionBounds[i * 6 + 5] = region.getMaxY();
+            for (Region.Flag flag : Region.Flag.values()) {
+                Boolean value = region.getFlag(flag);
+                if (value != null) {
+                    if (value) {
+                        allowMasks[i] |= 1 << flag.ordinal();
+                    } else {
+                        denyMasks[i] |= 1 << flag.ordinal();
+                    }
+                }
+            }
+        }
+
+        List<int[]> levels = new ArrayList<>();
+        int[] children = regionBounds;
+        int childStride = 6;
+        int childCount = n;
+        while (childCount > 0) {
+            int nodes = (childCount + NODE_SIZE - 1) / NODE_SIZE;
+            int[] bounds = new int[nodes * 4];
+            for (int node = 0; node < nodes; node++) {
+                int first = node * NODE_SIZE;
+                int last = Math.min(childCount, first + NODE_SIZE);
+                bounds[node * 4] = Integer.MAX_VALUE;
+                bounds[node * 4 + 1] = Integer.MAX_VALUE;
+                bounds[node * 4 + 2] = Integer.MIN_VALUE;
+                bounds[node * 4 + 3] = Integer.MIN_VALUE;
+                for (int child = first; child < last; child++) {
+                    bounds[node * 4] = Math.min(bounds[node * 4], children[child * childStride]);
+                    bounds[node * 4 + 1] = Math.min(bounds[node * 4 + 1], children[child * childStride + 1]);
+                    bounds[node * 4 + 2] = Math.max(bounds[node * 4 + 2], children[child * childStride + 2]);
+                    bounds[node * 4 + 3] = Math.max(bounds[node * 4 + 3], children[child * childStride + 3]);
+                }
+            }
+            levels.add(bounds);
+            if (nodes == 1) {
+                break;
+            }
+            children = bounds;
+            childStride = 4;
+            childCount = nodes;
+        }
+        nodeBounds = levels.toArray(new int[0][]);
+    }
+
+    @Nonnull
+    public static RegionTree build(@Nonnull List<Region> regions) {
+        return regions.isEmpty() ? EMPTY : new RegionTree(regions);
+    }
+
+    @Nonnull
+    public static RegionTree empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return regions.length;
+    }
+
+    /**
+     * The setting of the highest-ranked region containing the block that sets the flag.
+     * @return TRUE if allowed, FALSE if denied, null if no region containing the block sets it
+     */
+    @Nullable
+    public Boolean getFlag(int x, int y, int z, @Nonnull Region.Flag flag) {
+        int best = search(nodeBounds.length - 1, 0, x, y, z, 1 << flag.ordinal(), -1);
+        if (best < 0) {
+            return null;
+        }
+        return (allowMasks[best] & (1 << flag.ordinal())) != 0;
+    }
+
+    /**
+     * The highest-ranked region containing the block, or null.
+     */
+    @Nullable
+    public Region getTopRegion(int x, int y, int z) {
+        int best = search(nodeBounds.length - 1, 0, x, y, z, -1, -1);
+        return best >= 0 ? regions[best] : null;
+    }
+
+    /**
+     * All regions containing the block, highest-ranked first.
+     */
+    @Nonnull
+    public List<Region> getRegions(int x, int y, int z) {
+        List<Region> found = new ArrayList<>();
+        collect(nodeBounds.length - 1, 0, x, y, z, found);
+        found.sort(PRECEDENCE);
+        return found;
+    }
+
+    /**
+     * True if any region covers the column, at any height.
+     */
+    public boolean intersectsColumn(int x, int z) {
+        return searchColumn(nodeBounds.length - 1, 0, x, z);
+    }
+
+    /**
+     * Finds the best-ranked region under a node that contains the point and sets a flag in
+     * {@code mask} (-1 for any region).
+     */
+    private int search(int level, int node, int x, int y, int z, int mask, int best) {
+        if (level < 0) {
+            return best;
+        }
+        int[] bounds = nodeBounds[level];
+        if (!containsColumn(bounds, node * 4, x, z)) {
+            return best;
+        }
+        if (level == 0) {
+            int last = Math.min(regions.length, (node + 1) * NODE_SIZE);
+            for (int i = node * NODE_SIZE; i < last; i++) {
+                if ((best < 0 || ranks[i] < ranks[best]) && containsColumn(regionBounds, i * 6, x, z)
+                        && y >= regionBounds[i * 6 + 4] && y <= regionBounds[i * 6 + 5]
+                        && (mask == -1 || ((allowMasks[i] | denyMasks[i]) & mask) != 0)) {
+                    best = i;
+                }
+            }
+            return best;
+        }
+        int last = Math.min(nodeBounds[level - 1].length / 4, (node + 1) * NODE_SIZE);
+        for (int child = node * NODE_SIZE; child < last; child++) {
+            best = search(level - 1, child, x, y, z, mask, best);
+        }
+        return best;
+    }
+
+    private void collect(int level, int node, int x, int y, int z, @Nonnull List<Region> found) {
+        if (level < 0 || !containsColumn(nodeBounds[level], node * 4, x, z)) {
+            return;
+        }
+        if (level == 0) {
+            int last = Math.min(regions.length, (node + 1) * NODE_SIZE);
+            for (int i = node * NODE_SIZE; i < last; i++) {
+                if (regions[i].contains(x, y, z)) {
+                    found.add(regions[i]);
+                }
+            }
+            return;
+        }
+        int last = Math.min(nodeBounds[level - 1].length / 4, (node + 1) * NODE_SIZE);
+        for (int child = node * NODE_SIZE; child < last; child++) {
+            collect(level - 1, child, x, y, z, found);
+        }
+    }
+
+    private boolean searchColumn(int level, int node, int x, int z) {
+        if (level < 0 || !containsColumn(nodeBounds[level], node * 4, x, z)) {
+            return false;
+        }
+        if (level == 0) {
+            int last = Math.min(regions.length, (node + 1) * NODE_SIZE);
+            for (int i = node * NODE_SIZE; i < last; i++) {
+                if (containsColumn(regionBounds, i * 6, x, z)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        int last = Math.min(nodeBounds[level - 1].length / 4, (node + 1) * NODE_SIZE);
+        for (int child = node * NODE_SIZE; child < last; child++) {
+            if (searchColumn(level - 1, child, x, z)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsColumn(@Nonnull int[] bounds, int offset, int x, int z) {
+        return x >= bounds[offset] && z >= bounds[offset + 1] && x <= bounds[offset + 2] && z <= bounds[offset + 3];
+    }
+
+    /**
+     * Sort-Tile-Recursive order: slices of similar X, each sorted by Z.
+     */
+    private static void strSort(@Nonnull Integer[] order, @Nonnull Region[] regions) {
+        int n = order.length;
+        int leaves = (n + NODE_SIZE - 1) / NODE_SIZE;
+        int slices = Math.max(1, (int) Math.ceil(Math.sqrt(leaves)));
+        int sliceSize = slices * NODE_SIZE;
+        Arrays.sort(order, Comparator.comparingLong(i -> (long) regions[i].getMinX() + regions[i].getMaxX()));
+        for (int start = 0; start < n; start += sliceSize) {
+            Arrays.sort(order, start, Math.min(n, start + sliceSize),
+                    Comparator.comparingLong(i -> (long) regions[i].getMinZ() + regions[i].getMaxZ()));
+        }
+    }
+}
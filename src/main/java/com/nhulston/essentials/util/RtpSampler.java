@@ -0,0 +1,81 @@
+package com.nhulston.essentials.util;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Draws RTP candidate locations evenly over the ring of an {@link ConfigManager.RtpWorld}.
+ * Points come from a Halton sequence (bases 2 and 3) rather than independent random numbers,
+ * so consecutive candidates spread over the whole ring instead of clumping, and players land
+ * apart from each other without generating fresh terrain next to the last landing spot.
+ * Each sampler starts at a random offset so restarts do not replay the same points.
+ * Thread-safe.
+ */
+public final class RtpSampler {
+    /**
+     * A candidate column.
+     */
+    public record Point(double x, double z) {}
+
+    private final ConfigManager.RtpWorld area;
+    private final double innerSquared;
+    private final double outerSquared;
+    private final double shiftU;
+    private final double shiftV;
+    private final AtomicLong index = new AtomicLong(1L);
+
+    public RtpSampler(@Nonnull ConfigManager.RtpWorld area) {
+        this.area = area;
+        double inner = area.minRadius();
+        double outer = area.maxRadius();
+        this.innerSquared = inner * inner;
+        this.outerSquared = outer * outer;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        this.shiftU = random.nextDouble();
+        this.shiftV = random.nextDouble();
+    }
+
+    @Nonnull
+    public ConfigManager.RtpWorld getArea() {
+        return area;
+    }
+
+    /**
+     * Next point of the sequence, uniform by area over the ring. Exclusion zones are not applied.
+     */
+    @Nonnull
+    public Point next() {
+        long i = index.getAndIncrement();
+        double u = (radicalInverse(i, 2) + shiftU) % 1.0;
+        double v = (radicalInverse(i, 3) + shiftV) % 1.0;
+        // Uniform in area: r^2 is uniform between the inner and outer radius squared
+        double r = Math.sqrt(innerSquared + u * (outerSquared - innerSquared));
+        double angle = 2.0 * Math.PI * v;
+        return new Point(area.centerX() + r * Math.cos(angle), area.centerZ() + r * Math.sin(angle));
+    }
+
+    /**
+     * True if the column lies in one of the world's configured exclusion zones.
+     */
+    public boolean isExcluded(double x, double z) {
+        for (ConfigManager.RtpExclusion exclusion : area.exclusions()) {
+            if (exclusion.contains(x, z)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static double radicalInverse(long i, int base) {
+        double inverse = 1.0 / base;
+        double scale = inverse;
+        double result = 0.0;
+        while (i > 0) {
+            result += (i % base) * scale;
+            i /= base;
+            scale *= inverse;
+        }
+        return result;
+    }
+}
@@ -1,96 +1,453 @@
 package com.nhulston.essentials.util;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
+import com.nhulston.essentials.models.PersonalBenchProtection;
+import com.nhulston.essentials.models.Region;
 import com.nhulston.essentials.models.PlayerData;
 import com.nhulston.essentials.models.Spawn;
 import com.nhulston.essentials.models.Warp;
+import com.nhulston.essentials.storage.AtomicFileWriter;
+import com.nhulston.essentials.storage.BinaryCodec;
+import com.nhulston.essentials.storage.JsonStorageBackend;
+import com.nhulston.essentials.storage.KeyValueStorageBackend;
+import com.nhulston.essentials.storage.PlayerDataCache;
+import com.nhulston.essentials.storage.PlayerDataScanner;
+import com.nhulston.essentials.storage.PlayerDataWriter;
+import com.nhulston.essentials.storage.StorageBackend;
+import com.nhulston.essentials.storage.StorageMigrator;
+import com.nhulston.essentials.storage.UsernameIndex;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.IOException;
-import java.lang.reflect.Type;
-import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
 public class StorageManager {
+    /**
+     * Outcome of the most recent autosave cycle.
+     * Deferred entries were still dirty when the time budget ran out and are written next cycle.
+     */
+    public record AutosaveStats(long cycles, int lastWritten, int lastDeferred, long lastMillis) {}
+
+    private static final int IO_THREADS = 2;
+    private static final int UUID_LOG_COMPACT_MIN = 1024;
     private final Path dataFolder;
-    private final Path playersFolder;
-    private final Gson gson;
-    private final ConcurrentHashMap<UUID, PlayerData> cache;
+    private final AtomicFileWriter fileWriter;
+    private final BinaryCodec.Format format;
+    private final StorageBackend backend;
+    private final PlayerDataCache cache;
+    private final ConcurrentHashMap<UUID, CompletableFuture<PlayerData>> loading;
+    private final ExecutorService ioExecutor;
+    private final LongAdder asyncLoads;
+    private final LongAdder blockingLoads;
+    private final PlayerDataWriter playerDataWriter;
     private final ConcurrentHashMap<String, Warp> warps;
-    private final ConcurrentHashMap<String, UUID> usernameToUuid;
-    private final AtomicBoolean uuidIndexDirty;
+    private final UsernameIndex usernameToUuid;
+    private final ConcurrentHashMap<String, UUID> pendingUuidMappings;
+    private final AtomicBoolean uuidFlushScheduled;
     private volatile Spawn spawn;
-    private static final Type WARPS_TYPE = new TypeToken<Map<String, Warp>>(){}.getType();
-    private static final Type UUIDS_TYPE = new TypeToken<Map<String, String>>(){}.getType();
-    public StorageManager(@Nonnull Path dataFolder) {
+    private volatile int scanParallelism;
+    private final AtomicLong warpsVersion;
+    private volatile long savedWarpsVersion;
+    private final AtomicLong spawnVersion;
+    private volatile long savedSpawnVersion;
+    private final ScheduledExecutorService autosaveScheduler;
+    private ScheduledFuture<?> autosaveTask;
+    private volatile long autosaveInterval;
+    private volatile long autosaveBudgetMillis;
+    private volatile AutosaveStats autosaveStats;
+    public StorageManager(@Nonnull Path dataFolder, @Nonnull ConfigManager configManager,
+                          @Nonnull AtomicFileWriter fileWriter) {
         this.dataFolder = dataFolder;
-        this.playersFolder = dataFolder.resolve("players");
-        this.gson = new GsonBuilder().create();
-        this.cache = new ConcurrentHashMap<>();
+        this.fileWriter = fileWriter;
+        this.format = BinaryCodec.Format.fromConfig(configManager.getStorageFormat());
+        this.backend = openBackend(configManager.getStorageBackend());
+        this.cache = new PlayerDataCache(configManager.getStorageOfflineCacheSize(),
+                configManager.getStorageOfflineCacheTtl());
+        this.loading = new ConcurrentHashMap<>();
+        this.ioExecutor = Executors.newFixedThreadPool(IO_THREADS, r -> {
+            Thread t = new Thread(r, "Essentials-StorageIO");
+            t.setDaemon(true);
+            return t;
+        });
+        this.asyncLoads = new LongAdder();
+        this.blockingLoads = new LongAdder();
         this.warps = new ConcurrentHashMap<>();
-        this.usernameToUuid = new ConcurrentHashMap<>();
-        this.uuidIndexDirty = new AtomicBoolean(false);
-        try {
-            Files.createDirectories(this.playersFolder);
-        } catch (IOException e) {
-            Log.error("Failed to create players folder: " + e.getMessage());
-        }
+        this.usernameToUuid = new UsernameIndex();
+        this.pendingUuidMappings = new ConcurrentHashMap<>();
+        this.uuidFlushScheduled = new AtomicBoolean(false);
+        this.playerDataWriter = new PlayerDataWriter(this::writePlayerData,
+                configManager.getStorageFlushWindow(), configManager.getStorageMaxPendingWrites());
+        this.scanParallelism = configManager.getStorageScanParallelism();
+        this.warpsVersion = new AtomicLong();
+        this.spawnVersion = new AtomicLong();
+        this.autosaveScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Essentials-Autosave");
+            t.setDaemon(true);
+            return t;
+        });
+        this.autosaveStats = new AutosaveStats(0, 0, 0, 0);
         loadWarps();
         loadSpawn();
         loadUuidIndex();
+        if (configManager.isStorageWarmUp()) {
+            warmUp();
+        }
+        scheduleAutosave(configManager.getStorageAutosaveInterval(), configManager.getStorageAutosaveBudget());
     }
+    /**
+     * Gets a player's data, loading it on the calling thread if it is not cached yet.
+     * Online players are preloaded on connect, so this only touches disk for offline lookups
+     * or a player whose preload has not finished (in which case it waits for that load).
+     */
     @Nonnull
     public PlayerData getPlayerData(@Nonnull UUID playerUuid) {
-        return cache.computeIfAbsent(playerUuid, this::loadPlayerData);
+        PlayerData cached = cache.get(playerUuid);
+        if (cached != null) {
+            return cached;
+        }
+        return load(playerUuid, false).join();
+    }
+
+    /**
+     * Gets a player's data without blocking; a cache miss is loaded on the storage IO threads.
+     */
+    @Nonnull
+    public CompletableFuture<PlayerData> getPlayerDataAsync(@Nonnull UUID playerUuid) {
+        PlayerData cached = cache.get(playerUuid);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return load(playerUuid, true);
+    }
+
+    /**
+     * Pins a connecting player's data in the cache and starts loading it in the background
+     * so it is ready before they are in-world.
+     */
+    public void preloadPlayerData(@Nonnull UUID playerUuid) {
+        cache.pin(playerUuid);
+        getPlayerDataAsync(playerUuid);
+    }
+
+    /**
+     * Loads into the cache with at most one load per player in flight.
+     * The disk read happens outside any map lock, so other players are never held up by it.
+     */
+    @Nonnull
+    private CompletableFuture<PlayerData> load(@Nonnull UUID playerUuid, boolean async) {
+        CompletableFuture<PlayerData> future = new CompletableFuture<>();
+        CompletableFuture<PlayerData> inFlight = loading.putIfAbsent(playerUuid, future);
+        if (inFlight != null) {
+            return inFlight;
+        }
+        // Re-check after claiming the slot: a load may have finished in between
+        PlayerData cached = cache.peek(playerUuid);
+        if (cached != null) {
+            loading.remove(playerUuid, future);
+            future.complete(cached);
+            return future;
+        }
+        Runnable task = () -> {
+            try {
+                PlayerData loaded = loadPlayerData(playerUuid);
+                future.complete(cache.put(playerUuid, loaded));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            } finally {
+                loading.remove(playerUuid, future);
+            }
+        };
+        if (async) {
+            asyncLoads.increment();
+            try {
+                ioExecutor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // Shutting down; fall back to loading on the caller
+                task.run();
+            }
+        } else {
+            blockingLoads.increment();
+            task.run();
+        }
+        return future;
     }
     public void savePlayerData(@Nonnull UUID playerUuid) {
-        PlayerData data = cache.get(playerUuid);
+        PlayerData data = cache.peek(playerUuid);
         if (data != null) {
-            savePlayerDataAsync(playerUuid, data);
+            playerDataWriter.markDirty(playerUuid, data);
         }
     }
+    /**
+     * Writes a player and records the version that reached disk. The version is read first,
+     * so a change made during the write leaves the player dirty rather than being lost.
+     */
+    private void writePlayerData(@Nonnull UUID playerUuid, @Nonnull PlayerData data) throws IOException {
+        long version = data.getVersion();
+        backend.savePlayerData(playerUuid, data);
+        data.markSaved(version);
+    }
     @Nonnull
     private PlayerData loadPlayerData(@Nonnull UUID playerUuid) {
-        Path file = getPlayerFile(playerUuid);
-        if (Files.exists(file)) {
+        // A queued write is newer than whatever is on disk
+        PlayerData pending = playerDataWriter.getPending(playerUuid);
+        if (pending != null) {
+            return pending;
+        }
+        try {
+            PlayerData data = backend.loadPlayerData(playerUuid);
+            if (data != null) {
+                return data;
+            }
+        } catch (IOException e) {
+            Log.warning("Failed to load player data for " + playerUuid + ": " + e.getMessage());
+        }
+        return new PlayerData();
+    }
+
+    /**
+     * Gets the write-behind counters (saves requested vs. writes performed, queue depth, flush latency).
+     */
+    @Nonnull
+    public PlayerDataWriter.Stats getWriterStats() {
+        return playerDataWriter.getStats();
+    }
+
+    /**
+     * Number of player data loads started in the background (preloads and async lookups).
+     */
+    public long getAsyncLoads() {
+        return asyncLoads.sum();
+    }
+
+    /**
+     * Number of player data loads that ran on the calling thread because the data was not cached yet.
+     */
+    public long getBlockingLoads() {
+        return blockingLoads.sum();
+    }
+
+    /**
+     * Gets the name of the active storage backend ("json" or "kv").
+     */
+    @Nonnull
+    public String getBackendName() {
+        return backend.getName();
+    }
+
+    /**
+     * Opens a storage backend by its config name.
+     * @throws IOException if the name is unknown or the backend cannot be opened
+     */
+    @Nonnull
+    public static StorageBackend createBackend(@Nonnull String name, @Nonnull Path dataFolder,
+                                               @Nonnull AtomicFileWriter fileWriter,
+                                               @Nonnull BinaryCodec.Format format) throws IOException {
+        return switch (name.trim().toLowerCase()) {
+            case JsonStorageBackend.NAME -> new JsonStorageBackend(dataFolder, fileWriter, format);
+            case KeyValueStorageBackend.NAME -> new KeyValueStorageBackend(dataFolder, fileWriter, format);
+            default -> throw new IOException("Unknown storage backend '" + name + "'");
+        };
+    }
+
+    @Nonnull
+    private StorageBackend openBackend(@Nonnull String name) {
+        try {
+            StorageBackend opened = createBackend(name, dataFolder, fileWriter, format);
+            Log.info("Using " + opened.getName() + " storage backend with " + format.name().toLowerCase() + " format.");
+            return opened;
+        } catch (IOException e) {
+            // Falling back silently would hide existing data, so refuse to start instead
+            throw new IllegalStateException("Failed to open storage backend '" + name + "': " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads every stored player with up to {@code storage.scan-parallelism} reads in flight,
+     * passing each one to the consumer. Queued writes are flushed first so the scan sees current data.
+     * The consumer runs on the scan threads and must be thread-safe.
+     */
+    @Nonnull
+    public PlayerDataScanner.Result scanPlayers(@Nonnull BiConsumer<UUID, PlayerData> consumer) throws IOException {
+        playerDataWriter.flushAll();
+        return PlayerDataScanner.scan(backend, scanParallelism, consumer);
+    }
+
+    /**
+     * Scans every stored player in the background, logging unreadable records and caching
+     * players in the offline tier while it has room.
+     */
+    private void warmUp() {
+        Thread.ofVirtual().name("Essentials-WarmUp").start(() -> {
             try {
-                String json = Files.readString(file);
-                PlayerData data = gson.fromJson(json, PlayerData.class);
-                if (data != null) {
-                    return data;
+                AtomicInteger cached = new AtomicInteger();
+                PlayerDataScanner.Result result = PlayerDataScanner.scan(backend, scanParallelism, (playerUuid, data) -> {
+                    // A queued write is newer than what was just read
+                    if (!playerDataWriter.isPending(playerUuid) && cache.offer(playerUuid, data)) {
+                        cached.incrementAndGet();
+                    }
+                });
+                for (PlayerDataScanner.Failure failure : result.failures()) {
+                    Log.warning("Unreadable player data for " + failure.playerUuid() + ": " + failure.reason());
                 }
+                Log.info("Warm-up read " + result.loaded() + "/" + result.scanned() + " players ("
+                        + result.failures().size() + " unreadable, " + cached.get() + " cached) in "
+                        + result.elapsedMillis() + "ms.");
             } catch (IOException e) {
-                Log.warning("Failed to load player data for " + playerUuid + ": " + e.getMessage());
+                Log.warning("Player data warm-up failed: " + e.getMessage());
             }
+        });
+    }
+
+    /**
+     * Writes all pending and cached data, then copies everything from the active backend
+     * into the named one. The active backend is not changed; switch storage.backend and restart.
+     */
+    @Nonnull
+    public StorageMigrator.Result migrateTo(@Nonnull String targetName) throws IOException {
+        if (backend.getName().equalsIgnoreCase(targetName.trim())) {
+            throw new IOException("Storage backend '" + backend.getName() + "' is already in use.");
+        }
+        flushAll();
+        StorageBackend target = createBackend(targetName, dataFolder, fileWriter, format);
+        try {
+            return StorageMigrator.migrate(backend, target);
+        } finally {
+            target.close();
         }
-        return new PlayerData();
     }
-    private void savePlayerDataAsync(@Nonnull UUID playerUuid, @Nonnull PlayerData data) {
-        CompletableFuture.runAsync(() -> {
-            Path file = getPlayerFile(playerUuid);
+
+    /**
+     * Writes every queued player, every changed cached player, warps, spawn and the UUID index.
+     */
+    private void flushAll() {
+        playerDataWriter.flushAll();
+        for (Map.Entry<UUID, PlayerData> entry : cache.entries()) {
+            if (entry.getValue().isDirty()) {
+                playerDataWriter.writeNow(entry.getKey(), entry.getValue());
+            }
+        }
+        try {
+            writeWarps();
+        } catch (IOException e) {
+            Log.error("Failed to save warps: " + e.getMessage());
+        }
+        try {
+            writeSpawn();
+        } catch (IOException e) {
+            Log.error("Failed to save spawn: " + e.getMessage());
+        }
+        flushUuidMappings();
+    }
+
+    /**
+     * (Re)schedules the autosave cycle. An interval of 0 disables it.
+     */
+    private synchronized void scheduleAutosave(long intervalSeconds, long budgetMillis) {
+        autosaveBudgetMillis = Math.max(1L, budgetMillis);
+        if (autosaveTask != null && intervalSeconds == autosaveInterval) {
+            return;
+        }
+        if (autosaveTask != null) {
+            autosaveTask.cancel(false);
+            autosaveTask = null;
+        }
+        autosaveInterval = intervalSeconds;
+        if (intervalSeconds > 0) {
+            autosaveTask = autosaveScheduler.scheduleWithFixedDelay(this::autosave, intervalSeconds,
+                    intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Writes changed warps, spawn and players until the time budget runs out.
+     * Players with a queued write are left to the write-behind queue. Anything still dirty
+     * when the budget is spent stays dirty and is picked up by the next cycle, so a cycle
+     * never turns into a burst of writes for every cached player.
+     */
+    private void autosave() {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(autosaveBudgetMillis);
+        int written = 0;
+        int deferred = 0;
+        try {
             try {
-                String json = gson.toJson(data);
-                Files.writeString(file, json);
+                writeWarps();
+                writeSpawn();
             } catch (IOException e) {
-                Log.error("Failed to save player data for " + playerUuid + ": " + e.getMessage());
+                Log.error("Autosave failed to write warps or spawn: " + e.getMessage());
             }
-        });
+            for (Map.Entry<UUID, PlayerData> entry : cache.entries()) {
+                PlayerData data = entry.getValue();
+                if (!data.isDirty() || playerDataWriter.isPending(entry.getKey())) {
+                    continue;
+                }
+                if (System.nanoTime() - deadline >= 0) {
+                    deferred++;
+                    continue;
+                }
+                playerDataWriter.writeNow(entry.getKey(), data);
+                written++;
+            }
+        } catch (RuntimeException e) {
+            // Never let an exception cancel the scheduled task
+            Log.error("Autosave failed: " + e.getMessage());
+        }
+        AutosaveStats previous = autosaveStats;
+        autosaveStats = new AutosaveStats(previous.cycles() + 1, written, deferred,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
     }
+
     @Nonnull
-    private Path getPlayerFile(@Nonnull UUID playerUuid) {
-        return playersFolder.resolve(playerUuid + ".json");
+    public AutosaveStats getAutosaveStats() {
+        return autosaveStats;
+    }
+
+    /**
+     * Autosave interval in seconds, or 0 if autosave is disabled.
+     */
+    public long getAutosaveInterval() {
+        return autosaveInterval;
     }
+    /**
+     * Unpins a disconnecting player; their data stays in the bounded offline tier until evicted.
+     */
     public void unloadPlayer(@Nonnull UUID playerUuid) {
-        cache.remove(playerUuid);
+        cache.unpin(playerUuid);
+    }
+
+    @Nonnull
+    public PlayerDataCache.Stats getCacheStats() {
+        return cache.getStats();
+    }
+
+    /**
+     * Applies reloaded offline cache limits, scan parallelism and autosave settings.
+     */
+    public void reload(@Nonnull ConfigManager configManager) {
+        cache.setLimits(configManager.getStorageOfflineCacheSize(), configManager.getStorageOfflineCacheTtl());
+        scanParallelism = configManager.getStorageScanParallelism();
+        scheduleAutosave(configManager.getStorageAutosaveInterval(), configManager.getStorageAutosaveBudget());
     }
     public boolean hasPlayerJoined(@Nonnull UUID playerUuid) {
-        Path playerFile = getPlayerFile(playerUuid);
-        return Files.exists(playerFile);
+        if (playerDataWriter.isPending(playerUuid)) {
+            return true;
+        }
+        return backend.hasPlayerData(playerUuid);
     }
     public void markPlayerJoined(@Nonnull UUID playerUuid) {
         getPlayerData(playerUuid);
@@ -105,73 +462,82 @@ public class StorageManager {
     }
     public void setWarp(@Nonnull String name, @Nonnull Warp warp) {
         warps.put(name.toLowerCase(), warp);
+        warpsVersion.incrementAndGet();
         saveWarpsAsync();
     }
     public boolean deleteWarp(@Nonnull String name) {
         if (warps.remove(name.toLowerCase()) != null) {
+            warpsVersion.incrementAndGet();
             saveWarpsAsync();
             return true;
         }
         return false;
     }
     private void loadWarps() {
-        Path file = dataFolder.resolve("warps.json");
-        if (Files.exists(file)) {
-            try {
-                String json = Files.readString(file);
-                Map<String, Warp> loaded = gson.fromJson(json, WARPS_TYPE);
-                if (loaded != null) {
-                    warps.putAll(loaded);
-                }
-            } catch (IOException e) {
-                Log.warning("Failed to load warps: " + e.getMessage());
-            }
+        try {
+            warps.putAll(backend.loadWarps());
+        } catch (IOException e) {
+            Log.warning("Failed to load warps: " + e.getMessage());
         }
     }
     private void saveWarpsAsync() {
         CompletableFuture.runAsync(() -> {
-            Path file = dataFolder.resolve("warps.json");
             try {
-                String json = gson.toJson(warps);
-                Files.writeString(file, json);
+                writeWarps();
             } catch (IOException e) {
                 Log.error("Failed to save warps: " + e.getMessage());
             }
         });
     }
+    /**
+     * Writes warps if they changed since the last successful write. Synchronized so an
+     * older snapshot can never land on disk after a newer one.
+     */
+    private synchronized void writeWarps() throws IOException {
+        long version = warpsVersion.get();
+        if (version == savedWarpsVersion) {
+            return;
+        }
+        backend.saveWarps(warps);
+        savedWarpsVersion = version;
+    }
     @Nullable
     public Spawn getSpawn() {
         return spawn;
     }
     public void setSpawn(@Nonnull Spawn spawn) {
         this.spawn = spawn;
+        spawnVersion.incrementAndGet();
         saveSpawnAsync();
     }
     private void loadSpawn() {
-        Path file = dataFolder.resolve("spawn.json");
-        if (Files.exists(file)) {
-            try {
-                String json = Files.readString(file);
-                Spawn loaded = gson.fromJson(json, Spawn.class);
-                if (loaded != null) {
-                    this.spawn = loaded;
-                }
-            } catch (IOException e) {
-                Log.warning("Failed to load spawn: " + e.getMessage());
+        try {
+            Spawn loaded = backend.loadSpawn();
+            if (loaded != null) {
+                this.spawn = loaded;
             }
+        } catch (IOException e) {
+            Log.warning("Failed to load spawn: " + e.getMessage());
         }
     }
     private void saveSpawnAsync() {
         CompletableFuture.runAsync(() -> {
-            Path file = dataFolder.resolve("spawn.json");
             try {
-                String json = gson.toJson(spawn);
-                Files.writeString(file, json);
+                writeSpawn();
             } catch (IOException e) {
                 Log.error("Failed to save spawn: " + e.getMessage());
             }
         });
     }
+    private synchronized void writeSpawn() throws IOException {
+        long version = spawnVersion.get();
+        Spawn current = spawn;
+        if (current == null || version == savedSpawnVersion) {
+            return;
+        }
+        backend.saveSpawn(current);
+        savedSpawnVersion = version;
+    }
 
     // UUID index methods (username -> UUID mapping for offline player lookups)
 
@@ -181,12 +547,17 @@ public class StorageManager {
      */
     public void registerPlayer(@Nonnull String username, @Nonnull UUID uuid) {
         String lowerUsername = username.toLowerCase();
+        if (!UsernameIndex.accepts(lowerUsername)) {
+            Log.warning("Username of " + uuid + " is too long to index; offline lookups by name will not find them.");
+            return;
+        }
         UUID existing = usernameToUuid.get(lowerUsername);
 
         // Only save if this is a new mapping or UUID changed (name change)
         if (existing == null || !existing.equals(uuid)) {
             usernameToUuid.put(lowerUsername, uuid);
-            scheduleUuidIndexSave();
+            pendingUuidMappings.put(lowerUsername, uuid);
+            scheduleUuidIndexFlush();
         }
     }
 
@@ -199,97 +570,136 @@ public class StorageManager {
         return usernameToUuid.get(username.toLowerCase());
     }
 
+    /**
+     * Gets up to {@code limit} known usernames (lowercase) starting with the prefix, shortest first.
+     * Used for suggestions when a typed name does not match anyone.
+     */
+    @Nonnull
+    public List<String> findUsernamesByPrefix(@Nonnull String prefix, int limit) {
+        return usernameToUuid.findByPrefix(prefix.toLowerCase(), limit);
+    }
+
     private void loadUuidIndex() {
-        Path file = dataFolder.resolve("uuids.json");
-        if (Files.exists(file)) {
-            try {
-                String json = Files.readString(file);
-                Map<String, String> loaded = gson.fromJson(json, UUIDS_TYPE);
-                if (loaded != null) {
-                    for (Map.Entry<String, String> entry : loaded.entrySet()) {
-                        try {
-                            usernameToUuid.put(entry.getKey().toLowerCase(), UUID.fromString(entry.getValue()));
-                        } catch (IllegalArgumentException e) {
-                            Log.warning("Invalid UUID in uuids.json for " + entry.getKey() + ": " + entry.getValue());
-                        }
-                    }
+        try {
+            int skipped = 0;
+            for (Map.Entry<String, UUID> mapping : backend.loadUuidIndex().entrySet()) {
+                if (UsernameIndex.accepts(mapping.getKey())) {
+                    usernameToUuid.put(mapping.getKey(), mapping.getValue());
+                } else {
+                    skipped++;
                 }
-                Log.info("Loaded " + usernameToUuid.size() + " player UUID mappings.");
-            } catch (IOException e) {
-                Log.warning("Failed to load UUID index: " + e.getMessage());
             }
+            Log.info("Loaded " + usernameToUuid.size() + " player UUID mappings.");
+            if (skipped > 0) {
+                Log.warning("Skipped " + skipped + " UUID mappings with usernames too long to index.");
+            }
+        } catch (IOException e) {
+            Log.warning("Failed to load UUID index: " + e.getMessage());
+            return;
+        }
+        if (needsUuidIndexCompaction(backend.getUuidLogSize())) {
+            ioExecutor.execute(this::compactUuidIndex);
         }
     }
 
     /**
-     * Schedules a UUID index save. Uses dirty flag to coalesce multiple rapid registrations
-     * into a single file write.
+     * Schedules a flush of new mappings. Registrations within a second of each other
+     * (e.g. a login wave) are coalesced into a single append.
      */
-    private void scheduleUuidIndexSave() {
-        // Mark as dirty and schedule save if not already pending
-        if (uuidIndexDirty.compareAndSet(false, true)) {
-            CompletableFuture.runAsync(() -> {
-                // Small delay to coalesce rapid joins
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-
-                // Reset dirty flag and save
-                uuidIndexDirty.set(false);
-                saveUuidIndex();
-            });
+    private void scheduleUuidIndexFlush() {
+        if (uuidFlushScheduled.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(this::flushUuidMappings,
+                    CompletableFuture.delayedExecutor(1, TimeUnit.SECONDS, ioExecutor));
         }
     }
 
     /**
-     * Saves the UUID index to disk. Called from async thread or shutdown.
+     * Appends pending mappings to the index log, compacting it once the log has grown
+     * large compared to the index. Called from the IO threads or shutdown.
      */
-    private void saveUuidIndex() {
-        Path file = dataFolder.resolve("uuids.json");
-        try {
-            // Convert to Map<String, String> for JSON serialization
-            Map<String, String> toSave = new ConcurrentHashMap<>();
-            for (Map.Entry<String, UUID> entry : usernameToUuid.entrySet()) {
-                toSave.put(entry.getKey(), entry.getValue().toString());
+    private void flushUuidMappings() {
+        uuidFlushScheduled.set(false);
+        Map<String, UUID> batch = new HashMap<>();
+        for (Map.Entry<String, UUID> entry : pendingUuidMappings.entrySet()) {
+            if (pendingUuidMappings.remove(entry.getKey(), entry.getValue())) {
+                batch.put(entry.getKey(), entry.getValue());
             }
-            String json = gson.toJson(toSave);
-            Files.writeString(file, json);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        int logSize;
+        try {
+            logSize = backend.appendUuidMappings(batch);
         } catch (IOException e) {
             Log.error("Failed to save UUID index: " + e.getMessage());
+            // Keep them for the next flush unless a newer mapping arrived meanwhile
+            batch.forEach(pendingUuidMappings::putIfAbsent);
+            return;
+        }
+        if (needsUuidIndexCompaction(logSize)) {
+            compactUuidIndex();
+        }
+    }
+
+    private boolean needsUuidIndexCompaction(int logSize) {
+        return logSize > Math.max(UUID_LOG_COMPACT_MIN, usernameToUuid.size() / 4);
+    }
+
+    private void compactUuidIndex() {
+        try {
+            long start = System.currentTimeMillis();
+            backend.compactUuidIndex(usernameToUuid.asMap());
+            Log.info("Compacted UUID index (" + usernameToUuid.size() + " mappings) in "
+                    + (System.currentTimeMillis() - start) + "ms.");
+        } catch (IOException e) {
+            Log.error("Failed to compact UUID index: " + e.getMessage());
         }
     }
 
+    // Personal bench protections are owned by PersonalBenchManager but persisted here
+
+    @Nonnull
+    public List<PersonalBenchProtection> loadBenches() throws IOException {
+        return backend.loadBenches();
+    }
+
+    public void saveBenches(@Nonnull Collection<PersonalBenchProtection> benches) throws IOException {
+        backend.saveBenches(benches);
+    }
+
+    // Regions are owned by RegionManager but persisted here
+
+    @Nonnull
+    public List<Region> loadRegions() throws IOException {
+        return backend.loadRegions();
+    }
+
+    public void saveRegions(@Nonnull Collection<Region> regions) throws IOException {
+        backend.saveRegions(regions);
+    }
+
     public void shutdown() {
-        for (Map.Entry<UUID, PlayerData> entry : cache.entrySet()) {
-            Path file = getPlayerFile(entry.getKey());
-            try {
-                String json = gson.toJson(entry.getValue());
-                Files.writeString(file, json);
-            } catch (IOException e) {
-                Log.error("Failed to save player data on shutdown for " + entry.getKey() + ": " + e.getMessage());
+        // Not shutdownNow: interrupting a write in progress would close the backend's file channels
+        autosaveScheduler.shutdown();
+        ioExecutor.shutdown();
+        try {
+            if (!autosaveScheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                Log.warning("Timed out waiting for autosave to finish.");
             }
+            if (!ioExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                Log.warning("Timed out waiting for player data loads to finish.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+        playerDataWriter.close();
+        flushAll();
         cache.clear();
-        Path warpsFile = dataFolder.resolve("warps.json");
         try {
-            String json = gson.toJson(warps);
-            Files.writeString(warpsFile, json);
+            backend.close();
         } catch (IOException e) {
-            Log.error("Failed to save warps on shutdown: " + e.getMessage());
-        }
-        if (spawn != null) {
-            Path spawnFile = dataFolder.resolve("spawn.json");
-            try {
-                String json = gson.toJson(spawn);
-                Files.writeString(spawnFile, json);
-            } catch (IOException e) {
-                Log.error("Failed to save spawn on shutdown: " + e.getMessage());
-            }
+            Log.error("Failed to close storage backend: " + e.getMessage());
         }
-
-        // Save UUID index
-        saveUuidIndex();
     }
 }
@@ -0,0 +1,98 @@
+package com.nhulston.essentials.util;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histograms and failure counters for the teleport pipeline, per teleport kind.
+ * <ul>
+ *   <li>SEARCH: finding a destination before the teleport is queued (RTP only)</li>
+ *   <li>PREPARE: loading the destination chunk and finding the safe Y during the delay</li>
+ *   <li>WAIT: time between the delay running out and the teleport executing, spent waiting for PREPARE</li>
+ *   <li>APPLY: putting the Teleport component on the world thread, including any safe Y search done there</li>
+ *   <li>TOTAL: from queueing the teleport to the Teleport component being applied, delay included</li>
+ * </ul>
+ * The chunk lookups and safe Y scans in {@link TeleportUtil} are also timed, across all kinds.
+ * Figures cover the time since startup or the last {@link #reset()}.
+ */
+public final class TeleportMetrics {
+    public enum Kind {
+        HOME, WARP, SPAWN, TPA, RTP, BACK
+    }
+
+    public enum Stage {
+        SEARCH, PREPARE, WAIT, APPLY, TOTAL
+    }
+
+    public enum Failure {
+        WORLD_NOT_LOADED,
+        TARGET_UNAVAILABLE,
+        NO_SAFE_LOCATION,
+        CHUNK_LOAD_FAILED,
+        PLAYER_INVALID,
+        MOVED,
+        ALREADY_PENDING,
+        ERROR
+    }
+
+    private static final Kind[] KINDS = Kind.values();
+    private static final Stage[] STAGES = Stage.values();
+    private static final Failure[] FAILURES = Failure.values();
+
+    private final LatencyHistogram[] stages = new LatencyHistogram[KINDS.length * STAGES.length];
+    private final AtomicLongArray failures = new AtomicLongArray(KINDS.length * FAILURES.length);
+    private final LatencyHistogram chunkLookup = new LatencyHistogram();
+    private final LatencyHistogram safeYScan = new LatencyHistogram();
+
+    public TeleportMetrics() {
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = new LatencyHistogram();
+        }
+    }
+
+    public void record(@Nonnull Kind kind, @Nonnull Stage stage, long nanos) {
+        histogram(kind, stage).recordNanos(nanos);
+    }
+
+    public void fail(@Nonnull Kind kind, @Nonnull Failure failure) {
+        failures.incrementAndGet(kind.ordinal() * FAILURES.length + failure.ordinal());
+    }
+
+    public void recordChunkLookup(long nanos) {
+        chunkLookup.recordNanos(nanos);
+    }
+
+    public void recordSafeYScan(long nanos) {
+        safeYScan.recordNanos(nanos);
+    }
+
+    @Nonnull
+    public LatencyHistogram histogram(@Nonnull Kind kind, @Nonnull Stage stage) {
+        return stages[kind.ordinal() * STAGES.length + stage.ordinal()];
+    }
+
+    public long getFailures(@Nonnull Kind kind, @Nonnull Failure failure) {
+        return failures.get(kind.ordinal() * FAILURES.length + failure.ordinal());
+    }
+
+    @Nonnull
+    public LatencyHistogram getChunkLookup() {
+        return chunkLookup;
+    }
+
+    @Nonnull
+    public LatencyHistogram getSafeYScan() {
+        return safeYScan;
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : stages) {
+            histogram.reset();
+        }
+        for (int i = 0; i < failures.length(); i++) {
+            failures.set(i, 0L);
+        }
+        chunkLookup.reset();
+        safeYScan.reset();
+    }
+}
@@ -5,8 +5,6 @@ import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.math.util.ChunkUtil;
 import com.hypixel.hytale.math.vector.Vector3d;
 import com.hypixel.hytale.math.vector.Vector3f;
-import com.hypixel.hytale.protocol.BlockMaterial;
-import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
 import com.hypixel.hytale.server.core.modules.entity.teleport.Teleport;
 import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
@@ -25,7 +23,44 @@ public final class TeleportUtil {
     private static final float YAW_EAST = (float) Math.toRadians(-90);    
     private static final float YAW_SOUTH = (float) Math.PI;               
     private static final float YAW_WEST = (float) Math.toRadians(90);    
+    private static final int RTP_START_Y = 200;
+    private static volatile ColumnCache columnCache;
+    private static volatile TeleportMetrics metrics;
     private TeleportUtil() {}
+    /**
+     * Sets the shared column cache used by the safe-landing searches. Without one, columns are read on every call.
+     */
+    public static void setColumnCache(@Nullable ColumnCache cache) {
+        columnCache = cache;
+    }
+    /**
+     * Sets where chunk lookup and safe-landing scan times are recorded. Without one, nothing is timed.
+     */
+    public static void setMetrics(@Nullable TeleportMetrics teleportMetrics) {
+        metrics = teleportMetrics;
+    }
+    @Nullable
+    private static WorldChunk getChunk(@Nonnull World world, long chunkIndex) {
+        TeleportMetrics recorder = metrics;
+        if (recorder == null) {
+            return world.getChunk(chunkIndex);
+        }
+        long start = System.nanoTime();
+        WorldChunk chunk = world.getChunk(chunkIndex);
+        recorder.recordChunkLookup(System.nanoTime() - start);
+        return chunk;
+    }
+    private static void recordScan(long start) {
+        TeleportMetrics recorder = metrics;
+        if (recorder != null) {
+            recorder.recordSafeYScan(System.nanoTime() - start);
+        }
+    }
+    @Nonnull
+    private static ColumnCache.ColumnProfile column(@Nonnull World world, @Nonnull WorldChunk chunk, int x, int z) {
+        ColumnCache cache = columnCache;
+        return cache != null ? cache.get(world.getName(), chunk, x, z) : ColumnCache.ColumnProfile.read(chunk, x, z);
+    }
     public static float roundToCardinalYaw(float yawRadians) {
         float yawDegrees = (float) Math.toDegrees(yawRadians);
         yawDegrees = yawDegrees % 360;
@@ -59,6 +94,15 @@ public final class TeleportUtil {
         store.putComponent(ref, Teleport.getComponentType(), teleport);
         return null;
     }
+    /**
+     * Teleports to a position that was already made safe, e.g. by {@link DestinationLoader}.
+     */
+    public static void teleport(@Nonnull Store<EntityStore> store, @Nonnull Ref<EntityStore> ref,
+                                @Nonnull World targetWorld, @Nonnull Vector3d position, float yaw) {
+        Vector3f rotation = new Vector3f(0, roundToCardinalYaw(yaw), 0);
+        Teleport teleport = new Teleport(targetWorld, position.clone(), rotation);
+        store.putComponent(ref, Teleport.getComponentType(), teleport);
+    }
     @Nullable
     public static String teleportSafe(@Nonnull Store<EntityStore> store, @Nonnull Ref<EntityStore> ref,
                                       @Nonnull String worldName, double x, double y, double z,
@@ -154,73 +198,54 @@ public final class TeleportUtil {
         int blockY = (int) Math.floor(y);
         int blockZ = (int) Math.floor(z);
         long chunkIndex = ChunkUtil.indexChunkFromBlock(blockX, blockZ);
-        WorldChunk chunk = world.getChunk(chunkIndex);
+        WorldChunk chunk = getChunk(world, chunkIndex);
         if (chunk == null) {
             return y;
         }
-        for (int offsetY = 0; offsetY < MAX_SAFE_SEARCH; offsetY++) {
-            int checkY = blockY + offsetY;
-            if (hasSpaceForPlayer(chunk, blockX, checkY, blockZ)) {
-                return checkY;
-            }
-        }
-        return y;
+        long start = System.nanoTime();
+        Integer safeY = column(world, chunk, blockX, blockZ).findSpaceAbove(blockY, MAX_SAFE_SEARCH, PLAYER_HEIGHT);
+        recordScan(start);
+        return safeY != null ? safeY : y;
     }
-    private static boolean hasSpaceForPlayer(@Nonnull WorldChunk chunk, int x, int y, int z) {
-        for (int i = 0; i < PLAYER_HEIGHT; i++) {
-            if (isSolidBlock(chunk, x, y + i, z)) {
-                return false;
-            }
-        }
-        return true;
-    }
-    private static boolean isSolidBlock(@Nonnull WorldChunk chunk, int x, int y, int z) {
-        BlockType blockType = chunk.getBlockType(x, y, z);
-        if (blockType == null) {
-            return false;  
-        }
-        BlockMaterial material = blockType.getMaterial();
-        return material == BlockMaterial.Solid;
+    /**
+     * First Y at or above y with room for a player, in a chunk the caller already has.
+     */
+    public static double findSafeY(@Nonnull World world, @Nonnull WorldChunk chunk, double x, double y, double z) {
+        long start = System.nanoTime();
+        Integer safeY = column(world, chunk, (int) Math.floor(x), (int) Math.floor(z))
+                .findSpaceAbove((int) Math.floor(y), MAX_SAFE_SEARCH, PLAYER_HEIGHT);
+        recordScan(start);
+        return safeY != null ? safeY : y;
     }
-    @SuppressWarnings("removal")
-    private static boolean hasFluid(@Nonnull WorldChunk chunk, int x, int y, int z) {
-        return chunk.getFluidId(x, y, z) > 0;
+    /**
+     * Highest solid block Y at or below maxY in a loaded chunk, or null if the column is empty.
+     */
+    @Nullable
+    public static Integer findHighestSolidY(@Nonnull World world, @Nonnull WorldChunk chunk, int x, int z, int maxY) {
+        return column(world, chunk, x, z).highestSolid(maxY);
     }
     @Nullable
     public static Double findSafeRtpY(@Nonnull World world, double x, double z) {
         int blockX = (int) Math.floor(x);
         int blockZ = (int) Math.floor(z);
         long chunkIndex = ChunkUtil.indexChunkFromBlock(blockX, blockZ);
-        WorldChunk chunk = world.getChunk(chunkIndex);
+        WorldChunk chunk = getChunk(world, chunkIndex);
         if (chunk == null) {
             return null;  
         }
-        int startY = 200;
-        int minY = 0;
-        for (int checkY = startY; checkY >= minY; checkY--) {
-            if (hasFluid(chunk, blockX, checkY, blockZ)) {
-                return null;  
-            }
-            if (isSolidBlock(chunk, blockX, checkY, blockZ)) {
-                int spawnY = checkY + 1;
-                if (hasFluid(chunk, blockX, spawnY, blockZ) || 
-                    hasFluid(chunk, blockX, spawnY + 1, blockZ)) {
-                    return null;  
-                }
-                if (isSolidBlock(chunk, blockX, spawnY + 1, blockZ)) {
-                    continue;
-                }
-                return (double) spawnY;
-            }
-        }
-        return null;  
+        return findSafeRtpYFromChunk(chunk, blockX, blockZ);
     }
     @Nonnull
     public static CompletableFuture<Double> findSafeRtpYAsync(@Nonnull World world, double x, double z) {
         int blockX = (int) Math.floor(x);
         int blockZ = (int) Math.floor(z);
         long chunkIndex = ChunkUtil.indexChunkFromBlock(blockX, blockZ);
+        long start = System.nanoTime();
         return world.getChunkAsync(chunkIndex).thenApply(chunk -> {
+            TeleportMetrics recorder = metrics;
+            if (recorder != null) {
+                recorder.recordChunkLookup(System.nanoTime() - start);
+            }
             if (chunk == null) {
                 return null;  
             }
@@ -229,24 +254,10 @@ public final class TeleportUtil {
     }
     @Nullable
     private static Double findSafeRtpYFromChunk(@Nonnull WorldChunk chunk, int blockX, int blockZ) {
-        int startY = 200;
-        int minY = 0;
-        for (int checkY = startY; checkY >= minY; checkY--) {
-            if (hasFluid(chunk, blockX, checkY, blockZ)) {
-                return null;  
-            }
-            if (isSolidBlock(chunk, blockX, checkY, blockZ)) {
-                int spawnY = checkY + 1;
-                if (hasFluid(chunk, blockX, spawnY, blockZ) || 
-                    hasFluid(chunk, blockX, spawnY + 1, blockZ)) {
-                    return null;  
-                }
-                if (isSolidBlock(chunk, blockX, spawnY + 1, blockZ)) {
-                    continue;
-                }
-                return (double) spawnY;
-            }
-        }
-        return null;  
+        long start = System.nanoTime();
+        // Random columns are rarely probed twice, so they skip the column cache
+        Integer landingY = ColumnCache.findDryLanding(chunk, blockX, blockZ, RTP_START_Y);
+        recordScan(start);
+        return landingY != null ? (double) landingY : null;
     }
 }
@@ -0,0 +1,271 @@
+package com.nhulston.essentials.util;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Shared scheduler for delayed actions (TPA expiry, teleport warmups, item clear countdowns).
+ * A hierarchical timing wheel: level 0 has one bucket per tick, and each higher level covers
+ * 64 times the span of the one below. Buckets are intrusive doubly-linked lists of
+ * {@link Timeout}s, so scheduling and cancelling are O(1) and allocate nothing beyond the
+ * Timeout itself. When level 0 wraps, the due bucket of the next level is cascaded down.
+ * <p>
+ * A single daemon thread advances the wheel and runs expired tasks. Tasks must be short;
+ * anything touching a world should be handed to {@code world.execute}.
+ */
+public class TimingWheel {
+    /**
+     * Point-in-time view of the scheduler counters.
+     */
+    public record Stats(long scheduled, long fired, long cancelled, int pending, long tickMillis) {}
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 5;
+    // Deadlines further out than the wheel covers (about 1.7 years at 50ms ticks) are clamped
+    private static final long MAX_TICKS = (1L << (BITS * LEVELS)) - 1;
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final Timeout[][] heads = new Timeout[LEVELS][SLOTS];
+    private final Thread worker;
+    private long currentTick;
+    private int pending;
+    private long scheduledCount;
+    private long firedCount;
+    private long cancelledCount;
+    private volatile boolean running = true;
+
+    public TimingWheel(@Nonnull String threadName, long tickMillis) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1L, tickMillis));
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, threadName);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Runs a task once after the delay, rounded up to the next tick.
+     */
+    @Nonnull
+    public Timeout schedule(@Nonnull Runnable task, long delay, @Nonnull TimeUnit unit) {
+        return add(new Timeout(this, task, 0L), unit.toNanos(delay));
+    }
+
+    /**
+     * Runs a task every period after an initial delay. Runs are timed from the previous deadline,
+     * so a late tick does not shift later runs. The same Timeout is reused for every run.
+     */
+    @Nonnull
+    public Timeout scheduleAtFixedRate(@Nonnull Runnable task, long initialDelay, long period, @Nonnull TimeUnit unit) {
+        return add(new Timeout(this, task, Math.max(tickNanos, unit.toNanos(period))), unit.toNanos(initialDelay));
+    }
+
+    @Nonnull
+    public synchronized Stats getStats() {
+        return new Stats(scheduledCount, firedCount, cancelledCount, pending, TimeUnit.NANOSECONDS.toMillis(tickNanos));
+    }
+
+    /**
+     * Stops the worker thread. Pending tasks are dropped without running.
+     */
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(worker);
+    }
+
+    @Nonnull
+    private synchronized Timeout add(@Nonnull Timeout timeout, long delayNanos) {
+        timeout.deadlineNanos = System.nanoTime() + Math.max(0L, delayNanos);
+        scheduledCount++;
+        pending++;
+        place(timeout, currentTick + 1);
+        return timeout;
+    }
+
+    /**
+     * Puts a timeout in the lowest level whose current rotation still contains its deadline.
+     * {@code minTick} keeps overdue timeouts out of buckets that were already processed.
+     * Must hold the lock.
+     */
+    private void place(@Nonnull Timeout timeout, long minTick) {
+        long deadlineTick = ceilDiv(timeout.deadlineNanos - startNanos, tickNanos);
+        deadlineTick = Math.min(Math.max(deadlineTick, minTick), currentTick + MAX_TICKS);
+        int level = 0;
+        while (level < LEVELS - 1 && (deadlineTick >>> (BITS * (level + 1))) != (currentTick >>> (BITS * (level + 1)))) {
+            level++;
+        }
+        int slot = (int) (deadlineTick >>> (BITS * level)) & MASK;
+        Timeout head = heads[level][slot];
+        timeout.level = level;
+        timeout.slot = slot;
+        timeout.prev = null;
+        timeout.next = head;
+        if (head != null) {
+            head.prev = timeout;
+        }
+        heads[level][slot] = timeout;
+    }
+
+    /**
+     * Must hold the lock.
+     */
+    private void unlink(@Nonnull Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            heads[timeout.level][timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.level = -1;
+    }
+
+    private synchronized boolean cancel(@Nonnull Timeout timeout) {
+        if (timeout.state != Timeout.SCHEDULED) {
+            return false;
+        }
+        timeout.state = Timeout.CANCELLED;
+        if (timeout.level >= 0) {
+            unlink(timeout);
+            pending--;
+        }
+        cancelledCount++;
+        return true;
+    }
+
+    /**
+     * Advances one tick: cascades higher levels whose bucket is now due (highest first, so
+     * their entries land in buckets that are cascaded right after), then detaches the level 0
+     * bucket. Returns the detached list, run by the caller outside the lock.
+     * Must hold the lock.
+     */
+    private Timeout advance() {
+        currentTick++;
+        for (int level = LEVELS - 1; level >= 1; level--) {
+            if ((currentTick & ((1L << (BITS * level)) - 1)) != 0) {
+                continue;
+            }
+            int slot = (int) (currentTick >>> (BITS * level)) & MASK;
+            Timeout timeout = heads[level][slot];
+            heads[level][slot] = null;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                place(timeout, currentTick);
+                timeout = next;
+            }
+        }
+        int slot = (int) currentTick & MASK;
+        Timeout expired = heads[0][slot];
+        heads[0][slot] = null;
+        for (Timeout timeout = expired; timeout != null; timeout = timeout.next) {
+            timeout.level = -1;
+            pending--;
+        }
+        return expired;
+    }
+
+    private void run() {
+        while (running) {
+            long nextTickNanos;
+            synchronized (this) {
+                nextTickNanos = startNanos + (currentTick + 1) * tickNanos;
+            }
+            long wait = nextTickNanos - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+            Timeout expired;
+            synchronized (this) {
+                expired = advance();
+            }
+            while (expired != null) {
+                Timeout next = expired.next;
+                expired.prev = null;
+                expired.next = null;
+                fire(expired);
+                expired = next;
+            }
+        }
+    }
+
+    private void fire(@Nonnull Timeout timeout) {
+        synchronized (this) {
+            if (timeout.state != Timeout.SCHEDULED) {
+                return;
+            }
+            firedCount++;
+            if (timeout.periodNanos == 0L) {
+                timeout.state = Timeout.EXPIRED;
+            }
+        }
+        try {
+            timeout.task.run();
+        } catch (RuntimeException e) {
+            Log.error("Scheduled task failed: " + e.getMessage());
+        }
+        if (timeout.periodNanos > 0L) {
+            synchronized (this) {
+                if (timeout.state == Timeout.SCHEDULED) {
+                    timeout.deadlineNanos += timeout.periodNanos;
+                    pending++;
+                    place(timeout, currentTick + 1);
+                }
+            }
+        }
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return value <= 0 ? 0 : (value + divisor - 1) / divisor;
+    }
+
+    /**
+     * Handle to a scheduled task.
+     */
+    public static final class Timeout {
+        private static final int SCHEDULED = 0;
+        private static final int EXPIRED = 1;
+        private static final int CANCELLED = 2;
+
+        private final TimingWheel wheel;
+        private final Runnable task;
+        private final long periodNanos;
+        private long deadlineNanos;
+        private Timeout prev;
+        private Timeout next;
+        private int level = -1;
+        private int slot;
+        private volatile int state = SCHEDULED;
+
+        private Timeout(@Nonnull TimingWheel wheel, @Nonnull Runnable task, long periodNanos) {
+            this.wheel = wheel;
+            this.task = task;
+            this.periodNanos = periodNanos;
+        }
+
+        /**
+         * Cancels the task if it has not run yet (or, for a repeating task, stops further runs).
+         * @return true if this call cancelled it
+         */
+        public boolean cancel() {
+            return wheel.cancel(this);
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        /**
+         * True once a one-shot task has run.
+         */
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.nhulston.essentials.managers;
+
+import com.hypixel.hytale.math.vector.Vector3i;
+import com.nhulston.essentials.models.PersonalBenchProtection.ProtectionFlag;
+import com.nhulston.essentials.models.Spawn;
+import com.nhulston.essentials.storage.AtomicFileWriter;
+import com.nhulston.essentials.util.ConfigManager;
+import com.nhulston.essentials.util.PermissionCache;
+import com.nhulston.essentials.util.StorageManager;
+import com.nhulston.essentials.util.TimingWheel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Cost of the block protection checks a DamageBlockEvent runs, with and without the chunk
+ * filter in front: the spawn area check and the bench lookup, as BlockProtectionEvent does them,
+ * against the same checks behind {@link ProtectionManager#mightBeProtected}. Uses a protected
+ * spawn, 2000 benches spread over a 16k x 16k area and 1M random mining positions in it.
+ * Only runs with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class ProtectionFilterBenchmarkTest {
+    private static final String WORLD = "default";
+    private static final int HALF_WIDTH = 8192;
+    private static final int BENCHES = 2000;
+    private static final int EVENTS = 1_000_000;
+    private static final int ROUNDS = 5;
+
+    @TempDir
+    Path dataFolder;
+
+    private TimingWheel timingWheel;
+    private StorageManager storageManager;
+    private SpawnProtectionManager spawnProtectionManager;
+    private PersonalBenchManager benchManager;
+    private ProtectionManager protectionManager;
+    private Vector3i[] positions;
+    private int sink;
+
+    @BeforeEach
+    void setUp() {
+        ConfigManager configManager = new ConfigManager(dataFolder);
+        timingWheel = new TimingWheel("Essentials-BenchmarkTimer", 100L);
+        storageManager = new StorageManager(dataFolder, configManager,
+                new AtomicFileWriter(AtomicFileWriter.FsyncPolicy.NONE));
+        storageManager.setSpawn(new Spawn(WORLD, 0.5, 80.0, 0.5, 0.0f, 0.0f));
+        PermissionCache permissionCache = new PermissionCache(30, timingWheel);
+        spawnProtectionManager = new SpawnProtectionManager(configManager, storageManager, permissionCache);
+        benchManager = new PersonalBenchManager(storageManager);
+        protectionManager = new ProtectionManager(spawnProtectionManager, benchManager,
+                new RegionManager(storageManager, permissionCache));
+
+        Random random = new Random(42);
+        for (int i = 0; i < BENCHES; i++) {
+            UUID owner = new UUID(random.nextLong(), random.nextLong());
+            benchManager.recordBenchPlacement(owner, "player" + i, WORLD, coordinate(random), 64,
+                    coordinate(random), "Workbench");
+            benchManager.protectBench(benchManager.getPendingProtection(owner), EnumSet.noneOf(ProtectionFlag.class));
+        }
+        positions = new Vector3i[EVENTS];
+        for (int i = 0; i < EVENTS; i++) {
+            positions[i] = new Vector3i(coordinate(random), 20 + random.nextInt(100), coordinate(random));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        storageManager.shutdown();
+        timingWheel.shutdown();
+    }
+
+    @Test
+    void damageBlockChecks() {
+        int flagged = 0;
+        for (Vector3i pos : positions) {
+            if (protectionManager.mightBeProtected(WORLD, pos.getX(), pos.getZ())) {
+                flagged++;
+            }
+        }
+        long direct = measure(true);
+        long filtered = measure(false);
+        System.out.printf("Without filter: %.1f ns per event%n", (double) direct / EVENTS);
+        System.out.printf("With filter:    %.1f ns per event%n", (double) filtered / EVENTS);
+        System.out.printf("Flagged:        %.1f%% of events%n", 100.0 * flagged / EVENTS);
+        // Both paths must deny exactly the same events
+        assertEquals(deniedCount(true), deniedCount(false));
+    }
+
+    /**
+     * Best time over all positions, after one warm-up pass.
+     */
+    private long measure(boolean direct) {
+        sink += deniedCount(direct);
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            sink += deniedCount(direct);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private int deniedCount(boolean direct) {
+        int denied = 0;
+        for (Vector3i pos : positions) {
+            if ((direct || protectionManager.mightBeProtected(WORLD, pos.getX(), pos.getZ())) && isDenied(pos)) {
+                denied++;
+            }
+        }
+        return denied;
+    }
+
+    /**
+     * The spawn and bench checks of a DamageBlockEvent by a player without bypass.
+     */
+    private boolean isDenied(Vector3i pos) {
+        if (spawnProtectionManager.isEnabled() && spawnProtectionManager.isInProtectedArea(WORLD, pos)) {
+            return true;
+        }
+        return benchManager.getProtection(WORLD, pos.getX(), pos.getY(), pos.getZ()) != null;
+    }
+
+    private static int coordinate(Random random) {
+        return random.nextInt(2 * HALF_WIDTH) - HALF_WIDTH;
+    }
+}
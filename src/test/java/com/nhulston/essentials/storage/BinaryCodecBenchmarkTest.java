@@ -0,0 +1,106 @@
+package com.nhulston.essentials.storage;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.nhulston.essentials.models.Home;
+import com.nhulston.essentials.models.PlayerData;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Size, speed and allocation of binary player records against the Gson encoding the JSON
+ * backend uses. Each operation is timed over 200k runs after a warm-up of the same length,
+ * and the best of five rounds is reported. Only runs with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class BinaryCodecBenchmarkTest {
+    private static final int ITERATIONS = 200_000;
+    private static final int ROUNDS = 5;
+
+    private final Gson gson = new GsonBuilder().create();
+    private long sink;
+
+    @Test
+    void oneHome() throws IOException {
+        compare(1, 0);
+    }
+
+    @Test
+    void fiveHomesTenBack() throws IOException {
+        compare(5, 10);
+    }
+
+    @Test
+    void twentyHomesTenBack() throws IOException {
+        compare(20, 10);
+    }
+
+    private void compare(int homes, int back) throws IOException {
+        PlayerData data = player(homes, back);
+        byte[] json = gson.toJson(data).getBytes(StandardCharsets.UTF_8);
+        byte[] binary = BinaryCodec.encodePlayerData(data);
+        System.out.printf("%d homes, %d back entries: JSON %d bytes, binary %d bytes%n",
+                homes, back, json.length, binary.length);
+        measure("JSON encode", () -> sink += gson.toJson(data).getBytes(StandardCharsets.UTF_8).length);
+        measure("binary encode", () -> sink += BinaryCodec.encodePlayerData(data).length);
+        measure("JSON decode", () -> sink += gson.fromJson(new String(json, StandardCharsets.UTF_8),
+                PlayerData.class).getHomeCount());
+        measure("binary decode", () -> sink += BinaryCodec.decodePlayerData(binary).getHomeCount());
+        assertTrue(binary.length < json.length, "binary record should be smaller than JSON");
+    }
+
+    private interface Operation {
+        void run() throws IOException;
+    }
+
+    private static void measure(String name, Operation operation) throws IOException {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < ITERATIONS; i++) {
+            operation.run();
+        }
+        long best = Long.MAX_VALUE;
+        long allocated = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                operation.run();
+            }
+            long elapsed = System.nanoTime() - start;
+            if (elapsed < best) {
+                best = elapsed;
+                allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+            }
+        }
+        System.out.printf("  %-14s %8.2f us/op %8d B/op%n", name, best / 1000.0 / ITERATIONS, allocated / ITERATIONS);
+    }
+
+    private static PlayerData player(int homes, int back) {
+        PlayerData data = new PlayerData();
+        Random random = new Random(42);
+        for (int i = 0; i < homes; i++) {
+            data.setHome("home" + i, new Home(i % 2 == 0 ? "default" : "nether",
+                    random.nextDouble() * 10000, 64 + random.nextInt(100), random.nextDouble() * 10000,
+                    random.nextFloat() * 360, random.nextFloat() * 90, 1_700_000_000_000L + i));
+        }
+        for (int i = 0; i < 3; i++) {
+            data.setKitCooldown("kit" + i, 1_700_000_000_000L + i);
+        }
+        data.setLastRepairTime(1_700_000_100_000L);
+        data.setLastRtpTime(1_700_000_200_000L);
+        for (int i = 0; i < back; i++) {
+            data.pushBackLocation("default", random.nextDouble() * 10000, 70, random.nextDouble() * 10000,
+                    0f, 0f, (byte) 1, 1_700_000_300_000L + i, back);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,46 @@
+package com.nhulston.essentials.storage;
+
+import com.nhulston.essentials.models.Home;
+import com.nhulston.essentials.models.PlayerData;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryCodecTest {
+    @Test
+    void decodedPlayerDataIsNotDirty() throws IOException {
+        PlayerData original = new PlayerData();
+        original.setHome("base", new Home("default", 10.5, 64.0, -3.25, 90.0f, 0.0f, 1_700_000_000_000L));
+        original.setKitCooldown("starter", 1_700_000_000_000L);
+        original.setLastRepairTime(1_700_000_100_000L);
+        original.setLastRtpTime(1_700_000_200_000L);
+        original.pushBackLocation("default", 1.0, 2.0, 3.0, 0.0f, 0.0f, (byte) 0, 1_700_000_300_000L, 5);
+        assertTrue(original.isDirty());
+
+        PlayerData decoded = BinaryCodec.decodePlayerData(BinaryCodec.encodePlayerData(original));
+
+        assertFalse(decoded.isDirty());
+        Home home = decoded.getHome("base");
+        assertNotNull(home);
+        assertEquals(64.0, home.getY());
+        assertEquals(1_700_000_000_000L, decoded.getKitCooldown("starter"));
+        assertEquals(1_700_000_100_000L, decoded.getLastRepairTime());
+        assertEquals(1_700_000_200_000L, decoded.getLastRtpTime());
+        assertEquals(1, decoded.getBackHistory().size());
+    }
+
+    @Test
+    void decodedPlayerDataBecomesDirtyOnChange() throws IOException {
+        PlayerData decoded = BinaryCodec.decodePlayerData(BinaryCodec.encodePlayerData(new PlayerData()));
+        assertFalse(decoded.isDirty());
+
+        decoded.setLastRtpTime(1L);
+
+        assertTrue(decoded.isDirty());
+    }
+}
@@ -0,0 +1,88 @@
+package com.nhulston.essentials.storage;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Heap retained by the username index against the ConcurrentHashMap it replaced, measured as
+ * the change in used heap after a full GC. Slow and memory hungry (the 1M map needs about 200MB), so it
+ * only runs with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class UsernameIndexFootprintTest {
+    @Test
+    void hundredThousandNames() {
+        compare(100_000);
+    }
+
+    @Test
+    void millionNames() {
+        compare(1_000_000);
+    }
+
+    private static void compare(int count) {
+        long mapBytes = retainedBytes(count, UsernameIndexFootprintTest::buildMap);
+        long indexBytes = retainedBytes(count, UsernameIndexFootprintTest::buildIndex);
+        System.out.printf("%,d names: ConcurrentHashMap %,d bytes (%.1f per name), "
+                        + "UsernameIndex %,d bytes (%.1f per name)%n",
+                count, mapBytes, (double) mapBytes / count, indexBytes, (double) indexBytes / count);
+        assertTrue(indexBytes < mapBytes, "index should be smaller than the map it replaced");
+    }
+
+    /**
+     * Heap still used once the structure is built, over the heap used before building it.
+     */
+    private static long retainedBytes(int count, IntFunction<Object> builder) {
+        long before = usedAfterGc();
+        Object built = builder.apply(count);
+        long after = usedAfterGc();
+        // Keeps the structure reachable until it has been measured
+        assertEquals(count, built instanceof UsernameIndex index ? index.size() : ((Map<?, ?>) built).size());
+        return after - before;
+    }
+
+    private static Object buildMap(int count) {
+        Map<String, UUID> map = new ConcurrentHashMap<>();
+        Random random = new Random(count);
+        for (int i = 0; i < count; i++) {
+            map.put(name(i), new UUID(random.nextLong(), random.nextLong()));
+        }
+        return map;
+    }
+
+    private static Object buildIndex(int count) {
+        UsernameIndex index = new UsernameIndex();
+        Random random = new Random(count);
+        for (int i = 0; i < count; i++) {
+            index.put(name(i), new UUID(random.nextLong(), random.nextLong()));
+        }
+        return index;
+    }
+
+    /**
+     * Distinct lowercase names of 8 to 13 characters, like real usernames.
+     */
+    private static String name(int i) {
+        return "player_" + i;
+    }
+
+    private static long usedAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // A single System.gc() is only a hint; take the lowest of a few
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}